@@ -0,0 +1,152 @@
+package io.kestra.plugin.ollama;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.ollama.client.ChatMessage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micronaut.context.ApplicationContext;
+
+/**
+ * End-to-end cost of a {@link Chat} and a streamed {@link Generate} against an in-process Ollama stub that answers
+ * instantly, compared with {@link #rawHttpClient} posting the same request with the JDK client. The difference is
+ * the overhead added by the plugin: rendering, serialization, parsing and metrics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RequestOverheadBenchmark {
+    private static final String CHAT_RESPONSE = """
+        {"model":"llama3.2","created_at":"2024-07-22T20:33:28.123648Z","message":{"role":"assistant","content":"Kestra orchestrates."},"done":true,"done_reason":"stop","total_duration":1500000000,"load_duration":1000000,"prompt_eval_count":12,"prompt_eval_duration":200000000,"eval_count":4,"eval_duration":1200000000}
+        """;
+
+    private static final String CHAT_REQUEST = """
+        {"model":"llama3.2","messages":[{"role":"user","content":"What is Kestra?"}],"stream":false}
+        """;
+
+    private static final int GENERATE_TOKENS = 128;
+
+    private ApplicationContext applicationContext;
+    private RunContextFactory runContextFactory;
+    private HttpServer server;
+    private HttpClient httpClient;
+    private String host;
+    private RunContext runContext;
+
+    @Setup
+    public void setup() throws IOException {
+        this.applicationContext = ApplicationContext.run();
+        this.runContextFactory = this.applicationContext.getBean(RunContextFactory.class);
+
+        StringBuilder generateResponse = new StringBuilder();
+        for (int i = 0; i < GENERATE_TOKENS; i++) {
+            generateResponse.append("{\"model\":\"llama3.2\",\"response\":\" token-").append(i).append("\",\"done\":false}\n");
+        }
+        generateResponse.append("{\"model\":\"llama3.2\",\"response\":\"\",\"done\":true,\"done_reason\":\"stop\",\"eval_count\":")
+            .append(GENERATE_TOKENS)
+            .append(",\"eval_duration\":1200000000}\n");
+
+        byte[] chat = CHAT_RESPONSE.getBytes(StandardCharsets.UTF_8);
+        byte[] generate = generateResponse.toString().getBytes(StandardCharsets.UTF_8);
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/api/chat", exchange -> respond(exchange, chat));
+        this.server.createContext("/api/generate", exchange -> respond(exchange, generate));
+        this.server.start();
+
+        this.host = "http://127.0.0.1:" + this.server.getAddress().getPort();
+        this.httpClient = HttpClient.newHttpClient();
+    }
+
+    /**
+     * A fresh run context per iteration, so the metrics emitted by the tasks don't pile up for the whole trial.
+     */
+    @Setup(Level.Iteration)
+    public void runContext() {
+        this.runContext = TestsUtils.mockRunContext(this.runContextFactory, chat(), Map.of());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.server.stop(0);
+        this.httpClient.close();
+        this.applicationContext.close();
+    }
+
+    @Benchmark
+    public Chat.Output chatTask() throws Exception {
+        return chat().run(this.runContext);
+    }
+
+    @Benchmark
+    public Generate.Output generateTask() throws Exception {
+        return Generate.builder()
+            .id("benchmark")
+            .type(Generate.class.getName())
+            .host(Property.ofValue(this.host))
+            .model(Property.ofValue("llama3.2"))
+            .prompt(Property.ofValue("Write something"))
+            .build()
+            .run(this.runContext);
+    }
+
+    @Benchmark
+    public String rawHttpClient() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(this.host + "/api/chat"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(CHAT_REQUEST))
+            .build();
+
+        return this.httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private Chat chat() {
+        return Chat.builder()
+            .id("benchmark")
+            .type(Chat.class.getName())
+            .host(Property.ofValue(this.host))
+            .model(Property.ofValue("llama3.2"))
+            .messages(Property.ofValue(List.of(
+                ChatMessage.builder().role("user").content("What is Kestra?").build()
+            )))
+            .build();
+    }
+
+    private static void respond(HttpExchange exchange, byte[] response) throws IOException {
+        try (InputStream input = exchange.getRequestBody()) {
+            input.readAllBytes();
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package io.kestra.plugin.ollama.cli;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.TestsUtils;
+
+import io.micronaut.context.ApplicationContext;
+
+/**
+ * Work done by {@link OllamaCLI} before the container starts: environment resolution, command rendering and the
+ * {@code ollama rm} rewriting.
+ * <p>
+ * Properties cache their rendered value, so every invocation builds its properties again, like a task deserialized
+ * for a new execution, to measure the rendering and not the cache lookup.
+ * <p>
+ * {@link #renderSeparately()} renders the properties one by one as a run used to, to compare with
+ * {@link #resolve()} and {@link #resolveConstant()}, the latter being served from the resolved configurations kept for
+ * tasks without expressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OllamaCLIBenchmark {
+    private static final String COMMANDS = """
+        [
+          "ollama pull {{ inputs.model }}",
+          "ollama run --verbose {{ inputs.model }} \\"{{ inputs.prompt }}\\" > output.txt",
+          "ollama rm {{ inputs.model }}"
+        ]
+        """;
+
+    private static final String ENV = """
+        {"OLLAMA_KEEP_ALIVE": "{{ inputs.keepAlive }}", "OLLAMA_NUM_PARALLEL": "4", "OLLAMA_DEBUG": "false"}
+        """;
+
+    private static final List<String> RENDERED_COMMANDS = List.of(
+        "ollama pull llama3.2",
+        "ollama run --verbose llama3.2 \"Summarize the last release notes\" > output.txt",
+        "ollama rm llama3.2"
+    );
+
+    private ApplicationContext applicationContext;
+    private RunContext runContext;
+
+    @Setup
+    public void setup() {
+        this.applicationContext = ApplicationContext.run();
+
+        this.runContext = TestsUtils.mockRunContext(this.applicationContext.getBean(RunContextFactory.class), task(), Map.of(
+            "host", "http://ollama.internal:11434",
+            "apiKey", "sk-benchmark",
+            "model", "llama3.2",
+            "prompt", "Summarize the last release notes",
+            "keepAlive", "5m"
+        ));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.applicationContext.close();
+    }
+
+    @Benchmark
+    public Map<String, String> getEnv() throws Exception {
+        return task().getEnv(this.runContext);
+    }
+
+    @Benchmark
+    public ResolvedConfig resolve() throws Exception {
+        return ResolvedConfig.resolve(this.runContext, task());
+    }
+
+    @Benchmark
+    public ResolvedConfig resolveConstant() throws Exception {
+        return ResolvedConfig.resolve(this.runContext, constantTask());
+    }
+
+    @Benchmark
+    public Object[] renderSeparately() throws Exception {
+        OllamaCLI task = task();
+
+        return new Object[] {
+            this.runContext.render(task.getEnv()).asMap(String.class, String.class),
+            this.runContext.render(task.getHost()).as(String.class),
+            this.runContext.render(task.getAuth().getApiKey()).as(String.class),
+            this.runContext.render(task.getHosts()).asList(String.class),
+            this.runContext.render(task.getCommands()).asList(String.class),
+            this.runContext.render(task.getEnsureModels()).asList(String.class),
+            this.runContext.render(task.getOutputFiles()).asList(String.class),
+            this.runContext.render(task.getContainerImage()).as(String.class),
+            this.runContext.render(task.getEnableModelCaching()).as(Boolean.class),
+            this.runContext.render(task.getModelCachePath()).as(String.class),
+            this.runContext.render(task.getServerMode()).as(OllamaCLI.ServerMode.class),
+            this.runContext.render(task.getServerStartupTimeout()).as(Duration.class),
+            this.runContext.render(task.getMaxInFlight()).as(Integer.class)
+        };
+    }
+
+    @Benchmark
+    public List<String> renderCommands() throws Exception {
+        return this.runContext.render(task().getCommands()).asList(String.class);
+    }
+
+    @Benchmark
+    public List<String> syncBeforeCleanup() {
+        return OllamaCLI.syncBeforeCleanup(RENDERED_COMMANDS);
+    }
+
+    @Benchmark
+    public String runModel() {
+        return OllamaCLI.runModel(RENDERED_COMMANDS);
+    }
+
+    private static OllamaCLI task() {
+        return OllamaCLI.builder()
+            .id("benchmark")
+            .type(OllamaCLI.class.getName())
+            .host(Property.ofExpression("{{ inputs.host }}"))
+            .auth(OllamaCLI.Auth.builder().apiKey(Property.ofExpression("{{ inputs.apiKey }}")).build())
+            .env(Property.ofExpression(ENV))
+            .commands(Property.ofExpression(COMMANDS))
+            .outputFiles(Property.ofValue(List.of("output.txt")))
+            .build();
+    }
+
+    private static OllamaCLI constantTask() {
+        return OllamaCLI.builder()
+            .id("benchmark-constant")
+            .type(OllamaCLI.class.getName())
+            .host(Property.ofValue("http://ollama.internal:11434"))
+            .env(Property.ofValue(Map.of("OLLAMA_KEEP_ALIVE", "5m", "OLLAMA_NUM_PARALLEL", "4", "OLLAMA_DEBUG", "false")))
+            .commands(Property.ofValue(RENDERED_COMMANDS))
+            .outputFiles(Property.ofValue(List.of("output.txt")))
+            .build();
+    }
+}
@@ -0,0 +1,77 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of a streamed {@code /api/generate} answer, one chunk per token.
+ * <p>
+ * {@link #bufferedReaderLines} decodes every line into a {@link String} before mapping it and is only there as a
+ * reference point for the two readers used by the plugin.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NdjsonReaderBenchmark {
+    private static final String CHUNK = "{\"model\":\"llama3.2\",\"created_at\":\"2024-07-22T20:33:28.123648Z\",\"response\":\" token-%d\",\"done\":false}\n";
+
+    private static final String FINAL_CHUNK = """
+        {"model":"llama3.2","created_at":"2024-07-22T20:33:29.123648Z","response":"","done":true,"done_reason":"stop","total_duration":1500000000,"load_duration":1000000,"prompt_eval_count":12,"prompt_eval_duration":200000000,"eval_count":%d,"eval_duration":1200000000}
+        """;
+
+    @Param({"64", "1024"})
+    public int chunks;
+
+    private byte[] stream;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < chunks; i++) {
+            builder.append(CHUNK.formatted(i));
+        }
+        builder.append(FINAL_CHUNK.formatted(chunks));
+
+        this.stream = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void ndjsonReader(Blackhole blackhole) throws IOException {
+        NdjsonReader reader = new NdjsonReader(new ByteArrayInputStream(this.stream));
+
+        GenerateResponse chunk;
+        while ((chunk = reader.next(GenerateResponse.class)) != null) {
+            blackhole.consume(chunk);
+        }
+    }
+
+    @Benchmark
+    public GenerateResponse generateStreamReader() throws IOException {
+        return new GenerateStreamReader(new ByteArrayInputStream(this.stream)).readTo(Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void bufferedReaderLines(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(this.stream), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                blackhole.consume(OllamaClient.MAPPER.readValue(line, GenerateResponse.class));
+            }
+        }
+    }
+}
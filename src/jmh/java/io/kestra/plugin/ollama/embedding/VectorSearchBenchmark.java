@@ -0,0 +1,89 @@
+package io.kestra.plugin.ollama.embedding;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Top-10 cosine search of one query over memory-mapped 768-dimension embeddings, by scanning every row or through an
+ * {@link HnswIndex} built once in the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VectorSearchBenchmark {
+    private static final int DIMENSIONS = 768;
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"FLOAT32", "FLOAT16"})
+    public EmbeddingFile.Precision precision;
+
+    private Path path;
+    private EmbeddingFile file;
+    private HnswIndex index;
+    private ExecutorService executor;
+    private float[] query;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(1);
+        this.path = Files.createTempFile("vectors", ".emb");
+        try (EmbeddingFileWriter writer = new EmbeddingFileWriter(this.path, this.precision)) {
+            for (int i = 0; i < this.rows; i++) {
+                writer.write("row-" + i, vector(random));
+            }
+        }
+
+        this.file = EmbeddingFile.open(this.path);
+        this.index = HnswIndex.build(this.file, Similarity.COSINE, 16, 100);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.query = vector(random);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.executor.shutdownNow();
+        this.file.close();
+        Files.delete(this.path);
+    }
+
+    @Benchmark
+    public List<List<VectorSearch.Match>> scanSingleThread() throws Exception {
+        return VectorSearch.search(this.file, Similarity.COSINE, new float[][] {this.query}, 10, this.executor, 1);
+    }
+
+    @Benchmark
+    public List<List<VectorSearch.Match>> scanAllProcessors() throws Exception {
+        return VectorSearch.search(this.file, Similarity.COSINE, new float[][] {this.query}, 10, this.executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public List<VectorSearch.Match> hnsw() {
+        return this.index.search(this.file, this.query, 10, 100);
+    }
+
+    private static float[] vector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,214 @@
+package io.kestra.plugin.ollama;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.Task;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.cli.OllamaCLI;
+import io.kestra.plugin.ollama.client.ConcurrencyLimiter;
+import io.kestra.plugin.ollama.client.HostPool;
+import io.kestra.plugin.ollama.client.LoadBalancing;
+import io.kestra.plugin.ollama.client.OllamaClient;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+public abstract class AbstractOllamaTask extends Task {
+    public static final String QUEUE_WAIT_METRIC = "queue.wait.duration";
+
+    private static final URI OLLAMA_CLOUD_HOST = URI.create("https://ollama.com");
+    private static final Duration DEFAULT_QUEUE_TIMEOUT = Duration.ofMinutes(5);
+
+    @Schema(
+        title = "Ollama server host",
+        description = """
+            Address of the Ollama server, using the same format as `OLLAMA_HOST` (e.g. `host.docker.internal:11434` or `https://ollama.example.com`).
+            Defaults to https://ollama.com when `auth` is set, and to `127.0.0.1:11434` otherwise.
+            """
+    )
+    @PluginProperty(group = "connection")
+    protected Property<String> host;
+
+    @Schema(
+        title = "Pool of Ollama server hosts",
+        description = """
+            Spreads runs over several Ollama servers; takes precedence over `host`. Each run picks one host according to `loadBalancing`.
+            Hosts that fail to answer or return a server error are ejected for a growing period (10 seconds up to 5 minutes) and come back automatically.
+            """
+    )
+    @PluginProperty(group = "connection")
+    protected Property<List<String>> hosts;
+
+    @Schema(
+        title = "How a host is picked from `hosts`",
+        description = """
+            `ROUND_ROBIN` uses the hosts one after the other, `LEAST_OUTSTANDING` picks the host with the fewest requests in flight from this worker, and `MODEL_AFFINITY` prefers hosts that already have the model loaded according to `/api/ps`.
+            """
+    )
+    @Builder.Default
+    @PluginProperty(group = "connection")
+    protected Property<LoadBalancing> loadBalancing = Property.ofValue(LoadBalancing.ROUND_ROBIN);
+
+    @Schema(
+        title = "Maximum number of requests in flight per host from this worker",
+        description = """
+            When set, every Ollama task of the worker targeting the same host shares this limit. Requests beyond it wait in the worker, in arrival order, instead of queueing on the server, which keeps latency predictable when the server's `OLLAMA_NUM_PARALLEL` is small.
+            The last value seen for a host applies to all tasks using it.
+            """
+    )
+    @PluginProperty(group = "advanced")
+    @Min(1)
+    protected Property<Integer> maxInFlight;
+
+    @Schema(
+        title = "How long a request may wait for a free slot",
+        description = "Only used with `maxInFlight`. The task fails when no slot frees up in time."
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    protected Property<Duration> queueTimeout = Property.ofValue(DEFAULT_QUEUE_TIMEOUT);
+
+    @Schema(
+        title = "Authentication for Ollama Cloud (Turbo)",
+        description = "When set, requests carry the API key as a bearer token."
+    )
+    @PluginProperty(dynamic = true, group = "connection")
+    protected OllamaCLI.Auth auth;
+
+    @Schema(
+        title = "How long the model stays loaded after the request",
+        description = """
+            Sent as `keep_alive`, overriding the server's `OLLAMA_KEEP_ALIVE` (5 minutes by default). Keep the model loaded through a burst of executions to avoid paying its load time again, or use `PT0S` to free the memory right after the request.
+            A negative duration keeps the model loaded until the server stops.
+            """
+    )
+    @PluginProperty(group = "advanced")
+    protected Property<Duration> keepAlive;
+
+    @Schema(
+        title = "Model name",
+        description = "Name of a model available on the server, e.g. `llama3.2` or `gemma3:1b`."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    protected Property<String> model;
+
+    /**
+     * Returns a client for {@code host}, or for a host picked from {@code hosts}. The client must be closed once
+     * the run is done so the pool stops counting it as in flight.
+     */
+    protected OllamaClient client(RunContext runContext) throws IllegalVariableEvaluationException {
+        return this.limited(runContext, this.connect(runContext));
+    }
+
+    /**
+     * Returns a client for every host of {@code hosts}, bypassing the load balancing, or the client of {@code host}.
+     * Meant for tasks acting on the state of the servers, like loading a model, rather than on a single request.
+     */
+    protected List<OllamaClient> clients(RunContext runContext) throws IllegalVariableEvaluationException {
+        List<String> renderedHosts = runContext.render(this.hosts).asList(String.class);
+        if (renderedHosts.isEmpty()) {
+            return List.of(this.client(runContext));
+        }
+
+        String apiKey = this.renderApiKey(runContext);
+        List<OllamaClient> clients = new ArrayList<>();
+        for (String renderedHost : renderedHosts) {
+            clients.add(this.limited(runContext, new OllamaClient(OllamaClient.resolveHost(renderedHost), apiKey)));
+        }
+        return clients;
+    }
+
+    private OllamaClient limited(RunContext runContext, OllamaClient client) throws IllegalVariableEvaluationException {
+        Integer renderedMaxInFlight = runContext.render(this.maxInFlight).as(Integer.class).orElse(null);
+        if (renderedMaxInFlight == null) {
+            return client;
+        }
+
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.of(client.getBaseUri().toString(), renderedMaxInFlight);
+        Duration renderedQueueTimeout = runContext.render(this.queueTimeout).as(Duration.class).orElse(DEFAULT_QUEUE_TIMEOUT);
+
+        return client.limited(limiter, renderedQueueTimeout, permit -> queueMetrics(runContext, permit, client.getBaseUri().getAuthority()));
+    }
+
+    /**
+     * Reports how long a request waited for a slot of the worker-wide limiter. The number of requests ahead of it is
+     * only logged: Kestra sums the metrics of a run, which would make a queue depth meaningless over many requests.
+     */
+    public static void queueMetrics(RunContext runContext, ConcurrencyLimiter.Permit permit, String host) {
+        runContext.metric(Timer.of(QUEUE_WAIT_METRIC, permit.waited(), "host", host));
+        if (permit.queueDepth() > 0) {
+            runContext.logger().debug("Waited {} for a slot of {} behind {} other requests", permit.waited(), host, permit.queueDepth());
+        }
+    }
+
+    private OllamaClient connect(RunContext runContext) throws IllegalVariableEvaluationException {
+        String apiKey = this.renderApiKey(runContext);
+
+        List<String> renderedHosts = runContext.render(this.hosts).asList(String.class);
+        if (!renderedHosts.isEmpty()) {
+            HostPool pool = HostPool.of(renderedHosts.stream().map(OllamaClient::resolveHost).toList());
+            HostPool.Lease lease = pool.acquire(
+                runContext.render(this.loadBalancing).as(LoadBalancing.class).orElse(LoadBalancing.ROUND_ROBIN),
+                runContext.render(this.model).as(String.class).orElse(null),
+                apiKey
+            );
+            runContext.logger().debug("Using Ollama host {}", lease.uri());
+
+            return new OllamaClient(lease, apiKey);
+        }
+
+        String renderedHost = runContext.render(this.host).as(String.class).orElse(null);
+
+        URI baseUri;
+        if (renderedHost != null) {
+            baseUri = OllamaClient.resolveHost(renderedHost);
+        } else if (apiKey != null) {
+            baseUri = OLLAMA_CLOUD_HOST;
+        } else {
+            baseUri = OllamaClient.DEFAULT_HOST;
+        }
+
+        return new OllamaClient(baseUri, apiKey);
+    }
+
+    private String renderApiKey(RunContext runContext) throws IllegalVariableEvaluationException {
+        return this.auth != null && this.auth.getApiKey() != null
+            ? runContext.render(this.auth.getApiKey()).as(String.class).orElseThrow()
+            : null;
+    }
+
+    /**
+     * Renders {@code keepAlive} in the format of the {@code keep_alive} field, or null to use the server default.
+     */
+    protected String renderKeepAlive(RunContext runContext) throws IllegalVariableEvaluationException {
+        return runContext.render(this.keepAlive).as(Duration.class).map(AbstractOllamaTask::keepAlive).orElse(null);
+    }
+
+    static String keepAlive(Duration duration) {
+        if (duration.isNegative()) {
+            return "-1";
+        }
+
+        return duration.toMillis() % 1000 == 0 ? duration.toSeconds() + "s" : duration.toMillis() + "ms";
+    }
+
+    protected static Duration nanos(Long value) {
+        return value == null ? null : Duration.ofNanos(value);
+    }
+}
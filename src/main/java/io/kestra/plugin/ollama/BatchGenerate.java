@@ -0,0 +1,453 @@
+package io.kestra.plugin.ollama;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValue;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
+import io.kestra.plugin.ollama.client.GenerateRequest;
+import io.kestra.plugin.ollama.client.GenerateResponse;
+import io.kestra.plugin.ollama.client.OllamaClient;
+import io.kestra.plugin.ollama.client.OllamaException;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Run a prompt template over every row of a file",
+    description = """
+        Reads an ION or JSONL file from internal storage row by row, renders `prompt` for each row with the row available as `row`, and sends up to `concurrency` requests to `/api/generate` at a time.
+        Results are written in input order to an ION file, each row with an added `response` field. Completed rows wait in a reorder buffer of at most four times `concurrency` rows, so memory stays bounded whatever the size of the file.
+        Rows that still fail after `maxRetries` retries are written, with their error, to a separate file instead of failing the task.
+        With `checkpointInterval`, progress is saved to the KV store as rows complete, and a retry or a restart of the task resumes after the last checkpoint instead of answering every row again.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Classify every review of a file",
+            code = """
+                id: ollama_batch_generate
+                namespace: company.team
+
+                inputs:
+                  - id: reviews
+                    type: FILE
+
+                tasks:
+                  - id: classify
+                    type: io.kestra.plugin.ollama.BatchGenerate
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    from: "{{ inputs.reviews }}"
+                    prompt: |
+                      Answer with one word, positive or negative.
+                      Review: {{ row.text }}
+                    concurrency: 16
+                    options:
+                      temperature: 0
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Resume a long batch where it stopped when the task is retried",
+            code = """
+                id: ollama_batch_generate_resumable
+                namespace: company.team
+
+                inputs:
+                  - id: documents
+                    type: FILE
+
+                tasks:
+                  - id: summarize
+                    type: io.kestra.plugin.ollama.BatchGenerate
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    from: "{{ inputs.documents }}"
+                    prompt: "Summarize in one sentence: {{ row.content }}"
+                    concurrency: 8
+                    checkpointInterval: 500
+                    retry:
+                      type: constant
+                      interval: PT1M
+                      maxAttempts: 3
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = AbstractOllamaTask.QUEUE_WAIT_METRIC, type = Timer.TYPE, description = "Time a request waited for a slot of `maxInFlight`, tagged by `host`."),
+        @Metric(name = BatchGenerate.RECORDS_METRIC, type = Counter.TYPE, description = "Number of rows answered by the model."),
+        @Metric(name = BatchGenerate.FAILED_METRIC, type = Counter.TYPE, description = "Number of rows written to the failed rows file."),
+        @Metric(name = BatchGenerate.RETRIES_METRIC, type = Counter.TYPE, description = "Number of retried requests."),
+        @Metric(name = CompletionMetrics.PROMPT_TOKENS, type = Counter.TYPE, unit = "tokens", description = "Tokens in the prompts of all rows, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.EVAL_TOKENS, type = Counter.TYPE, unit = "tokens", description = "Tokens generated for all rows, tagged by `model` and `host`.")
+    }
+)
+public class BatchGenerate extends AbstractOllamaTask implements RunnableTask<BatchGenerate.Output> {
+    static final String RECORDS_METRIC = "records";
+    static final String FAILED_METRIC = "failed";
+    static final String RETRIES_METRIC = "retries";
+    static final String RESPONSE_FIELD = "response";
+    static final String ERROR_FIELD = "error";
+
+    private static final int REORDER_BUFFER_FACTOR = 4;
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+    private static final Duration CHECKPOINT_TTL = Duration.ofDays(7);
+
+    @Schema(
+        title = "File to process",
+        description = "Internal storage URI of an ION or JSONL file. Each row is either a string or an object."
+    )
+    @NotNull
+    @PluginProperty(internalStorageURI = true, group = "source")
+    private Property<String> from;
+
+    @Schema(
+        title = "Prompt template",
+        description = "Rendered once per row, with the current row available as `row`, e.g. `Summarize: {{ row.text }}`."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> prompt;
+
+    @Schema(
+        title = "System prompt",
+        description = "Same for every row. Overrides the system prompt defined in the model's Modelfile."
+    )
+    @PluginProperty(group = "main")
+    private Property<String> system;
+
+    @Schema(
+        title = "Model options",
+        description = "Runtime parameters such as `temperature`, `seed` or `num_predict`, passed as-is in the `options` field of every request."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Map<String, Object>> options;
+
+    @Schema(
+        title = "Maximum number of requests in flight",
+        description = "Each request runs on its own virtual thread. Keep it in line with the server's `OLLAMA_NUM_PARALLEL`."
+    )
+    @Builder.Default
+    @Min(1)
+    @PluginProperty(group = "execution")
+    private Property<Integer> concurrency = Property.ofValue(4);
+
+    @Schema(
+        title = "Number of retries of a failed row",
+        description = "Connection errors, server errors and `429` answers are retried with an exponential backoff starting at `retryDelay`. Other errors are not retried."
+    )
+    @Builder.Default
+    @Min(0)
+    @PluginProperty(group = "execution")
+    private Property<Integer> maxRetries = Property.ofValue(2);
+
+    @Schema(
+        title = "Delay before the first retry of a row",
+        description = "Doubled after each attempt, up to one minute."
+    )
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    private Property<Duration> retryDelay = Property.ofValue(Duration.ofSeconds(1));
+
+    @Schema(
+        title = "Number of completed rows between two checkpoints",
+        description = """
+            When set, the rows completed since the previous checkpoint are uploaded to internal storage and the number of rows done is saved in the KV store of the flow namespace under `checkpointKey`.
+            A later attempt of the same task run, after a task `retry` or a restart of the execution, skips the rows already done and appends to the output saved so far. At most `checkpointInterval` rows plus the rows in flight are answered twice.
+            The checkpoint is deleted once the task succeeds, and otherwise expires after 7 days.
+            """
+    )
+    @Min(1)
+    @PluginProperty(group = "execution")
+    private Property<Integer> checkpointInterval;
+
+    @Schema(
+        title = "KV key of the checkpoint",
+        description = "Only used with `checkpointInterval`. Defaults to a key unique to the task run, which is kept by retries and restarts."
+    )
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    private Property<String> checkpointKey = Property.ofExpression("ollama_checkpoint_{{ taskrun.id }}");
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        String renderedModel = runContext.render(this.model).as(String.class).orElseThrow();
+        URI renderedFrom = URI.create(runContext.render(this.from).as(String.class).orElseThrow());
+        String renderedSystem = runContext.render(this.system).as(String.class).orElse(null);
+        Map<String, Object> renderedOptions = runContext.render(this.options).asMap(String.class, Object.class);
+        int renderedConcurrency = runContext.render(this.concurrency).as(Integer.class).orElse(4);
+        int renderedMaxRetries = runContext.render(this.maxRetries).as(Integer.class).orElse(2);
+        Duration renderedRetryDelay = runContext.render(this.retryDelay).as(Duration.class).orElse(Duration.ofSeconds(1));
+        String renderedKeepAlive = this.renderKeepAlive(runContext);
+        Integer renderedCheckpointInterval = runContext.render(this.checkpointInterval).as(Integer.class).orElse(null);
+
+        KVStore kvStore = null;
+        String renderedCheckpointKey = null;
+        Checkpoint checkpoint = Checkpoint.empty(renderedFrom);
+        if (renderedCheckpointInterval != null) {
+            kvStore = runContext.namespaceKv(runContext.flowInfo().namespace());
+            renderedCheckpointKey = runContext.render(this.checkpointKey).as(String.class).orElseThrow();
+            checkpoint = resume(runContext, kvStore, renderedCheckpointKey, renderedFrom).orElse(checkpoint);
+        }
+
+        Semaphore requests = new Semaphore(renderedConcurrency);
+        AtomicLong count = new AtomicLong(checkpoint.count());
+        AtomicLong failed = new AtomicLong(checkpoint.failedCount());
+        AtomicLong answered = new AtomicLong();
+        AtomicLong retries = new AtomicLong();
+        AtomicLong promptTokens = new AtomicLong();
+        AtomicLong evalTokens = new AtomicLong();
+        KVStore checkpointStore = kvStore;
+        String checkpointStoreKey = renderedCheckpointKey;
+        long skip = checkpoint.offset();
+        String hostTag;
+        URI uri;
+        URI failedUri;
+
+        try (
+            OllamaClient client = this.client(runContext);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(renderedFrom), StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE);
+            CheckpointedWriter writer = new CheckpointedWriter(runContext, checkpoint.parts());
+            CheckpointedWriter failedWriter = new CheckpointedWriter(runContext, checkpoint.failedParts());
+            MappingIterator<Object> rows = JacksonMapper.ofIon().readerFor(Object.class).readValues(reader);
+            OrderedDispatcher<RowResult> dispatcher = new OrderedDispatcher<>(
+                Executors.newVirtualThreadPerTaskExecutor(),
+                renderedConcurrency * REORDER_BUFFER_FACTOR,
+                result -> {
+                    retries.addAndGet(result.attempts() - 1);
+                    if (result.error() != null) {
+                        failedWriter.write(withField(result.row(), ERROR_FIELD, result.error()));
+                        failed.incrementAndGet();
+                    } else {
+                        writer.write(withField(result.row(), RESPONSE_FIELD, result.response().response()));
+                        count.incrementAndGet();
+                        answered.incrementAndGet();
+                        promptTokens.addAndGet(result.response().promptEvalCount() == null ? 0 : result.response().promptEvalCount());
+                        evalTokens.addAndGet(result.response().evalCount() == null ? 0 : result.response().evalCount());
+                    }
+
+                    // results reach the sink in input order, so every row before the offset is done
+                    long offset = count.get() + failed.get();
+                    if (checkpointStore != null && offset % renderedCheckpointInterval == 0) {
+                        checkpoint(checkpointStore, checkpointStoreKey, new Checkpoint(
+                            renderedFrom.toString(),
+                            offset,
+                            count.get(),
+                            failed.get(),
+                            writer.commit(),
+                            failedWriter.commit()
+                        ));
+                    }
+                }
+            )
+        ) {
+            hostTag = client.getBaseUri().getAuthority();
+
+            for (long skipped = 0; skipped < skip && rows.hasNext(); skipped++) {
+                rows.next();
+            }
+
+            while (rows.hasNext()) {
+                Object row = rows.next();
+
+                // rendered on the reading thread, the request threads only do I/O
+                String renderedPrompt;
+                try {
+                    renderedPrompt = runContext.render(this.prompt).skipCache().as(String.class, Map.of("row", row)).orElseThrow();
+                } catch (Exception e) {
+                    dispatcher.submit(() -> new RowResult(row, null, "Unable to render the prompt: " + e.getMessage(), 1));
+                    continue;
+                }
+
+                GenerateRequest request = new GenerateRequest(
+                    renderedModel,
+                    renderedPrompt,
+                    renderedSystem,
+                    false,
+                    null,
+                    renderedOptions.isEmpty() ? null : renderedOptions,
+                    renderedKeepAlive
+                );
+
+                dispatcher.submit(() -> generate(runContext, client, requests, row, request, renderedMaxRetries, renderedRetryDelay));
+            }
+
+            dispatcher.finish();
+            uri = writer.finish();
+            failedUri = failed.get() > 0 ? failedWriter.finish() : null;
+        }
+
+        if (checkpointStore != null) {
+            checkpointStore.delete(checkpointStoreKey);
+        }
+
+        runContext.metric(Counter.of(RECORDS_METRIC, answered.get()));
+        runContext.metric(Counter.of(FAILED_METRIC, failed.get()));
+        runContext.metric(Counter.of(RETRIES_METRIC, retries.get()));
+        runContext.metric(Counter.of(CompletionMetrics.PROMPT_TOKENS, promptTokens.get(), "model", renderedModel, "host", hostTag));
+        runContext.metric(Counter.of(CompletionMetrics.EVAL_TOKENS, evalTokens.get(), "model", renderedModel, "host", hostTag));
+
+        if (failed.get() > 0) {
+            runContext.logger().warn("{} of {} rows failed, see the `failedUri` output", failed.get(), failed.get() + count.get());
+        }
+
+        return Output.builder()
+            .uri(uri)
+            .count(count.get())
+            .failedUri(failedUri)
+            .failedCount(failed.get())
+            .build();
+    }
+
+    /**
+     * Returns the checkpoint left by a previous attempt, unless it was made for another file.
+     */
+    private static Optional<Checkpoint> resume(RunContext runContext, KVStore kvStore, String key, URI from) throws IOException {
+        Optional<Checkpoint> checkpoint;
+        try {
+            checkpoint = kvStore.getValue(key)
+                .map(KVValue::value)
+                .map(value -> JacksonMapper.ofJson().convertValue(value, Checkpoint.class));
+        } catch (Exception e) {
+            runContext.logger().warn("Ignoring unreadable checkpoint '{}': {}", key, e.getMessage());
+            return Optional.empty();
+        }
+
+        if (checkpoint.isPresent() && !from.toString().equals(checkpoint.get().from())) {
+            runContext.logger().warn("Ignoring checkpoint '{}', made for another file", key);
+            return Optional.empty();
+        }
+
+        checkpoint.ifPresent(found -> runContext.logger().info("Resuming from checkpoint '{}' after {} rows", key, found.offset()));
+        return checkpoint;
+    }
+
+    private static void checkpoint(KVStore kvStore, String key, Checkpoint checkpoint) throws IOException {
+        kvStore.put(key, new KVValueAndMetadata(
+            new KVMetadata("Ollama BatchGenerate checkpoint", CHECKPOINT_TTL),
+            JacksonMapper.ofJson().convertValue(checkpoint, JacksonMapper.MAP_TYPE_REFERENCE)
+        ));
+    }
+
+    /**
+     * Sends one row, retrying transient failures. Never throws for a row-level error, which is reported in the
+     * result instead so that the rest of the file keeps going.
+     */
+    private static RowResult generate(RunContext runContext, OllamaClient client, Semaphore requests, Object row, GenerateRequest request, int maxRetries, Duration retryDelay) throws InterruptedException {
+        Duration delay = retryDelay;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                requests.acquire();
+                try {
+                    return new RowResult(row, client.post("/api/generate", request, GenerateResponse.class), null, attempt);
+                } finally {
+                    requests.release();
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (attempt > maxRetries || !retryable(e)) {
+                    return new RowResult(row, null, e.getMessage(), attempt);
+                }
+
+                runContext.logger().debug("Attempt {} failed, retrying in {}: {}", attempt, delay, e.getMessage());
+                Thread.sleep(delay.toMillis());
+                delay = delay.multipliedBy(2).compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay.multipliedBy(2);
+            }
+        }
+    }
+
+    private static boolean retryable(Exception e) {
+        if (e instanceof OllamaException ollamaException) {
+            return ollamaException.getStatusCode() >= 500 || ollamaException.getStatusCode() == 429;
+        }
+
+        return e instanceof IOException;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> withField(Object row, String field, Object value) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (row instanceof Map<?, ?> map) {
+            result.putAll((Map<String, Object>) map);
+        } else {
+            result.put(Embed.INPUT_FIELD, row);
+        }
+        result.put(field, value);
+
+        return result;
+    }
+
+    private record RowResult(Object row, GenerateResponse response, String error, int attempts) {
+    }
+
+    /**
+     * Progress saved in the KV store: the first {@code offset} rows of {@code from} are done and their results are in
+     * the uploaded parts.
+     */
+    record Checkpoint(String from, long offset, long count, long failedCount, List<URI> parts, List<URI> failedParts) {
+        static Checkpoint empty(URI from) {
+            return new Checkpoint(from.toString(), 0, 0, 0, List.of(), List.of());
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "URI of the file holding the answered rows",
+            description = "Rows are in input order, each with an added `response` field, or `{input, response}` when rows are strings."
+        )
+        private final URI uri;
+
+        @Schema(title = "Number of answered rows")
+        private final Long count;
+
+        @Schema(
+            title = "URI of the file holding the failed rows",
+            description = "Each failed row with an added `error` field. Only set when at least one row failed."
+        )
+        private final URI failedUri;
+
+        @Schema(title = "Number of failed rows")
+        private final Long failedCount;
+    }
+}
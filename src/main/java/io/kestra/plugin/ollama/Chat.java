@@ -0,0 +1,223 @@
+package io.kestra.plugin.ollama;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.cache.ResponseCache;
+import io.kestra.plugin.ollama.client.ChatMessage;
+import io.kestra.plugin.ollama.client.ChatRequest;
+import io.kestra.plugin.ollama.client.ChatResponse;
+import io.kestra.plugin.ollama.client.OllamaClient;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Chat with an Ollama model over HTTP",
+    description = "Sends the conversation to the `/api/chat` endpoint of an existing Ollama server and returns the assistant reply with token counts and timings. No container is started, so the task only adds the HTTP round trip to the model latency."
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Ask a question to a model served by a remote Ollama host",
+            code = """
+                id: ollama_chat
+                namespace: company.team
+
+                inputs:
+                  - id: prompt
+                    type: STRING
+                    defaults: Tell me a joke about AI
+
+                tasks:
+                  - id: chat
+                    type: io.kestra.plugin.ollama.Chat
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    messages:
+                      - role: system
+                        content: You are a concise assistant.
+                      - role: user
+                        content: "{{ inputs.prompt }}"
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Classify tickets and reuse answers for identical inputs",
+            code = """
+                id: ollama_chat_cached
+                namespace: company.team
+
+                inputs:
+                  - id: ticket
+                    type: STRING
+
+                tasks:
+                  - id: classify
+                    type: io.kestra.plugin.ollama.Chat
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    options:
+                      temperature: 0
+                      seed: 42
+                    responseCache:
+                      store: KV
+                      ttl: P7D
+                    messages:
+                      - role: system
+                        content: Answer with one of BUG, FEATURE or QUESTION.
+                      - role: user
+                        content: "{{ inputs.ticket }}"
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Spread requests over a pool of GPU servers, preferring those that already have the model loaded",
+            code = """
+                id: ollama_chat_pool
+                namespace: company.team
+
+                tasks:
+                  - id: chat
+                    type: io.kestra.plugin.ollama.Chat
+                    hosts:
+                      - gpu-1.internal:11434
+                      - gpu-2.internal:11434
+                      - gpu-3.internal:11434
+                    loadBalancing: MODEL_AFFINITY
+                    model: llama3.2
+                    messages:
+                      - role: user
+                        content: Summarize the benefits of workflow orchestration.
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = AbstractOllamaTask.QUEUE_WAIT_METRIC, type = Timer.TYPE, description = "Time a request waited for a slot of `maxInFlight`, tagged by `host`."),
+        @Metric(name = CompletionMetrics.PROMPT_TOKENS, type = Counter.TYPE, unit = "tokens", description = "Tokens in the prompt, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.EVAL_TOKENS, type = Counter.TYPE, unit = "tokens", description = "Tokens generated by the model, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.TIME_TO_FIRST_TOKEN, type = Timer.TYPE, description = "Model load time plus prompt evaluation time, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.LOAD_DURATION, type = Timer.TYPE, description = "Time spent loading the model, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.PROMPT_EVAL_DURATION, type = Timer.TYPE, description = "Time spent evaluating the prompt, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.EVAL_DURATION, type = Timer.TYPE, description = "Time spent generating tokens, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.TOTAL_DURATION, type = Timer.TYPE, description = "Total time spent by the server on the request, tagged by `model` and `host`."),
+        @Metric(name = ResponseCache.HITS_METRIC, type = Counter.TYPE, description = "Requests answered from the response cache."),
+        @Metric(name = ResponseCache.MISSES_METRIC, type = Counter.TYPE, description = "Requests sent to the server because no cached answer was found.")
+    }
+)
+public class Chat extends AbstractOllamaTask implements RunnableTask<Chat.Output> {
+    @Schema(
+        title = "Conversation sent to the model",
+        description = "Messages are sent in order; the last one is usually the `user` prompt."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<List<ChatMessage>> messages;
+
+    @Schema(
+        title = "Model options",
+        description = "Runtime parameters such as `temperature`, `seed` or `num_ctx`, passed as-is in the `options` field of the request."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Map<String, Object>> options;
+
+    @Schema(
+        title = "Cache answers of identical requests",
+        description = "Opt-in. Requests with the same model digest, messages and options are answered from the cache without reaching the server."
+    )
+    @PluginProperty(group = "advanced")
+    private ResponseCache responseCache;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        String renderedModel = runContext.render(this.model).as(String.class).orElseThrow();
+        List<ChatMessage> renderedMessages = runContext.render(this.messages).asList(ChatMessage.class);
+        Map<String, Object> renderedOptions = runContext.render(this.options).asMap(String.class, Object.class);
+
+        ChatRequest request = new ChatRequest(
+            renderedModel,
+            renderedMessages,
+            false,
+            null,
+            renderedOptions.isEmpty() ? null : renderedOptions,
+            this.renderKeepAlive(runContext)
+        );
+
+        ChatResponse response;
+        try (OllamaClient client = this.client(runContext)) {
+            response = this.responseCache != null
+                ? this.responseCache.getOrCompute(runContext, client, renderedModel, request, ChatResponse.class, () -> chat(runContext, client, request))
+                : chat(runContext, client, request);
+        }
+
+        return Output.builder()
+            .model(response.model())
+            .message(response.message())
+            .doneReason(response.doneReason())
+            .promptEvalCount(response.promptEvalCount())
+            .evalCount(response.evalCount())
+            .totalDuration(nanos(response.totalDuration()))
+            .loadDuration(nanos(response.loadDuration()))
+            .promptEvalDuration(nanos(response.promptEvalDuration()))
+            .evalDuration(nanos(response.evalDuration()))
+            .build();
+    }
+
+    private static ChatResponse chat(RunContext runContext, OllamaClient client, ChatRequest request) throws Exception {
+        ChatResponse response = client.post("/api/chat", request, ChatResponse.class);
+        CompletionMetrics.emit(runContext, response, request.model(), client.getBaseUri().getAuthority());
+        return response;
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "Model that produced the reply")
+        private final String model;
+
+        @Schema(title = "Assistant reply")
+        private final ChatMessage message;
+
+        @Schema(
+            title = "Reason the generation stopped",
+            description = "Usually `stop`, or `length` when the token limit was reached."
+        )
+        private final String doneReason;
+
+        @Schema(title = "Number of tokens in the prompt")
+        private final Long promptEvalCount;
+
+        @Schema(title = "Number of tokens in the reply")
+        private final Long evalCount;
+
+        @Schema(title = "Total time spent by the server on the request")
+        private final Duration totalDuration;
+
+        @Schema(title = "Time spent loading the model")
+        private final Duration loadDuration;
+
+        @Schema(title = "Time spent evaluating the prompt")
+        private final Duration promptEvalDuration;
+
+        @Schema(title = "Time spent generating the reply")
+        private final Duration evalDuration;
+    }
+}
@@ -0,0 +1,106 @@
+package io.kestra.plugin.ollama;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+
+/**
+ * ION output written in parts: each {@link #commit()} uploads the rows written since the previous one to internal
+ * storage, so they survive a failure of the task and a later attempt can start from them instead of from scratch.
+ * <p>
+ * Without any commit this is a plain ION file uploaded once by {@link #finish()}.
+ */
+final class CheckpointedWriter implements Closeable {
+    private final RunContext runContext;
+    private final List<URI> parts;
+    private Path file;
+    private Writer writer;
+    private SequenceWriter sequenceWriter;
+    private long pending;
+
+    CheckpointedWriter(RunContext runContext, List<URI> parts) throws IOException {
+        this.runContext = runContext;
+        this.parts = new ArrayList<>(parts);
+        this.open();
+    }
+
+    void write(Object row) throws IOException {
+        this.sequenceWriter.write(row);
+        this.pending++;
+    }
+
+    /**
+     * Uploads the rows written since the last commit as a new part, and returns every part uploaded so far, including
+     * those of previous attempts.
+     */
+    List<URI> commit() throws IOException {
+        if (this.pending > 0) {
+            this.closeCurrent();
+            this.parts.add(this.runContext.storage().putFile(this.file.toFile()));
+            this.open();
+        }
+
+        return List.copyOf(this.parts);
+    }
+
+    /**
+     * Uploads the whole output as a single file: the committed parts followed by the rows written since.
+     */
+    URI finish() throws IOException {
+        this.closeCurrent();
+        if (this.parts.isEmpty()) {
+            return this.runContext.storage().putFile(this.file.toFile());
+        }
+
+        Path merged = this.runContext.workingDir().createTempFile(".ion");
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(merged), FileSerde.BUFFER_SIZE)) {
+            for (URI part : this.parts) {
+                try (InputStream input = this.runContext.storage().getFile(part)) {
+                    input.transferTo(output);
+                }
+                // parts don't end with a separator, and two ION values can't be glued together
+                output.write('\n');
+            }
+            Files.copy(this.file, output);
+        }
+
+        return this.runContext.storage().putFile(merged.toFile());
+    }
+
+    private void open() throws IOException {
+        this.file = this.runContext.workingDir().createTempFile(".ion");
+        this.writer = new BufferedWriter(new FileWriter(this.file.toFile(), StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE);
+        this.sequenceWriter = FileSerde.createSequenceWriter(JacksonMapper.ofIon(), this.writer, JacksonMapper.OBJECT_TYPE_REFERENCE);
+        this.pending = 0;
+    }
+
+    private void closeCurrent() throws IOException {
+        if (this.sequenceWriter != null) {
+            this.sequenceWriter.close();
+            this.writer.close();
+            this.sequenceWriter = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.closeCurrent();
+    }
+}
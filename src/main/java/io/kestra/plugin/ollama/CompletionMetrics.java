@@ -0,0 +1,74 @@
+package io.kestra.plugin.ollama;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.client.CompletionStats;
+
+/**
+ * Turns the token counts and timings returned by Ollama with every completion into Kestra task metrics,
+ * tagged with {@code model} and {@code host} so they can be compared across models and GPU servers.
+ */
+public final class CompletionMetrics {
+    public static final String PROMPT_TOKENS = "tokens.prompt";
+    public static final String EVAL_TOKENS = "tokens.eval";
+    public static final String TOTAL_DURATION = "duration.total";
+    public static final String LOAD_DURATION = "duration.load";
+    public static final String PROMPT_EVAL_DURATION = "duration.prompt.eval";
+    public static final String EVAL_DURATION = "duration.eval";
+    public static final String TIME_TO_FIRST_TOKEN = "time.to.first.token";
+
+    private CompletionMetrics() {
+    }
+
+    /**
+     * Emits the metrics available in {@code stats}; fields the server did not send are skipped.
+     * Time to first token is the model load time plus the prompt evaluation time, as seen by the server.
+     * No throughput is emitted: Kestra sums the metrics of a run, so a rate would be meaningless as soon as a task
+     * makes several calls. It is derived instead as {@code tokens.eval} divided by {@code duration.eval}.
+     */
+    public static void emit(RunContext runContext, CompletionStats stats, String model, String host) {
+        String[] tags = tags(stats.model() != null ? stats.model() : model, host);
+
+        if (stats.promptEvalCount() != null) {
+            runContext.metric(Counter.of(PROMPT_TOKENS, stats.promptEvalCount(), tags));
+        }
+
+        if (stats.evalCount() != null) {
+            runContext.metric(Counter.of(EVAL_TOKENS, stats.evalCount(), tags));
+        }
+
+        timer(runContext, TOTAL_DURATION, stats.totalDuration(), tags);
+        timer(runContext, LOAD_DURATION, stats.loadDuration(), tags);
+        timer(runContext, PROMPT_EVAL_DURATION, stats.promptEvalDuration(), tags);
+        timer(runContext, EVAL_DURATION, stats.evalDuration(), tags);
+
+        if (stats.promptEvalDuration() != null) {
+            long loadDuration = stats.loadDuration() != null ? stats.loadDuration() : 0;
+            timer(runContext, TIME_TO_FIRST_TOKEN, loadDuration + stats.promptEvalDuration(), tags);
+        }
+    }
+
+    private static void timer(RunContext runContext, String name, Long nanos, String[] tags) {
+        if (nanos != null) {
+            runContext.metric(Timer.of(name, Duration.ofNanos(nanos), tags));
+        }
+    }
+
+    private static String[] tags(String model, String host) {
+        List<String> tags = new ArrayList<>(4);
+        if (model != null) {
+            tags.add("model");
+            tags.add(model);
+        }
+        if (host != null) {
+            tags.add("host");
+            tags.add(host);
+        }
+        return tags.toArray(String[]::new);
+    }
+}
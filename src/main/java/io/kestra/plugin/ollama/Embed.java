@@ -0,0 +1,481 @@
+package io.kestra.plugin.ollama;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.ollama.cache.EmbeddingCache;
+import io.kestra.plugin.ollama.client.EmbedBatcher;
+import io.kestra.plugin.ollama.client.EmbedBatching;
+import io.kestra.plugin.ollama.client.EmbedRequest;
+import io.kestra.plugin.ollama.client.OllamaClient;
+import io.kestra.plugin.ollama.embedding.EmbeddingFile;
+import io.kestra.plugin.ollama.embedding.EmbeddingFileWriter;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Embed every row of a file with an Ollama model",
+    description = """
+        Reads an ION or JSONL file from internal storage row by row, groups rows into batches sent to the `/api/embed` endpoint, and writes each row back with its `embedding` vector, in input order.
+        Up to `concurrency` batches are in flight at once over a shared connection pool, so only a bounded number of rows is held in memory.
+        With `format: BINARY`, only the vectors are written, as a little-endian float32 or float16 matrix followed by an index of row IDs: about a quarter of the size of the JSON text, and read without any parsing by memory-mapping it with `io.kestra.plugin.ollama.embedding.EmbeddingFile`.
+        With a `cache`, texts already embedded by the same model are taken from internal storage instead of the server, and only the others are sent, still `batchSize` at a time.
+        With `batching`, the requests of concurrent runs on the same worker are combined into larger ones, which keeps the server's GPU busy when many small files are embedded in parallel.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Embed a JSONL file of documents",
+            code = """
+                id: ollama_embed
+                namespace: company.team
+
+                inputs:
+                  - id: documents
+                    type: FILE
+
+                tasks:
+                  - id: embed
+                    type: io.kestra.plugin.ollama.Embed
+                    host: host.docker.internal:11434
+                    model: nomic-embed-text
+                    from: "{{ inputs.documents }}"
+                    inputField: text
+                    batchSize: 128
+                    concurrency: 4
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Write compact float16 vectors keyed by document ID",
+            code = """
+                id: ollama_embed_binary
+                namespace: company.team
+
+                inputs:
+                  - id: documents
+                    type: FILE
+
+                tasks:
+                  - id: embed
+                    type: io.kestra.plugin.ollama.Embed
+                    host: host.docker.internal:11434
+                    model: nomic-embed-text
+                    from: "{{ inputs.documents }}"
+                    inputField: text
+                    idField: id
+                    format: BINARY
+                    precision: FLOAT16
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Re-embed a corpus every night, only sending the documents that changed",
+            code = """
+                id: ollama_embed_cached
+                namespace: company.team
+
+                triggers:
+                  - id: nightly
+                    type: io.kestra.plugin.core.trigger.Schedule
+                    cron: "0 2 * * *"
+
+                tasks:
+                  - id: export
+                    type: io.kestra.plugin.jdbc.postgresql.Query
+                    url: jdbc:postgresql://db:5432/docs
+                    sql: SELECT id, text FROM documents
+                    fetchType: STORE
+
+                  - id: embed
+                    type: io.kestra.plugin.ollama.Embed
+                    host: host.docker.internal:11434
+                    model: nomic-embed-text
+                    from: "{{ outputs.export.uri }}"
+                    inputField: text
+                    cache:
+                      maxEntries: 1000000
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Embed each uploaded document as it arrives, combining the requests of concurrent runs",
+            code = """
+                id: ollama_embed_batched
+                namespace: company.team
+
+                inputs:
+                  - id: document
+                    type: FILE
+
+                tasks:
+                  - id: embed
+                    type: io.kestra.plugin.ollama.Embed
+                    host: host.docker.internal:11434
+                    model: nomic-embed-text
+                    from: "{{ inputs.document }}"
+                    inputField: text
+                    batching:
+                      maxDelay: PT0.02S
+                      maxInputs: 512
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = AbstractOllamaTask.QUEUE_WAIT_METRIC, type = Timer.TYPE, description = "Time a request waited for a slot of `maxInFlight`, tagged by `host`."),
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of embedded rows."),
+        @Metric(name = "batches", type = Counter.TYPE, description = "Number of `/api/embed` requests sent."),
+        @Metric(name = EmbedBatching.COALESCED_METRIC, type = Counter.TYPE, description = "Requests sent together with the inputs of other runs because of `batching`."),
+        @Metric(name = EmbeddingCache.HITS_METRIC, type = Counter.TYPE, description = "Rows whose vector was found in the `cache`."),
+        @Metric(name = EmbeddingCache.MISSES_METRIC, type = Counter.TYPE, description = "Rows sent to the server despite the `cache`."),
+        @Metric(name = EmbeddingCache.EVICTIONS_METRIC, type = Counter.TYPE, description = "Vectors evicted from the `cache` to stay within `maxEntries`.")
+    }
+)
+public class Embed extends AbstractOllamaTask implements RunnableTask<Embed.Output> {
+    static final String EMBEDDING_FIELD = "embedding";
+    static final String INPUT_FIELD = "input";
+
+    /**
+     * With a cache, a batch also ends after this many rows per miss, so that a run of hits doesn't hold rows in memory
+     * indefinitely.
+     */
+    private static final int MAX_ROWS_PER_MISS = 16;
+
+    @Schema(
+        title = "File to embed",
+        description = "Internal storage URI of an ION or JSONL file. Each row is either a string or an object holding the text in `inputField`."
+    )
+    @NotNull
+    @PluginProperty(internalStorageURI = true, group = "source")
+    private Property<String> from;
+
+    @Schema(
+        title = "Field holding the text to embed",
+        description = "Required when rows are objects. Ignored when rows are plain strings."
+    )
+    @PluginProperty(group = "source")
+    private Property<String> inputField;
+
+    @Schema(
+        title = "Number of rows sent per request"
+    )
+    @Builder.Default
+    @Min(1)
+    @PluginProperty(group = "execution")
+    private Property<Integer> batchSize = Property.ofValue(64);
+
+    @Schema(
+        title = "Maximum number of batches in flight"
+    )
+    @Builder.Default
+    @Min(1)
+    @PluginProperty(group = "execution")
+    private Property<Integer> concurrency = Property.ofValue(4);
+
+    @Schema(
+        title = "Output file format",
+        description = """
+            With `ION` and `JSONL`, each output row is the input object with an added `embedding` field, or `{input, embedding}` when rows are strings.
+            `BINARY` only keeps the vectors and the row IDs given by `idField`.
+            """
+    )
+    @Builder.Default
+    @PluginProperty(group = "destination")
+    private Property<EmbeddingFormat> format = Property.ofValue(EmbeddingFormat.ION);
+
+    @Schema(
+        title = "Precision of the vectors in the `BINARY` format",
+        description = "`FLOAT16` halves the file size; its 11-bit mantissa is usually enough for similarity search on normalized embeddings."
+    )
+    @Builder.Default
+    @PluginProperty(group = "destination")
+    private Property<EmbeddingFile.Precision> precision = Property.ofValue(EmbeddingFile.Precision.FLOAT32);
+
+    @Schema(
+        title = "Field holding the row ID in the `BINARY` format",
+        description = "Defaults to the embedded text."
+    )
+    @PluginProperty(group = "destination")
+    private Property<String> idField;
+
+    @Schema(
+        title = "Cache of the vectors already computed",
+        description = "Texts whose vector was computed by the same model with the same `options` are not sent again."
+    )
+    @PluginProperty(group = "advanced")
+    private EmbeddingCache cache;
+
+    @Schema(
+        title = "Combine the requests of concurrent runs",
+        description = "Requests of other Embed and SimilaritySearch runs of the worker using the same host, model and `options` are sent together with this run's."
+    )
+    @PluginProperty(group = "advanced")
+    private EmbedBatching batching;
+
+    @Schema(
+        title = "Model options",
+        description = "Runtime parameters passed as-is in the `options` field of the request."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Map<String, Object>> options;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        String renderedModel = runContext.render(this.model).as(String.class).orElseThrow();
+        URI renderedFrom = URI.create(runContext.render(this.from).as(String.class).orElseThrow());
+        String renderedInputField = runContext.render(this.inputField).as(String.class).orElse(null);
+        int renderedBatchSize = runContext.render(this.batchSize).as(Integer.class).orElse(64);
+        int renderedConcurrency = runContext.render(this.concurrency).as(Integer.class).orElse(4);
+        EmbeddingFormat renderedFormat = runContext.render(this.format).as(EmbeddingFormat.class).orElse(EmbeddingFormat.ION);
+        EmbeddingFile.Precision renderedPrecision = runContext.render(this.precision).as(EmbeddingFile.Precision.class).orElse(EmbeddingFile.Precision.FLOAT32);
+        String renderedIdField = runContext.render(this.idField).as(String.class).orElse(null);
+        Map<String, Object> renderedOptions = runContext.render(this.options).asMap(String.class, Object.class);
+        String renderedKeepAlive = this.renderKeepAlive(runContext);
+        EmbedBatcher.Settings renderedBatching = this.batching != null ? this.batching.render(runContext) : null;
+
+        Path output = runContext.workingDir().createTempFile(switch (renderedFormat) {
+            case JSONL -> ".jsonl";
+            case BINARY -> ".emb";
+            default -> ".ion";
+        });
+        AtomicLong count = new AtomicLong();
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger coalesced = new AtomicInteger();
+        Long cacheHits = null;
+        Double cacheHitRatio = null;
+
+        try (
+            OllamaClient client = this.client(runContext);
+            EmbeddingCache.Session session = this.cache != null ? this.cache.open(runContext, client, renderedModel, renderedOptions) : null;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(renderedFrom), StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE);
+            EmbeddingFileWriter vectorWriter = renderedFormat == EmbeddingFormat.BINARY ? new EmbeddingFileWriter(output, renderedPrecision) : null;
+            Writer writer = vectorWriter == null ? new BufferedWriter(new FileWriter(output.toFile(), StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE) : null;
+            SequenceWriter sequenceWriter = switch (renderedFormat) {
+                case JSONL -> FileSerde.createJsonSequenceWriter(writer, JacksonMapper.OBJECT_TYPE_REFERENCE);
+                case BINARY -> null;
+                default -> FileSerde.createSequenceWriter(JacksonMapper.ofIon(), writer, JacksonMapper.OBJECT_TYPE_REFERENCE);
+            };
+            MappingIterator<Object> rows = JacksonMapper.ofIon().readerFor(Object.class).readValues(reader);
+            OrderedDispatcher<List<Object>> dispatcher = new OrderedDispatcher<>(
+                Executors.newFixedThreadPool(renderedConcurrency),
+                renderedConcurrency,
+                embedded -> {
+                    for (Object row : embedded) {
+                        if (vectorWriter != null) {
+                            Map<?, ?> map = (Map<?, ?>) row;
+                            vectorWriter.write(rowId(map, renderedIdField, renderedInputField), (float[]) map.get(EMBEDDING_FIELD));
+                        } else {
+                            sequenceWriter.write(row);
+                        }
+                    }
+                    count.addAndGet(embedded.size());
+                }
+            )
+        ) {
+            List<Object> batch = new ArrayList<>(renderedBatchSize);
+            List<float[]> cached = new ArrayList<>(renderedBatchSize);
+            int misses = 0;
+            while (rows.hasNext()) {
+                Object row = rows.next();
+                float[] hit = session != null ? session.get(text(row, renderedInputField)) : null;
+                batch.add(row);
+                cached.add(hit);
+                if (hit == null) {
+                    misses++;
+                }
+
+                if (misses == renderedBatchSize || batch.size() == renderedBatchSize * MAX_ROWS_PER_MISS || !rows.hasNext()) {
+                    List<Object> currentRows = batch;
+                    List<float[]> currentCached = cached;
+                    boolean send = misses > 0;
+                    dispatcher.submit(() -> {
+                        List<Object> embedded = embed(client, renderedModel, renderedInputField, renderedOptions, renderedKeepAlive, renderedBatching, currentRows, currentCached, session, coalesced);
+                        if (send) {
+                            batches.incrementAndGet();
+                        }
+                        return embedded;
+                    });
+                    batch = new ArrayList<>(renderedBatchSize);
+                    cached = new ArrayList<>(renderedBatchSize);
+                    misses = 0;
+                }
+            }
+
+            dispatcher.finish();
+            if (sequenceWriter != null) {
+                sequenceWriter.flush();
+            }
+
+            if (session != null) {
+                session.save();
+                cacheHits = session.hits();
+                cacheHitRatio = session.hitRatio();
+            }
+        }
+
+        runContext.metric(Counter.of("records", count.get()));
+        runContext.metric(Counter.of("batches", batches.get()));
+        if (renderedBatching != null) {
+            runContext.metric(Counter.of(EmbedBatching.COALESCED_METRIC, coalesced.get()));
+        }
+
+        return Output.builder()
+            .uri(runContext.storage().putFile(output.toFile()))
+            .count(count.get())
+            .cacheHits(cacheHits)
+            .cacheHitRatio(cacheHitRatio)
+            .build();
+    }
+
+    /**
+     * Embeds the rows of a batch that have no {@code cached} vector in one request, and adds their vectors to
+     * {@code cache} when there is one. With {@code batching}, the request may be shared with other runs, which is
+     * counted in {@code coalesced}.
+     */
+    private static List<Object> embed(OllamaClient client, String model, String inputField, Map<String, Object> options, String keepAlive, EmbedBatcher.Settings batching, List<Object> rows, List<float[]> cached, EmbeddingCache.Session cache, AtomicInteger coalesced) throws Exception {
+        List<String> inputs = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (cached.get(i) == null) {
+                inputs.add(text(rows.get(i), inputField));
+            }
+        }
+
+        List<float[]> computed = List.of();
+        if (!inputs.isEmpty()) {
+            EmbedBatcher.Batch batch = EmbedBatcher.embed(
+                client,
+                new EmbedRequest(model, inputs, options.isEmpty() ? null : options, keepAlive),
+                batching
+            );
+
+            if (batch.callers() > 1) {
+                coalesced.incrementAndGet();
+            }
+            computed = batch.embeddings();
+        }
+
+        List<Object> embedded = new ArrayList<>(rows.size());
+        int next = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            float[] embedding = cached.get(i);
+            if (embedding == null) {
+                embedding = computed.get(next);
+                if (cache != null) {
+                    cache.put(inputs.get(next), embedding);
+                }
+                next++;
+            }
+            embedded.add(withEmbedding(rows.get(i), embedding));
+        }
+
+        return embedded;
+    }
+
+    static String text(Object row, String inputField) {
+        if (row instanceof String value) {
+            return value;
+        }
+
+        if (row instanceof Map<?, ?> map) {
+            if (inputField == null) {
+                throw new IllegalArgumentException("`inputField` is required when rows are objects");
+            }
+            Object value = map.get(inputField);
+            if (value == null) {
+                throw new IllegalArgumentException("Row has no `" + inputField + "` field: " + map.keySet());
+            }
+            return value.toString();
+        }
+
+        throw new IllegalArgumentException("Unsupported row type '" + (row == null ? "null" : row.getClass().getSimpleName()) + "', expected a string or an object");
+    }
+
+    /**
+     * ID of an embedded row in the {@code BINARY} format: the value of {@code idField} when present, the embedded text
+     * otherwise.
+     */
+    static String rowId(Map<?, ?> row, String idField, String inputField) {
+        Object id = idField != null ? row.get(idField) : null;
+        if (id == null && inputField != null) {
+            id = row.get(inputField);
+        }
+        if (id == null) {
+            id = row.get(INPUT_FIELD);
+        }
+
+        return id == null ? null : id.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> withEmbedding(Object row, float[] embedding) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (row instanceof Map<?, ?> map) {
+            result.putAll((Map<String, Object>) map);
+        } else {
+            result.put(INPUT_FIELD, row);
+        }
+        result.put(EMBEDDING_FIELD, embedding);
+
+        return result;
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "URI of the file holding the embedded rows")
+        private final URI uri;
+
+        @Schema(title = "Number of embedded rows")
+        private final Long count;
+
+        @Schema(
+            title = "Number of rows whose vector came from the cache",
+            description = "Null without a `cache`, or when it was bypassed because the model digest couldn't be resolved."
+        )
+        private final Long cacheHits;
+
+        @Schema(
+            title = "Share of the rows whose vector came from the cache, from 0 to 1",
+            description = "Null without a `cache`, or when the file is empty."
+        )
+        private final Double cacheHitRatio;
+    }
+}
@@ -0,0 +1,14 @@
+package io.kestra.plugin.ollama;
+
+/**
+ * File formats in which embedding rows are written to internal storage.
+ */
+public enum EmbeddingFormat {
+    ION,
+    JSONL,
+    /**
+     * Little-endian matrix of the vectors followed by an index of row IDs, read with
+     * {@link io.kestra.plugin.ollama.embedding.EmbeddingFile}.
+     */
+    BINARY
+}
@@ -0,0 +1,365 @@
+package io.kestra.plugin.ollama;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.ollama.cache.ResponseCache;
+import io.kestra.plugin.ollama.client.GenerateRequest;
+import io.kestra.plugin.ollama.client.GenerateResponse;
+import io.kestra.plugin.ollama.client.GenerateStreamReader;
+import io.kestra.plugin.ollama.client.OllamaClient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Generate a completion with an Ollama model over HTTP",
+    description = """
+        Streams the answer of the `/api/generate` endpoint of an existing Ollama server.
+        With `store` enabled, tokens are appended to a file in Kestra internal storage as they arrive, so memory stays constant even for very long documents.
+        With `format`, the model is constrained to answer with JSON matching a schema; the answer is validated and returned as a parsed `json` output, ready for the next task.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Generate a short answer and return it in the task outputs",
+            code = """
+                id: ollama_generate
+                namespace: company.team
+
+                tasks:
+                  - id: generate
+                    type: io.kestra.plugin.ollama.Generate
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    prompt: Explain data orchestration in one sentence.
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Stream a long document to internal storage",
+            code = """
+                id: ollama_generate_long
+                namespace: company.team
+
+                tasks:
+                  - id: generate
+                    type: io.kestra.plugin.ollama.Generate
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    store: true
+                    prompt: Write a detailed technical guide about workflow orchestration.
+                    options:
+                      num_predict: 50000
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Extract structured data validated against a JSON schema",
+            code = """
+                id: ollama_generate_structured
+                namespace: company.team
+
+                inputs:
+                  - id: ticket
+                    type: STRING
+
+                tasks:
+                  - id: extract
+                    type: io.kestra.plugin.ollama.Generate
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    prompt: "Extract the customer and the urgency of this support ticket: {{ inputs.ticket }}"
+                    format:
+                      type: object
+                      properties:
+                        customer:
+                          type: string
+                        urgency:
+                          type: string
+                          enum: [low, medium, high]
+                      required: [customer, urgency]
+                    options:
+                      temperature: 0
+
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ outputs.extract.json.customer }} - {{ outputs.extract.json.urgency }}"
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = AbstractOllamaTask.QUEUE_WAIT_METRIC, type = Timer.TYPE, description = "Time a request waited for a slot of `maxInFlight`, tagged by `host`."),
+        @Metric(name = CompletionMetrics.PROMPT_TOKENS, type = Counter.TYPE, unit = "tokens", description = "Tokens in the prompt, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.EVAL_TOKENS, type = Counter.TYPE, unit = "tokens", description = "Tokens generated by the model, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.TIME_TO_FIRST_TOKEN, type = Timer.TYPE, description = "Model load time plus prompt evaluation time, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.LOAD_DURATION, type = Timer.TYPE, description = "Time spent loading the model, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.PROMPT_EVAL_DURATION, type = Timer.TYPE, description = "Time spent evaluating the prompt, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.EVAL_DURATION, type = Timer.TYPE, description = "Time spent generating tokens, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.TOTAL_DURATION, type = Timer.TYPE, description = "Total time spent by the server on the request, tagged by `model` and `host`."),
+        @Metric(name = ResponseCache.HITS_METRIC, type = Counter.TYPE, description = "Requests answered from the response cache."),
+        @Metric(name = ResponseCache.MISSES_METRIC, type = Counter.TYPE, description = "Requests sent to the server because no cached answer was found.")
+    }
+)
+public class Generate extends AbstractOllamaTask implements RunnableTask<Generate.Output> {
+    private static final int DEFAULT_MAX_INLINE_SIZE = 256 * 1024;
+
+    @Schema(
+        title = "Prompt sent to the model"
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> prompt;
+
+    @Schema(
+        title = "System prompt",
+        description = "Overrides the system prompt defined in the model's Modelfile."
+    )
+    @PluginProperty(group = "main")
+    private Property<String> system;
+
+    @Schema(
+        title = "Model options",
+        description = "Runtime parameters such as `temperature`, `seed` or `num_predict`, passed as-is in the `options` field of the request."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Map<String, Object>> options;
+
+    @Schema(
+        title = "JSON schema of the answer",
+        description = """
+            Sent as the `format` field of the request, so the model can only produce JSON matching the schema.
+            The answer is parsed and validated against the schema (`type`, `properties`, `required`, `enum`, `items`, bounds and patterns), and returned in the `json` output instead of `response`. The task fails when the answer doesn't match.
+            """
+    )
+    @PluginProperty(group = "main")
+    private Property<Map<String, Object>> format;
+
+    @Schema(
+        title = "Largest structured answer returned in the task outputs, in characters",
+        description = "Only used with `format`. A larger answer is streamed to internal storage and returned in `uri`, to keep the execution context small."
+    )
+    @Builder.Default
+    @Min(0)
+    @PluginProperty(group = "destination")
+    private Property<Integer> maxInlineSize = Property.ofValue(DEFAULT_MAX_INLINE_SIZE);
+
+    @Schema(
+        title = "Store the completion in internal storage",
+        description = "When true, the generated text is streamed into a file and only its URI is returned in `uri`. Use it for long outputs that should not live in the execution context."
+    )
+    @Builder.Default
+    @PluginProperty(group = "destination")
+    private Property<Boolean> store = Property.ofValue(false);
+
+    @Schema(
+        title = "Cache answers of identical requests",
+        description = "Opt-in. Requests with the same model digest, prompt, system prompt and options are answered from the cache without reaching the server. Cached completions are buffered in memory, even when `store` is enabled."
+    )
+    @PluginProperty(group = "advanced")
+    private ResponseCache responseCache;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Map<String, Object> renderedOptions = runContext.render(this.options).asMap(String.class, Object.class);
+        Map<String, Object> renderedFormat = runContext.render(this.format).asMap(String.class, Object.class);
+        GenerateRequest request = new GenerateRequest(
+            runContext.render(this.model).as(String.class).orElseThrow(),
+            runContext.render(this.prompt).as(String.class).orElseThrow(),
+            runContext.render(this.system).as(String.class).orElse(null),
+            true,
+            renderedFormat.isEmpty() ? null : renderedFormat,
+            renderedOptions.isEmpty() ? null : renderedOptions,
+            this.renderKeepAlive(runContext)
+        );
+
+        boolean renderedStore = runContext.render(this.store).as(Boolean.class).orElse(false);
+        Output.OutputBuilder output = Output.builder();
+        GenerateResponse response;
+
+        try (OllamaClient client = this.client(runContext)) {
+            if (!renderedFormat.isEmpty()) {
+                int inlineLimit = renderedStore ? 0 : runContext.render(this.maxInlineSize).as(Integer.class).orElse(DEFAULT_MAX_INLINE_SIZE);
+                response = this.structured(runContext, client, request, renderedFormat, inlineLimit, output);
+            } else if (this.responseCache != null) {
+                response = this.responseCache.getOrCompute(runContext, client, request.model(), request, GenerateResponse.class, () -> generate(runContext, client, request));
+
+                if (renderedStore) {
+                    Path file = runContext.workingDir().createTempFile(response.response().getBytes(StandardCharsets.UTF_8), ".txt");
+                    output.uri(runContext.storage().putFile(file.toFile()));
+                } else {
+                    output.response(response.response());
+                }
+            } else {
+                try (InputStream stream = client.postStream("/api/generate", request)) {
+                    GenerateStreamReader reader = new GenerateStreamReader(stream);
+
+                    if (renderedStore) {
+                        Path file = runContext.workingDir().createTempFile(".txt");
+                        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                            response = reader.readTo(writer);
+                        }
+                        output.uri(runContext.storage().putFile(file.toFile()));
+                    } else {
+                        StringWriter writer = new StringWriter();
+                        response = reader.readTo(writer);
+                        output.response(writer.toString());
+                    }
+                }
+
+                CompletionMetrics.emit(runContext, response, request.model(), client.getBaseUri().getAuthority());
+            }
+        }
+
+        return output
+            .model(response.model())
+            .doneReason(response.doneReason())
+            .promptEvalCount(response.promptEvalCount())
+            .evalCount(response.evalCount())
+            .totalDuration(nanos(response.totalDuration()))
+            .loadDuration(nanos(response.loadDuration()))
+            .promptEvalDuration(nanos(response.promptEvalDuration()))
+            .evalDuration(nanos(response.evalDuration()))
+            .build();
+    }
+
+    /**
+     * Streams a JSON answer into memory, or into a file once it exceeds {@code inlineLimit}, then parses and validates
+     * it against {@code schema}. Only the parsed value or the file URI ends up in the outputs, never the raw text.
+     */
+    private GenerateResponse structured(RunContext runContext, OllamaClient client, GenerateRequest request, Map<String, Object> schema, int inlineLimit, Output.OutputBuilder output) throws Exception {
+        GenerateResponse response;
+        SpillingWriter writer = new SpillingWriter(runContext, inlineLimit);
+
+        try (writer) {
+            if (this.responseCache != null) {
+                response = this.responseCache.getOrCompute(runContext, client, request.model(), request, GenerateResponse.class, () -> generate(runContext, client, request));
+                writer.write(response.response());
+            } else {
+                try (InputStream stream = client.postStream("/api/generate", request)) {
+                    response = new GenerateStreamReader(stream).readTo(writer);
+                }
+                CompletionMetrics.emit(runContext, response, request.model(), client.getBaseUri().getAuthority());
+            }
+
+            // an empty answer still gets a file when the caller asked for storage
+            if (inlineLimit == 0) {
+                writer.spill();
+            }
+        }
+
+        Object value;
+        try {
+            value = writer.isSpilled()
+                ? JacksonMapper.ofJson().readValue(writer.file().toFile(), Object.class)
+                : JacksonMapper.ofJson().readValue(writer.content(), Object.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Model '" + request.model() + "' didn't answer with valid JSON (done reason: " + response.doneReason() + ")", e);
+        }
+
+        List<String> errors = JsonSchemaValidator.validate(value, schema);
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("The answer of model '" + request.model() + "' doesn't match the `format` schema: " + String.join("; ", errors));
+        }
+
+        if (writer.isSpilled()) {
+            if (inlineLimit > 0) {
+                runContext.logger().warn("Structured answer is larger than {} characters, it is stored in internal storage instead of the `json` output", inlineLimit);
+            }
+            output.uri(runContext.storage().putFile(writer.file().toFile()));
+        } else {
+            output.json(value);
+        }
+
+        return response;
+    }
+
+    private static GenerateResponse generate(RunContext runContext, OllamaClient client, GenerateRequest request) throws Exception {
+        GenerateResponse response;
+        try (InputStream stream = client.postStream("/api/generate", request)) {
+            StringWriter writer = new StringWriter();
+            response = new GenerateStreamReader(stream).readTo(writer).withResponse(writer.toString());
+        }
+
+        CompletionMetrics.emit(runContext, response, request.model(), client.getBaseUri().getAuthority());
+        return response;
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "Model that produced the completion")
+        private final String model;
+
+        @Schema(
+            title = "Generated text",
+            description = "Empty when `store` or `format` is set."
+        )
+        private final String response;
+
+        @Schema(
+            title = "Parsed structured answer",
+            description = "Only set when `format` is set and the answer fits in `maxInlineSize`. Validated against the schema."
+        )
+        private final Object json;
+
+        @Schema(
+            title = "URI of the generated text in internal storage",
+            description = "Set when `store` is enabled, or when a structured answer exceeds `maxInlineSize`."
+        )
+        private final URI uri;
+
+        @Schema(
+            title = "Reason the generation stopped",
+            description = "Usually `stop`, or `length` when the token limit was reached."
+        )
+        private final String doneReason;
+
+        @Schema(title = "Number of tokens in the prompt")
+        private final Long promptEvalCount;
+
+        @Schema(title = "Number of generated tokens")
+        private final Long evalCount;
+
+        @Schema(title = "Total time spent by the server on the request")
+        private final Duration totalDuration;
+
+        @Schema(title = "Time spent loading the model")
+        private final Duration loadDuration;
+
+        @Schema(title = "Time spent evaluating the prompt")
+        private final Duration promptEvalDuration;
+
+        @Schema(title = "Time spent generating the completion")
+        private final Duration evalDuration;
+    }
+}
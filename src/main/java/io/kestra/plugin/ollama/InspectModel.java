@@ -0,0 +1,166 @@
+package io.kestra.plugin.ollama;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.models.tasks.Task;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.client.GgufFile;
+import io.kestra.plugin.ollama.client.ModelManifest;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Read the architecture, context length and quantization of a model from its GGUF file",
+    description = """
+        Finds the weights of the model in the Ollama directory given in `modelCachePath` and parses the header of the GGUF file, without starting a container or calling the server.
+        The file is memory-mapped and only the metadata and tensor descriptions at its start are read, so the task takes milliseconds even for models of tens of gigabytes.
+        Use it before scheduling work to check that a model fits a host, e.g. by comparing `fileSize` with the free VRAM of the host.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Check the context length of a model before sending a long document",
+            code = """
+                id: ollama_inspect_model
+                namespace: company.team
+
+                tasks:
+                  - id: inspect
+                    type: io.kestra.plugin.ollama.InspectModel
+                    model: llama3.2
+                    modelCachePath: /srv/ollama
+
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ outputs.inspect.architecture }} {{ outputs.inspect.quantization }}, {{ outputs.inspect.parameterCount }} parameters, {{ outputs.inspect.contextLength }} tokens of context"
+                """
+        )
+    }
+)
+public class InspectModel extends Task implements RunnableTask<InspectModel.Output> {
+    @Schema(
+        title = "Model name",
+        description = "Name of a model pulled in `modelCachePath`, e.g. `llama3.2` or `gemma3:1b`."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> model;
+
+    @Schema(
+        title = "Ollama directory shared with the server",
+        description = "Host path holding the server's `models` directory, i.e. the directory mounted as `/root/.ollama` (the `modelCachePath` of `cli.OllamaCLI` and `PullModel`)."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> modelCachePath;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        String renderedModel = runContext.render(this.model).as(String.class).orElseThrow();
+        Path modelsDirectory = Path.of(runContext.render(this.modelCachePath).as(String.class).orElseThrow()).resolve("models");
+
+        Path blob = ModelManifest.modelBlob(modelsDirectory, renderedModel)
+            .orElseThrow(() -> new IllegalArgumentException("Model '" + renderedModel + "' not found in " + modelsDirectory));
+
+        long start = System.nanoTime();
+        GgufFile gguf = GgufFile.read(blob);
+        runContext.logger().info("Read the header of {} ({} bytes) in {}", blob, gguf.size(), Duration.ofNanos(System.nanoTime() - start));
+
+        return Output.builder()
+            .model(renderedModel)
+            .digest(blob.getFileName().toString().replace('-', ':'))
+            .name(gguf.metadata().get("general.name") instanceof String name ? name : null)
+            .architecture(gguf.architecture())
+            .quantization(gguf.fileType())
+            .parameterCount(gguf.parameterCount())
+            .contextLength(gguf.architectureValue("context_length"))
+            .embeddingLength(gguf.architectureValue("embedding_length"))
+            .blockCount(gguf.architectureValue("block_count"))
+            .headCount(gguf.architectureValue("attention.head_count"))
+            .headCountKv(gguf.architectureValue("attention.head_count_kv"))
+            .tensorCount((long) gguf.tensors().size())
+            .tensorTypes(gguf.tensorTypes())
+            .fileSize(gguf.size())
+            .ggufVersion(gguf.version())
+            .metadata(gguf.metadata())
+            .build();
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "Inspected model")
+        private final String model;
+
+        @Schema(title = "Digest of the GGUF blob, e.g. `sha256:dde5…`")
+        private final String digest;
+
+        @Schema(title = "Name of the model recorded in the file")
+        private final String name;
+
+        @Schema(title = "Model architecture, e.g. `llama` or `gemma3`")
+        private final String architecture;
+
+        @Schema(
+            title = "Quantization of the weights",
+            description = "As named by llama.cpp, e.g. `Q4_K_M`, `Q8_0` or `F16`."
+        )
+        private final String quantization;
+
+        @Schema(title = "Number of parameters, computed from the tensor shapes")
+        private final Long parameterCount;
+
+        @Schema(title = "Maximum context length the model was trained for, in tokens")
+        private final Long contextLength;
+
+        @Schema(title = "Size of the embedding vectors")
+        private final Long embeddingLength;
+
+        @Schema(title = "Number of transformer blocks")
+        private final Long blockCount;
+
+        @Schema(title = "Number of attention heads")
+        private final Long headCount;
+
+        @Schema(
+            title = "Number of key/value attention heads",
+            description = "Lower than `headCount` for models using grouped-query attention, which need less memory for the context."
+        )
+        private final Long headCountKv;
+
+        @Schema(title = "Number of tensors")
+        private final Long tensorCount;
+
+        @Schema(title = "Number of tensors per type, e.g. `Q4_K` or `F32`")
+        private final Map<String, Long> tensorTypes;
+
+        @Schema(title = "Size of the GGUF file in bytes, close to the memory needed for the weights")
+        private final Long fileSize;
+
+        @Schema(title = "Version of the GGUF format")
+        private final Integer ggufVersion;
+
+        @Schema(
+            title = "Every metadata key of the file",
+            description = "Arrays of more than 64 values, such as the tokenizer vocabulary, are replaced by their type and length."
+        )
+        private final Map<String, Object> metadata;
+    }
+}
@@ -0,0 +1,180 @@
+package io.kestra.plugin.ollama;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Checks a parsed JSON value against a JSON schema.
+ * <p>
+ * Only the keywords that matter for structured outputs are supported: {@code type}, {@code enum}, {@code const},
+ * {@code properties}, {@code required}, {@code additionalProperties}, {@code items}, {@code minItems},
+ * {@code maxItems}, {@code minLength}, {@code maxLength}, {@code pattern}, the numeric bounds, {@code anyOf} and
+ * {@code allOf}. Other keywords, such as {@code $ref}, are ignored.
+ */
+final class JsonSchemaValidator {
+    private JsonSchemaValidator() {
+    }
+
+    /**
+     * @return one message per violation, prefixed with the path of the offending value, empty when the value is valid
+     */
+    static List<String> validate(Object value, Map<String, Object> schema) {
+        List<String> errors = new ArrayList<>();
+        validate(value, schema, "$", errors);
+        return errors;
+    }
+
+    private static void validate(Object value, Object schema, String path, List<String> errors) {
+        if (Boolean.FALSE.equals(schema)) {
+            errors.add(path + ": no value is allowed");
+            return;
+        }
+        if (!(schema instanceof Map<?, ?> rules)) {
+            return;
+        }
+
+        Object type = rules.get("type");
+        if (type != null) {
+            List<?> types = type instanceof List<?> list ? list : List.of(type);
+            if (types.stream().noneMatch(expected -> hasType(value, String.valueOf(expected)))) {
+                errors.add(path + ": expected " + (types.size() == 1 ? types.get(0) : "one of " + types) + " but got " + typeOf(value));
+                return;
+            }
+        }
+
+        if (rules.get("enum") instanceof List<?> values && values.stream().noneMatch(candidate -> jsonEquals(candidate, value))) {
+            errors.add(path + ": must be one of " + values);
+        }
+        if (rules.containsKey("const") && !jsonEquals(rules.get("const"), value)) {
+            errors.add(path + ": must be " + rules.get("const"));
+        }
+
+        if (value instanceof Map<?, ?> object) {
+            Map<?, ?> properties = rules.get("properties") instanceof Map<?, ?> map ? map : Map.of();
+
+            if (rules.get("required") instanceof List<?> required) {
+                for (Object name : required) {
+                    if (!object.containsKey(name)) {
+                        errors.add(path + ": missing required property '" + name + "'");
+                    }
+                }
+            }
+
+            for (Map.Entry<?, ?> entry : object.entrySet()) {
+                String child = path + "." + entry.getKey();
+                if (properties.containsKey(entry.getKey())) {
+                    validate(entry.getValue(), properties.get(entry.getKey()), child, errors);
+                } else if (Boolean.FALSE.equals(rules.get("additionalProperties"))) {
+                    errors.add(child + ": property is not allowed");
+                } else {
+                    validate(entry.getValue(), rules.get("additionalProperties"), child, errors);
+                }
+            }
+        }
+
+        if (value instanceof List<?> array) {
+            bound(array.size(), rules.get("minItems"), rules.get("maxItems"), path, "items", errors);
+            for (int i = 0; i < array.size(); i++) {
+                validate(array.get(i), rules.get("items"), path + "[" + i + "]", errors);
+            }
+        }
+
+        if (value instanceof String string) {
+            bound(string.codePointCount(0, string.length()), rules.get("minLength"), rules.get("maxLength"), path, "characters", errors);
+            if (rules.get("pattern") instanceof String pattern && !Pattern.compile(pattern).matcher(string).find()) {
+                errors.add(path + ": must match pattern " + pattern);
+            }
+        }
+
+        if (value instanceof Number number) {
+            BigDecimal decimal = decimal(number);
+            if (rules.get("minimum") instanceof Number minimum && decimal.compareTo(decimal(minimum)) < 0) {
+                errors.add(path + ": must be >= " + minimum);
+            }
+            if (rules.get("maximum") instanceof Number maximum && decimal.compareTo(decimal(maximum)) > 0) {
+                errors.add(path + ": must be <= " + maximum);
+            }
+            if (rules.get("exclusiveMinimum") instanceof Number minimum && decimal.compareTo(decimal(minimum)) <= 0) {
+                errors.add(path + ": must be > " + minimum);
+            }
+            if (rules.get("exclusiveMaximum") instanceof Number maximum && decimal.compareTo(decimal(maximum)) >= 0) {
+                errors.add(path + ": must be < " + maximum);
+            }
+        }
+
+        if (rules.get("anyOf") instanceof List<?> options && options.stream().noneMatch(option -> {
+            List<String> optionErrors = new ArrayList<>();
+            validate(value, option, path, optionErrors);
+            return optionErrors.isEmpty();
+        })) {
+            errors.add(path + ": does not match any schema of anyOf");
+        }
+
+        if (rules.get("allOf") instanceof List<?> all) {
+            all.forEach(option -> validate(value, option, path, errors));
+        }
+    }
+
+    private static void bound(int size, Object min, Object max, String path, String unit, List<String> errors) {
+        if (min instanceof Number minimum && size < minimum.intValue()) {
+            errors.add(path + ": must have at least " + minimum + " " + unit + " but has " + size);
+        }
+        if (max instanceof Number maximum && size > maximum.intValue()) {
+            errors.add(path + ": must have at most " + maximum + " " + unit + " but has " + size);
+        }
+    }
+
+    private static boolean hasType(Object value, String type) {
+        return switch (type) {
+            case "object" -> value instanceof Map;
+            case "array" -> value instanceof List;
+            case "string" -> value instanceof String;
+            case "boolean" -> value instanceof Boolean;
+            case "null" -> value == null;
+            case "number" -> value instanceof Number;
+            case "integer" -> value instanceof Number number && isInteger(number);
+            default -> true;
+        };
+    }
+
+    private static boolean isInteger(Number number) {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof BigInteger) {
+            return true;
+        }
+
+        BigDecimal decimal = decimal(number);
+        return decimal.signum() == 0 || decimal.stripTrailingZeros().scale() <= 0;
+    }
+
+    private static String typeOf(Object value) {
+        if (value == null) {
+            return "null";
+        }
+
+        return switch (value) {
+            case Map<?, ?> ignored -> "object";
+            case List<?> ignored -> "array";
+            case String ignored -> "string";
+            case Boolean ignored -> "boolean";
+            case Number number -> isInteger(number) ? "integer" : "number";
+            default -> value.getClass().getSimpleName();
+        };
+    }
+
+    private static boolean jsonEquals(Object expected, Object actual) {
+        if (expected instanceof Number left && actual instanceof Number right) {
+            return decimal(left).compareTo(decimal(right)) == 0;
+        }
+
+        return Objects.equals(expected, actual);
+    }
+
+    private static BigDecimal decimal(Number number) {
+        return number instanceof BigDecimal decimal ? decimal : new BigDecimal(number.toString());
+    }
+}
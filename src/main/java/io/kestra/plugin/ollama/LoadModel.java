@@ -0,0 +1,175 @@
+package io.kestra.plugin.ollama;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.client.GenerateRequest;
+import io.kestra.plugin.ollama.client.GenerateResponse;
+import io.kestra.plugin.ollama.client.ModelInfo;
+import io.kestra.plugin.ollama.client.ModelsResponse;
+import io.kestra.plugin.ollama.client.OllamaClient;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Load a model in memory ahead of the requests that need it",
+    description = """
+        Sends an empty request to `/api/generate`, which makes the server load the model without generating anything, and reports how long the load took.
+        Set `keepAlive` to keep the model loaded for the whole burst of work that follows; `UnloadModel` frees the memory afterwards.
+        With `hosts`, the model is loaded on every host of the pool one after the other, so it is warm wherever `loadBalancing` sends the requests that follow; `loadBalancing` itself is ignored.
+        The outputs then describe the host with the longest load.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Warm a model before a burst of requests and release it afterwards",
+            code = """
+                id: ollama_warm_model
+                namespace: company.team
+
+                inputs:
+                  - id: reviews
+                    type: FILE
+
+                tasks:
+                  - id: load
+                    type: io.kestra.plugin.ollama.LoadModel
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    keepAlive: PT1H
+
+                  - id: classify
+                    type: io.kestra.plugin.ollama.BatchGenerate
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    from: "{{ inputs.reviews }}"
+                    prompt: "Answer positive or negative: {{ row.text }}"
+
+                  - id: unload
+                    type: io.kestra.plugin.ollama.UnloadModel
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = CompletionMetrics.LOAD_DURATION, type = Timer.TYPE, description = "Time spent loading the model, as reported by the server, tagged by `model` and `host`.")
+    }
+)
+public class LoadModel extends AbstractOllamaTask implements RunnableTask<LoadModel.Output> {
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        String renderedModel = runContext.render(this.model).as(String.class).orElseThrow();
+        String renderedKeepAlive = this.renderKeepAlive(runContext);
+
+        List<String> loadedOn = new ArrayList<>();
+        Output.OutputBuilder slowest = null;
+        Duration slowestLoad = null;
+        long start = System.nanoTime();
+        for (OllamaClient client : this.clients(runContext)) {
+            try (client) {
+                String host = client.getBaseUri().getAuthority();
+
+                long hostStart = System.nanoTime();
+                GenerateResponse response = client.post(
+                    "/api/generate",
+                    new GenerateRequest(renderedModel, null, null, false, null, null, renderedKeepAlive),
+                    GenerateResponse.class
+                );
+                Duration elapsed = Duration.ofNanos(System.nanoTime() - hostStart);
+
+                // the server leaves load_duration out when the model was already loaded
+                Duration loadDuration = response.loadDuration() != null ? nanos(response.loadDuration()) : Duration.ZERO;
+                runContext.metric(Timer.of(CompletionMetrics.LOAD_DURATION, loadDuration, "model", renderedModel, "host", host));
+                runContext.logger().info("Model '{}' loaded on {} in {} ({} including the request)", renderedModel, host, loadDuration, elapsed);
+
+                loadedOn.add(host);
+                if (slowestLoad == null || loadDuration.compareTo(slowestLoad) > 0) {
+                    Optional<ModelInfo> loaded = loaded(runContext, client, renderedModel);
+
+                    slowestLoad = loadDuration;
+                    slowest = Output.builder()
+                        .host(host)
+                        .loadDuration(loadDuration)
+                        .sizeVram(loaded.map(ModelInfo::sizeVram).orElse(null))
+                        .expiresAt(loaded.map(ModelInfo::expiresAt).orElse(null));
+                }
+            }
+        }
+
+        return slowest
+            .model(renderedModel)
+            .hosts(loadedOn)
+            .requestDuration(Duration.ofNanos(System.nanoTime() - start))
+            .build();
+    }
+
+    /**
+     * Looks the model up in {@code /api/ps}. Only informative, so a failure is logged and ignored.
+     */
+    private static Optional<ModelInfo> loaded(RunContext runContext, OllamaClient client, String model) throws InterruptedException {
+        String name = ModelInfo.normalize(model);
+
+        try {
+            ModelsResponse ps = client.get("/api/ps", ModelsResponse.class);
+            return ps.models() == null ? Optional.empty() : ps.models().stream()
+                .filter(info -> name.equals(ModelInfo.normalize(info.name())))
+                .findFirst();
+        } catch (IOException e) {
+            runContext.logger().debug("Unable to list the loaded models: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "Loaded model")
+        private final String model;
+
+        @Schema(
+            title = "Host the model was loaded on",
+            description = "The host with the longest load when `hosts` is set."
+        )
+        private final String host;
+
+        @Schema(title = "Every host the model was loaded on")
+        private final List<String> hosts;
+
+        @Schema(
+            title = "Time the server spent loading the model",
+            description = "Close to zero when the model was already loaded."
+        )
+        private final Duration loadDuration;
+
+        @Schema(
+            title = "Duration of the whole request, as seen by the task",
+            description = "Covers the requests to all hosts when `hosts` is set."
+        )
+        private final Duration requestDuration;
+
+        @Schema(title = "Memory used by the model on the GPU, in bytes")
+        private final Long sizeVram;
+
+        @Schema(title = "When the server will unload the model if it isn't used")
+        private final String expiresAt;
+    }
+}
@@ -0,0 +1,121 @@
+package io.kestra.plugin.ollama;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.kestra.plugin.ollama.client.ModelInfo;
+
+/**
+ * Serializes pulls of the same model.
+ * <p>
+ * Tasks of a worker first queue on an in-memory lock, then, when a shared cache directory is known, on a file lock
+ * in {@code <directory>/.kestra-locks} so that workers sharing the directory also pull one at a time. The JVM lock
+ * is required because file locks are held on behalf of the whole process and can't arbitrate between its threads.
+ * <p>
+ * The file lock is taken with the {@code flock} command, as {@code OllamaCLI} does in its containers: Java's
+ * {@link java.nio.channels.FileLock} uses {@code fcntl} record locks, which don't exclude {@code flock} locks on Linux.
+ * The lock is held by the {@code flock} process until its standard input is closed, so it is also released when the
+ * worker dies.
+ */
+public final class ModelLocks {
+    public static final String LOCK_DIRECTORY = ".kestra-locks";
+
+    private static final String LOCKED = "locked";
+    private static final Duration RELEASE_TIMEOUT = Duration.ofSeconds(10);
+    private static final Map<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private ModelLocks() {
+    }
+
+    /**
+     * Waits until the pull of {@code model} can proceed.
+     *
+     * @param cacheDirectory shared models directory, or null to only lock within this worker
+     * @throws IOException when the lock can't be obtained within {@code timeout}, or {@code flock} can't be run
+     */
+    static Held acquire(String key, String model, Path cacheDirectory, Duration timeout) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        ReentrantLock lock = LOCKS.computeIfAbsent(key, k -> new ReentrantLock(true));
+        if (!lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new IOException("Timed out after " + timeout + " waiting for another pull of model '" + model + "'");
+        }
+
+        if (cacheDirectory == null) {
+            return new Held(lock, null);
+        }
+
+        Process process = null;
+        try {
+            Path file = Files.createDirectories(cacheDirectory.resolve(LOCK_DIRECTORY)).resolve(fileName(model));
+            long remainingMillis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+
+            try {
+                process = new ProcessBuilder(
+                    "flock", "--exclusive", "--close", "--wait", String.valueOf(remainingMillis / 1000.0), file.toString(),
+                    "sh", "-c", "echo " + LOCKED + "; exec cat >/dev/null"
+                )
+                    .redirectErrorStream(true)
+                    .start();
+            } catch (IOException e) {
+                throw new IOException("The flock command is required to lock model pulls in " + cacheDirectory + " but could not be run: " + e.getMessage(), e);
+            }
+
+            String line = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)).readLine();
+            if (!LOCKED.equals(line)) {
+                int exitCode = process.waitFor();
+                if (exitCode == 1 && line == null) {
+                    throw new IOException("Timed out after " + timeout + " waiting for another worker pulling model '" + model + "' into " + cacheDirectory);
+                }
+                throw new IOException("Unable to lock " + file + ", flock exited with code " + exitCode + (line != null ? ": " + line : ""));
+            }
+
+            return new Held(lock, process);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (process != null) {
+                process.destroyForcibly();
+            }
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Lock file name of a model, shared with {@code OllamaCLI}: the model is normalized so that {@code llama3} and
+     * {@code llama3:latest} use the same file, and characters that aren't safe in file names are replaced.
+     */
+    public static String fileName(String model) {
+        return ModelInfo.normalize(model).replaceAll("[^a-zA-Z0-9._-]", "_") + ".lock";
+    }
+
+    record Held(ReentrantLock lock, Process process) implements AutoCloseable {
+        @Override
+        public void close() throws IOException {
+            try {
+                if (process != null) {
+                    // end of input makes flock's command exit, which releases the file lock
+                    process.getOutputStream().close();
+                    try {
+                        if (!process.waitFor(RELEASE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                            process.destroyForcibly();
+                        }
+                    } catch (InterruptedException e) {
+                        process.destroyForcibly();
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.kestra.plugin.ollama;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs units of work concurrently while handing their results to a sink in submission order.
+ * <p>
+ * At most {@code maxInFlight} units are pending at any time: submitting blocks on the oldest one, so the number of
+ * results held in memory is bounded no matter how large the input is.
+ */
+final class OrderedDispatcher<R> implements AutoCloseable {
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final Sink<R> sink;
+    private final Deque<Future<R>> inFlight = new ArrayDeque<>();
+
+    OrderedDispatcher(ExecutorService executor, int maxInFlight, Sink<R> sink) {
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.sink = sink;
+    }
+
+    void submit(Callable<R> work) throws Exception {
+        while (inFlight.size() >= maxInFlight) {
+            this.drainOldest();
+        }
+
+        inFlight.add(executor.submit(work));
+    }
+
+    void finish() throws Exception {
+        while (!inFlight.isEmpty()) {
+            this.drainOldest();
+        }
+    }
+
+    private void drainOldest() throws Exception {
+        R result;
+        try {
+            result = inFlight.poll().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        sink.accept(result);
+    }
+
+    @Override
+    public void close() {
+        inFlight.forEach(future -> future.cancel(true));
+        inFlight.clear();
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    interface Sink<R> {
+        void accept(R result) throws Exception;
+    }
+}
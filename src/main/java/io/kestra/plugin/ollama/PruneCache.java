@@ -0,0 +1,309 @@
+package io.kestra.plugin.ollama;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.models.tasks.Task;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.client.ModelManifest;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Free disk space in an Ollama models directory by evicting the least recently used models",
+    description = """
+        Reads the manifests and blobs of the Ollama directory given in `modelCachePath`, deletes the blobs no manifest references, then deletes the least recently used models until the blobs fit in `maxSize`.
+        A blob shared by several models, such as a common base model or license, is only deleted once no remaining manifest references it.
+        A model was last used when its blobs were last read, according to their access time, or when they were last written. On file systems mounted with `noatime`, models are evicted by pull date instead.
+        Files changed during the last `gracePeriod` are never deleted, so pulls in progress are left alone.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Keep the shared models directory under 200 GB every night",
+            code = """
+                id: ollama_prune_cache
+                namespace: company.team
+
+                tasks:
+                  - id: prune
+                    type: io.kestra.plugin.ollama.PruneCache
+                    modelCachePath: /srv/ollama
+                    maxSize: 214748364800
+                    keep:
+                      - llama3.2
+                      - nomic-embed-text
+
+                triggers:
+                  - id: nightly
+                    type: io.kestra.plugin.core.trigger.Schedule
+                    cron: "0 3 * * *"
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = PruneCache.EVICTED_METRIC, type = Counter.TYPE, description = "Number of models deleted."),
+        @Metric(name = PruneCache.FREED_METRIC, type = Counter.TYPE, unit = "bytes", description = "Disk space freed.")
+    }
+)
+public class PruneCache extends Task implements RunnableTask<PruneCache.Output> {
+    static final String EVICTED_METRIC = "evicted";
+    static final String FREED_METRIC = "freed.bytes";
+
+    @Schema(
+        title = "Ollama directory shared with the server",
+        description = """
+            Host path holding the server's `models` directory, i.e. the directory mounted as `/root/.ollama` (the `modelCachePath` of `cli.OllamaCLI` and `PullModel`).
+            The default `kestra-ollama-cache` Docker volume of `cli.OllamaCLI` can't be read from the worker; mount it on a host path to prune it.
+            """
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> modelCachePath;
+
+    @Schema(
+        title = "Maximum size of the blobs, in bytes",
+        description = "When not set, only the blobs no model references are deleted."
+    )
+    @Min(0)
+    @PluginProperty(group = "main")
+    private Property<Long> maxSize;
+
+    @Schema(
+        title = "Models that are never evicted",
+        description = "Model names as used with Ollama, e.g. `llama3.2` or `gemma3:1b`."
+    )
+    @PluginProperty(group = "main")
+    private Property<List<String>> keep;
+
+    @Schema(
+        title = "Minimum age of the files to delete",
+        description = "Protects models being pulled: their blobs are written before their manifest, and would otherwise look unused."
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<Duration> gracePeriod = Property.ofValue(Duration.ofHours(1));
+
+    @Schema(
+        title = "Only report what would be deleted"
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> dryRun = Property.ofValue(false);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Path modelsDirectory = Path.of(runContext.render(this.modelCachePath).as(String.class).orElseThrow()).resolve("models");
+        Long renderedMaxSize = runContext.render(this.maxSize).as(Long.class).orElse(null);
+        Set<Path> renderedKeep = runContext.render(this.keep).asList(String.class).stream()
+            .map(ModelManifest::manifestPath)
+            .collect(Collectors.toSet());
+        Instant protectedSince = Instant.now().minus(runContext.render(this.gracePeriod).as(Duration.class).orElse(Duration.ofHours(1)));
+        boolean renderedDryRun = runContext.render(this.dryRun).as(Boolean.class).orElse(false);
+
+        Path blobsDirectory = modelsDirectory.resolve("blobs");
+        Map<String, Blob> blobs = blobs(blobsDirectory);
+        long sizeBefore = blobs.values().stream().mapToLong(Blob::size).sum();
+
+        List<CachedModel> models = new ArrayList<>();
+        boolean unreadable = false;
+        for (Path manifest : manifests(modelsDirectory)) {
+            try {
+                models.add(new CachedModel(manifest, modelsDirectory.relativize(manifest), ModelManifest.read(manifest).blobFileNames()));
+            } catch (IOException e) {
+                runContext.logger().warn("Ignoring unreadable manifest {}: {}", manifest, e.getMessage());
+                unreadable = true;
+            }
+        }
+
+        Map<String, Integer> references = new HashMap<>();
+        models.forEach(model -> model.blobs().forEach(name -> references.merge(name, 1, Integer::sum)));
+
+        long size = sizeBefore;
+        int deletedBlobs = 0;
+
+        // the blobs of an unreadable manifest are unknown, so no blob can safely be called unreferenced
+        if (unreadable) {
+            runContext.logger().warn("Nothing deleted, as some manifests couldn't be read");
+        } else {
+            for (Blob blob : blobs.values()) {
+                if (!references.containsKey(blob.name()) && blob.lastModified().isBefore(protectedSince)) {
+                    runContext.logger().info("Deleting unreferenced blob {} ({} bytes)", blob.name(), blob.size());
+                    delete(blob.path(), renderedDryRun);
+                    size -= blob.size();
+                    deletedBlobs++;
+                }
+            }
+        }
+
+        List<String> evicted = new ArrayList<>();
+        if (!unreadable && renderedMaxSize != null && size > renderedMaxSize) {
+            List<CachedModel> candidates = models.stream()
+                .filter(model -> !renderedKeep.contains(model.relativePath()))
+                .filter(model -> lastModified(model, blobs).isBefore(protectedSince))
+                .sorted(Comparator.comparing(model -> lastUsed(model, blobs)))
+                .toList();
+
+            for (CachedModel model : candidates) {
+                if (size <= renderedMaxSize) {
+                    break;
+                }
+
+                String name = ModelManifest.modelName(model.relativePath());
+                runContext.logger().info("Evicting model '{}', last used {}", name, lastUsed(model, blobs));
+                delete(model.manifest(), renderedDryRun);
+                evicted.add(name);
+
+                for (String blobName : model.blobs()) {
+                    Blob blob = blobs.get(blobName);
+                    if (references.merge(blobName, -1, Integer::sum) == 0 && blob != null) {
+                        delete(blob.path(), renderedDryRun);
+                        size -= blob.size();
+                        deletedBlobs++;
+                    }
+                }
+            }
+
+            if (size > renderedMaxSize) {
+                runContext.logger().warn("The models directory still holds {} bytes, over the {} bytes quota, as the remaining models are kept or in use", size, renderedMaxSize);
+            }
+        }
+
+        runContext.metric(Counter.of(EVICTED_METRIC, evicted.size()));
+        runContext.metric(Counter.of(FREED_METRIC, sizeBefore - size));
+
+        return Output.builder()
+            .evictedModels(evicted)
+            .deletedBlobs(deletedBlobs)
+            .freedBytes(sizeBefore - size)
+            .sizeBefore(sizeBefore)
+            .sizeAfter(size)
+            .build();
+    }
+
+    private static Map<String, Blob> blobs(Path blobsDirectory) throws IOException {
+        Map<String, Blob> blobs = new HashMap<>();
+        if (!Files.isDirectory(blobsDirectory)) {
+            return blobs;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(blobsDirectory)) {
+            for (Path file : files) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    String name = file.getFileName().toString();
+                    blobs.put(name, new Blob(
+                        name,
+                        file,
+                        attributes.size(),
+                        attributes.lastModifiedTime().toInstant(),
+                        attributes.lastAccessTime().toInstant()
+                    ));
+                }
+            }
+        }
+
+        return blobs;
+    }
+
+    /**
+     * Manifests are laid out as {@code manifests/<registry>/<namespace>/<model>/<tag>}.
+     */
+    private static List<Path> manifests(Path modelsDirectory) throws IOException {
+        Path manifests = modelsDirectory.resolve("manifests");
+        if (!Files.isDirectory(manifests)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.find(manifests, 4, (path, attributes) -> attributes.isRegularFile() && manifests.relativize(path).getNameCount() == 4)) {
+            return files.toList();
+        }
+    }
+
+    private static Instant lastUsed(CachedModel model, Map<String, Blob> blobs) {
+        return model.blobs().stream()
+            .map(blobs::get)
+            .filter(Objects::nonNull)
+            .map(blob -> blob.lastAccess().isAfter(blob.lastModified()) ? blob.lastAccess() : blob.lastModified())
+            .max(Comparator.naturalOrder())
+            .orElse(Instant.EPOCH);
+    }
+
+    private static Instant lastModified(CachedModel model, Map<String, Blob> blobs) {
+        Instant manifestModified;
+        try {
+            manifestModified = Files.getLastModifiedTime(model.manifest()).toInstant();
+        } catch (IOException e) {
+            manifestModified = Instant.EPOCH;
+        }
+
+        return model.blobs().stream()
+            .map(blobs::get)
+            .filter(Objects::nonNull)
+            .map(Blob::lastModified)
+            .reduce(manifestModified, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    private static void delete(Path path, boolean dryRun) throws IOException {
+        if (!dryRun) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private record Blob(String name, Path path, long size, Instant lastModified, Instant lastAccess) {
+    }
+
+    private record CachedModel(Path manifest, Path relativePath, List<String> blobs) {
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "Names of the evicted models, least recently used first")
+        private final List<String> evictedModels;
+
+        @Schema(title = "Number of deleted blobs, referenced or not")
+        private final Integer deletedBlobs;
+
+        @Schema(title = "Disk space freed, in bytes")
+        private final Long freedBytes;
+
+        @Schema(title = "Size of the blobs before pruning, in bytes")
+        private final Long sizeBefore;
+
+        @Schema(title = "Size of the blobs after pruning, in bytes")
+        private final Long sizeAfter;
+    }
+}
@@ -0,0 +1,321 @@
+package io.kestra.plugin.ollama;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.cache.ModelMirror;
+import io.kestra.plugin.ollama.client.ModelInfo;
+import io.kestra.plugin.ollama.client.ModelManifest;
+import io.kestra.plugin.ollama.client.ModelsResponse;
+import io.kestra.plugin.ollama.client.NdjsonReader;
+import io.kestra.plugin.ollama.client.OllamaClient;
+import io.kestra.plugin.ollama.client.PullProgress;
+import io.kestra.plugin.ollama.client.PullRequest;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Pull a model once, even when many executions need it at the same time",
+    description = """
+        Makes sure a model is installed on an Ollama server, calling `/api/pull` only when it is missing.
+        Concurrent pulls of the same model wait for each other: on a worker through an in-memory lock, and across workers through a file lock in `modelCachePath` when it is set. Once the lock is obtained the model is checked again, so only the first task downloads it and the others return as soon as it is available.
+        With a `mirror`, a model missing from `modelCachePath` is first copied from Kestra internal storage, and a model pulled from the registry is published there for the other workers.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Make sure a model is available before fanning out prompts",
+            code = """
+                id: ollama_pull_model
+                namespace: company.team
+
+                tasks:
+                  - id: pull
+                    type: io.kestra.plugin.ollama.PullModel
+                    host: host.docker.internal:11434
+                    model: llama3.2
+
+                  - id: generate
+                    type: io.kestra.plugin.ollama.Generate
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    prompt: Explain data orchestration in one sentence.
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Check the shared model cache directory before pulling",
+            code = """
+                id: ollama_pull_model_cached
+                namespace: company.team
+
+                tasks:
+                  - id: pull
+                    type: io.kestra.plugin.ollama.PullModel
+                    host: host.docker.internal:11434
+                    model: gemma3:1b
+                    modelCachePath: /srv/ollama
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Copy the model from internal storage instead of the registry on a fresh worker",
+            code = """
+                id: ollama_pull_model_mirrored
+                namespace: company.team
+
+                tasks:
+                  - id: pull
+                    type: io.kestra.plugin.ollama.PullModel
+                    host: host.docker.internal:11434
+                    model: llama3.1:70b
+                    modelCachePath: /mnt/nvme/ollama
+                    mirror:
+                      namespace: company
+                      concurrency: 8
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = PullModel.PULLED_METRIC, type = Counter.TYPE, description = "1 when the model was downloaded by this task, 0 when it was already installed."),
+        @Metric(name = PullModel.PULL_DURATION_METRIC, type = Timer.TYPE, description = "Time spent downloading the model, tagged by `model`."),
+        @Metric(name = PullModel.LOCK_WAIT_METRIC, type = Timer.TYPE, description = "Time spent waiting for another pull of the same model, tagged by `model`."),
+        @Metric(name = ModelMirror.FETCHED_METRIC, type = Counter.TYPE, unit = "bytes", description = "Bytes copied from the mirror, tagged by `model`."),
+        @Metric(name = ModelMirror.FETCH_DURATION_METRIC, type = Timer.TYPE, description = "Time spent copying the model from the mirror, tagged by `model`."),
+        @Metric(name = ModelMirror.PUBLISHED_METRIC, type = Counter.TYPE, unit = "bytes", description = "Bytes published to the mirror, tagged by `model`.")
+    }
+)
+public class PullModel extends AbstractOllamaTask implements RunnableTask<PullModel.Output> {
+    static final String PULLED_METRIC = "pulled";
+    static final String PULL_DURATION_METRIC = "pull.duration";
+    static final String LOCK_WAIT_METRIC = "lock.wait.duration";
+
+    @Schema(
+        title = "Allow pulling from a registry over plain HTTP or with an untrusted certificate"
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> insecure = Property.ofValue(false);
+
+    @Schema(
+        title = "Ollama directory shared with the server",
+        description = """
+            Host path holding the server's `models` directory, i.e. the directory mounted as `/root/.ollama` (the `modelCachePath` of `cli.OllamaCLI`).
+            When set, the manifest and blobs of the model are checked on disk without calling the server, and pulls are serialized across workers with a file lock in `.kestra-locks`, shared with the `ensureModels` of `cli.OllamaCLI`. The lock is taken with the `flock` command, which must be installed on the worker.
+            Without it, the installed models are read from `/api/tags` and pulls are only serialized within a worker.
+            """
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> modelCachePath;
+
+    @Schema(
+        title = "How long to wait for another pull of the same model"
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<Duration> lockTimeout = Property.ofValue(Duration.ofHours(1));
+
+    @Schema(
+        title = "Mirror of the models in Kestra internal storage",
+        description = "Checked before pulling from the registry when the model is missing from `modelCachePath`, which is required."
+    )
+    @PluginProperty(group = "advanced")
+    private ModelMirror mirror;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        String renderedModel = runContext.render(this.model).as(String.class).orElseThrow();
+        Path cacheDirectory = runContext.render(this.modelCachePath).as(String.class).map(Path::of).orElse(null);
+        Duration renderedLockTimeout = runContext.render(this.lockTimeout).as(Duration.class).orElse(Duration.ofHours(1));
+        boolean renderedInsecure = runContext.render(this.insecure).as(Boolean.class).orElse(false);
+        if (this.mirror != null && cacheDirectory == null) {
+            throw new IllegalArgumentException("A mirror requires the modelCachePath the model is copied into");
+        }
+
+        try (OllamaClient client = this.client(runContext)) {
+            Optional<String> digest = installedDigest(client, cacheDirectory, renderedModel);
+            if (digest.isPresent()) {
+                runContext.logger().info("Model '{}' is already installed with digest {}", renderedModel, digest.get());
+                return this.skipped(runContext, renderedModel, digest.get());
+            }
+
+            String lockKey = (cacheDirectory != null ? cacheDirectory.toAbsolutePath().normalize().toString() : client.getBaseUri().toString())
+                + "|" + ModelInfo.normalize(renderedModel);
+
+            long waitStart = System.nanoTime();
+            try (ModelLocks.Held ignored = ModelLocks.acquire(lockKey, renderedModel, cacheDirectory, renderedLockTimeout)) {
+                runContext.metric(Timer.of(LOCK_WAIT_METRIC, Duration.ofNanos(System.nanoTime() - waitStart), "model", renderedModel));
+
+                // another task may have pulled the model while this one was waiting for the lock
+                digest = installedDigest(client, cacheDirectory, renderedModel);
+                if (digest.isPresent()) {
+                    runContext.logger().info("Model '{}' was pulled by another task while waiting, digest {}", renderedModel, digest.get());
+                    return this.skipped(runContext, renderedModel, digest.get());
+                }
+
+                if (this.restore(runContext, cacheDirectory, renderedModel)) {
+                    digest = installedDigest(client, cacheDirectory, renderedModel);
+                    if (digest.isPresent()) {
+                        runContext.metric(Counter.of(PULLED_METRIC, 0));
+                        return Output.builder()
+                            .model(renderedModel)
+                            .digest(digest.get())
+                            .pulled(false)
+                            .restored(true)
+                            .build();
+                    }
+                }
+
+                long pullStart = System.nanoTime();
+                pull(runContext, client, new PullRequest(renderedModel, renderedInsecure ? true : null, true));
+                runContext.metric(Timer.of(PULL_DURATION_METRIC, Duration.ofNanos(System.nanoTime() - pullStart), "model", renderedModel));
+                runContext.metric(Counter.of(PULLED_METRIC, 1));
+
+                digest = installedDigest(client, cacheDirectory, renderedModel);
+                if (digest.isEmpty() && cacheDirectory != null) {
+                    // the server may not be using the given directory, fall back to what it reports
+                    digest = installedDigest(client, null, renderedModel);
+                } else if (this.mirror != null) {
+                    this.publish(runContext, cacheDirectory, renderedModel);
+                }
+
+                return Output.builder()
+                    .model(renderedModel)
+                    .digest(digest.orElse(null))
+                    .pulled(true)
+                    .restored(false)
+                    .build();
+            }
+        }
+    }
+
+    private Output skipped(RunContext runContext, String model, String digest) {
+        runContext.metric(Counter.of(PULLED_METRIC, 0));
+
+        return Output.builder()
+            .model(model)
+            .digest(digest)
+            .pulled(false)
+            .restored(false)
+            .build();
+    }
+
+    /**
+     * The mirror is only a faster source than the registry, a failure to use it is never fatal.
+     */
+    private boolean restore(RunContext runContext, Path cacheDirectory, String model) {
+        if (this.mirror == null) {
+            return false;
+        }
+
+        try {
+            return this.mirror.restore(runContext, cacheDirectory.resolve("models"), model);
+        } catch (Exception e) {
+            runContext.logger().warn("Unable to restore model '{}' from the mirror, pulling it from the registry: {}", model, e.getMessage());
+            return false;
+        }
+    }
+
+    private void publish(RunContext runContext, Path cacheDirectory, String model) {
+        try {
+            this.mirror.publish(runContext, cacheDirectory.resolve("models"), model);
+        } catch (Exception e) {
+            runContext.logger().warn("Unable to publish model '{}' to the mirror: {}", model, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the digest of the model when it is completely installed, read from the manifest in
+     * {@code cacheDirectory} when given, from {@code /api/tags} otherwise. The server answer is never memoized here,
+     * since it is used to detect a pull that just finished.
+     */
+    static Optional<String> installedDigest(OllamaClient client, Path cacheDirectory, String model) throws IOException, InterruptedException {
+        if (cacheDirectory != null) {
+            return ModelManifest.installedDigest(cacheDirectory.resolve("models"), model);
+        }
+
+        String name = ModelInfo.normalize(model);
+        ModelsResponse tags = client.get("/api/tags", ModelsResponse.class);
+
+        return tags.models() == null ? Optional.empty() : tags.models().stream()
+            .filter(info -> name.equals(ModelInfo.normalize(info.name())))
+            .map(ModelInfo::digest)
+            .filter(Objects::nonNull)
+            .findFirst();
+    }
+
+    private static void pull(RunContext runContext, OllamaClient client, PullRequest request) throws IOException, InterruptedException {
+        runContext.logger().info("Pulling model '{}'", request.model());
+
+        try (InputStream stream = client.postStream("/api/pull", request)) {
+            NdjsonReader reader = new NdjsonReader(stream);
+            String lastStatus = null;
+
+            PullProgress progress;
+            while ((progress = reader.next(PullProgress.class)) != null) {
+                if (progress.error() != null) {
+                    throw new IOException("Pull of model '" + request.model() + "' failed: " + progress.error());
+                }
+
+                if ("success".equals(progress.status())) {
+                    runContext.logger().info("Model '{}' pulled", request.model());
+                    return;
+                }
+
+                // layer downloads report progress many times per second, only log when the step changes
+                if (progress.status() != null && !progress.status().equals(lastStatus)) {
+                    lastStatus = progress.status();
+                    runContext.logger().info("{}", progress.total() != null ? progress.status() + " (" + progress.total() + " bytes)" : progress.status());
+                }
+            }
+        }
+
+        throw new IOException("Pull of model '" + request.model() + "' ended before it succeeded");
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "Pulled model")
+        private final String model;
+
+        @Schema(
+            title = "Digest of the installed model",
+            description = "SHA-256 of the model manifest, as listed by `ollama list`."
+        )
+        private final String digest;
+
+        @Schema(
+            title = "Whether this task downloaded the model",
+            description = "False when the model was already installed, or was pulled by another task while this one waited."
+        )
+        private final Boolean pulled;
+
+        @Schema(
+            title = "Whether the model was copied from the mirror instead of the registry"
+        )
+        private final Boolean restored;
+    }
+}
@@ -0,0 +1,499 @@
+package io.kestra.plugin.ollama;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.reactivestreams.Publisher;
+
+import io.kestra.core.exceptions.ResourceExpiredException;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.conditions.ConditionContext;
+import io.kestra.core.models.executions.Execution;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.triggers.AbstractTrigger;
+import io.kestra.core.models.triggers.RealtimeTriggerInterface;
+import io.kestra.core.models.triggers.TriggerContext;
+import io.kestra.core.models.triggers.TriggerOutput;
+import io.kestra.core.models.triggers.TriggerService;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.storages.kv.KVEntry;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValue;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
+import io.kestra.plugin.ollama.cli.OllamaCLI;
+import io.kestra.plugin.ollama.client.ChatMessage;
+import io.kestra.plugin.ollama.client.ChatRequest;
+import io.kestra.plugin.ollama.client.ChatResponse;
+import io.kestra.plugin.ollama.client.GenerateRequest;
+import io.kestra.plugin.ollama.client.GenerateResponse;
+import io.kestra.plugin.ollama.client.OllamaClient;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Answer prompts pushed to a KV namespace and start one execution per answer",
+    description = """
+        Watches the keys of a KV namespace starting with `keyPrefix`. Each key holds a prompt: a string, a map with a `prompt` field, or a map with a `messages` list in the format of `Chat`.
+        A key is deleted when it is picked up, so every prompt is answered at most once even when several workers watch the same namespace; when the answer fails, the prompt is moved under `failedKeyPrefix` if set.
+        The trigger keeps its connection to the server and keeps the model loaded for as long as it runs, so prompts only pay for the inference; an execution is started for each answer, never for an empty poll.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Answer support questions pushed to the KV store by other flows",
+            code = """
+                id: ollama_support_bot
+                namespace: company.team
+
+                tasks:
+                  - id: reply
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ trigger.input.ticket }}: {{ trigger.message.content }}"
+
+                triggers:
+                  - id: questions
+                    type: io.kestra.plugin.ollama.RealtimeTrigger
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                    keyPrefix: questions_
+                    failedKeyPrefix: failed_questions_
+                    system: You answer questions about our product in two sentences.
+                    concurrency: 2
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Push a question to the trigger above from another flow",
+            code = """
+                id: ask_support_bot
+                namespace: company.team
+
+                inputs:
+                  - id: question
+                    type: STRING
+
+                tasks:
+                  - id: push
+                    type: io.kestra.plugin.core.kv.Set
+                    key: "questions_{{ execution.id }}"
+                    value:
+                      ticket: "{{ execution.id }}"
+                      prompt: "{{ inputs.question }}"
+                """
+        )
+    }
+)
+public class RealtimeTrigger extends AbstractTrigger implements RealtimeTriggerInterface, TriggerOutput<RealtimeTrigger.Output> {
+    private static final URI OLLAMA_CLOUD_HOST = URI.create("https://ollama.com");
+    private static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(30);
+
+    @Schema(
+        title = "Ollama server host",
+        description = """
+            Address of the Ollama server, using the same format as `OLLAMA_HOST` (e.g. `host.docker.internal:11434` or `https://ollama.example.com`).
+            Defaults to https://ollama.com when `auth` is set, and to `127.0.0.1:11434` otherwise.
+            """
+    )
+    @PluginProperty(group = "connection")
+    private Property<String> host;
+
+    @Schema(
+        title = "Authentication for Ollama Cloud (Turbo)",
+        description = "When set, requests carry the API key as a bearer token."
+    )
+    @PluginProperty(dynamic = true, group = "connection")
+    private OllamaCLI.Auth auth;
+
+    @Schema(
+        title = "Model name",
+        description = "Name of a model available on the server, e.g. `llama3.2` or `gemma3:1b`."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> model;
+
+    @Schema(
+        title = "System prompt",
+        description = "Sent before every prompt, unless the prompt already starts with a `system` message."
+    )
+    @PluginProperty(group = "main")
+    private Property<String> system;
+
+    @Schema(
+        title = "Model options",
+        description = "Runtime parameters such as `temperature`, `seed` or `num_ctx`, passed as-is in the `options` field of the requests."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Map<String, Object>> options;
+
+    @Schema(
+        title = "KV namespace holding the prompts",
+        description = "Defaults to the flow namespace."
+    )
+    @PluginProperty(group = "source")
+    private Property<String> namespace;
+
+    @Schema(
+        title = "Prefix of the keys holding the prompts",
+        description = "Other keys of the namespace are left untouched. Prompts are answered in creation order."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "source")
+    private Property<String> keyPrefix = Property.ofValue("ollama_prompt_");
+
+    @Schema(
+        title = "Prefix under which prompts that failed are moved",
+        description = "The original key is appended to it. When not set, failed prompts are only logged. Must not start with `keyPrefix`, or failed prompts would be picked up again."
+    )
+    @PluginProperty(group = "source")
+    private Property<String> failedKeyPrefix;
+
+    @Schema(
+        title = "How long to wait before looking for new prompts when none are pending"
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "source")
+    private Property<Duration> interval = Property.ofValue(Duration.ofSeconds(1));
+
+    @Schema(
+        title = "Maximum number of prompts answered at the same time",
+        description = "Prompts are only picked up when a slot is free, so the others stay in the KV store for other workers. Raise it up to the server's `OLLAMA_NUM_PARALLEL`."
+    )
+    @NotNull
+    @Builder.Default
+    @Min(1)
+    @PluginProperty(group = "advanced")
+    private Property<Integer> concurrency = Property.ofValue(1);
+
+    @Schema(
+        title = "How long the model stays loaded after each request",
+        description = """
+            The model is loaded when the trigger starts and this value is sent with every request, so a model used at least this often is never unloaded. A negative duration keeps the model loaded until the server stops.
+            """
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<Duration> keepAlive = Property.ofValue(DEFAULT_KEEP_ALIVE);
+
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean isActive = new AtomicBoolean(true);
+
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    private final CountDownLatch waitForTermination = new CountDownLatch(1);
+
+    @Override
+    public Publisher<Execution> evaluate(ConditionContext conditionContext, TriggerContext context) throws Exception {
+        RunContext runContext = conditionContext.getRunContext();
+
+        String renderedModel = runContext.render(this.model).as(String.class).orElseThrow();
+        String renderedSystem = runContext.render(this.system).as(String.class).orElse(null);
+        Map<String, Object> renderedOptions = runContext.render(this.options).asMap(String.class, Object.class);
+        String renderedNamespace = runContext.render(this.namespace).as(String.class)
+            .orElse(conditionContext.getFlow().getNamespace());
+        String renderedKeyPrefix = runContext.render(this.keyPrefix).as(String.class).orElseThrow();
+        String renderedFailedKeyPrefix = runContext.render(this.failedKeyPrefix).as(String.class).orElse(null);
+        Duration renderedInterval = runContext.render(this.interval).as(Duration.class).orElseThrow();
+        int renderedConcurrency = runContext.render(this.concurrency).as(Integer.class).orElseThrow();
+        String renderedKeepAlive = runContext.render(this.keepAlive).as(Duration.class).map(AbstractOllamaTask::keepAlive).orElseThrow();
+
+        if (renderedFailedKeyPrefix != null && renderedFailedKeyPrefix.startsWith(renderedKeyPrefix)) {
+            throw new IllegalArgumentException("'failedKeyPrefix' must not start with 'keyPrefix', failed prompts would be picked up again");
+        }
+
+        KVStore kvStore = runContext.namespaceKv(renderedNamespace);
+        OllamaClient client = this.connect(runContext);
+        Semaphore slots = new Semaphore(renderedConcurrency);
+
+        load(runContext, client, renderedModel, renderedKeepAlive);
+
+        return Flux
+            .<Prompt>create(sink -> this.poll(runContext, kvStore, renderedKeyPrefix, renderedInterval, slots, sink), FluxSink.OverflowStrategy.BUFFER)
+            .flatMap(
+                prompt -> Mono
+                    .fromCallable(() -> answer(client, renderedModel, renderedSystem, renderedOptions, renderedKeepAlive, prompt))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .onErrorResume(e -> {
+                        failed(runContext, kvStore, renderedFailedKeyPrefix, prompt, e);
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> slots.release()),
+                renderedConcurrency
+            )
+            .map(output -> TriggerService.generateRealtimeExecution(this, conditionContext, context, output))
+            .doFinally(signal -> client.close());
+    }
+
+    /**
+     * Claims pending prompts while a slot is free, and waits for {@code interval} when none are pending. Runs until
+     * the trigger is stopped or its executions are no longer consumed.
+     */
+    private void poll(RunContext runContext, KVStore kvStore, String keyPrefix, Duration interval, Semaphore slots, FluxSink<Prompt> sink) {
+        try {
+            while (this.isActive.get() && !sink.isCancelled()) {
+                List<KVEntry> pending = kvStore.listAll().stream()
+                    .filter(entry -> entry.key().startsWith(keyPrefix))
+                    .sorted(Comparator.comparing(KVEntry::creationDate, Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(KVEntry::key))
+                    .toList();
+
+                int claimed = 0;
+                for (KVEntry entry : pending) {
+                    if (!acquire(slots, sink)) {
+                        break;
+                    }
+
+                    Optional<Prompt> prompt = claim(runContext, kvStore, entry.key());
+                    if (prompt.isPresent()) {
+                        sink.next(prompt.get());
+                        claimed++;
+                    } else {
+                        slots.release();
+                    }
+                }
+
+                // nothing pending, or everything was claimed by another worker first
+                if (claimed == 0) {
+                    Thread.sleep(interval.toMillis());
+                }
+            }
+            sink.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sink.complete();
+        } catch (Exception e) {
+            sink.error(e);
+        } finally {
+            this.waitForTermination.countDown();
+        }
+    }
+
+    /**
+     * Waits for a free slot, giving up when the trigger is stopped.
+     */
+    private boolean acquire(Semaphore slots, FluxSink<Prompt> sink) throws InterruptedException {
+        while (this.isActive.get() && !sink.isCancelled()) {
+            if (slots.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the prompt and deletes its key. Only the caller whose delete succeeded owns the prompt, so a prompt already
+     * claimed by another worker is skipped.
+     */
+    private static Optional<Prompt> claim(RunContext runContext, KVStore kvStore, String key) throws IOException {
+        Optional<KVValue> value;
+        try {
+            value = kvStore.getValue(key);
+        } catch (ResourceExpiredException e) {
+            kvStore.delete(key);
+            return Optional.empty();
+        }
+
+        if (value.isEmpty() || value.get().value() == null || !kvStore.delete(key)) {
+            return Optional.empty();
+        }
+
+        runContext.logger().debug("Picked up prompt '{}'", key);
+        return Optional.of(new Prompt(key, value.get().value()));
+    }
+
+    /**
+     * Loads the model so the first prompt doesn't pay for it. The trigger still starts when this fails, as the server
+     * may only be temporarily unavailable.
+     */
+    private static void load(RunContext runContext, OllamaClient client, String model, String keepAlive) throws InterruptedException {
+        try {
+            client.post("/api/generate", new GenerateRequest(model, null, null, false, null, null, keepAlive), GenerateResponse.class);
+            runContext.logger().info("Model '{}' loaded on {}", model, client.getBaseUri().getAuthority());
+        } catch (IOException e) {
+            runContext.logger().warn("Unable to load model '{}' on {}: {}", model, client.getBaseUri().getAuthority(), e.getMessage());
+        }
+    }
+
+    private static Output answer(
+        OllamaClient client,
+        String model,
+        String system,
+        Map<String, Object> options,
+        String keepAlive,
+        Prompt prompt
+    ) throws Exception {
+        ChatResponse response = client.post(
+            "/api/chat",
+            new ChatRequest(model, messages(system, prompt.value()), false, null, options.isEmpty() ? null : options, keepAlive),
+            ChatResponse.class
+        );
+
+        return Output.builder()
+            .key(prompt.key())
+            .input(prompt.value())
+            .model(response.model())
+            .message(response.message())
+            .doneReason(response.doneReason())
+            .promptEvalCount(response.promptEvalCount())
+            .evalCount(response.evalCount())
+            .totalDuration(AbstractOllamaTask.nanos(response.totalDuration()))
+            .loadDuration(AbstractOllamaTask.nanos(response.loadDuration()))
+            .build();
+    }
+
+    static List<ChatMessage> messages(String system, Object value) {
+        List<ChatMessage> messages = new ArrayList<>();
+
+        if (value instanceof Map<?, ?> map && map.get("messages") instanceof List<?> list) {
+            list.forEach(message -> messages.add(JacksonMapper.ofJson().convertValue(message, ChatMessage.class)));
+        } else if (value instanceof Map<?, ?> map && map.get("prompt") != null) {
+            messages.add(ChatMessage.builder().role("user").content(map.get("prompt").toString()).build());
+        } else if (value instanceof String string) {
+            messages.add(ChatMessage.builder().role("user").content(string).build());
+        } else {
+            throw new IllegalArgumentException("A prompt must be a string, or a map with a 'prompt' or a 'messages' field");
+        }
+
+        if (system != null && (messages.isEmpty() || !"system".equals(messages.get(0).getRole()))) {
+            messages.add(0, ChatMessage.builder().role("system").content(system).build());
+        }
+
+        return messages;
+    }
+
+    private static void failed(RunContext runContext, KVStore kvStore, String failedKeyPrefix, Prompt prompt, Throwable e) {
+        runContext.logger().error("Unable to answer prompt '{}': {}", prompt.key(), e.getMessage(), e);
+
+        if (failedKeyPrefix == null) {
+            return;
+        }
+
+        try {
+            kvStore.put(
+                failedKeyPrefix + prompt.key(),
+                new KVValueAndMetadata(new KVMetadata("Ollama prompt that failed: " + e.getMessage(), (Duration) null), prompt.value())
+            );
+        } catch (IOException io) {
+            runContext.logger().error("Unable to keep failed prompt '{}'", prompt.key(), io);
+        }
+    }
+
+    private OllamaClient connect(RunContext runContext) throws Exception {
+        String apiKey = this.auth != null && this.auth.getApiKey() != null
+            ? runContext.render(this.auth.getApiKey()).as(String.class).orElseThrow()
+            : null;
+
+        String renderedHost = runContext.render(this.host).as(String.class).orElse(null);
+
+        URI baseUri;
+        if (renderedHost != null) {
+            baseUri = OllamaClient.resolveHost(renderedHost);
+        } else if (apiKey != null) {
+            baseUri = OLLAMA_CLOUD_HOST;
+        } else {
+            baseUri = OllamaClient.DEFAULT_HOST;
+        }
+
+        return new OllamaClient(baseUri, apiKey);
+    }
+
+    @Override
+    public void kill() {
+        stop(true);
+    }
+
+    @Override
+    public void stop() {
+        stop(false);
+    }
+
+    private void stop(boolean wait) {
+        if (!this.isActive.compareAndSet(true, false)) {
+            return;
+        }
+
+        if (wait) {
+            try {
+                this.waitForTermination.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private record Prompt(String key, Object value) {
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "KV key the prompt was read from")
+        private final String key;
+
+        @Schema(
+            title = "Prompt as stored in the KV namespace",
+            description = "Extra fields of a map prompt, e.g. a ticket id, are kept so the flow can route the answer."
+        )
+        private final Object input;
+
+        @Schema(title = "Model that produced the answer")
+        private final String model;
+
+        @Schema(title = "Assistant reply")
+        private final ChatMessage message;
+
+        @Schema(
+            title = "Reason the generation stopped",
+            description = "Usually `stop`, or `length` when the token limit was reached."
+        )
+        private final String doneReason;
+
+        @Schema(title = "Number of tokens in the prompt")
+        private final Long promptEvalCount;
+
+        @Schema(title = "Number of tokens in the reply")
+        private final Long evalCount;
+
+        @Schema(title = "Total time spent by the server on the request")
+        private final Duration totalDuration;
+
+        @Schema(
+            title = "Time spent loading the model",
+            description = "Close to zero as long as the trigger keeps the model loaded."
+        )
+        private final Duration loadDuration;
+    }
+}
@@ -0,0 +1,408 @@
+package io.kestra.plugin.ollama;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.ollama.cache.InternalStore;
+import io.kestra.plugin.ollama.client.EmbedBatcher;
+import io.kestra.plugin.ollama.client.EmbedBatching;
+import io.kestra.plugin.ollama.client.EmbedRequest;
+import io.kestra.plugin.ollama.client.OllamaClient;
+import io.kestra.plugin.ollama.embedding.EmbeddingFile;
+import io.kestra.plugin.ollama.embedding.EmbeddingFileWriter;
+import io.kestra.plugin.ollama.embedding.HnswIndex;
+import io.kestra.plugin.ollama.embedding.Similarity;
+import io.kestra.plugin.ollama.embedding.VectorSearch;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Find the rows of an embedding file closest to text queries",
+    description = """
+        Embeds `queries` with the Ollama model and returns the `topK` closest rows of an embedding file written by `Embed`, without an external vector database.
+        `BINARY` files are memory-mapped and scanned in place; ION and JSONL files are first converted to that format in the working directory. Rows are split between `concurrency` threads, each keeping a bounded heap of the best rows per query.
+        With `index`, an HNSW graph of the file is kept in internal storage and queries only visit a small part of the rows. The graph is built on the first run and rebuilt when any row of the file changes.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Retrieve the documents closest to a question",
+            code = """
+                id: ollama_similarity_search
+                namespace: company.team
+
+                inputs:
+                  - id: documents
+                    type: FILE
+                  - id: question
+                    type: STRING
+
+                tasks:
+                  - id: embed
+                    type: io.kestra.plugin.ollama.Embed
+                    host: host.docker.internal:11434
+                    model: nomic-embed-text
+                    from: "{{ inputs.documents }}"
+                    inputField: text
+                    idField: id
+                    format: BINARY
+
+                  - id: search
+                    type: io.kestra.plugin.ollama.SimilaritySearch
+                    host: host.docker.internal:11434
+                    model: nomic-embed-text
+                    from: "{{ outputs.embed.uri }}"
+                    queries:
+                      - "{{ inputs.question }}"
+                    topK: 5
+                """
+        ),
+        @Example(
+            full = true,
+            title = "Query a fixed corpus through an HNSW index kept in internal storage",
+            code = """
+                id: ollama_similarity_search_index
+                namespace: company.team
+
+                inputs:
+                  - id: embeddings
+                    type: FILE
+                  - id: question
+                    type: STRING
+
+                tasks:
+                  - id: search
+                    type: io.kestra.plugin.ollama.SimilaritySearch
+                    host: host.docker.internal:11434
+                    model: nomic-embed-text
+                    from: "{{ inputs.embeddings }}"
+                    queries:
+                      - "{{ inputs.question }}"
+                    index: indexes/corpus.hnsw
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "vectors", type = Counter.TYPE, description = "Number of rows in the embedding file."),
+        @Metric(name = "search.duration", type = Timer.TYPE, description = "Time spent scoring the rows for all the queries, embedding excluded."),
+        @Metric(name = "index.build.duration", type = Timer.TYPE, description = "Time spent building the HNSW index, when it had to be built."),
+        @Metric(name = EmbedBatching.COALESCED_METRIC, type = Counter.TYPE, description = "1 when the queries were embedded together with the inputs of other runs because of `batching`.")
+    }
+)
+public class SimilaritySearch extends AbstractOllamaTask implements RunnableTask<SimilaritySearch.Output> {
+    private static final int INDEX_M = 16;
+    private static final int INDEX_EF_CONSTRUCTION = 100;
+
+    @Schema(
+        title = "Embedding file to search",
+        description = """
+            Internal storage URI of a file written by `Embed`: either the `BINARY` format, or ION or JSONL rows holding an `embedding` field.
+            """
+    )
+    @NotNull
+    @PluginProperty(internalStorageURI = true, group = "source")
+    private Property<String> from;
+
+    @Schema(
+        title = "Field holding the row ID in ION and JSONL files",
+        description = "Defaults to the `input` field written by `Embed` for plain strings, then to the row number. `BINARY` files carry their own IDs."
+    )
+    @PluginProperty(group = "source")
+    private Property<String> idField;
+
+    @Schema(
+        title = "Texts to search for",
+        description = "Embedded in a single `/api/embed` request with `model`, which must be the model that produced the file."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<List<String>> queries;
+
+    @Schema(
+        title = "Number of matches returned per query"
+    )
+    @Builder.Default
+    @Min(1)
+    @PluginProperty(group = "main")
+    private Property<Integer> topK = Property.ofValue(10);
+
+    @Schema(
+        title = "Similarity measure",
+        description = "`COSINE` ignores the length of the vectors. `DOT` is the same for normalized embeddings, and slightly faster."
+    )
+    @Builder.Default
+    @PluginProperty(group = "main")
+    private Property<Similarity> similarity = Property.ofValue(Similarity.COSINE);
+
+    @Schema(
+        title = "Number of threads scanning the rows",
+        description = "Defaults to the number of processors of the worker. Not used with `index`."
+    )
+    @Min(1)
+    @PluginProperty(group = "execution")
+    private Property<Integer> concurrency;
+
+    @Schema(
+        title = "Path of an HNSW index in the internal storage of the flow namespace",
+        description = """
+            When set, queries are answered from an approximate nearest-neighbour graph of the file instead of scanning every row.
+            The index is read from this path under `/<namespace>/_ollama` in internal storage, or built and written there when it is missing or was built for another file or similarity. It is kept apart from the namespace files, so it is never synced into script tasks.
+            Use one path per corpus: building the graph costs much more than a scan, and pays off when the same file is queried many times.
+            """
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> index;
+
+    @Schema(
+        title = "Candidates explored per query with `index`",
+        description = "Raised to `topK` when lower. Higher values find more of the exact matches and take longer."
+    )
+    @Builder.Default
+    @Min(1)
+    @PluginProperty(group = "advanced")
+    private Property<Integer> efSearch = Property.ofValue(100);
+
+    @Schema(
+        title = "Combine the query embedding request with those of concurrent runs",
+        description = "Useful when many searches run in parallel on the worker, each with a few queries."
+    )
+    @PluginProperty(group = "advanced")
+    private EmbedBatching batching;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        String renderedModel = runContext.render(this.model).as(String.class).orElseThrow();
+        URI renderedFrom = URI.create(runContext.render(this.from).as(String.class).orElseThrow());
+        String renderedIdField = runContext.render(this.idField).as(String.class).orElse(null);
+        List<String> renderedQueries = runContext.render(this.queries).asList(String.class);
+        int renderedTopK = runContext.render(this.topK).as(Integer.class).orElse(10);
+        Similarity renderedSimilarity = runContext.render(this.similarity).as(Similarity.class).orElse(Similarity.COSINE);
+        int renderedConcurrency = runContext.render(this.concurrency).as(Integer.class).orElse(Runtime.getRuntime().availableProcessors());
+        String renderedIndex = runContext.render(this.index).as(String.class).orElse(null);
+        int renderedEfSearch = runContext.render(this.efSearch).as(Integer.class).orElse(100);
+
+        if (renderedQueries.isEmpty()) {
+            return Output.builder().results(List.of()).build();
+        }
+
+        Path file = this.load(runContext, renderedFrom, renderedIdField);
+        float[][] vectors = this.embedQueries(runContext, renderedModel, renderedQueries);
+
+        try (EmbeddingFile embeddings = EmbeddingFile.open(file)) {
+            runContext.metric(Counter.of("vectors", embeddings.count()));
+
+            HnswIndex hnsw = null;
+            boolean indexBuilt = false;
+            if (renderedIndex != null) {
+                InternalStore store = InternalStore.of(runContext, runContext.flowInfo().namespace());
+                hnsw = readIndex(runContext, store, Path.of(renderedIndex), embeddings, renderedSimilarity);
+                if (hnsw == null) {
+                    long buildStart = System.nanoTime();
+                    hnsw = HnswIndex.build(embeddings, renderedSimilarity, INDEX_M, INDEX_EF_CONSTRUCTION);
+                    runContext.metric(Timer.of("index.build.duration", Duration.ofNanos(System.nanoTime() - buildStart)));
+                    writeIndex(runContext, store, Path.of(renderedIndex), hnsw);
+                    indexBuilt = true;
+                }
+            }
+
+            long searchStart = System.nanoTime();
+            List<List<VectorSearch.Match>> matches;
+            if (hnsw != null) {
+                matches = new ArrayList<>(vectors.length);
+                for (float[] vector : vectors) {
+                    if (vector.length != embeddings.dimensions()) {
+                        throw new IllegalArgumentException("The queries have " + vector.length + " dimensions but the embeddings have " + embeddings.dimensions() + ", use the model that embedded the file");
+                    }
+                    matches.add(hnsw.search(embeddings, vector, renderedTopK, renderedEfSearch));
+                }
+            } else {
+                ExecutorService executor = Executors.newFixedThreadPool(renderedConcurrency);
+                try {
+                    matches = VectorSearch.search(embeddings, renderedSimilarity, vectors, renderedTopK, executor, renderedConcurrency);
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+            runContext.metric(Timer.of("search.duration", Duration.ofNanos(System.nanoTime() - searchStart)));
+
+            List<Result> results = new ArrayList<>(renderedQueries.size());
+            for (int q = 0; q < renderedQueries.size(); q++) {
+                List<Match> queryMatches = new ArrayList<>(matches.get(q).size());
+                for (VectorSearch.Match match : matches.get(q)) {
+                    queryMatches.add(Match.builder()
+                        .id(embeddings.id(match.row()))
+                        .row(match.row())
+                        .score(match.score())
+                        .build()
+                    );
+                }
+                results.add(Result.builder()
+                    .query(renderedQueries.get(q))
+                    .matches(queryMatches)
+                    .build()
+                );
+            }
+
+            return Output.builder()
+                .results(results)
+                .indexBuilt(renderedIndex != null ? indexBuilt : null)
+                .build();
+        }
+    }
+
+    /**
+     * Copies the file to the working directory to memory-map it, converting ION and JSONL rows on the way.
+     */
+    private Path load(RunContext runContext, URI from, String idField) throws Exception {
+        Path downloaded = runContext.workingDir().createTempFile();
+        try (InputStream input = runContext.storage().getFile(from)) {
+            Files.copy(input, downloaded, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (EmbeddingFile.isEmbeddingFile(downloaded)) {
+            return downloaded;
+        }
+
+        Path converted = runContext.workingDir().createTempFile(".emb");
+        try (
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(downloaded), StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE);
+            MappingIterator<Object> rows = JacksonMapper.ofIon().readerFor(Object.class).readValues(reader);
+            EmbeddingFileWriter writer = new EmbeddingFileWriter(converted, EmbeddingFile.Precision.FLOAT32)
+        ) {
+            while (rows.hasNext()) {
+                if (!(rows.next() instanceof Map<?, ?> row) || !(row.get(Embed.EMBEDDING_FIELD) instanceof List<?> embedding)) {
+                    throw new IllegalArgumentException("Row " + writer.count() + " has no `" + Embed.EMBEDDING_FIELD + "` list");
+                }
+
+                float[] vector = new float[embedding.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = ((Number) embedding.get(i)).floatValue();
+                }
+                String id = Embed.rowId(row, idField, null);
+                writer.write(id != null ? id : String.valueOf(writer.count()), vector);
+            }
+        }
+        Files.delete(downloaded);
+
+        return converted;
+    }
+
+    private float[][] embedQueries(RunContext runContext, String model, List<String> queries) throws Exception {
+        try (OllamaClient client = this.client(runContext)) {
+            EmbedBatcher.Batch batch = EmbedBatcher.embed(
+                client,
+                new EmbedRequest(model, queries, null, this.renderKeepAlive(runContext)),
+                this.batching != null ? this.batching.render(runContext) : null
+            );
+
+            if (this.batching != null) {
+                runContext.metric(Counter.of(EmbedBatching.COALESCED_METRIC, batch.callers() > 1 ? 1 : 0));
+            }
+
+            return batch.embeddings().toArray(float[][]::new);
+        }
+    }
+
+    private static HnswIndex readIndex(RunContext runContext, InternalStore store, Path path, EmbeddingFile embeddings, Similarity similarity) throws IOException {
+        if (!store.exists(path)) {
+            return null;
+        }
+
+        HnswIndex hnsw;
+        try (InputStream input = store.get(path)) {
+            hnsw = HnswIndex.read(input);
+        } catch (IOException e) {
+            runContext.logger().warn("Unable to read the index '{}', rebuilding it: {}", path, e.getMessage());
+            return null;
+        }
+
+        if (hnsw.fingerprint() != embeddings.fingerprint() || hnsw.similarity() != similarity) {
+            runContext.logger().info("Index '{}' was built for another file or similarity, rebuilding it", path);
+            return null;
+        }
+
+        return hnsw;
+    }
+
+    private static void writeIndex(RunContext runContext, InternalStore store, Path path, HnswIndex hnsw) throws Exception {
+        Path local = runContext.workingDir().createTempFile(".hnsw");
+        try (OutputStream output = Files.newOutputStream(local)) {
+            hnsw.write(output);
+        }
+        store.put(path, Files.newInputStream(local));
+        Files.delete(local);
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "Matches of each query, in the order of `queries`")
+        private final List<Result> results;
+
+        @Schema(
+            title = "Whether the HNSW index was built by this run",
+            description = "Null when no `index` is set."
+        )
+        private final Boolean indexBuilt;
+    }
+
+    @Builder
+    @Getter
+    public static class Result {
+        @Schema(title = "Query text")
+        private final String query;
+
+        @Schema(title = "Closest rows, best first")
+        private final List<Match> matches;
+    }
+
+    @Builder
+    @Getter
+    public static class Match {
+        @Schema(title = "ID of the row")
+        private final String id;
+
+        @Schema(title = "Position of the row in the file, from 0")
+        private final Long row;
+
+        @Schema(title = "Similarity to the query, higher is closer")
+        private final Float score;
+    }
+}
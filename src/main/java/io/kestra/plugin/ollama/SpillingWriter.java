@@ -0,0 +1,84 @@
+package io.kestra.plugin.ollama;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.kestra.core.runners.RunContext;
+
+/**
+ * Keeps what is written in memory up to {@code limit} characters, then moves it to a file of the working directory
+ * and keeps writing there. Small answers can then be returned in the task outputs while large ones go to internal
+ * storage without ever being held in memory as a whole.
+ */
+final class SpillingWriter extends Writer {
+    private final RunContext runContext;
+    private final int limit;
+
+    private StringBuilder buffer = new StringBuilder();
+    private Path file;
+    private Writer fileWriter;
+
+    SpillingWriter(RunContext runContext, int limit) {
+        this.runContext = runContext;
+        this.limit = limit;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        if (fileWriter == null && buffer.length() + length > limit) {
+            this.spill();
+        }
+
+        if (fileWriter != null) {
+            fileWriter.write(chars, offset, length);
+        } else {
+            buffer.append(chars, offset, length);
+        }
+    }
+
+    /**
+     * Moves the content to a file now, even when it is under the limit.
+     */
+    void spill() throws IOException {
+        if (fileWriter != null) {
+            return;
+        }
+
+        file = runContext.workingDir().createTempFile(".json");
+        fileWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        fileWriter.append(buffer);
+        buffer = null;
+    }
+
+    boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * @return the written content, only available while it has not been spilled
+     */
+    String content() {
+        return buffer.toString();
+    }
+
+    Path file() {
+        return file;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileWriter != null) {
+            fileWriter.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileWriter != null) {
+            fileWriter.close();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.kestra.plugin.ollama;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.client.GenerateRequest;
+import io.kestra.plugin.ollama.client.GenerateResponse;
+import io.kestra.plugin.ollama.client.OllamaClient;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Unload a model from memory",
+    description = """
+        Sends an empty request to `/api/generate` with `keep_alive` set to 0, so the server frees the memory used by the model right away instead of waiting for it to expire.
+        Nothing happens when the model isn't loaded. `keepAlive` is ignored.
+        With `hosts`, the request goes to every host of the pool, since the model may be loaded on any of them; `loadBalancing` is ignored.
+        """
+)
+@Plugin(
+    examples = {
+        @Example(
+            full = true,
+            title = "Release the memory of a model once a batch is done",
+            code = """
+                id: ollama_unload_model
+                namespace: company.team
+
+                tasks:
+                  - id: unload
+                    type: io.kestra.plugin.ollama.UnloadModel
+                    host: host.docker.internal:11434
+                    model: llama3.2
+                """
+        )
+    }
+)
+public class UnloadModel extends AbstractOllamaTask implements RunnableTask<UnloadModel.Output> {
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        String renderedModel = runContext.render(this.model).as(String.class).orElseThrow();
+
+        List<String> unloadedFrom = new ArrayList<>();
+        String doneReason = null;
+        for (OllamaClient client : this.clients(runContext)) {
+            try (client) {
+                GenerateResponse response = client.post(
+                    "/api/generate",
+                    new GenerateRequest(renderedModel, null, null, false, null, null, "0"),
+                    GenerateResponse.class
+                );
+                runContext.logger().info("Model '{}' unloaded from {}", renderedModel, client.getBaseUri().getAuthority());
+
+                unloadedFrom.add(client.getBaseUri().getAuthority());
+                doneReason = response.doneReason();
+            }
+        }
+
+        return Output.builder()
+            .model(renderedModel)
+            .host(unloadedFrom.get(0))
+            .hosts(unloadedFrom)
+            .doneReason(doneReason)
+            .build();
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(title = "Unloaded model")
+        private final String model;
+
+        @Schema(
+            title = "Host the model was unloaded from",
+            description = "The first host of `hosts` when it is set."
+        )
+        private final String host;
+
+        @Schema(title = "Every host the model was unloaded from")
+        private final List<String> hosts;
+
+        @Schema(
+            title = "Answer of the server",
+            description = "`unload` when the model is being unloaded."
+        )
+        private final String doneReason;
+    }
+}
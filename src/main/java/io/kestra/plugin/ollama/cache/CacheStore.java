@@ -0,0 +1,14 @@
+package io.kestra.plugin.ollama.cache;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Key/value storage backing the response cache. Keys are lowercase hex digests.
+ */
+public interface CacheStore {
+    Optional<byte[]> get(String key, Duration ttl) throws IOException;
+
+    void put(String key, byte[] value, Duration ttl) throws IOException;
+}
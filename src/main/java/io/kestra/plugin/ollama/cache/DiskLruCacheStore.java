@@ -0,0 +1,148 @@
+package io.kestra.plugin.ollama.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Worker-local cache store keeping one file per entry in a directory, bounded by total size and by age.
+ * <p>
+ * A single instance exists per directory on a worker, so every task sharing the directory also shares the same
+ * in-memory LRU index. The index is rebuilt from file modification times when the directory is first opened.
+ */
+public class DiskLruCacheStore implements CacheStore {
+    private static final String SUFFIX = ".cache";
+    private static final Map<Path, DiskLruCacheStore> INSTANCES = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxSize;
+    private long size;
+
+    private DiskLruCacheStore(Path directory, long maxSize) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files
+                .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                .map(DiskLruCacheStore::entry)
+                .flatMap(Optional::stream)
+                .sorted(Comparator.comparing(Entry::writtenAt))
+                .forEach(entry -> {
+                    index.put(entry.key(), entry);
+                    size += entry.size();
+                });
+        }
+    }
+
+    public static DiskLruCacheStore of(Path directory, long maxSize) throws IOException {
+        Path normalized = directory.toAbsolutePath().normalize();
+
+        DiskLruCacheStore store = INSTANCES.get(normalized);
+        if (store == null) {
+            synchronized (INSTANCES) {
+                store = INSTANCES.get(normalized);
+                if (store == null) {
+                    store = new DiskLruCacheStore(normalized, maxSize);
+                    INSTANCES.put(normalized, store);
+                }
+            }
+        }
+
+        store.resize(maxSize);
+        return store;
+    }
+
+    @Override
+    public synchronized Optional<byte[]> get(String key, Duration ttl) throws IOException {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        if (entry.writtenAt().plus(ttl).isBefore(Instant.now())) {
+            this.remove(key);
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Files.readAllBytes(this.path(key)));
+        } catch (IOException e) {
+            this.remove(key);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, byte[] value, Duration ttl) throws IOException {
+        if (value.length > maxSize) {
+            return;
+        }
+
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+        Files.write(temp, value);
+        Files.move(temp, this.path(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Entry previous = index.put(key, new Entry(key, value.length, Instant.now()));
+        size += value.length - (previous == null ? 0 : previous.size());
+
+        this.evict();
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    private synchronized void resize(long maxSize) throws IOException {
+        this.maxSize = maxSize;
+        this.evict();
+    }
+
+    private void evict() throws IOException {
+        Iterator<Map.Entry<String, Entry>> eldest = index.entrySet().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            eldest.remove();
+            size -= entry.size();
+            Files.deleteIfExists(this.path(entry.key()));
+        }
+    }
+
+    private void remove(String key) throws IOException {
+        Entry entry = index.remove(key);
+        if (entry != null) {
+            size -= entry.size();
+        }
+        Files.deleteIfExists(this.path(key));
+    }
+
+    private Path path(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static Optional<Entry> entry(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            return Optional.of(new Entry(name.substring(0, name.length() - SUFFIX.length()), Files.size(path), modified.toInstant()));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private record Entry(String key, long size, Instant writtenAt) {
+    }
+}
@@ -0,0 +1,362 @@
+package io.kestra.plugin.ollama.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.plugin.ollama.client.OllamaClient;
+import io.kestra.plugin.ollama.embedding.EmbeddingFile;
+import io.kestra.plugin.ollama.embedding.EmbeddingFileWriter;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(
+    title = "Embedding cache configuration",
+    description = """
+        Keeps the vectors already computed by a model in compact files of Kestra internal storage, under `/<namespace>/_ollama/<path>`, keyed by a hash of the normalized text and of the model options.
+        Texts found in the cache are not sent to the Ollama server, so re-embedding a corpus only costs the documents that changed.
+        There is one directory per model digest: pulling a new version of a model starts a new cache. Each run adding vectors uploads them as a new segment, so a nightly run only writes what changed; segments are merged when the cache exceeds `maxEntries` or holds more than 16 of them.
+        The cache is kept apart from the namespace files, so it is never synced into script tasks with `namespaceFiles` enabled.
+        """
+)
+public class EmbeddingCache {
+    public static final String HITS_METRIC = ResponseCache.HITS_METRIC;
+    public static final String MISSES_METRIC = ResponseCache.MISSES_METRIC;
+    public static final String EVICTIONS_METRIC = "cache.evictions";
+
+    static final int MAX_SEGMENTS = 16;
+
+    private static final ObjectMapper KEY_MAPPER = JacksonMapper.ofJson()
+        .copy()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern UNSAFE_FILE_NAME = Pattern.compile("[^A-Za-z0-9._-]");
+    private static final int KEY_BYTES = 16;
+    private static final String SEGMENT_EXTENSION = ".emb";
+    private static final String DEFAULT_PATH = "embedding-cache";
+
+    @Schema(
+        title = "Namespace holding the cache",
+        description = "Defaults to the flow namespace. Use a common parent namespace to share vectors between flows; the flow must be allowed to access it."
+    )
+    @PluginProperty
+    private Property<String> namespace;
+
+    @Schema(
+        title = "Directory of the cache in the internal storage of the namespace"
+    )
+    @Builder.Default
+    @PluginProperty
+    private Property<String> path = Property.ofValue(DEFAULT_PATH);
+
+    @Schema(
+        title = "Maximum number of vectors kept per model",
+        description = """
+            Beyond this number, the run adding vectors merges the segments and evicts the least recently used vectors: first those it didn't use, then those it used, then those it added.
+            A vector of 768 dimensions takes about 3 KiB.
+            """
+    )
+    @Builder.Default
+    @PluginProperty
+    private Property<Long> maxEntries = Property.ofValue(250_000L);
+
+    /**
+     * Downloads the cache of {@code model} for a run. Vectors computed during the run are added with
+     * {@link Session#put(String, float[])} and uploaded by {@link Session#save()}.
+     *
+     * @return null when the digest of {@code model} can't be resolved, as vectors of different versions of the model
+     * would then share a cache
+     */
+    public Session open(RunContext runContext, OllamaClient client, String model, Map<String, Object> options) throws Exception {
+        Optional<String> digest = client.digest(model);
+        if (digest.isEmpty()) {
+            runContext.logger().warn("Unable to resolve the digest of model '{}', the embedding cache is bypassed", model);
+            return null;
+        }
+
+        InternalStore store = InternalStore.of(
+            runContext,
+            runContext.render(this.namespace).as(String.class).orElse(runContext.flowInfo().namespace())
+        );
+        Path directory = Path.of(
+            runContext.render(this.path).as(String.class).orElse(DEFAULT_PATH),
+            UNSAFE_FILE_NAME.matcher(digest.get()).replaceAll("-")
+        );
+        long renderedMaxEntries = runContext.render(this.maxEntries).as(Long.class).orElse(250_000L);
+
+        List<Segment> segments = new ArrayList<>();
+        try {
+            for (String name : store.list(directory).stream().filter(name -> name.endsWith(SEGMENT_EXTENSION)).sorted().toList()) {
+                Path local = runContext.workingDir().createTempFile(SEGMENT_EXTENSION);
+                try (InputStream input = store.get(directory.resolve(name))) {
+                    Files.copy(input, local, StandardCopyOption.REPLACE_EXISTING);
+                    segments.add(new Segment(name, local, EmbeddingFile.open(local)));
+                } catch (IOException e) {
+                    // a concurrent run may just have merged it into a new segment
+                    Files.deleteIfExists(local);
+                    runContext.logger().warn("Unable to read segment '{}' of the embedding cache '{}', skipping it: {}", name, directory, e.getMessage());
+                }
+            }
+
+            return new Session(runContext, store, directory, segments, renderedMaxEntries, optionsKey(options));
+        } catch (Exception e) {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Text as it is keyed in the cache: Unicode NFC, without leading and trailing whitespace, and with every run of
+     * whitespace replaced by a single space, so that reformatting a document doesn't count as a change.
+     */
+    static String normalize(String text) {
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC).strip()).replaceAll(" ");
+    }
+
+    static String key(String optionsKey, String text) throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        sha256.update(optionsKey.getBytes(StandardCharsets.UTF_8));
+        sha256.update((byte) '\n');
+        sha256.update(normalize(text).getBytes(StandardCharsets.UTF_8));
+
+        return HexFormat.of().formatHex(sha256.digest(), 0, KEY_BYTES);
+    }
+
+    private static String optionsKey(Map<String, Object> options) throws IOException {
+        return options == null || options.isEmpty() ? "" : KEY_MAPPER.writeValueAsString(options);
+    }
+
+    /**
+     * Segments are named after the time they were written, so listing them in name order gives the oldest first.
+     */
+    private static String segmentName() {
+        return String.format("%013d-%s%s", System.currentTimeMillis(), IdUtils.create(), SEGMENT_EXTENSION);
+    }
+
+    private record Segment(String name, Path local, EmbeddingFile file) {
+        void close() throws IOException {
+            try {
+                this.file.close();
+            } finally {
+                Files.deleteIfExists(this.local);
+            }
+        }
+    }
+
+    /**
+     * The cache of one model during a run. Lookups and additions are thread-safe.
+     */
+    public static final class Session implements AutoCloseable {
+        private final RunContext runContext;
+        private final InternalStore store;
+        private final Path directory;
+        private final List<Segment> segments;
+        private final long maxEntries;
+        private final String optionsKey;
+        // segment index in the high bits, row in the low ones
+        private final Map<String, Long> rows = new HashMap<>();
+        private final List<BitSet> used = new ArrayList<>();
+        private final Map<String, float[]> added;
+        private long dropped;
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        private Session(RunContext runContext, InternalStore store, Path directory, List<Segment> segments, long maxEntries, String optionsKey) throws IOException {
+            this.runContext = runContext;
+            this.store = store;
+            this.directory = directory;
+            this.segments = segments;
+            this.maxEntries = maxEntries;
+            this.optionsKey = optionsKey;
+            // a run never adds more than maxEntries vectors: older ones would be evicted by save() anyway
+            this.added = new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                    if (this.size() <= Session.this.maxEntries) {
+                        return false;
+                    }
+                    Session.this.dropped++;
+                    return true;
+                }
+            };
+
+            for (int segment = 0; segment < segments.size(); segment++) {
+                EmbeddingFile file = segments.get(segment).file();
+                for (int row = 0; row < file.count(); row++) {
+                    // a text embedded by concurrent runs is in several segments, with the same vector
+                    this.rows.putIfAbsent(file.id(row), ref(segment, row));
+                }
+                this.used.add(new BitSet());
+            }
+        }
+
+        private static long ref(int segment, int row) {
+            return (long) segment << 32 | row;
+        }
+
+        /**
+         * @return the cached vector of {@code text}, or null when it has to be computed
+         */
+        public float[] get(String text) throws Exception {
+            String key = key(this.optionsKey, text);
+
+            synchronized (this) {
+                Long ref = this.rows.get(key);
+                if (ref == null) {
+                    float[] vector = this.added.get(key);
+                    if (vector == null) {
+                        this.misses.incrementAndGet();
+                        return null;
+                    }
+                    this.hits.incrementAndGet();
+                    return vector;
+                }
+
+                int segment = (int) (ref >>> 32);
+                int row = (int) (long) ref;
+                this.used.get(segment).set(row);
+                this.hits.incrementAndGet();
+                return this.segments.get(segment).file().vector(row);
+            }
+        }
+
+        public void put(String text, float[] vector) throws Exception {
+            String key = key(this.optionsKey, text);
+
+            synchronized (this) {
+                if (!this.rows.containsKey(key)) {
+                    this.added.put(key, vector);
+                }
+            }
+        }
+
+        public long hits() {
+            return this.hits.get();
+        }
+
+        /**
+         * @return the share of lookups answered from the cache, or null when nothing was looked up
+         */
+        public Double hitRatio() {
+            long total = this.hits.get() + this.misses.get();
+            return total == 0 ? null : (double) this.hits.get() / total;
+        }
+
+        /**
+         * Reports the hit metrics and, when vectors were added, uploads them as a new segment. Existing segments are
+         * left untouched unless the cache would exceed {@code maxEntries} or hold more than {@link #MAX_SEGMENTS}
+         * segments: they are then merged with the new vectors into a single segment, least recently used first, i.e.
+         * those not used by this run in their previous order, then those it used, then the new ones. The oldest are
+         * dropped beyond {@code maxEntries}, including the vectors added by this run that were already dropped when
+         * it added more than {@code maxEntries} of them. The merged segments are deleted once the new one is written,
+         * and segments written meanwhile by concurrent runs are kept.
+         */
+        public synchronized void save() throws Exception {
+            this.runContext.metric(Counter.of(HITS_METRIC, this.hits.get()));
+            this.runContext.metric(Counter.of(MISSES_METRIC, this.misses.get()));
+
+            if (this.added.isEmpty()) {
+                return;
+            }
+
+            long overflow = Math.max(0, this.rows.size() + this.added.size() - this.maxEntries);
+            boolean merge = overflow > 0 || this.segments.size() >= MAX_SEGMENTS;
+            long skip = merge ? overflow : 0;
+            long evicted = this.dropped + skip;
+
+            Path written = this.runContext.workingDir().createTempFile(SEGMENT_EXTENSION);
+            try {
+                try (EmbeddingFileWriter writer = new EmbeddingFileWriter(written, EmbeddingFile.Precision.FLOAT32)) {
+                    for (int pass = 0; merge && pass < 2; pass++) {
+                        for (int segment = 0; segment < this.segments.size(); segment++) {
+                            EmbeddingFile file = this.segments.get(segment).file();
+                            for (int row = 0; row < file.count(); row++) {
+                                String id = file.id(row);
+                                if (this.rows.get(id) != ref(segment, row) || this.used.get(segment).get(row) != (pass == 1)) {
+                                    continue;
+                                }
+                                if (skip > 0) {
+                                    skip--;
+                                    continue;
+                                }
+                                writer.write(id, file.vector(row));
+                            }
+                        }
+                    }
+                    for (Map.Entry<String, float[]> entry : this.added.entrySet()) {
+                        if (skip > 0) {
+                            skip--;
+                            continue;
+                        }
+                        writer.write(entry.getKey(), entry.getValue());
+                    }
+                }
+
+                this.store.put(this.directory.resolve(segmentName()), Files.newInputStream(written));
+            } finally {
+                Files.delete(written);
+            }
+
+            if (merge) {
+                for (Segment segment : this.segments) {
+                    this.store.delete(this.directory.resolve(segment.name()));
+                }
+            }
+
+            this.runContext.metric(Counter.of(EVICTIONS_METRIC, evicted));
+            this.runContext.logger().debug(
+                "Embedding cache '{}' written with {} new and {} evicted vectors{}",
+                this.directory, this.added.size(), evicted, merge ? ", " + this.segments.size() + " segments merged" : ""
+            );
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (Segment segment : this.segments) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.kestra.plugin.ollama.cache;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.List;
+
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.storages.FileAttributes;
+import io.kestra.core.storages.Storage;
+import io.kestra.core.storages.StorageContext;
+
+/**
+ * Files the plugin keeps for itself in Kestra internal storage, under {@code /<namespace>/_ollama}.
+ * <p>
+ * The directory sits next to the namespace files and the KV store of the namespace, but outside of both: its content
+ * is shared by every worker, yet it never shows up in the namespace file editor nor gets synced into the working
+ * directory of script tasks with {@code namespaceFiles} enabled, which matters for multi-GB model blobs.
+ */
+public final class InternalStore {
+    private static final String DIRECTORY = "_ollama";
+
+    private final Storage storage;
+    private final String root;
+
+    private InternalStore(Storage storage, String root) {
+        this.storage = storage;
+        this.root = root;
+    }
+
+    /**
+     * Opens the store of {@code namespace}, which the flow must be allowed to access when it isn't its own.
+     */
+    public static InternalStore of(RunContext runContext, String namespace) {
+        // only checks the flow is allowed to use the namespace, its namespace files are never touched
+        runContext.storage().namespace(namespace);
+
+        return new InternalStore(runContext.storage(), "/" + namespace.replace('.', '/') + "/" + DIRECTORY);
+    }
+
+    public boolean exists(Path path) {
+        return this.storage.isFileExist(this.uri(path));
+    }
+
+    /**
+     * @throws FileNotFoundException when there is no file at {@code path}
+     */
+    public InputStream get(Path path) throws IOException {
+        return this.storage.getFile(this.uri(path));
+    }
+
+    /**
+     * Writes {@code content} at {@code path}, replacing any previous file.
+     */
+    public void put(Path path, InputStream content) throws IOException {
+        try (content) {
+            this.storage.putFile(content, this.uri(path));
+        }
+    }
+
+    public boolean delete(Path path) throws IOException {
+        return this.storage.deleteFile(this.uri(path));
+    }
+
+    /**
+     * Returns the names of the entries of {@code directory}, or an empty list when it doesn't exist.
+     */
+    public List<String> list(Path directory) throws IOException {
+        URI uri = this.uri(directory);
+        if (!this.storage.isFileExist(uri)) {
+            return List.of();
+        }
+
+        return this.storage.list(uri).stream()
+            .map(FileAttributes::getFileName)
+            .toList();
+    }
+
+    private URI uri(Path path) {
+        StringBuilder location = new StringBuilder(this.root);
+        for (Path segment : path.normalize()) {
+            if (segment.toString().equals("..")) {
+                throw new IllegalArgumentException("Path '" + path + "' escapes the store");
+            }
+            location.append('/').append(segment);
+        }
+
+        try {
+            return new URI(StorageContext.KESTRA_SCHEME, "", location.toString(), null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid path '" + path + "'", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.kestra.plugin.ollama.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+import io.kestra.core.exceptions.ResourceExpiredException;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValue;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
+
+/**
+ * Stores cached entries in a Kestra KV namespace, relying on the KV expiration date for the TTL.
+ */
+public class KvCacheStore implements CacheStore {
+    private static final String KEY_PREFIX = "ollama_cache_";
+
+    private final KVStore kvStore;
+
+    public KvCacheStore(KVStore kvStore) {
+        this.kvStore = kvStore;
+    }
+
+    @Override
+    public Optional<byte[]> get(String key, Duration ttl) throws IOException {
+        try {
+            return kvStore.getValue(KEY_PREFIX + key)
+                .map(KVValue::value)
+                .map(value -> value.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (ResourceExpiredException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) throws IOException {
+        kvStore.put(
+            KEY_PREFIX + key,
+            new KVValueAndMetadata(new KVMetadata("Ollama response cache", ttl), new String(value, StandardCharsets.UTF_8))
+        );
+    }
+}
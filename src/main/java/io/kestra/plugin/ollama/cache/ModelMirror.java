@@ -0,0 +1,388 @@
+package io.kestra.plugin.ollama.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.plugin.ollama.client.ModelManifest;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(
+    title = "Model mirror configuration",
+    description = """
+        Second cache tier behind the local models directory: manifests and blobs are mirrored in Kestra internal storage (S3, GCS, Azure Blob, a local directory…), under `/<namespace>/_ollama/<path>`, and are shared by every worker.
+        The mirror is kept apart from the namespace files, so its multi-GB blobs are never listed in the editor nor synced into script tasks with `namespaceFiles` enabled.
+        A model missing locally is copied from the mirror before reaching out to the registry, and a model pulled from the registry is published to the mirror.
+        Blobs are stored in chunks of `chunkSize` bytes, fetched `concurrency` at a time and checked against their SHA-256 digest while they arrive.
+        """
+)
+public class ModelMirror {
+    public static final String FETCHED_METRIC = "mirror.fetched.bytes";
+    public static final String PUBLISHED_METRIC = "mirror.published.bytes";
+    public static final String FETCH_DURATION_METRIC = "mirror.fetch.duration";
+
+    private static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final int DEFAULT_CONCURRENCY = 4;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final String DEFAULT_PATH = "mirror";
+
+    @Schema(
+        title = "Namespace holding the mirror",
+        description = "Defaults to the flow namespace. Use a common parent namespace to share models between teams; the flow must be allowed to access it."
+    )
+    @PluginProperty
+    private Property<String> namespace;
+
+    @Schema(
+        title = "Directory of the mirror in the internal storage of the namespace"
+    )
+    @Builder.Default
+    @PluginProperty
+    private Property<String> path = Property.ofValue(DEFAULT_PATH);
+
+    @Schema(
+        title = "Size of the chunks blobs are split into, in bytes",
+        description = "Only used when publishing; chunks already in the mirror keep the size they were published with."
+    )
+    @Builder.Default
+    @Min(1)
+    @PluginProperty
+    private Property<Long> chunkSize = Property.ofValue(DEFAULT_CHUNK_SIZE);
+
+    @Schema(
+        title = "Number of chunks transferred at the same time"
+    )
+    @Builder.Default
+    @Min(1)
+    @PluginProperty
+    private Property<Integer> concurrency = Property.ofValue(DEFAULT_CONCURRENCY);
+
+    @Schema(
+        title = "Whether models pulled from the registry are published to the mirror"
+    )
+    @Builder.Default
+    @PluginProperty
+    private Property<Boolean> publish = Property.ofValue(true);
+
+    /**
+     * Copies {@code model} from the mirror into {@code modelsDirectory}. Blobs already present locally are kept, and the
+     * manifest is written last so the server never sees a partial model.
+     *
+     * @return true when the model is now complete locally, false when the mirror doesn't have it
+     * @throws IOException when a transfer fails or a blob doesn't match its digest
+     */
+    public boolean restore(RunContext runContext, Path modelsDirectory, String model) throws Exception {
+        InternalStore mirror = this.mirror(runContext);
+        Path root = this.root(runContext);
+        Path manifestPath = ModelManifest.manifestPath(model);
+
+        if (!mirror.exists(root.resolve(manifestPath))) {
+            runContext.logger().debug("Model '{}' isn't in the mirror", model);
+            return false;
+        }
+
+        byte[] content;
+        try (InputStream input = mirror.get(root.resolve(manifestPath))) {
+            content = input.readAllBytes();
+        }
+        ModelManifest manifest = ModelManifest.parse(content);
+
+        // all blobs must be mirrored before anything is fetched, a model is only useful complete
+        List<Fetch> fetches = new ArrayList<>();
+        for (ModelManifest.Layer layer : manifest.blobs()) {
+            Path local = modelsDirectory.resolve("blobs").resolve(layer.fileName());
+            if (Files.isRegularFile(local) && (layer.size() == null || Files.size(local) == layer.size())) {
+                continue;
+            }
+
+            Path info = root.resolve("blobs").resolve(layer.fileName() + ".json");
+            if (!mirror.exists(info)) {
+                runContext.logger().warn("Model '{}' is only partially mirrored, blob {} is missing", model, layer.digest());
+                return false;
+            }
+            try (InputStream input = mirror.get(info)) {
+                fetches.add(new Fetch(layer, local, JacksonMapper.ofJson().readValue(input, BlobInfo.class)));
+            }
+        }
+
+        int renderedConcurrency = runContext.render(this.concurrency).as(Integer.class).orElse(DEFAULT_CONCURRENCY);
+        long start = System.nanoTime();
+        long fetched = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(renderedConcurrency);
+        try {
+            Files.createDirectories(modelsDirectory.resolve("blobs"));
+            for (Fetch fetch : fetches) {
+                fetch(mirror, root, executor, fetch);
+                fetched += fetch.info().size();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Path localManifest = modelsDirectory.resolve(manifestPath);
+        Files.createDirectories(localManifest.getParent());
+        Path partialManifest = localManifest.resolveSibling(localManifest.getFileName() + "-" + IdUtils.create());
+        Files.write(partialManifest, content);
+        Files.move(partialManifest, localManifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        runContext.metric(Counter.of(FETCHED_METRIC, fetched, "model", model));
+        runContext.metric(Timer.of(FETCH_DURATION_METRIC, elapsed, "model", model));
+        runContext.logger().info("Model '{}' restored from the mirror, {} bytes fetched in {}", model, fetched, elapsed);
+
+        return true;
+    }
+
+    /**
+     * Publishes {@code model} from {@code modelsDirectory} to the mirror. Blobs are named after their digest, so those
+     * already mirrored, e.g. shared with another model, are not uploaded again.
+     */
+    public void publish(RunContext runContext, Path modelsDirectory, String model) throws Exception {
+        if (!runContext.render(this.publish).as(Boolean.class).orElse(true)) {
+            return;
+        }
+
+        Path manifestPath = ModelManifest.manifestPath(model);
+        Path localManifest = modelsDirectory.resolve(manifestPath);
+        if (!Files.isRegularFile(localManifest)) {
+            return;
+        }
+
+        InternalStore mirror = this.mirror(runContext);
+        Path root = this.root(runContext);
+        long renderedChunkSize = runContext.render(this.chunkSize).as(Long.class).orElse(DEFAULT_CHUNK_SIZE);
+        int renderedConcurrency = runContext.render(this.concurrency).as(Integer.class).orElse(DEFAULT_CONCURRENCY);
+
+        byte[] content = Files.readAllBytes(localManifest);
+        long published = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(renderedConcurrency);
+        try {
+            for (ModelManifest.Layer layer : ModelManifest.parse(content).blobs()) {
+                Path info = root.resolve("blobs").resolve(layer.fileName() + ".json");
+                if (mirror.exists(info)) {
+                    continue;
+                }
+
+                Path local = modelsDirectory.resolve("blobs").resolve(layer.fileName());
+                long size = Files.size(local);
+                upload(mirror, root, executor, local, layer.fileName(), size, renderedChunkSize);
+
+                // written last: a blob without its info file is never fetched
+                mirror.put(info, new ByteArrayInputStream(JacksonMapper.ofJson().writeValueAsBytes(new BlobInfo(size, renderedChunkSize))));
+                published += size;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Path remoteManifest = root.resolve(manifestPath);
+        if (published > 0 || !mirror.exists(remoteManifest) || !Arrays.equals(content, readAll(mirror, remoteManifest))) {
+            mirror.put(remoteManifest, new ByteArrayInputStream(content));
+        }
+
+        runContext.metric(Counter.of(PUBLISHED_METRIC, published, "model", model));
+        runContext.logger().info("Model '{}' published to the mirror, {} bytes uploaded", model, published);
+    }
+
+    /**
+     * Downloads the chunks of a blob in parallel into a temporary file, hashing them in order as soon as each one has
+     * landed, and moves the file in place once the digest matches.
+     */
+    private static void fetch(InternalStore mirror, Path root, ExecutorService executor, Fetch fetch) throws Exception {
+        BlobInfo info = fetch.info();
+        Path partial = fetch.local().resolveSibling(fetch.local().getFileName() + "-mirror-" + IdUtils.create());
+        List<Future<?>> chunks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (long index = 0; index < info.chunks(); index++) {
+                long position = index * info.chunkSize();
+                Path chunk = chunkPath(root, fetch.layer().fileName(), index);
+                chunks.add(executor.submit(() -> {
+                    try (InputStream input = mirror.get(chunk)) {
+                        byte[] bytes = new byte[BUFFER_SIZE];
+                        long offset = position;
+                        int read;
+                        while ((read = input.read(bytes)) > 0) {
+                            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, read);
+                            while (buffer.hasRemaining()) {
+                                offset += channel.write(buffer, offset);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            for (int index = 0; index < chunks.size(); index++) {
+                await(chunks.get(index));
+
+                // the chunk was just written, so it is read back from the page cache
+                long position = index * info.chunkSize();
+                long end = Math.min(info.size(), position + info.chunkSize());
+                while (position < end) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Chunk " + index + " of blob " + fetch.layer().digest() + " is truncated in the mirror");
+                    }
+                    buffer.flip();
+                    sha256.update(buffer);
+                    position += read;
+                }
+            }
+
+            if (channel.size() != info.size()) {
+                throw new IOException("Blob " + fetch.layer().digest() + " has " + channel.size() + " bytes in the mirror instead of " + info.size());
+            }
+            String digest = "sha256:" + HexFormat.of().formatHex(sha256.digest());
+            if (!digest.equals(fetch.layer().digest())) {
+                throw new IOException("Blob " + fetch.layer().digest() + " is corrupted in the mirror, its content has digest " + digest);
+            }
+        } catch (Exception e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        Files.move(partial, fetch.local(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void upload(InternalStore mirror, Path root, ExecutorService executor, Path local, String fileName, long size, long chunkSize) throws Exception {
+        List<Future<?>> chunks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(local, StandardOpenOption.READ)) {
+            for (long index = 0; index * chunkSize < size; index++) {
+                long position = index * chunkSize;
+                long length = Math.min(chunkSize, size - position);
+                Path chunk = chunkPath(root, fileName, index);
+                chunks.add(executor.submit(() -> {
+                    mirror.put(chunk, new RangeInputStream(channel, position, length));
+                    return null;
+                }));
+            }
+
+            for (Future<?> chunk : chunks) {
+                await(chunk);
+            }
+        } catch (Exception e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw e;
+        }
+    }
+
+    private static void await(Future<?> future) throws Exception {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static byte[] readAll(InternalStore mirror, Path path) throws IOException {
+        try (InputStream input = mirror.get(path)) {
+            return input.readAllBytes();
+        }
+    }
+
+    private static Path chunkPath(Path root, String fileName, long index) {
+        return root.resolve("blobs").resolve(fileName).resolve(String.format("%06d", index));
+    }
+
+    private InternalStore mirror(RunContext runContext) throws IllegalVariableEvaluationException {
+        String renderedNamespace = runContext.render(this.namespace).as(String.class)
+            .orElse(runContext.flowInfo().namespace());
+
+        return InternalStore.of(runContext, renderedNamespace);
+    }
+
+    private Path root(RunContext runContext) throws IllegalVariableEvaluationException {
+        return Path.of(runContext.render(this.path).as(String.class).orElse(DEFAULT_PATH));
+    }
+
+    /**
+     * Stored next to the chunks of a blob, once they are all uploaded.
+     */
+    record BlobInfo(long size, long chunkSize) {
+        long chunks() {
+            return (this.size + this.chunkSize - 1) / this.chunkSize;
+        }
+    }
+
+    private record Fetch(ModelManifest.Layer layer, Path local, BlobInfo info) {
+    }
+
+    /**
+     * Reads a range of a file with positional reads, so several ranges of the same channel can be read concurrently.
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.end = position + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return this.read(single, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(single[0]);
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (this.position >= this.end) {
+                return -1;
+            }
+
+            int read = this.channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, this.end - this.position)), this.position);
+            if (read > 0) {
+                this.position += read;
+            }
+            return read;
+        }
+    }
+}
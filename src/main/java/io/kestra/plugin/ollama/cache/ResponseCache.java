@@ -0,0 +1,150 @@
+package io.kestra.plugin.ollama.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.ollama.client.OllamaClient;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(
+    title = "Response cache configuration",
+    description = """
+        Caches model answers keyed by a SHA-256 of the model digest and the full request (prompt, system prompt, messages, format and options, including `seed`).
+        A hit is returned without sending the request to the Ollama server.
+        """
+)
+public class ResponseCache {
+    public static final String HITS_METRIC = "cache.hits";
+    public static final String MISSES_METRIC = "cache.misses";
+
+    private static final ObjectMapper KEY_MAPPER = JacksonMapper.ofJson()
+        .copy()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    @Schema(
+        title = "Where cached responses are stored",
+        description = "`KV` uses the Kestra KV store of `namespace` and is shared by all workers. `LOCAL` keeps an LRU cache on the worker's disk, bounded by `maxSize`."
+    )
+    @Builder.Default
+    @PluginProperty
+    private Property<Store> store = Property.ofValue(Store.KV);
+
+    @Schema(
+        title = "How long a cached response stays valid"
+    )
+    @Builder.Default
+    @PluginProperty
+    private Property<Duration> ttl = Property.ofValue(Duration.ofDays(1));
+
+    @Schema(
+        title = "KV namespace holding the cache",
+        description = "Only used with the `KV` store. Defaults to the flow namespace."
+    )
+    @PluginProperty
+    private Property<String> namespace;
+
+    @Schema(
+        title = "Directory of the local cache",
+        description = "Only used with the `LOCAL` store. Defaults to `kestra-ollama-response-cache` in the worker's temporary directory."
+    )
+    @PluginProperty
+    private Property<String> directory;
+
+    @Schema(
+        title = "Maximum size of the local cache in bytes",
+        description = "Only used with the `LOCAL` store. Least recently used entries are evicted beyond this size."
+    )
+    @Builder.Default
+    @PluginProperty
+    private Property<Long> maxSize = Property.ofValue(256L * 1024 * 1024);
+
+    /**
+     * Returns the cached answer for {@code request} or computes, caches and returns it.
+     * Emits {@value #HITS_METRIC} or {@value #MISSES_METRIC} on the run context. The cache is bypassed when the
+     * digest of {@code model} can't be resolved, since answers of different versions of the model would share a key.
+     */
+    public <T> T getOrCompute(RunContext runContext, OllamaClient client, String model, Object request, Class<T> type, Callable<T> compute) throws Exception {
+        Optional<String> digest = client.digest(model);
+        if (digest.isEmpty()) {
+            runContext.logger().warn("Unable to resolve the digest of model '{}', the response cache is bypassed", model);
+            return compute.call();
+        }
+
+        Duration renderedTtl = runContext.render(this.ttl).as(Duration.class).orElse(Duration.ofDays(1));
+        CacheStore cacheStore = this.cacheStore(runContext);
+        String key = key(digest.get(), request);
+
+        Optional<byte[]> cached = cacheStore.get(key, renderedTtl);
+        if (cached.isPresent()) {
+            runContext.metric(Counter.of(HITS_METRIC, 1));
+            runContext.logger().debug("Response cache hit for key {}", key);
+            return KEY_MAPPER.readValue(cached.get(), type);
+        }
+
+        runContext.metric(Counter.of(MISSES_METRIC, 1));
+        T result = compute.call();
+        cacheStore.put(key, KEY_MAPPER.writeValueAsBytes(result), renderedTtl);
+
+        return result;
+    }
+
+    static String key(String digest, Object request) throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        sha256.update(digest.getBytes(StandardCharsets.UTF_8));
+        sha256.update((byte) '\n');
+        sha256.update(request.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        sha256.update((byte) '\n');
+        // keep_alive only tells the server how long to keep the model loaded, it doesn't change the answer
+        ObjectNode body = KEY_MAPPER.valueToTree(request);
+        body.remove("keep_alive");
+        sha256.update(KEY_MAPPER.writeValueAsBytes(body));
+
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private CacheStore cacheStore(RunContext runContext) throws Exception {
+        Store renderedStore = runContext.render(this.store).as(Store.class).orElse(Store.KV);
+
+        if (renderedStore == Store.LOCAL) {
+            Path renderedDirectory = runContext.render(this.directory).as(String.class)
+                .map(Path::of)
+                .orElseGet(() -> Path.of(System.getProperty("java.io.tmpdir"), "kestra-ollama-response-cache"));
+            long renderedMaxSize = runContext.render(this.maxSize).as(Long.class).orElse(256L * 1024 * 1024);
+
+            return DiskLruCacheStore.of(renderedDirectory, renderedMaxSize);
+        }
+
+        String renderedNamespace = runContext.render(this.namespace).as(String.class)
+            .orElse(runContext.flowInfo().namespace());
+
+        return new KvCacheStore(runContext.namespaceKv(renderedNamespace));
+    }
+
+    public enum Store {
+        KV,
+        LOCAL
+    }
+}
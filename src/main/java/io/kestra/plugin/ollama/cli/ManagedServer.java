@@ -0,0 +1,278 @@
+package io.kestra.plugin.ollama.cli;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.DeviceRequest;
+import com.github.dockerjava.api.model.HostConfig;
+
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.scripts.runner.docker.Docker;
+import io.kestra.plugin.scripts.runner.docker.DockerService;
+
+/**
+ * Long-lived {@code ollama serve} container shared by every {@link OllamaCLI} task of a worker.
+ * <p>
+ * Tasks join the network namespace of the server container, so the server is reachable on {@code 127.0.0.1:11434}
+ * from inside the task container without publishing any port. Models stay loaded between tasks thanks to
+ * {@code OLLAMA_KEEP_ALIVE}, and the container is removed once no task has used it for the idle timeout.
+ */
+final class ManagedServer {
+    static final String LABEL = "io.kestra.plugin.ollama.managed";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ManagedServer.class);
+    private static final Map<String, ManagedServer> SERVERS = new HashMap<>();
+    private static final ScheduledExecutorService REAPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ollama-managed-server-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        REAPER.scheduleWithFixedDelay(() -> reap(Instant.now()), 30, 30, TimeUnit.SECONDS);
+    }
+
+    private final String containerName;
+    private final Engine engine;
+    private int leases;
+    private Instant lastUsed = Instant.now();
+    private Duration idleTimeout;
+
+    private ManagedServer(String containerName, Engine engine, Duration idleTimeout) {
+        this.containerName = containerName;
+        this.engine = engine;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns a lease on the server for {@code image} and {@code volumeSpec}, starting its container if needed.
+     * The lease must be closed once the task is done so the idle timeout can start counting.
+     */
+    static Lease acquire(RunContext runContext, Docker dockerRunner, String image, String volumeSpec, Duration idleTimeout) throws Exception {
+        return acquire(
+            new Spec(dockerRunner.getHost() + "|" + image + "|" + volumeSpec, runContext, dockerRunner, image, volumeSpec, idleTimeout),
+            DockerEngine::open
+        );
+    }
+
+    /**
+     * The map lock is only held to find the server and count the lease, so that the lease keeps the reaper away;
+     * starting the container, which may pull a large image, only blocks the tasks waiting for the same server.
+     */
+    static Lease acquire(Spec spec, EngineFactory engineFactory) throws Exception {
+        ManagedServer server;
+        synchronized (SERVERS) {
+            server = SERVERS.get(spec.key());
+            if (server == null) {
+                server = new ManagedServer(containerName(spec.key()), engineFactory.open(spec), spec.idleTimeout());
+                SERVERS.put(spec.key(), server);
+            }
+
+            server.leases++;
+            server.idleTimeout = spec.idleTimeout();
+        }
+
+        Lease lease = new Lease(server, spec.key());
+        try {
+            synchronized (server) {
+                server.engine.ensureRunning(server.containerName, spec);
+            }
+        } catch (Exception e) {
+            lease.close();
+            throw e;
+        }
+
+        return lease;
+    }
+
+    private static List<DeviceRequest> deviceRequests(RunContext runContext, Docker dockerRunner) throws Exception {
+        List<DeviceRequest> requests = new ArrayList<>();
+        if (dockerRunner.getDeviceRequests() == null) {
+            return requests;
+        }
+
+        for (io.kestra.plugin.scripts.runner.docker.DeviceRequest request : dockerRunner.getDeviceRequests()) {
+            requests.add(new DeviceRequest()
+                .withDriver(runContext.render(request.getDriver()).as(String.class).orElse(null))
+                .withCount(runContext.render(request.getCount()).as(Integer.class).orElse(null))
+                .withDeviceIds(runContext.render(request.getDeviceIds()).asList(String.class))
+                .withCapabilities(runContext.render(request.getCapabilities()).asList(List.class))
+                .withOptions(runContext.render(request.getOptions()).asMap(String.class, String.class)));
+        }
+
+        return requests;
+    }
+
+    /**
+     * Removes the containers of the servers without lease for longer than their idle timeout. Each removal holds the
+     * server's own lock, so a task acquiring the server meanwhile waits for it and then starts a new container.
+     */
+    static void reap(Instant now) {
+        Map<String, ManagedServer> idle = new HashMap<>();
+        synchronized (SERVERS) {
+            SERVERS.forEach((key, server) -> {
+                if (server.isIdle(now)) {
+                    idle.put(key, server);
+                }
+            });
+        }
+
+        idle.forEach((key, server) -> {
+            synchronized (server) {
+                synchronized (SERVERS) {
+                    if (!server.isIdle(now)) {
+                        return;
+                    }
+                }
+
+                try {
+                    LOGGER.info("Removing managed Ollama server container '{}' after {} of inactivity", server.containerName, server.idleTimeout);
+                    server.engine.remove(server.containerName);
+                } catch (Exception e) {
+                    LOGGER.warn("Unable to remove managed Ollama server container '{}'", server.containerName, e);
+                }
+
+                synchronized (SERVERS) {
+                    if (server.leases > 0 || !SERVERS.remove(key, server)) {
+                        // leased while being removed: the new task restarts the container
+                        return;
+                    }
+                }
+
+                try {
+                    server.engine.close();
+                } catch (Exception e) {
+                    LOGGER.debug("Unable to close Docker client", e);
+                }
+            }
+        });
+    }
+
+    private boolean isIdle(Instant now) {
+        return this.leases == 0 && !this.lastUsed.plus(this.idleTimeout).isAfter(now);
+    }
+
+    private static String containerName(String key) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        return "kestra-ollama-" + HexFormat.of().formatHex(digest, 0, 6);
+    }
+
+    record Lease(ManagedServer server, String key) implements AutoCloseable {
+        String containerName() {
+            return server.containerName;
+        }
+
+        @Override
+        public void close() {
+            synchronized (SERVERS) {
+                server.leases--;
+                server.lastUsed = Instant.now();
+            }
+        }
+    }
+
+    /**
+     * What a task asks of a managed server; servers are shared by tasks with the same {@code key}.
+     */
+    record Spec(String key, RunContext runContext, Docker dockerRunner, String image, String volumeSpec, Duration idleTimeout) {
+    }
+
+    /**
+     * The container operations of a server, kept apart from the lease bookkeeping.
+     */
+    interface Engine extends AutoCloseable {
+        /**
+         * Starts the container {@code name} for {@code spec} unless it is already running.
+         */
+        void ensureRunning(String name, Spec spec) throws Exception;
+
+        void remove(String name) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface EngineFactory {
+        Engine open(Spec spec) throws Exception;
+    }
+
+    private record DockerEngine(DockerClient dockerClient) implements Engine {
+        static DockerEngine open(Spec spec) throws Exception {
+            Docker dockerRunner = spec.dockerRunner();
+            return new DockerEngine(DockerService.client(spec.runContext(), dockerRunner.getHost(), dockerRunner.getConfig(), dockerRunner.getCredentials(), spec.image()));
+        }
+
+        @Override
+        public void ensureRunning(String name, Spec spec) throws Exception {
+            InspectContainerResponse existing;
+            try {
+                existing = dockerClient.inspectContainerCmd(name).exec();
+            } catch (NotFoundException e) {
+                existing = null;
+            }
+
+            if (existing != null && Boolean.TRUE.equals(existing.getState().getRunning())) {
+                return;
+            }
+
+            if (existing == null) {
+                spec.runContext().logger().info("Creating managed Ollama server container '{}' from image '{}'", name, spec.image());
+
+                HostConfig hostConfig = HostConfig.newHostConfig()
+                    .withDeviceRequests(deviceRequests(spec.runContext(), spec.dockerRunner()));
+                if (spec.volumeSpec() != null) {
+                    hostConfig.withBinds(Bind.parse(spec.volumeSpec()));
+                }
+
+                try {
+                    this.create(name, spec, hostConfig);
+                } catch (NotFoundException e) {
+                    dockerClient.pullImageCmd(spec.image()).start().awaitCompletion();
+                    this.create(name, spec, hostConfig);
+                }
+            } else {
+                spec.runContext().logger().info("Restarting managed Ollama server container '{}'", name);
+            }
+
+            dockerClient.startContainerCmd(name).exec();
+        }
+
+        private void create(String name, Spec spec, HostConfig hostConfig) {
+            dockerClient.createContainerCmd(spec.image())
+                .withName(name)
+                .withLabels(Map.of(LABEL, "true"))
+                .withEnv("OLLAMA_KEEP_ALIVE=" + spec.idleTimeout().toSeconds() + "s")
+                .withHostConfig(hostConfig)
+                .exec();
+        }
+
+        @Override
+        public void remove(String name) {
+            try {
+                dockerClient.removeContainerCmd(name).withForce(true).exec();
+            } catch (NotFoundException ignored) {
+                // already gone
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+            dockerClient.close();
+        }
+    }
+}
@@ -1,25 +1,39 @@
 package io.kestra.plugin.ollama.cli;
 
+import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import io.kestra.core.exceptions.IllegalVariableEvaluationException;
 import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
 import io.kestra.core.models.annotations.Plugin;
 import io.kestra.core.models.annotations.PluginProperty;
 import io.kestra.core.models.property.Property;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
 import io.kestra.core.models.tasks.*;
 import io.kestra.core.models.tasks.runners.TaskRunner;
 import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.AbstractOllamaTask;
+import io.kestra.plugin.ollama.CompletionMetrics;
+import io.kestra.plugin.ollama.ModelLocks;
+import io.kestra.plugin.ollama.client.ConcurrencyLimiter;
+import io.kestra.plugin.ollama.client.HostPool;
+import io.kestra.plugin.ollama.client.LoadBalancing;
+import io.kestra.plugin.ollama.client.OllamaClient;
 import io.kestra.plugin.scripts.exec.scripts.models.ScriptOutput;
 import io.kestra.plugin.scripts.exec.scripts.runners.CommandsWrapper;
 import io.kestra.plugin.scripts.runner.docker.Docker;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
@@ -27,7 +41,6 @@ import lombok.experimental.SuperBuilder;
 import jakarta.validation.constraints.NotNull;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -39,9 +52,24 @@ import java.util.stream.Stream;
 @NoArgsConstructor
 @Schema(
     title = "Run Ollama CLI commands in flows",
-    description = "Executes rendered Ollama CLI commands inside the configured task runner. Starts a transient `ollama serve` when no remote host is provided and defaults to Docker-based model caching so pulls persist across runs."
+    description = "Executes rendered Ollama CLI commands inside the configured task runner. Starts a transient `ollama serve` when no remote host is provided, waits until it answers on `/api/version`, and defaults to Docker-based model caching so pulls persist across runs."
 )
 @Plugin(
+    metrics = {
+        @Metric(
+            name = "server.startup.duration",
+            type = Timer.TYPE,
+            description = "Time between launching the local `ollama serve` and its first successful readiness probe. Only emitted when no remote host is configured."
+        ),
+        @Metric(name = AbstractOllamaTask.QUEUE_WAIT_METRIC, type = Timer.TYPE, description = "Time this run waited for a slot of `maxInFlight`, tagged by `host`."),
+        @Metric(name = CompletionMetrics.PROMPT_TOKENS, type = Counter.TYPE, unit = "tokens", description = "Tokens in the prompt of an `ollama run --verbose` command, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.EVAL_TOKENS, type = Counter.TYPE, unit = "tokens", description = "Tokens generated by an `ollama run --verbose` command, tagged by `model` and `host`."),
+        @Metric(name = CompletionMetrics.TIME_TO_FIRST_TOKEN, type = Timer.TYPE, description = "Model load time plus prompt evaluation time of an `ollama run --verbose` command."),
+        @Metric(name = CompletionMetrics.LOAD_DURATION, type = Timer.TYPE, description = "Time spent loading the model for an `ollama run --verbose` command."),
+        @Metric(name = CompletionMetrics.PROMPT_EVAL_DURATION, type = Timer.TYPE, description = "Time spent evaluating the prompt of an `ollama run --verbose` command."),
+        @Metric(name = CompletionMetrics.EVAL_DURATION, type = Timer.TYPE, description = "Time spent generating tokens for an `ollama run --verbose` command."),
+        @Metric(name = CompletionMetrics.TOTAL_DURATION, type = Timer.TYPE, description = "Total duration reported by an `ollama run --verbose` command.")
+    },
     examples = {
         @Example(
             full = true,
@@ -119,13 +147,39 @@ import java.util.stream.Stream;
                           - ollama list
 
                 """
+        ),
+        @Example(
+            full = true,
+            title = "Keep the model loaded between executions with a managed Ollama server",
+            code = """
+                id: ollama_managed_server
+                namespace: company.team
+
+                inputs:
+                  - id: prompt
+                    type: STRING
+                    defaults: Summarize the benefits of workflow orchestration
+
+                tasks:
+                  - id: run
+                    type: io.kestra.plugin.ollama.cli.OllamaCLI
+                    serverMode: MANAGED
+                    serverIdleTimeout: PT1H
+                    commands:
+                      - ollama pull gemma3:1b
+                      - ollama run gemma3:1b "{{ inputs.prompt }}"
+                """
         )
     }
 )
 public class OllamaCLI extends Task implements RunnableTask<ScriptOutput>, NamespaceFilesInterface, InputFilesInterface, OutputFilesInterface {
-    private static final String DEFAULT_IMAGE = "ollama/ollama";
+    private static final String DEFAULT_IMAGE = ResolvedConfig.DEFAULT_IMAGE;
     private static final String OLLAMA_CONTAINER_MODELS_PATH = "/root/.ollama";
-    private static final String OLLAMA_CLOUD_HOST = "https://ollama.com";
+    private static final Duration DEFAULT_SERVER_STARTUP_TIMEOUT = ResolvedConfig.DEFAULT_SERVER_STARTUP_TIMEOUT;
+    private static final Duration DEFAULT_SERVER_IDLE_TIMEOUT = ResolvedConfig.DEFAULT_SERVER_IDLE_TIMEOUT;
+    private static final Duration DEFAULT_QUEUE_TIMEOUT = ResolvedConfig.DEFAULT_QUEUE_TIMEOUT;
+    private static final Duration DEFAULT_PROGRESS_LOG_INTERVAL = ResolvedConfig.DEFAULT_PROGRESS_LOG_INTERVAL;
+    private static final Pattern OLLAMA_RUN_MODEL = Pattern.compile("ollama\\s+run\\s+(?:--?[\\w-]+\\s+)*([\\w.:/-]+)");
 
     @Schema(
         title = "Commands executed by Ollama CLI",
@@ -168,6 +222,16 @@ public class OllamaCLI extends Task implements RunnableTask<ScriptOutput>, Names
     @PluginProperty(group = "destination")
     private Property<List<String>> outputFiles;
 
+    @Schema(
+        title = "Models to install before running the commands",
+        description = """
+            Each model is pulled only when the server doesn't already have it.
+            With the local server and model caching, concurrent tasks sharing the cache take a lock per model, so a model is downloaded once while the other tasks wait and then reuse it. Prefer this over `ollama pull` commands when several executions may start at the same time.
+            """
+    )
+    @PluginProperty(group = "main")
+    private Property<List<String>> ensureModels;
+
     @Schema(
         title = "Persist Ollama model cache",
         description = "Defaults to true. When enabled with the Docker runner and no remote host, mounts the Ollama models directory so pulled models are reused. Disable to avoid reusing cached models."
@@ -190,6 +254,45 @@ public class OllamaCLI extends Task implements RunnableTask<ScriptOutput>, Names
     @PluginProperty(group = "connection")
     private Property<String> host;
 
+    @Schema(
+        title = "Pool of remote Ollama hosts",
+        description = """
+            Spreads runs over several Ollama servers; takes precedence over `host`. Each run picks one host according to `loadBalancing` and sets it as `OLLAMA_HOST` for all commands.
+            The picked host is probed on `/api/version` before the commands start; hosts that don't answer are ejected for a growing period (10 seconds up to 5 minutes), another one is picked, and they come back automatically.
+            """
+    )
+    @PluginProperty(group = "connection")
+    private Property<List<String>> hosts;
+
+    @Schema(
+        title = "How a host is picked from `hosts`",
+        description = """
+            `ROUND_ROBIN` uses the hosts one after the other, `LEAST_OUTSTANDING` picks the host with the fewest runs in flight from this worker, and `MODEL_AFFINITY` prefers hosts that already have the model of the `ollama run` commands loaded according to `/api/ps`.
+            """
+    )
+    @Builder.Default
+    @PluginProperty(group = "connection")
+    private Property<LoadBalancing> loadBalancing = Property.ofValue(LoadBalancing.ROUND_ROBIN);
+
+    @Schema(
+        title = "Maximum number of concurrent runs per shared server from this worker",
+        description = """
+            Applies to remote hosts and to the managed server, not to the `ollama serve` started inside the task container. The limit is shared with the HTTP tasks of the worker targeting the same host; each run holds one slot for all its commands.
+            Runs beyond it wait in the worker, in arrival order.
+            """
+    )
+    @PluginProperty(group = "advanced")
+    @Min(1)
+    private Property<Integer> maxInFlight;
+
+    @Schema(
+        title = "How long a run may wait for a free slot",
+        description = "Only used with `maxInFlight`. The task fails when no slot frees up in time."
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<Duration> queueTimeout = Property.ofValue(DEFAULT_QUEUE_TIMEOUT);
+
     @Schema(
         title = "Authentication for Ollama Cloud (Turbo)",
         description = """
@@ -200,92 +303,299 @@ public class OllamaCLI extends Task implements RunnableTask<ScriptOutput>, Names
     @PluginProperty(dynamic = true, group = "connection")
     private Auth auth;
 
+    @Schema(
+        title = "Maximum time to wait for the local Ollama server",
+        description = """
+            Only used when no `host` is set. The local `ollama serve` is probed on `/api/version` with a short backoff and commands start as soon as it answers.
+            The task fails if the server is still not ready once this deadline is reached.
+            """
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<Duration> serverStartupTimeout = Property.ofValue(DEFAULT_SERVER_STARTUP_TIMEOUT);
+
+    @Schema(
+        title = "How the local Ollama server is provided when no `host` is set",
+        description = """
+            `EPHEMERAL` starts `ollama serve` inside every task container, so models are loaded from the cache again on each run.
+            `MANAGED` starts one long-lived server container per worker (Docker runner only) mounting the model cache, and task containers join its network to reach it on `127.0.0.1:11434`. Models stay loaded between tasks and the container is removed after `serverIdleTimeout` without any task.
+            """
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<ServerMode> serverMode = Property.ofValue(ServerMode.EPHEMERAL);
+
+    @Schema(
+        title = "Idle time after which the managed server is stopped",
+        description = "Only used with `serverMode: MANAGED`. Also used as the server `OLLAMA_KEEP_ALIVE`, so models stay loaded as long as the server lives."
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<Duration> serverIdleTimeout = Property.ofValue(DEFAULT_SERVER_IDLE_TIMEOUT);
+
+    @Schema(
+        title = "Minimum time between two logs of the same progress bar",
+        description = """
+            The progress bars of `ollama pull` are redrawn many times per second. Each layer is logged when it starts, then as a summary (percent, size, rate, time left) at most once per interval, then when it completes; status lines redrawn by a spinner are logged once.
+            The redraws left out are only kept when the commands fail, in a file of internal storage whose URI is logged.
+            """
+    )
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    private Property<Duration> progressLogInterval = Property.ofValue(DEFAULT_PROGRESS_LOG_INTERVAL);
+
     @Override
     public ScriptOutput run(RunContext runContext) throws Exception {
-        var renderedOutputFiles = runContext.render(this.outputFiles).asList(String.class);
+        ResolvedConfig config = ResolvedConfig.resolve(runContext, this);
+        Map<String, String> envs = config.mutableEnv();
+
+        if (!config.hosts().isEmpty()) {
+            HostPool pool = HostPool.of(config.hosts().stream().map(OllamaClient::resolveHost).toList());
+
+            try (
+                HostPool.Lease lease = pool.acquireReachable(config.loadBalancing(), config.runModel(), config.apiKey());
+                ConcurrencyLimiter.Permit permit = acquireSlot(runContext, config, lease.uri().toString(), lease.uri().getAuthority())
+            ) {
+                runContext.logger().info("Using Ollama host {}", lease.uri());
+                envs.put("OLLAMA_HOST", lease.uri().toString());
+
+                return this.execute(runContext, config, this.taskRunner, envs, null, false);
+            }
+        }
 
-        Map<String, String> envs = getEnv(runContext);
+        if (this.host == null && config.serverMode() == ServerMode.MANAGED) {
+            if (!(this.taskRunner instanceof Docker dockerRunner)) {
+                throw new IllegalArgumentException("`serverMode: MANAGED` requires the Docker task runner");
+            }
 
-        TaskRunner<?> configuredTaskRunner = configureTaskRunner(runContext);
+            try (
+                ManagedServer.Lease lease = ManagedServer.acquire(runContext, dockerRunner, config.containerImage(), cacheVolumeSpec(runContext, config), config.serverIdleTimeout());
+                ConcurrencyLimiter.Permit permit = acquireSlot(runContext, config, "container:" + lease.containerName(), lease.containerName())
+            ) {
+                runContext.logger().info("Attaching to managed Ollama server container '{}'", lease.containerName());
 
-        var originalCommands = runContext.render(this.commands).asList(String.class);
+                TaskRunner<?> attachedTaskRunner = dockerRunner.toBuilder()
+                    .networkMode("container:" + lease.containerName())
+                    .build();
+                envs.putIfAbsent("OLLAMA_HOST", "127.0.0.1:" + OllamaClient.DEFAULT_PORT);
 
-        var needSync = !renderedOutputFiles.isEmpty();
-        var hasCleanupCommand = originalCommands.stream().anyMatch(cmd -> cmd.contains("ollama rm"));
+                return this.execute(runContext, config, attachedTaskRunner, envs, serverReadyCommand(config.serverStartupTimeout(), false), false);
+            }
+        }
 
-        if (needSync && hasCleanupCommand) {
-            originalCommands = originalCommands.stream()
-                .flatMap(cmd -> cmd.contains("ollama rm") ? Stream.of("sync", cmd) : Stream.of(cmd))
-                .toList();
+        URI remoteHost = this.host != null ? OllamaClient.resolveHost(envs.get("OLLAMA_HOST")) : null;
+        try (ConcurrencyLimiter.Permit permit = remoteHost != null ? acquireSlot(runContext, config, remoteHost.toString(), remoteHost.getAuthority()) : null) {
+            return this.execute(
+                runContext,
+                config,
+                this.configureTaskRunner(runContext, config),
+                envs,
+                this.host == null ? serverReadyCommand(config.serverStartupTimeout(), true) : null,
+                this.host == null && config.enableModelCaching()
+            );
+        }
+    }
 
+    /**
+     * Waits for a slot of the worker-wide limiter of a shared server, held for the whole run.
+     * Returns null when no {@code maxInFlight} is configured.
+     */
+    private static ConcurrencyLimiter.Permit acquireSlot(RunContext runContext, ResolvedConfig config, String key, String hostTag) throws Exception {
+        if (config.maxInFlight() == null) {
+            return null;
         }
 
-        CommandsWrapper commands = new CommandsWrapper(runContext)
+        ConcurrencyLimiter.Permit permit = ConcurrencyLimiter.of(key, config.maxInFlight()).acquire(config.queueTimeout());
+        AbstractOllamaTask.queueMetrics(runContext, permit, hostTag);
+
+        return permit;
+    }
+
+    private ScriptOutput execute(RunContext runContext, ResolvedConfig config, TaskRunner<?> configuredTaskRunner, Map<String, String> envs, String beforeCommand, boolean sharedCache) throws Exception {
+        String logHost = envs.getOrDefault("OLLAMA_HOST", "127.0.0.1:" + OllamaClient.DEFAULT_PORT);
+
+        try (OllamaLogConsumer logConsumer = new OllamaLogConsumer(runContext, config.runModel(), logHost, config.progressLogInterval())) {
+            try {
+                return this.commandsWrapper(runContext, config, configuredTaskRunner, envs, beforeCommand, sharedCache, logConsumer).run();
+            } catch (Exception e) {
+                logConsumer.failed();
+                throw e;
+            }
+        }
+    }
+
+    private CommandsWrapper commandsWrapper(RunContext runContext, ResolvedConfig config, TaskRunner<?> configuredTaskRunner, Map<String, String> envs, String beforeCommand, boolean sharedCache, OllamaLogConsumer logConsumer) throws Exception {
+        List<String> beforeCommands = new ArrayList<>();
+        if (beforeCommand != null) {
+            beforeCommands.add(beforeCommand);
+        }
+
+        if (!config.ensureModels().isEmpty()) {
+            beforeCommands.add(ensureModelsCommand(config.ensureModels(), sharedCache));
+        }
+
+        List<String> originalCommands = config.commands();
+        if (!config.outputFiles().isEmpty()) {
+            originalCommands = syncBeforeCleanup(originalCommands);
+        }
+
+        return new CommandsWrapper(runContext)
             .withTaskRunner(configuredTaskRunner)
-            .withContainerImage(runContext.render(this.containerImage).as(String.class).orElse(DEFAULT_IMAGE))
+            .withContainerImage(config.containerImage())
             .withInterpreter(Property.ofValue(List.of("/bin/sh", "-c")))
+            .withLogConsumer(logConsumer)
             .withBeforeCommands(
-                host == null
-                    ? Property.ofValue(List.of("ollama serve & sleep 5"))
+                !beforeCommands.isEmpty()
+                    ? Property.ofValue(beforeCommands)
                     : null
             )
             .withCommands(Property.ofValue(originalCommands))
             .withEnv(envs)
             .withNamespaceFiles(namespaceFiles)
             .withInputFiles(inputFiles)
-            .withOutputFiles(renderedOutputFiles.isEmpty() ? null : renderedOutputFiles);
-
-        return commands.run();
+            .withOutputFiles(config.outputFiles().isEmpty() ? null : config.outputFiles());
     }
 
-    private TaskRunner<?> configureTaskRunner(RunContext runContext) throws Exception {
-        if (this.host != null) {
-            return this.taskRunner;
+    /**
+     * Adds a {@code sync} before every {@code ollama rm} command, so output files are flushed to disk before the
+     * model is removed. Returns {@code commands} itself when there is no cleanup command.
+     */
+    static List<String> syncBeforeCleanup(List<String> commands) {
+        if (commands.stream().noneMatch(cmd -> cmd.contains("ollama rm"))) {
+            return commands;
         }
 
-        if (runContext.render(this.enableModelCaching).as(Boolean.class).orElse(true)) {
-            String volumeSpec;
-            if (this.modelCachePath != null) {
-                String hostPath = runContext.render(this.modelCachePath).as(String.class).orElseThrow();
-                volumeSpec = hostPath + ":" + OLLAMA_CONTAINER_MODELS_PATH;
-                runContext.logger().info("Using user host path for Ollama cache: {}", volumeSpec);
-            } else {
-                String volumeName = "kestra-ollama-cache";
-                volumeSpec = volumeName + ":" + OLLAMA_CONTAINER_MODELS_PATH;
-                runContext.logger().info("Using named Docker volume for Ollama cache: {}", volumeSpec);
+        return commands.stream()
+            .flatMap(cmd -> cmd.contains("ollama rm") ? Stream.of("sync", cmd) : Stream.of(cmd))
+            .toList();
+    }
+
+    /**
+     * Pulls the models that the server doesn't list yet. When the model directory is a cache shared with other task
+     * containers, each pull runs under a {@code flock} on {@code .kestra-locks/<model>.lock} in the cache and checks
+     * the model again once the lock is held, so concurrent tasks download a model only once. {@code PullModel} takes
+     * the same lock, named by {@link ModelLocks#fileName(String)}, and the script fails rather than pull without it.
+     * A managed or remote server needs no lock, as it deduplicates concurrent downloads of the same blobs itself.
+     */
+    static String ensureModelsCommand(List<String> models, boolean sharedCache) {
+        String lockDirectory = OLLAMA_CONTAINER_MODELS_PATH + "/" + ModelLocks.LOCK_DIRECTORY;
+
+        String pull = sharedCache
+            ? """
+                  if ! command -v flock >/dev/null 2>&1; then
+                    echo "flock is required to pull $1 into the shared model cache, add it to the image or disable enableModelCaching" >&2
+                    return 1
+                  fi
+                  mkdir -p %1$s
+                  flock "%1$s/$2" sh -c 'ollama show "$1" >/dev/null 2>&1 || ollama pull "$1"' sh "$1"
+                """.formatted(lockDirectory)
+            : """
+                  ollama pull "$1"
+                """;
+
+        String calls = models.stream()
+            .map(model -> "__ollama_ensure " + shellQuote(model) + " " + shellQuote(ModelLocks.fileName(model)) + " || exit 1")
+            .collect(Collectors.joining("\n"));
+
+        return """
+            __ollama_ensure() {
+              if ollama show "$1" >/dev/null 2>&1; then
+                echo "Model $1 is already installed"
+                return 0
+              fi
+            %s
             }
+            %s
+            """.formatted(pull.stripTrailing(), calls);
+    }
 
-            if (this.taskRunner instanceof Docker dockerRunner) {
-                Docker.DockerBuilder<?, ?> builder = dockerRunner.toBuilder();
-                List<String> existingVolumes = dockerRunner.getVolumes() != null ? dockerRunner.getVolumes() : new ArrayList<>();
+    private static String shellQuote(String value) {
+        return "'" + value.replace("'", "'\"'\"'") + "'";
+    }
 
-                existingVolumes.add(volumeSpec);
-                builder.volumes(existingVolumes);
-                return builder.build();
-            }
-        }
-        return this.taskRunner;
+    /**
+     * Returns the model of the {@code ollama run} commands when they all use the same one, so that the statistics
+     * printed by {@code --verbose} can be tagged with it.
+     */
+    static String runModel(List<String> commands) {
+        List<String> models = commands.stream()
+            .flatMap(command -> OLLAMA_RUN_MODEL.matcher(command).results().map(result -> result.group(1)))
+            .distinct()
+            .toList();
+
+        return models.size() == 1 ? models.get(0) : null;
     }
 
-    public Map<String, String> getEnv(RunContext runContext) throws IllegalVariableEvaluationException {
-        Map<String, String> envs = new HashMap<>();
+    /**
+     * Blocks until {@code ollama -v} reports the server version, which calls {@code /api/version} and works without
+     * curl in the {@code ollama/ollama} image. When {@code startServer} is set, {@code ollama serve} is first launched
+     * in the background. The measured startup time is sent back to Kestra as a timer metric through the log line protocol.
+     */
+    static String serverReadyCommand(Duration startupTimeout, boolean startServer) {
+        long timeoutMillis = startupTimeout.toMillis();
+
+        String serve = startServer ? "ollama serve > /tmp/ollama-serve.log 2>&1 &\n" : "";
+        String serverLog = startServer ? "cat /tmp/ollama-serve.log >&2" : ":";
+
+        return serve + """
+            __ollama_start=$(date +%%s%%N)
+            __ollama_deadline=$((__ollama_start + %d * 1000000))
+            __ollama_delay=0.05
+            until ollama -v 2>/dev/null | grep -q "^ollama version is"; do
+              if [ "$(date +%%s%%N)" -ge "$__ollama_deadline" ]; then
+                echo "Ollama server did not become ready within %d ms" >&2
+                %s
+                exit 1
+              fi
+              sleep $__ollama_delay
+              case $__ollama_delay in
+                0.05) __ollama_delay=0.1 ;;
+                0.1) __ollama_delay=0.25 ;;
+                0.25) __ollama_delay=0.5 ;;
+                *) __ollama_delay=1 ;;
+              esac
+            done
+            __ollama_elapsed=$((($(date +%%s%%N) - __ollama_start) / 1000000))
+            printf '::{"metrics":[{"name":"server.startup.duration","type":"timer","value":%%d.%%03d}]}::\n' $((__ollama_elapsed / 1000)) $((__ollama_elapsed %% 1000))
+            """.formatted(timeoutMillis, timeoutMillis, serverLog);
+    }
+
+    private TaskRunner<?> configureTaskRunner(RunContext runContext, ResolvedConfig config) {
+        if (this.host != null) {
+            return this.taskRunner;
+        }
 
-        var renderedEnv = runContext.render(this.env).asMap(String.class, String.class);
-        if (!renderedEnv.isEmpty()) {
-            envs.putAll(renderedEnv);
+        String volumeSpec = cacheVolumeSpec(runContext, config);
+        if (volumeSpec != null && this.taskRunner instanceof Docker dockerRunner) {
+            Docker.DockerBuilder<?, ?> builder = dockerRunner.toBuilder();
+            List<String> existingVolumes = dockerRunner.getVolumes() != null ? dockerRunner.getVolumes() : new ArrayList<>();
+
+            existingVolumes.add(volumeSpec);
+            builder.volumes(existingVolumes);
+            return builder.build();
         }
+        return this.taskRunner;
+    }
 
-        String renderedHost = this.host != null ? runContext.render(this.host).as(String.class).orElse(null) : null;
-        if (renderedHost != null) {
-            envs.put("OLLAMA_HOST", renderedHost);
+    private static String cacheVolumeSpec(RunContext runContext, ResolvedConfig config) {
+        if (!config.enableModelCaching()) {
+            return null;
         }
 
-        if (this.auth != null && this.auth.getApiKey() != null) {
-            envs.put("OLLAMA_API_KEY", runContext.render(this.auth.getApiKey()).as(String.class).orElseThrow());
-            envs.putIfAbsent("OLLAMA_HOST", OLLAMA_CLOUD_HOST);
+        String volumeSpec;
+        if (config.modelCachePath() != null) {
+            volumeSpec = config.modelCachePath() + ":" + OLLAMA_CONTAINER_MODELS_PATH;
+            runContext.logger().info("Using user host path for Ollama cache: {}", volumeSpec);
+        } else {
+            String volumeName = "kestra-ollama-cache";
+            volumeSpec = volumeName + ":" + OLLAMA_CONTAINER_MODELS_PATH;
+            runContext.logger().info("Using named Docker volume for Ollama cache: {}", volumeSpec);
         }
+        return volumeSpec;
+    }
 
-        return envs;
+    public Map<String, String> getEnv(RunContext runContext) throws IllegalVariableEvaluationException {
+        return ResolvedConfig.env(runContext, this);
     }
 
     @Builder
@@ -303,4 +613,9 @@ public class OllamaCLI extends Task implements RunnableTask<ScriptOutput>, Names
         @PluginProperty(secret = true)
         private Property<String> apiKey;
     }
+
+    public enum ServerMode {
+        EPHEMERAL,
+        MANAGED
+    }
 }
@@ -0,0 +1,319 @@
+package io.kestra.plugin.ollama.cli;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.kestra.core.models.tasks.runners.DefaultLogConsumer;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.CompletionMetrics;
+import io.kestra.plugin.ollama.client.CompletionStats;
+
+/**
+ * Log consumer that, on top of the default behavior, reads the statistics block printed by
+ * {@code ollama run --verbose} and emits it as {@link CompletionMetrics}.
+ * <p>
+ * The block ends with an {@code eval rate} line, which is when the collected values are emitted.
+ * <p>
+ * The progress bars and spinners of {@code ollama pull}, redrawn many times per second, are collapsed: a layer logs
+ * when it starts, then a summary at most every {@code progressInterval}, then when it completes, and a status line
+ * redrawn by a spinner is logged once. The frames left out are spooled to a temporary file, which is only kept, in
+ * internal storage, when the commands fail.
+ */
+final class OllamaLogConsumer extends DefaultLogConsumer implements AutoCloseable {
+    private static final Pattern ANSI_ESCAPE = Pattern.compile("\u001B\\[[0-9;?]*[A-Za-z]");
+    private static final Pattern SPINNER = Pattern.compile("\\s*[\u2800-\u28FF]\\s*$");
+    private static final Pattern PROGRESS = Pattern.compile("^(.+?):\\s+(\\d{1,3})%\\s*\u2595[^\u258F]*\u258F\\s*(.*)$");
+    private static final Pattern SIZES = Pattern.compile("([\\d.]+\\s*[KMGT]?B)(?:\\s*/\\s*([\\d.]+\\s*[KMGT]?B))?");
+    private static final Pattern RATE = Pattern.compile("([\\d.]+\\s*[KMGT]?B/s)");
+    private static final Pattern ETA = Pattern.compile("\\b((?:\\d+h)?(?:\\d+m)?\\d+s)\\s*$");
+    private static final Pattern STAT_LINE = Pattern.compile("^\\s*(total duration|load duration|prompt eval count|prompt eval duration|prompt eval rate|eval count|eval duration|eval rate):\\s*(.+?)\\s*$");
+    private static final Pattern COUNT = Pattern.compile("^(\\d+)");
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ns|\u00b5s|us|ms|s|m|h)");
+
+    private final RunContext runContext;
+    private final String model;
+    private final String host;
+    private final Duration progressInterval;
+    private Stats stats = new Stats();
+
+    private final Map<String, Progress> progress = new HashMap<>();
+    private String lastStatus;
+    private Path rawFile;
+    private BufferedWriter raw;
+    private long collapsed;
+
+    OllamaLogConsumer(RunContext runContext, String model, String host, Duration progressInterval) {
+        super(runContext);
+        this.runContext = runContext;
+        this.model = model;
+        this.host = host;
+        this.progressInterval = progressInterval;
+    }
+
+    @Override
+    public void accept(String line, Boolean isStdErr, Instant instant) {
+        if (line == null) {
+            super.accept(null, isStdErr, instant);
+            return;
+        }
+
+        // a terminal would only show the last redraw of the line
+        if (line.indexOf('\r') >= 0 || line.indexOf('\u001B') >= 0) {
+            for (String frame : ANSI_ESCAPE.matcher(line).replaceAll("").split("\r")) {
+                if (!frame.isBlank()) {
+                    this.frame(frame, isStdErr, instant != null ? instant : Instant.now());
+                }
+            }
+            return;
+        }
+
+        this.frame(line, isStdErr, instant != null ? instant : Instant.now());
+    }
+
+    private void frame(String line, Boolean isStdErr, Instant instant) {
+        String summary = this.collapse(line, instant);
+        if (summary != null) {
+            super.accept(summary, isStdErr, instant);
+        }
+
+        Matcher matcher = STAT_LINE.matcher(line);
+        if (matcher.matches()) {
+            this.collect(matcher.group(1), matcher.group(2));
+        }
+    }
+
+    /**
+     * Returns the line to log for {@code line}, null when it is a redraw that is left out. Only lines drawn with the
+     * progress bar or spinner glyphs of the Ollama CLI are collapsed, any other output is logged as is.
+     */
+    synchronized String collapse(String line, Instant instant) {
+        Matcher bar = PROGRESS.matcher(line.strip());
+        if (bar.matches()) {
+            String label = bar.group(1);
+            int percent = Integer.parseInt(bar.group(2));
+            Progress previous = this.progress.get(label);
+            this.lastStatus = null;
+
+            boolean log = previous == null
+                || (percent == 100 && previous.percent < 100)
+                || (percent > previous.percent && !instant.isBefore(previous.logged.plus(this.progressInterval)));
+            if (!log) {
+                if (previous.percent != percent) {
+                    this.progress.put(label, new Progress(percent, previous.logged));
+                }
+                this.spool(line);
+                return null;
+            }
+
+            this.progress.put(label, new Progress(percent, instant));
+            return summary(label, percent, bar.group(3));
+        }
+
+        Matcher spinner = SPINNER.matcher(line);
+        if (!spinner.find()) {
+            this.lastStatus = null;
+            return line;
+        }
+
+        String status = line.substring(0, spinner.start());
+        if (status.equals(this.lastStatus)) {
+            this.spool(line);
+            return null;
+        }
+
+        this.lastStatus = status;
+        return status;
+    }
+
+    /**
+     * Rewrites a progress bar such as {@code pulling dde5aa3fc5ff:  45% ▕████    ▏ 905 MB/2.0 GB   52 MB/s     21s}
+     * as {@code pulling dde5aa3fc5ff: 45% of 2.0 GB (905 MB) at 52 MB/s, 21s left}.
+     */
+    static String summary(String label, int percent, String details) {
+        StringBuilder summary = new StringBuilder(label).append(": ").append(percent).append('%');
+
+        String rest = details;
+        Matcher rate = RATE.matcher(rest);
+        String speed = null;
+        if (rate.find()) {
+            speed = rate.group(1);
+            rest = rest.substring(0, rate.start()) + rest.substring(rate.end());
+        }
+
+        Matcher eta = ETA.matcher(rest);
+        String left = null;
+        if (percent < 100 && eta.find()) {
+            left = eta.group(1);
+            rest = rest.substring(0, eta.start());
+        }
+
+        Matcher sizes = SIZES.matcher(rest);
+        if (sizes.find()) {
+            if (sizes.group(2) != null) {
+                summary.append(" of ").append(sizes.group(2)).append(" (").append(sizes.group(1)).append(')');
+            } else {
+                summary.append(" of ").append(sizes.group(1));
+            }
+        }
+        if (speed != null && percent < 100) {
+            summary.append(" at ").append(speed);
+        }
+        if (left != null) {
+            summary.append(", ").append(left).append(" left");
+        }
+
+        return summary.toString();
+    }
+
+    private void spool(String line) {
+        this.collapsed++;
+
+        try {
+            if (this.raw == null) {
+                this.rawFile = this.runContext.workingDir().createTempFile(".log");
+                this.raw = Files.newBufferedWriter(this.rawFile, StandardCharsets.UTF_8);
+            }
+            this.raw.write(line);
+            this.raw.newLine();
+        } catch (IOException e) {
+            // the raw output is only a debugging aid, the collapsed log is still complete
+            this.runContext.logger().debug("Unable to spool the Ollama progress output: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Uploads the frames left out of the log to internal storage, so the full output can be checked when the commands
+     * fail.
+     */
+    synchronized void failed() {
+        if (this.raw == null) {
+            return;
+        }
+
+        try {
+            this.raw.flush();
+            URI uri = this.runContext.storage().putFile(this.rawFile.toFile());
+            this.runContext.logger().warn("{} progress lines were left out of the log, their full output is in {}", this.collapsed, uri);
+        } catch (IOException e) {
+            this.runContext.logger().warn("Unable to store the {} progress lines left out of the log: {}", this.collapsed, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.raw != null) {
+            this.raw.close();
+            Files.deleteIfExists(this.rawFile);
+            this.raw = null;
+        }
+    }
+
+    private synchronized void collect(String name, String value) {
+        switch (name) {
+            case "total duration" -> stats.totalDuration = duration(value);
+            case "load duration" -> stats.loadDuration = duration(value);
+            case "prompt eval count" -> stats.promptEvalCount = count(value);
+            case "prompt eval duration" -> stats.promptEvalDuration = duration(value);
+            case "eval count" -> stats.evalCount = count(value);
+            case "eval duration" -> stats.evalDuration = duration(value);
+            case "eval rate" -> {
+                CompletionMetrics.emit(runContext, stats, model, host);
+                stats = new Stats();
+            }
+            default -> {
+                // rates are derived from counts and durations
+            }
+        }
+    }
+
+    /**
+     * Parses a Go {@code time.Duration} string such as {@code 1.5s}, {@code 350.2ms} or {@code 1m2.5s} into nanoseconds.
+     */
+    static Long duration(String value) {
+        Matcher matcher = DURATION_PART.matcher(value);
+        double nanos = 0;
+        boolean found = false;
+
+        while (matcher.find()) {
+            found = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            nanos += switch (matcher.group(2)) {
+                case "ns" -> amount;
+                case "\u00b5s", "us" -> amount * 1_000;
+                case "ms" -> amount * 1_000_000;
+                case "s" -> amount * 1_000_000_000;
+                case "m" -> amount * 60_000_000_000d;
+                default -> amount * 3_600_000_000_000d;
+            };
+        }
+
+        return found ? Math.round(nanos) : null;
+    }
+
+    private static Long count(String value) {
+        Matcher matcher = COUNT.matcher(value);
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    private record Progress(int percent, Instant logged) {
+    }
+
+    private static final class Stats implements CompletionStats {
+        private Long totalDuration;
+        private Long loadDuration;
+        private Long promptEvalCount;
+        private Long promptEvalDuration;
+        private Long evalCount;
+        private Long evalDuration;
+
+        @Override
+        public String model() {
+            return null;
+        }
+
+        @Override
+        public String doneReason() {
+            return null;
+        }
+
+        @Override
+        public Long totalDuration() {
+            return totalDuration;
+        }
+
+        @Override
+        public Long loadDuration() {
+            return loadDuration;
+        }
+
+        @Override
+        public Long promptEvalCount() {
+            return promptEvalCount;
+        }
+
+        @Override
+        public Long promptEvalDuration() {
+            return promptEvalDuration;
+        }
+
+        @Override
+        public Long evalCount() {
+            return evalCount;
+        }
+
+        @Override
+        public Long evalDuration() {
+            return evalDuration;
+        }
+    }
+}
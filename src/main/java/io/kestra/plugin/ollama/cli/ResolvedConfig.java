@@ -0,0 +1,102 @@
+package io.kestra.plugin.ollama.cli;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.ollama.client.LoadBalancing;
+
+/**
+ * Every property of an {@link OllamaCLI} rendered once at the start of a run, and passed down to the runner
+ * configuration, the environment of the commands and the HTTP calls to the servers instead of rendering them again.
+ */
+record ResolvedConfig(
+    List<String> commands,
+    List<String> outputFiles,
+    List<String> ensureModels,
+    Map<String, String> env,
+    String host,
+    String apiKey,
+    List<String> hosts,
+    LoadBalancing loadBalancing,
+    String containerImage,
+    boolean enableModelCaching,
+    String modelCachePath,
+    OllamaCLI.ServerMode serverMode,
+    Duration serverStartupTimeout,
+    Duration serverIdleTimeout,
+    Integer maxInFlight,
+    Duration queueTimeout,
+    Duration progressLogInterval,
+    String runModel
+) {
+    static final String DEFAULT_IMAGE = "ollama/ollama";
+    static final String OLLAMA_CLOUD_HOST = "https://ollama.com";
+    static final Duration DEFAULT_SERVER_STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    static final Duration DEFAULT_SERVER_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    static final Duration DEFAULT_QUEUE_TIMEOUT = Duration.ofMinutes(5);
+    static final Duration DEFAULT_PROGRESS_LOG_INTERVAL = Duration.ofSeconds(10);
+
+    static ResolvedConfig resolve(RunContext runContext, OllamaCLI task) throws IllegalVariableEvaluationException {
+        List<String> commands = List.copyOf(runContext.render(task.getCommands()).asList(String.class));
+        String host = runContext.render(task.getHost()).as(String.class).orElse(null);
+        String apiKey = task.getAuth() != null
+            ? runContext.render(task.getAuth().getApiKey()).as(String.class).orElse(null)
+            : null;
+
+        return new ResolvedConfig(
+            commands,
+            List.copyOf(runContext.render(task.getOutputFiles()).asList(String.class)),
+            List.copyOf(runContext.render(task.getEnsureModels()).asList(String.class)),
+            Map.copyOf(env(runContext, task, host, apiKey)),
+            host,
+            apiKey,
+            List.copyOf(runContext.render(task.getHosts()).asList(String.class)),
+            runContext.render(task.getLoadBalancing()).as(LoadBalancing.class).orElse(LoadBalancing.ROUND_ROBIN),
+            runContext.render(task.getContainerImage()).as(String.class).orElse(DEFAULT_IMAGE),
+            runContext.render(task.getEnableModelCaching()).as(Boolean.class).orElse(true),
+            runContext.render(task.getModelCachePath()).as(String.class).orElse(null),
+            runContext.render(task.getServerMode()).as(OllamaCLI.ServerMode.class).orElse(OllamaCLI.ServerMode.EPHEMERAL),
+            runContext.render(task.getServerStartupTimeout()).as(Duration.class).orElse(DEFAULT_SERVER_STARTUP_TIMEOUT),
+            runContext.render(task.getServerIdleTimeout()).as(Duration.class).orElse(DEFAULT_SERVER_IDLE_TIMEOUT),
+            runContext.render(task.getMaxInFlight()).as(Integer.class).orElse(null),
+            runContext.render(task.getQueueTimeout()).as(Duration.class).orElse(DEFAULT_QUEUE_TIMEOUT),
+            runContext.render(task.getProgressLogInterval()).as(Duration.class).orElse(DEFAULT_PROGRESS_LOG_INTERVAL),
+            OllamaCLI.runModel(commands)
+        );
+    }
+
+    /**
+     * Builds the environment of the commands, rendering only the properties it depends on.
+     */
+    static Map<String, String> env(RunContext runContext, OllamaCLI task) throws IllegalVariableEvaluationException {
+        String host = runContext.render(task.getHost()).as(String.class).orElse(null);
+        String apiKey = task.getAuth() != null
+            ? runContext.render(task.getAuth().getApiKey()).as(String.class).orElse(null)
+            : null;
+
+        return env(runContext, task, host, apiKey);
+    }
+
+    private static Map<String, String> env(RunContext runContext, OllamaCLI task, String host, String apiKey) throws IllegalVariableEvaluationException {
+        Map<String, String> env = new HashMap<>(runContext.render(task.getEnv()).asMap(String.class, String.class));
+        if (host != null) {
+            env.put("OLLAMA_HOST", host);
+        }
+        if (apiKey != null) {
+            env.put("OLLAMA_API_KEY", apiKey);
+            env.putIfAbsent("OLLAMA_HOST", OLLAMA_CLOUD_HOST);
+        }
+        return env;
+    }
+
+    /**
+     * A mutable copy of {@link #env()}, for a run that adds the host it picked.
+     */
+    Map<String, String> mutableEnv() {
+        return new HashMap<>(this.env);
+    }
+}
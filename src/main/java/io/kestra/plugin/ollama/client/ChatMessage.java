@@ -0,0 +1,45 @@
+package io.kestra.plugin.ollama.client;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.kestra.core.models.annotations.PluginProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+    title = "Chat message exchanged with an Ollama model"
+)
+public class ChatMessage {
+    @Schema(
+        title = "Author of the message",
+        description = "One of `system`, `user`, `assistant` or `tool`."
+    )
+    @NotNull
+    @PluginProperty
+    private String role;
+
+    @Schema(
+        title = "Message content"
+    )
+    @PluginProperty
+    private String content;
+
+    @Schema(
+        title = "Base64-encoded images",
+        description = "Only used with multimodal models."
+    )
+    @PluginProperty
+    private List<String> images;
+}
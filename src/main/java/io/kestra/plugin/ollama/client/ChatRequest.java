@@ -0,0 +1,21 @@
+package io.kestra.plugin.ollama.client;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Body of {@code POST /api/chat}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChatRequest(
+    String model,
+    List<ChatMessage> messages,
+    boolean stream,
+    Object format,
+    Map<String, Object> options,
+    @JsonProperty("keep_alive") String keepAlive
+) {
+}
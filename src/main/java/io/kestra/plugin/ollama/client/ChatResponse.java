@@ -0,0 +1,20 @@
+package io.kestra.plugin.ollama.client;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Non-streamed answer of {@code POST /api/chat}. Durations are reported by Ollama in nanoseconds.
+ */
+public record ChatResponse(
+    String model,
+    ChatMessage message,
+    boolean done,
+    @JsonProperty("done_reason") String doneReason,
+    @JsonProperty("total_duration") Long totalDuration,
+    @JsonProperty("load_duration") Long loadDuration,
+    @JsonProperty("prompt_eval_count") Long promptEvalCount,
+    @JsonProperty("prompt_eval_duration") Long promptEvalDuration,
+    @JsonProperty("eval_count") Long evalCount,
+    @JsonProperty("eval_duration") Long evalDuration
+) implements CompletionStats {
+}
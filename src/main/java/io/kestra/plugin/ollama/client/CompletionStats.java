@@ -0,0 +1,22 @@
+package io.kestra.plugin.ollama.client;
+
+/**
+ * Timings and token counts attached by Ollama to the final answer of a completion. Durations are in nanoseconds.
+ */
+public interface CompletionStats {
+    String model();
+
+    String doneReason();
+
+    Long totalDuration();
+
+    Long loadDuration();
+
+    Long promptEvalCount();
+
+    Long promptEvalDuration();
+
+    Long evalCount();
+
+    Long evalDuration();
+}
@@ -0,0 +1,117 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker-wide cap on the number of requests in flight to one Ollama server.
+ * <p>
+ * A single instance exists per host, shared by every task of the worker, so requests beyond the limit wait in the
+ * JVM in arrival order instead of piling up in the server's internal queue. The limit follows the last configured
+ * value: raising it lets waiting requests through immediately, lowering it takes effect as permits are released.
+ */
+public final class ConcurrencyLimiter {
+    private static final Map<String, ConcurrencyLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private final String host;
+    private final ResizableSemaphore semaphore;
+    private int maxInFlight;
+
+    private ConcurrencyLimiter(String host, int maxInFlight) {
+        this.host = host;
+        this.maxInFlight = maxInFlight;
+        this.semaphore = new ResizableSemaphore(maxInFlight);
+    }
+
+    public static ConcurrencyLimiter of(String host, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1, got " + maxInFlight);
+        }
+
+        ConcurrencyLimiter limiter = LIMITERS.computeIfAbsent(host, key -> new ConcurrencyLimiter(key, maxInFlight));
+        limiter.resize(maxInFlight);
+        return limiter;
+    }
+
+    /**
+     * Waits for a free slot, first come first served.
+     *
+     * @throws IOException when no slot frees up within {@code timeout}
+     */
+    public Permit acquire(Duration timeout) throws IOException, InterruptedException {
+        int queueDepth = semaphore.getQueueLength();
+        long start = System.nanoTime();
+
+        if (!semaphore.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new IOException("Timed out after " + timeout + " waiting for one of the " + maxInFlight + " request slots of Ollama host " + host);
+        }
+
+        return new Permit(queueDepth, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    public String host() {
+        return host;
+    }
+
+    private synchronized void resize(int maxInFlight) {
+        int delta = maxInFlight - this.maxInFlight;
+        if (delta > 0) {
+            semaphore.release(delta);
+        } else if (delta < 0) {
+            semaphore.reducePermits(-delta);
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * A slot held on the host, released by {@link #close()}.
+     */
+    public final class Permit implements AutoCloseable {
+        private final int queueDepth;
+        private final Duration waited;
+        private boolean closed;
+
+        private Permit(int queueDepth, Duration waited) {
+            this.queueDepth = queueDepth;
+            this.waited = waited;
+        }
+
+        /**
+         * Number of requests that were already waiting when this one arrived.
+         */
+        public int queueDepth() {
+            return queueDepth;
+        }
+
+        public Duration waited() {
+            return waited;
+        }
+
+        public String host() {
+            return host;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                semaphore.release();
+            }
+        }
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+        private ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package io.kestra.plugin.ollama.client;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker-wide coalescing of {@code POST /api/embed} requests.
+ * <p>
+ * Callers embedding the same model with the same options on the same host share one batcher. Their inputs are held
+ * for up to {@code maxDelay} after the first one arrives, or until {@code maxInputs} are waiting, then sent together
+ * in a single request whose vectors are handed back to each caller. Many small concurrent calls thus reach the
+ * server as a few large batches, which is what a GPU computes efficiently.
+ * <p>
+ * Requests are only ever sent from the thread of a caller still waiting for them, with that caller's client, so they
+ * go through the host pool lease and the concurrency limit it holds, and never through a client its task already
+ * closed. The first caller of a batch leads it: it sends the shared request and hands out the vectors. When the
+ * request fails, or the leader is interrupted, every caller sends its own inputs alone, so that one invalid input
+ * only fails its own caller.
+ * <p>
+ * A batcher is removed from the worker as soon as it is flushed, and the next caller starts a new one.
+ */
+public final class EmbedBatcher {
+    private static final Map<Key, EmbedBatcher> BATCHERS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ollama-embed-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Outcome ALONE = new Alone();
+
+    private final Key key;
+    private List<Pending> pending = new ArrayList<>();
+    private int pendingInputs;
+    private ScheduledFuture<?> timer;
+    private boolean flushed;
+
+    /**
+     * How long inputs are held waiting for other callers, and how many make a full batch.
+     */
+    public record Settings(Duration maxDelay, int maxInputs) {
+    }
+
+    private record Key(URI baseUri, String apiKey, String model, Map<String, Object> options, String keepAlive, Settings settings) {
+    }
+
+    private record Pending(OllamaClient client, List<String> inputs, CompletableFuture<Outcome> outcome) {
+    }
+
+    /**
+     * What a caller has to do once its batch is flushed: send it, take its vectors, or send its inputs alone.
+     */
+    private sealed interface Outcome permits Lead, Done, Alone {
+    }
+
+    private record Lead(List<Pending> batch) implements Outcome {
+    }
+
+    private record Done(Batch batch) implements Outcome {
+    }
+
+    private record Alone() implements Outcome {
+    }
+
+    /**
+     * Vectors of one caller, with the size of the request that carried them.
+     *
+     * @param callers the number of callers whose inputs were sent together, 1 when sent alone
+     * @param inputs the number of inputs of the request
+     */
+    public record Batch(List<float[]> embeddings, int callers, int inputs) {
+    }
+
+    private EmbedBatcher(Key key) {
+        this.key = key;
+    }
+
+    /**
+     * Embeds {@code request.input()}, possibly together with the inputs of other callers. Blocks until the vectors
+     * are available. Requests are sent right away without {@code settings}, or when they hold {@code maxInputs}
+     * inputs or more.
+     */
+    public static Batch embed(OllamaClient client, EmbedRequest request, Settings settings) throws Exception {
+        if (settings == null || request.input().size() >= settings.maxInputs()) {
+            return alone(client, request);
+        }
+
+        Key key = new Key(client.getBaseUri(), client.apiKey(), request.model(), request.options(), request.keepAlive(), settings);
+        Pending pending = new Pending(client, request.input(), new CompletableFuture<>());
+        EmbedBatcher batcher;
+        do {
+            batcher = BATCHERS.computeIfAbsent(key, EmbedBatcher::new);
+        } while (!batcher.add(pending));
+
+        Outcome outcome;
+        try {
+            outcome = pending.outcome().get();
+        } catch (InterruptedException e) {
+            batcher.withdraw(pending);
+            throw e;
+        }
+
+        if (outcome instanceof Done done) {
+            return done.batch();
+        }
+        if (outcome instanceof Lead lead) {
+            return lead(pending, lead.batch(), request);
+        }
+        return alone(client, request);
+    }
+
+    /**
+     * @return false when this batcher was already flushed, and the caller has to use a new one
+     */
+    private synchronized boolean add(Pending caller) {
+        if (this.flushed) {
+            return false;
+        }
+        if (this.pendingInputs + caller.inputs().size() > this.key.settings().maxInputs()) {
+            this.flush();
+            return false;
+        }
+
+        this.pending.add(caller);
+        this.pendingInputs += caller.inputs().size();
+
+        if (this.pendingInputs >= this.key.settings().maxInputs()) {
+            this.flush();
+        } else if (this.timer == null) {
+            this.timer = TIMER.schedule(this::flush, this.key.settings().maxDelay().toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        return true;
+    }
+
+    private synchronized void flush() {
+        if (this.flushed) {
+            return;
+        }
+        this.flushed = true;
+        BATCHERS.remove(this.key, this);
+        if (this.timer != null) {
+            this.timer.cancel(false);
+            this.timer = null;
+        }
+
+        List<Pending> batch = List.copyOf(this.pending);
+        this.pending = new ArrayList<>();
+        this.pendingInputs = 0;
+        for (Pending caller : batch) {
+            // callers that gave up in the meantime can't lead
+            if (caller.outcome().complete(new Lead(batch))) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Takes back the inputs of a caller that stops waiting, or lets the others send their inputs alone when it was
+     * chosen to lead their batch.
+     */
+    private void withdraw(Pending caller) {
+        synchronized (this) {
+            if (this.pending.remove(caller)) {
+                this.pendingInputs -= caller.inputs().size();
+                caller.outcome().cancel(false);
+                return;
+            }
+        }
+
+        if (!caller.outcome().cancel(false) && caller.outcome().getNow(null) instanceof Lead lead) {
+            release(lead.batch());
+        }
+    }
+
+    private static Batch lead(Pending self, List<Pending> batch, EmbedRequest request) throws Exception {
+        List<Pending> callers = batch.stream()
+            .filter(caller -> caller == self || !caller.outcome().isDone())
+            .toList();
+
+        try {
+            if (callers.size() == 1) {
+                return alone(self.client(), request);
+            }
+
+            List<String> inputs = new ArrayList<>();
+            for (Pending caller : callers) {
+                inputs.addAll(caller.inputs());
+            }
+
+            List<float[]> embeddings;
+            try {
+                embeddings = send(self.client(), new EmbedRequest(request.model(), inputs, request.options(), request.keepAlive()));
+            } catch (Exception e) {
+                release(callers);
+                if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                return alone(self.client(), request);
+            }
+
+            Batch own = null;
+            int offset = 0;
+            for (Pending caller : callers) {
+                Batch vectors = new Batch(List.copyOf(embeddings.subList(offset, offset + caller.inputs().size())), callers.size(), inputs.size());
+                if (caller == self) {
+                    own = vectors;
+                } else {
+                    caller.outcome().complete(new Done(vectors));
+                }
+                offset += caller.inputs().size();
+            }
+            return own;
+        } finally {
+            // no caller may be left waiting, whatever happened to the leader
+            release(callers);
+        }
+    }
+
+    /**
+     * Lets the callers of {@code batch} that are still waiting send their inputs alone.
+     */
+    private static void release(List<Pending> batch) {
+        for (Pending caller : batch) {
+            caller.outcome().complete(ALONE);
+        }
+    }
+
+    private static Batch alone(OllamaClient client, EmbedRequest request) throws Exception {
+        return new Batch(send(client, request), 1, request.input().size());
+    }
+
+    private static List<float[]> send(OllamaClient client, EmbedRequest request) throws Exception {
+        EmbedResponse response = client.post("/api/embed", request, EmbedResponse.class);
+
+        if (response.embeddings() == null || response.embeddings().size() != request.input().size()) {
+            throw new IllegalStateException("Ollama returned " + (response.embeddings() == null ? 0 : response.embeddings().size()) + " embeddings for " + request.input().size() + " inputs");
+        }
+
+        return response.embeddings();
+    }
+}
@@ -0,0 +1,57 @@
+package io.kestra.plugin.ollama.client;
+
+import java.time.Duration;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(
+    title = "Embedding request batching configuration",
+    description = """
+        Coalesces the `/api/embed` requests of concurrent task runs on the same worker: inputs are held for up to `maxDelay`, or until `maxInputs` are waiting, and sent to the server in a single request whose vectors are handed back to each run.
+        Only requests for the same model, options, `keepAlive` and host are combined, so each run still gets exactly the vectors it would have got alone.
+        """
+)
+public class EmbedBatching {
+    public static final String COALESCED_METRIC = "batching.coalesced";
+
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(10);
+    private static final int DEFAULT_MAX_INPUTS = 256;
+
+    @Schema(
+        title = "How long inputs wait for other runs before being sent",
+        description = "Adds up to this much latency to every request."
+    )
+    @Builder.Default
+    @PluginProperty
+    private Property<Duration> maxDelay = Property.ofValue(DEFAULT_MAX_DELAY);
+
+    @Schema(
+        title = "Number of inputs sending a batch without waiting for `maxDelay`",
+        description = "Requests holding this many inputs or more are sent on their own."
+    )
+    @Builder.Default
+    @Min(1)
+    @PluginProperty
+    private Property<Integer> maxInputs = Property.ofValue(DEFAULT_MAX_INPUTS);
+
+    public EmbedBatcher.Settings render(RunContext runContext) throws IllegalVariableEvaluationException {
+        return new EmbedBatcher.Settings(
+            runContext.render(this.maxDelay).as(Duration.class).orElse(DEFAULT_MAX_DELAY),
+            runContext.render(this.maxInputs).as(Integer.class).orElse(DEFAULT_MAX_INPUTS)
+        );
+    }
+}
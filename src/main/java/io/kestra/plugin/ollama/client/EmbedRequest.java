@@ -0,0 +1,19 @@
+package io.kestra.plugin.ollama.client;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Body of {@code POST /api/embed}, which accepts several inputs per request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EmbedRequest(
+    String model,
+    List<String> input,
+    Map<String, Object> options,
+    @JsonProperty("keep_alive") String keepAlive
+) {
+}
@@ -0,0 +1,17 @@
+package io.kestra.plugin.ollama.client;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Answer of {@code POST /api/embed}; {@code embeddings} follows the order of the request inputs.
+ */
+public record EmbedResponse(
+    String model,
+    List<float[]> embeddings,
+    @JsonProperty("total_duration") Long totalDuration,
+    @JsonProperty("load_duration") Long loadDuration,
+    @JsonProperty("prompt_eval_count") Long promptEvalCount
+) {
+}
@@ -0,0 +1,22 @@
+package io.kestra.plugin.ollama.client;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Body of {@code POST /api/generate}. Without a {@code prompt}, the server only loads the model, or unloads it when
+ * {@code keepAlive} is {@code 0}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GenerateRequest(
+    String model,
+    String prompt,
+    String system,
+    boolean stream,
+    Object format,
+    Map<String, Object> options,
+    @JsonProperty("keep_alive") String keepAlive
+) {
+}
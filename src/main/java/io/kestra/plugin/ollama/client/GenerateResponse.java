@@ -0,0 +1,24 @@
+package io.kestra.plugin.ollama.client;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Final answer of {@code POST /api/generate}. When the response was streamed, {@code response} is left empty and the
+ * generated text has been written to the caller's sink instead.
+ */
+public record GenerateResponse(
+    String model,
+    String response,
+    boolean done,
+    @JsonProperty("done_reason") String doneReason,
+    @JsonProperty("total_duration") Long totalDuration,
+    @JsonProperty("load_duration") Long loadDuration,
+    @JsonProperty("prompt_eval_count") Long promptEvalCount,
+    @JsonProperty("prompt_eval_duration") Long promptEvalDuration,
+    @JsonProperty("eval_count") Long evalCount,
+    @JsonProperty("eval_duration") Long evalDuration
+) implements CompletionStats {
+    public GenerateResponse withResponse(String response) {
+        return new GenerateResponse(model, response, done, doneReason, totalDuration, loadDuration, promptEvalCount, promptEvalDuration, evalCount, evalDuration);
+    }
+}
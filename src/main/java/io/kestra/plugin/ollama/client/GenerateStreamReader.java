@@ -0,0 +1,89 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Consumes the streamed answer of {@code POST /api/generate} and appends each {@code response} fragment to a
+ * {@link Writer} straight from the parser's character buffer, so neither the chunks nor the full completion are
+ * materialized on the heap. Only the statistics of the final chunk are kept.
+ */
+public class GenerateStreamReader {
+    private final NdjsonReader reader;
+
+    private String model;
+    private boolean done;
+    private String doneReason;
+    private Long totalDuration;
+    private Long loadDuration;
+    private Long promptEvalCount;
+    private Long promptEvalDuration;
+    private Long evalCount;
+    private Long evalDuration;
+
+    public GenerateStreamReader(InputStream input) {
+        this.reader = new NdjsonReader(input);
+    }
+
+    /**
+     * Reads the whole stream into {@code sink}.
+     *
+     * @return the final statistics, with an empty {@code response}
+     */
+    public GenerateResponse readTo(Writer sink) throws IOException {
+        while (!done && reader.next(parser -> this.chunk(parser, sink))) {
+            // every chunk is handled by the callback
+        }
+
+        if (!done) {
+            throw new IOException("Ollama stream ended before the final chunk was received");
+        }
+
+        return new GenerateResponse(
+            model,
+            null,
+            true,
+            doneReason,
+            totalDuration,
+            loadDuration,
+            promptEvalCount,
+            promptEvalDuration,
+            evalCount,
+            evalDuration
+        );
+    }
+
+    private void chunk(JsonParser parser, Writer sink) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Unexpected Ollama stream chunk, expected a JSON object");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "response" -> {
+                    if (value == JsonToken.VALUE_STRING) {
+                        sink.write(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    }
+                }
+                case "error" -> throw new IOException("Ollama stream failed: " + parser.getValueAsString());
+                case "model" -> model = parser.getValueAsString();
+                case "done" -> done = value == JsonToken.VALUE_TRUE;
+                case "done_reason" -> doneReason = parser.getValueAsString();
+                case "total_duration" -> totalDuration = parser.getValueAsLong();
+                case "load_duration" -> loadDuration = parser.getValueAsLong();
+                case "prompt_eval_count" -> promptEvalCount = parser.getValueAsLong();
+                case "prompt_eval_duration" -> promptEvalDuration = parser.getValueAsLong();
+                case "eval_count" -> evalCount = parser.getValueAsLong();
+                case "eval_duration" -> evalDuration = parser.getValueAsLong();
+                default -> parser.skipChildren();
+            }
+        }
+    }
+}
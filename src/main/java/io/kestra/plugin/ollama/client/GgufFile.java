@@ -0,0 +1,238 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Header, metadata and tensor descriptions of a GGUF model file, the format of Ollama model blobs.
+ * <p>
+ * The file is memory-mapped and only the leading part describing the model is parsed: the pages holding the tensor data,
+ * i.e. nearly the whole file, are never touched, so reading a multi-gigabyte model takes milliseconds.
+ *
+ * @see <a href="https://github.com/ggml-org/ggml/blob/master/docs/gguf.md">GGUF specification</a>
+ */
+public record GgufFile(
+    int version,
+    Map<String, Object> metadata,
+    List<Tensor> tensors,
+    long dataOffset,
+    long size
+) {
+    /**
+     * Arrays longer than this, such as the tokenizer vocabulary, are skipped and only reported by their length.
+     */
+    public static final int MAX_INLINE_ARRAY = 64;
+
+    private static final int MAGIC = 0x46554747; // "GGUF" read as a little-endian int
+    private static final int DEFAULT_ALIGNMENT = 32;
+
+    private static final String[] VALUE_TYPES = {
+        "UINT8", "INT8", "UINT16", "INT16", "UINT32", "INT32", "FLOAT32", "BOOL", "STRING", "ARRAY", "UINT64", "INT64", "FLOAT64"
+    };
+
+    private static final String[] TENSOR_TYPES = {
+        "F32", "F16", "Q4_0", "Q4_1", null, null, "Q5_0", "Q5_1", "Q8_0", "Q8_1", "Q2_K", "Q3_K", "Q4_K", "Q5_K", "Q6_K", "Q8_K",
+        "IQ2_XXS", "IQ2_XS", "IQ3_XXS", "IQ1_S", "IQ4_NL", "IQ3_S", "IQ2_S", "IQ4_XS", "I8", "I16", "I32", "I64", "F64", "IQ1_M",
+        "BF16", null, null, null, "TQ1_0", "TQ2_0"
+    };
+
+    private static final String[] FILE_TYPES = {
+        "F32", "F16", "Q4_0", "Q4_1", "Q4_1_SOME_F16", null, null, "Q8_0", "Q5_0", "Q5_1", "Q2_K", "Q3_K_S", "Q3_K_M", "Q3_K_L",
+        "Q4_K_S", "Q4_K_M", "Q5_K_S", "Q5_K_M", "Q6_K", "IQ2_XXS", "IQ2_XS", "Q2_K_S", "IQ3_XS", "IQ3_XXS", "IQ1_S", "IQ4_NL",
+        "IQ3_S", "IQ3_M", "IQ2_S", "IQ2_M", "IQ4_XS", "IQ1_M", "BF16", null, null, null, "TQ1_0", "TQ2_0"
+    };
+
+    public static GgufFile read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // a single mapping is limited to 2 GiB, far more than any model header
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+
+            try {
+                return read(buffer, size);
+            } catch (BufferUnderflowException | BufferOverflowException | IllegalArgumentException e) {
+                throw new IOException("Invalid GGUF file " + path + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static GgufFile read(MappedByteBuffer buffer, long size) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a GGUF file");
+        }
+
+        int version = buffer.getInt();
+        if ((version & 0xFFFF) == 0) {
+            // written on a big-endian host
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            version = Integer.reverseBytes(version);
+        }
+        if (version < 2) {
+            throw new IOException("Unsupported GGUF version " + version);
+        }
+
+        long tensorCount = buffer.getLong();
+        long metadataCount = buffer.getLong();
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        for (long i = 0; i < metadataCount; i++) {
+            String key = string(buffer);
+            metadata.put(key, value(buffer, buffer.getInt()));
+        }
+
+        List<Tensor> tensors = new ArrayList<>();
+        for (long i = 0; i < tensorCount; i++) {
+            String name = string(buffer);
+            int dimensionCount = buffer.getInt();
+            long[] shape = new long[dimensionCount];
+            for (int d = 0; d < dimensionCount; d++) {
+                shape[d] = buffer.getLong();
+            }
+            tensors.add(new Tensor(name, name(TENSOR_TYPES, buffer.getInt()), List.of(box(shape)), buffer.getLong()));
+        }
+
+        long alignment = metadata.get("general.alignment") instanceof Number number ? number.longValue() : DEFAULT_ALIGNMENT;
+        long dataOffset = (buffer.position() + alignment - 1) / alignment * alignment;
+
+        return new GgufFile(version, metadata, tensors, dataOffset, size);
+    }
+
+    private static Object value(MappedByteBuffer buffer, int type) {
+        return switch (type) {
+            case 0 -> Byte.toUnsignedInt(buffer.get());
+            case 1 -> (int) buffer.get();
+            case 2 -> Short.toUnsignedInt(buffer.getShort());
+            case 3 -> (int) buffer.getShort();
+            case 4 -> Integer.toUnsignedLong(buffer.getInt());
+            case 5 -> buffer.getInt();
+            case 6 -> buffer.getFloat();
+            case 7 -> buffer.get() != 0;
+            case 8 -> string(buffer);
+            case 9 -> array(buffer);
+            case 10, 11 -> buffer.getLong();
+            case 12 -> buffer.getDouble();
+            default -> throw new IllegalArgumentException("unknown metadata value type " + type);
+        };
+    }
+
+    private static Object array(MappedByteBuffer buffer) {
+        int type = buffer.getInt();
+        long length = buffer.getLong();
+
+        if (length > MAX_INLINE_ARRAY) {
+            skip(buffer, type, length);
+            return new SkippedArray(name(VALUE_TYPES, type), length);
+        }
+
+        List<Object> values = new ArrayList<>((int) length);
+        for (long i = 0; i < length; i++) {
+            values.add(value(buffer, type));
+        }
+        return values;
+    }
+
+    private static void skip(MappedByteBuffer buffer, int type, long count) {
+        int width = switch (type) {
+            case 0, 1, 7 -> 1;
+            case 2, 3 -> 2;
+            case 4, 5, 6 -> 4;
+            case 10, 11, 12 -> 8;
+            default -> 0;
+        };
+
+        if (width > 0) {
+            buffer.position(Math.addExact(buffer.position(), Math.toIntExact(Math.multiplyExact(count, width))));
+            return;
+        }
+
+        // variable-size elements have to be walked one by one, still without decoding strings
+        for (long i = 0; i < count; i++) {
+            if (type == 8) {
+                int length = Math.toIntExact(buffer.getLong());
+                buffer.position(Math.addExact(buffer.position(), length));
+            } else if (type == 9) {
+                skip(buffer, buffer.getInt(), buffer.getLong());
+            } else {
+                throw new IllegalArgumentException("unknown metadata value type " + type);
+            }
+        }
+    }
+
+    private static String string(MappedByteBuffer buffer) {
+        long length = buffer.getLong();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("string of " + length + " bytes at offset " + buffer.position());
+        }
+
+        byte[] bytes = new byte[(int) length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String name(String[] names, int type) {
+        return type >= 0 && type < names.length && names[type] != null ? names[type] : "UNKNOWN_" + type;
+    }
+
+    private static Long[] box(long[] values) {
+        Long[] boxed = new Long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+
+    public String architecture() {
+        return this.metadata.get("general.architecture") instanceof String architecture ? architecture : null;
+    }
+
+    /**
+     * Returns an architecture-specific value, e.g. {@code context_length} for {@code llama.context_length}.
+     */
+    public Long architectureValue(String name) {
+        return this.metadata.get(this.architecture() + "." + name) instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * Returns the quantization of the file as named by llama.cpp, e.g. {@code Q4_K_M}.
+     */
+    public String fileType() {
+        return this.metadata.get("general.file_type") instanceof Number number ? name(FILE_TYPES, number.intValue()) : null;
+    }
+
+    public long parameterCount() {
+        return this.tensors.stream().mapToLong(Tensor::elements).sum();
+    }
+
+    /**
+     * Number of tensors per type, e.g. {@code Q4_K=113, F32=65}.
+     */
+    public Map<String, Long> tensorTypes() {
+        Map<String, Long> types = new LinkedHashMap<>();
+        this.tensors.forEach(tensor -> types.merge(tensor.type(), 1L, Long::sum));
+        return types;
+    }
+
+    public record Tensor(String name, String type, List<Long> shape, long offset) {
+        public long elements() {
+            return this.shape.stream().reduce(1L, Math::multiplyExact);
+        }
+    }
+
+    /**
+     * Array left out of the metadata because of its length.
+     */
+    public record SkippedArray(String type, long length) {
+    }
+}
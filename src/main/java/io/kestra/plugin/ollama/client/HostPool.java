@@ -0,0 +1,212 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Worker-wide pool of Ollama servers used for client-side load balancing.
+ * <p>
+ * A single instance exists per list of hosts, so every task of a worker targeting the same hosts shares the
+ * in-flight counters and health state. A host that fails to answer is ejected for an exponentially growing
+ * period and comes back automatically once it expires; when every host is ejected, all of them are tried again.
+ */
+public final class HostPool {
+    static final Duration MIN_EJECTION = Duration.ofSeconds(10);
+    static final Duration MAX_EJECTION = Duration.ofMinutes(5);
+
+    private static final Duration LOADED_MODELS_TTL = Duration.ofSeconds(5);
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(2);
+    private static final Map<List<URI>, HostPool> POOLS = new ConcurrentHashMap<>();
+
+    private final List<Member> members;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private HostPool(List<URI> hosts) {
+        this.members = hosts.stream().map(Member::new).toList();
+    }
+
+    public static HostPool of(List<URI> hosts) {
+        if (hosts.isEmpty()) {
+            throw new IllegalArgumentException("At least one host is required");
+        }
+
+        return POOLS.computeIfAbsent(List.copyOf(hosts), HostPool::new);
+    }
+
+    /**
+     * Picks a host and counts a request in flight on it until the returned lease is closed.
+     *
+     * @param model model used by the request, only needed for {@link LoadBalancing#MODEL_AFFINITY}
+     * @param apiKey bearer token used to query {@code /api/ps}, may be null
+     */
+    public Lease acquire(LoadBalancing strategy, String model, String apiKey) {
+        int ticket = next.getAndIncrement();
+        List<Member> candidates = this.healthy();
+
+        Member selected = switch (strategy) {
+            case ROUND_ROBIN -> candidates.get(Math.floorMod(ticket, candidates.size()));
+            case LEAST_OUTSTANDING -> leastOutstanding(candidates, ticket);
+            case MODEL_AFFINITY -> {
+                if (model == null) {
+                    yield leastOutstanding(candidates, ticket);
+                }
+
+                String name = ModelInfo.normalize(model);
+                List<Member> warm = candidates.stream()
+                    .filter(member -> member.loadedModels(apiKey).contains(name))
+                    .toList();
+
+                yield leastOutstanding(warm.isEmpty() ? this.healthy() : warm, ticket);
+            }
+        };
+
+        selected.outstanding.incrementAndGet();
+        return new Lease(selected);
+    }
+
+    /**
+     * Like {@link #acquire}, but first checks that the picked host answers {@code /api/version}. A host that can't
+     * be reached is ejected and another one is picked, up to as many times as there are hosts.
+     * <p>
+     * Meant for runs whose requests are not sent by this worker, such as CLI commands in a task container, and
+     * whose outcome can thus never be reported to the lease.
+     */
+    public Lease acquireReachable(LoadBalancing strategy, String model, String apiKey) throws IOException, InterruptedException {
+        IOException unreachable = null;
+        for (int attempt = 0; attempt < members.size(); attempt++) {
+            Lease lease = this.acquire(strategy, model, apiKey);
+            try {
+                // the client reports the outcome of the probe to the lease
+                new OllamaClient(lease, apiKey).get("/api/version", Map.class, PROBE_TIMEOUT);
+                return lease;
+            } catch (OllamaException e) {
+                if (e.getStatusCode() / 100 != 5) {
+                    // a client error still means the host is up
+                    return lease;
+                }
+                lease.close();
+                unreachable = e;
+            } catch (IOException e) {
+                lease.close();
+                unreachable = e;
+            } catch (InterruptedException | RuntimeException e) {
+                lease.close();
+                throw e;
+            }
+        }
+
+        throw new IOException("No Ollama host of the pool is reachable", unreachable);
+    }
+
+    private List<Member> healthy() {
+        Instant now = Instant.now();
+        List<Member> healthy = members.stream()
+            .filter(member -> !member.ejectedUntil.isAfter(now))
+            .toList();
+
+        return healthy.isEmpty() ? members : healthy;
+    }
+
+    private static Member leastOutstanding(List<Member> candidates, int ticket) {
+        // rotating the starting point spreads ties instead of always picking the first host
+        int offset = Math.floorMod(ticket, candidates.size());
+        return IntStream.range(0, candidates.size())
+            .mapToObj(i -> candidates.get((offset + i) % candidates.size()))
+            .min(Comparator.comparingInt(member -> member.outstanding.get()))
+            .orElseThrow();
+    }
+
+    private static final class Member {
+        private final URI uri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private int failures;
+        private volatile Instant ejectedUntil = Instant.MIN;
+        private volatile LoadedModels loadedModels;
+
+        private Member(URI uri) {
+            this.uri = uri;
+        }
+
+        private Set<String> loadedModels(String apiKey) {
+            LoadedModels memo = this.loadedModels;
+            if (memo != null && memo.expiresAt().isAfter(Instant.now())) {
+                return memo.names();
+            }
+
+            Set<String> names;
+            try {
+                ModelsResponse ps = new OllamaClient(uri, apiKey).get("/api/ps", ModelsResponse.class, PROBE_TIMEOUT);
+                names = ps.models() == null ? Set.of() : ps.models().stream()
+                    .map(info -> ModelInfo.normalize(info.name()))
+                    .collect(Collectors.toUnmodifiableSet());
+                this.succeeded();
+            } catch (IOException e) {
+                names = Set.of();
+                this.failed();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                names = Set.of();
+            }
+
+            this.loadedModels = new LoadedModels(names, Instant.now().plus(LOADED_MODELS_TTL));
+            return names;
+        }
+
+        private synchronized void succeeded() {
+            failures = 0;
+            ejectedUntil = Instant.MIN;
+        }
+
+        private synchronized void failed() {
+            failures++;
+            Duration ejection = MIN_EJECTION.multipliedBy(1L << Math.min(failures - 1, 10));
+            ejectedUntil = Instant.now().plus(ejection.compareTo(MAX_EJECTION) > 0 ? MAX_EJECTION : ejection);
+        }
+    }
+
+    private record LoadedModels(Set<String> names, Instant expiresAt) {
+    }
+
+    /**
+     * A request in flight on a host. Report its outcome with {@link #succeeded()} or {@link #failed()} so
+     * unreachable hosts get ejected, then close it.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Member member;
+        private boolean closed;
+
+        private Lease(Member member) {
+            this.member = member;
+        }
+
+        public URI uri() {
+            return member.uri;
+        }
+
+        public void succeeded() {
+            member.succeeded();
+        }
+
+        public void failed() {
+            member.failed();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                member.outstanding.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.kestra.plugin.ollama.client;
+
+/**
+ * Strategies used to pick a server from a {@link HostPool}.
+ */
+public enum LoadBalancing {
+    /**
+     * Hosts are used one after the other.
+     */
+    ROUND_ROBIN,
+    /**
+     * The host with the fewest requests in flight from this worker is used.
+     */
+    LEAST_OUTSTANDING,
+    /**
+     * Hosts that already have the model loaded in memory, according to {@code /api/ps}, are preferred;
+     * ties and misses fall back to {@link #LEAST_OUTSTANDING}.
+     */
+    MODEL_AFFINITY
+}
@@ -0,0 +1,22 @@
+package io.kestra.plugin.ollama.client;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model entry listed by {@code GET /api/tags} (local models) and {@code GET /api/ps} (models loaded in memory).
+ */
+public record ModelInfo(
+    String name,
+    String model,
+    String digest,
+    Long size,
+    @JsonProperty("size_vram") Long sizeVram,
+    @JsonProperty("expires_at") String expiresAt
+) {
+    /**
+     * Normalizes a model reference the way Ollama does, so {@code llama3} and {@code llama3:latest} compare equal.
+     */
+    public static String normalize(String model) {
+        return model.contains(":") ? model : model + ":latest";
+    }
+}
@@ -0,0 +1,155 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Manifest of a model stored in an Ollama models directory ({@code ~/.ollama/models}), laid out as
+ * {@code manifests/<registry>/<namespace>/<model>/<tag>} with the referenced layers under {@code blobs/sha256-<hex>}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ModelManifest(
+    Layer config,
+    List<Layer> layers
+) {
+    public static final String MODEL_MEDIA_TYPE = "application/vnd.ollama.image.model";
+
+    static final String DEFAULT_REGISTRY = "registry.ollama.ai";
+    static final String DEFAULT_NAMESPACE = "library";
+
+    /**
+     * Path of the manifest of {@code model} relative to the models directory, e.g.
+     * {@code manifests/registry.ollama.ai/library/llama3.2/latest} for {@code llama3.2}.
+     */
+    public static Path manifestPath(String model) {
+        String name = model;
+        String tag = "latest";
+
+        int colon = name.lastIndexOf(':');
+        if (colon > name.lastIndexOf('/')) {
+            tag = name.substring(colon + 1);
+            name = name.substring(0, colon);
+        }
+
+        String[] parts = name.split("/");
+        String registry = parts.length == 3 ? parts[0] : DEFAULT_REGISTRY;
+        String namespace = parts.length >= 2 ? parts[parts.length - 2] : DEFAULT_NAMESPACE;
+        String repository = parts[parts.length - 1];
+
+        return Path.of("manifests", registry, namespace, repository, tag);
+    }
+
+    /**
+     * Model name of a manifest path relative to the models directory, the reverse of {@link #manifestPath(String)}:
+     * {@code manifests/registry.ollama.ai/library/llama3.2/latest} gives {@code llama3.2:latest}.
+     */
+    public static String modelName(Path manifestPath) {
+        int count = manifestPath.getNameCount();
+        String registry = manifestPath.getName(count - 4).toString();
+        String namespace = manifestPath.getName(count - 3).toString();
+        String name = manifestPath.getName(count - 2) + ":" + manifestPath.getName(count - 1);
+
+        if (!DEFAULT_REGISTRY.equals(registry)) {
+            return registry + "/" + namespace + "/" + name;
+        }
+        return DEFAULT_NAMESPACE.equals(namespace) ? name : namespace + "/" + name;
+    }
+
+    public static ModelManifest read(Path manifest) throws IOException {
+        return parse(Files.readAllBytes(manifest));
+    }
+
+    public static ModelManifest parse(byte[] content) throws IOException {
+        return OllamaClient.MAPPER.readValue(content, ModelManifest.class);
+    }
+
+    /**
+     * The config and the layers referenced by this manifest.
+     */
+    public List<Layer> blobs() {
+        List<Layer> referenced = new ArrayList<>(this.layers == null ? List.of() : this.layers);
+        if (this.config != null) {
+            referenced.add(this.config);
+        }
+
+        return referenced;
+    }
+
+    /**
+     * File names, under {@code blobs}, of the config and layers referenced by this manifest.
+     */
+    public List<String> blobFileNames() {
+        return this.blobs().stream().map(Layer::fileName).toList();
+    }
+
+    /**
+     * Reads the manifest of {@code model} from {@code modelsDirectory} and checks that every layer it references
+     * is fully present.
+     *
+     * @return the model digest (SHA-256 of the manifest) when the model is complete, empty otherwise
+     */
+    public static Optional<String> installedDigest(Path modelsDirectory, String model) throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(modelsDirectory.resolve(manifestPath(model)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+
+        for (Layer layer : parse(content).blobs()) {
+            Path blob = modelsDirectory.resolve("blobs").resolve(layer.fileName());
+            if (!Files.isRegularFile(blob) || (layer.size() != null && Files.size(blob) != layer.size())) {
+                return Optional.empty();
+            }
+        }
+
+        try {
+            return Optional.of(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the path of the GGUF blob holding the weights of {@code model}, empty when the model isn't in
+     * {@code modelsDirectory}.
+     */
+    public static Optional<Path> modelBlob(Path modelsDirectory, String model) throws IOException {
+        ModelManifest manifest;
+        try {
+            manifest = read(modelsDirectory.resolve(manifestPath(model)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+
+        return (manifest.layers() == null ? List.<Layer>of() : manifest.layers()).stream()
+            .filter(layer -> MODEL_MEDIA_TYPE.equals(layer.mediaType()))
+            .findFirst()
+            .map(layer -> modelsDirectory.resolve("blobs").resolve(layer.fileName()))
+            .filter(Files::isRegularFile);
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Layer(
+        String mediaType,
+        String digest,
+        Long size
+    ) {
+        /**
+         * Name of the blob file, e.g. {@code sha256-6a0746a1ec1a} for the digest {@code sha256:6a0746a1ec1a}.
+         */
+        public String fileName() {
+            return this.digest.replace(':', '-');
+        }
+    }
+}
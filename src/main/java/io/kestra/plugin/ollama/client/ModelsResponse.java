@@ -0,0 +1,11 @@
+package io.kestra.plugin.ollama.client;
+
+import java.util.List;
+
+/**
+ * Answer of {@code GET /api/tags} and {@code GET /api/ps}.
+ */
+public record ModelsResponse(
+    List<ModelInfo> models
+) {
+}
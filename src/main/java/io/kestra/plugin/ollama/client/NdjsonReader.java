@@ -0,0 +1,123 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Splits a newline-delimited JSON stream into records without decoding each line into a {@link String}.
+ * <p>
+ * Bytes are read into a single reusable buffer and every complete line is handed to the caller as a
+ * {@link JsonParser} positioned over the buffer slice. The buffer only grows when one line is longer than its
+ * current capacity, so memory stays bounded by the largest chunk and not by the length of the whole stream.
+ */
+public class NdjsonReader {
+    static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    private static final JsonFactory FACTORY = OllamaClient.MAPPER.getFactory();
+
+    private final InputStream input;
+    private byte[] buffer;
+    private int start;
+    private int end;
+    private int scan;
+    private boolean eof;
+
+    public NdjsonReader(InputStream input) {
+        this(input, DEFAULT_BUFFER_SIZE);
+    }
+
+    public NdjsonReader(InputStream input, int bufferSize) {
+        this.input = input;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Feeds the next non-blank line to {@code handler}.
+     *
+     * @return {@code false} once the stream is exhausted
+     */
+    public boolean next(LineHandler handler) throws IOException {
+        while (true) {
+            for (; scan < end; scan++) {
+                if (buffer[scan] == '\n') {
+                    int lineStart = start;
+                    int lineEnd = scan;
+                    start = ++scan;
+
+                    if (this.handle(lineStart, lineEnd, handler)) {
+                        return true;
+                    }
+                }
+            }
+
+            if (eof) {
+                int lineStart = start;
+                start = end;
+                return this.handle(lineStart, end, handler);
+            }
+
+            this.fill();
+        }
+    }
+
+    /**
+     * Reads the next non-blank line as {@code type}.
+     *
+     * @return {@code null} once the stream is exhausted
+     */
+    public <T> T next(Class<T> type) throws IOException {
+        Object[] value = new Object[1];
+        return this.next(parser -> value[0] = OllamaClient.MAPPER.readValue(parser, type)) ? type.cast(value[0]) : null;
+    }
+
+    private boolean handle(int from, int to, LineHandler handler) throws IOException {
+        while (to > from && isWhitespace(buffer[to - 1])) {
+            to--;
+        }
+        while (from < to && isWhitespace(buffer[from])) {
+            from++;
+        }
+
+        if (from == to) {
+            return false;
+        }
+
+        try (JsonParser parser = FACTORY.createParser(buffer, from, to - from)) {
+            handler.accept(parser);
+        }
+
+        return true;
+    }
+
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            scan -= start;
+            start = 0;
+        } else if (end == buffer.length) {
+            byte[] grown = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, end);
+            buffer = grown;
+        }
+
+        int read = input.read(buffer, end, buffer.length - end);
+        if (read == -1) {
+            eof = true;
+        } else {
+            end += read;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\r' || b == '\t' || b == '\n';
+    }
+
+    @FunctionalInterface
+    public interface LineHandler {
+        void accept(JsonParser parser) throws IOException;
+    }
+}
@@ -0,0 +1,253 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.kestra.core.serializers.JacksonMapper;
+
+import lombok.Getter;
+
+/**
+ * Thin client for the Ollama REST API.
+ * <p>
+ * All instances share a single JDK {@link HttpClient} pinned to HTTP/1.1 so keep-alive connections are pooled
+ * across tasks running on the same worker instead of being opened for every request.
+ * When created from a {@link HostPool.Lease}, request outcomes are reported to the pool and closing the client
+ * releases the lease.
+ */
+public class OllamaClient implements AutoCloseable {
+    public static final int DEFAULT_PORT = 11434;
+    public static final URI DEFAULT_HOST = URI.create("http://127.0.0.1:" + DEFAULT_PORT);
+
+    static final ObjectMapper MAPPER = JacksonMapper.ofJson()
+        .copy()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .build();
+
+    private static final Duration DIGEST_TTL = Duration.ofMinutes(1);
+    private static final Map<String, Digest> DIGESTS = new ConcurrentHashMap<>();
+
+    @Getter
+    private final URI baseUri;
+
+    private final String apiKey;
+
+    private final HostPool.Lease lease;
+
+    private final ConcurrencyLimiter limiter;
+
+    private final Duration queueTimeout;
+
+    private final Consumer<ConcurrencyLimiter.Permit> onPermit;
+
+    public OllamaClient(URI baseUri, String apiKey) {
+        this(baseUri, apiKey, null, null, null, null);
+    }
+
+    public OllamaClient(HostPool.Lease lease, String apiKey) {
+        this(lease.uri(), apiKey, lease, null, null, null);
+    }
+
+    private OllamaClient(URI baseUri, String apiKey, HostPool.Lease lease, ConcurrencyLimiter limiter, Duration queueTimeout, Consumer<ConcurrencyLimiter.Permit> onPermit) {
+        this.baseUri = baseUri;
+        this.apiKey = apiKey;
+        this.lease = lease;
+        this.limiter = limiter;
+        this.queueTimeout = queueTimeout;
+        this.onPermit = onPermit;
+    }
+
+    /**
+     * Returns a copy of this client that holds a slot of {@code limiter} for every request, until its response has
+     * been read. {@code onPermit} is called each time a slot is obtained, e.g. to report the time spent waiting.
+     * The copy takes over the host pool lease of this client.
+     */
+    public OllamaClient limited(ConcurrencyLimiter limiter, Duration queueTimeout, Consumer<ConcurrencyLimiter.Permit> onPermit) {
+        return new OllamaClient(baseUri, apiKey, lease, limiter, queueTimeout, onPermit);
+    }
+
+    String apiKey() {
+        return this.apiKey;
+    }
+
+    /**
+     * Resolves an {@code OLLAMA_HOST}-style address the same way the Ollama CLI does: the scheme defaults to
+     * {@code http} with port {@value #DEFAULT_PORT}, while an explicit {@code http} or {@code https} scheme without
+     * a port falls back to 80 or 443.
+     */
+    public static URI resolveHost(String host) {
+        String value = host.trim();
+        boolean hasScheme = value.contains("://");
+        URI uri = URI.create(hasScheme ? value : "http://" + value);
+
+        int port = uri.getPort();
+        if (port == -1) {
+            port = !hasScheme ? DEFAULT_PORT : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath().replaceAll("/+$", "");
+        return URI.create(uri.getScheme() + "://" + uri.getHost() + ":" + port + path);
+    }
+
+    /**
+     * Returns the digest of a model installed on the server, as listed by {@code /api/tags}.
+     * Digests found are memoized per host for a minute so repeated calls don't hit the server; a missing model is
+     * looked up again on the next call, as it may be pulled at any time.
+     */
+    public Optional<String> digest(String model) throws IOException, InterruptedException {
+        String name = ModelInfo.normalize(model);
+        String memoKey = baseUri + "|" + name;
+
+        Digest memo = DIGESTS.get(memoKey);
+        if (memo != null && memo.expiresAt().isAfter(Instant.now())) {
+            return Optional.of(memo.value());
+        }
+
+        ModelsResponse tags = this.get("/api/tags", ModelsResponse.class);
+        String digest = tags.models() == null ? null : tags.models().stream()
+            .filter(info -> name.equals(ModelInfo.normalize(info.name())))
+            .map(ModelInfo::digest)
+            .findFirst()
+            .orElse(null);
+
+        if (digest == null) {
+            return Optional.empty();
+        }
+
+        DIGESTS.put(memoKey, new Digest(digest, Instant.now().plus(DIGEST_TTL)));
+        return Optional.of(digest);
+    }
+
+    public <T> T get(String path, Class<T> responseType) throws IOException, InterruptedException {
+        return get(path, responseType, null);
+    }
+
+    <T> T get(String path, Class<T> responseType, Duration timeout) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = request(path).GET();
+        if (timeout != null) {
+            builder.timeout(timeout);
+        }
+
+        try (InputStream body = send(path, builder)) {
+            return MAPPER.readValue(body, responseType);
+        }
+    }
+
+    public <T> T post(String path, Object body, Class<T> responseType) throws IOException, InterruptedException {
+        try (InputStream response = postStream(path, body)) {
+            return MAPPER.readValue(response, responseType);
+        }
+    }
+
+    /**
+     * Sends a request and hands back the raw response body, which callers must close.
+     * Used for streamed endpoints that answer with newline-delimited JSON.
+     */
+    public InputStream postStream(String path, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = request(path)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body)));
+
+        return send(path, builder);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUri + path))
+            .header("Accept", "application/json");
+
+        if (apiKey != null) {
+            builder.header("Authorization", "Bearer " + apiKey);
+        }
+
+        return builder;
+    }
+
+    private InputStream send(String path, HttpRequest.Builder builder) throws IOException, InterruptedException {
+        if (limiter == null) {
+            return exchange(path, builder);
+        }
+
+        ConcurrencyLimiter.Permit permit = limiter.acquire(queueTimeout);
+        if (onPermit != null) {
+            onPermit.accept(permit);
+        }
+
+        try {
+            // the slot is held until the caller is done reading, which matters for streamed answers
+            return new FilterInputStream(exchange(path, builder)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        permit.close();
+                    }
+                }
+            };
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+
+    private InputStream exchange(String path, HttpRequest.Builder builder) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response;
+        try {
+            response = HTTP_CLIENT.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            if (lease != null) {
+                lease.failed();
+            }
+            throw e;
+        }
+
+        if (lease != null) {
+            // only server-side errors point at an unhealthy host, a 4xx is the caller's fault
+            if (response.statusCode() / 100 == 5) {
+                lease.failed();
+            } else {
+                lease.succeeded();
+            }
+        }
+
+        if (response.statusCode() / 100 != 2) {
+            String error;
+            try (InputStream body = response.body()) {
+                error = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            throw new OllamaException(path, response.statusCode(), error);
+        }
+
+        return response.body();
+    }
+
+    @Override
+    public void close() {
+        if (lease != null) {
+            lease.close();
+        }
+    }
+
+    private record Digest(String value, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,18 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.IOException;
+
+import lombok.Getter;
+
+/**
+ * Raised when the Ollama server answers a request with a non-2xx status.
+ */
+@Getter
+public class OllamaException extends IOException {
+    private final int statusCode;
+
+    public OllamaException(String path, int statusCode, String body) {
+        super("Ollama request to '" + path + "' failed with HTTP " + statusCode + (body == null || body.isBlank() ? "" : ": " + body));
+        this.statusCode = statusCode;
+    }
+}
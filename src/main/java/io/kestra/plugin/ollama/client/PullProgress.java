@@ -0,0 +1,14 @@
+package io.kestra.plugin.ollama.client;
+
+/**
+ * One line of the progress stream of {@code POST /api/pull}. {@code digest}, {@code total} and {@code completed}
+ * are only set while a layer is downloading.
+ */
+public record PullProgress(
+    String status,
+    String digest,
+    Long total,
+    Long completed,
+    String error
+) {
+}
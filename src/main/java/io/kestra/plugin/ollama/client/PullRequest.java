@@ -0,0 +1,14 @@
+package io.kestra.plugin.ollama.client;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Body of {@code POST /api/pull}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PullRequest(
+    String model,
+    Boolean insecure,
+    Boolean stream
+) {
+}
@@ -0,0 +1,250 @@
+package io.kestra.plugin.ollama.embedding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped reader of the {@code BINARY} embedding format written by {@link EmbeddingFileWriter}.
+ * <p>
+ * The file is a little-endian matrix with one row per embedding, so a vector is read straight from the page cache
+ * without any parsing:
+ * <pre>
+ * header     64 bytes   magic "OEMB", version (u16), precision (u16), dimensions (u32), reserved (u32),
+ *                       count (u64), data offset (u64), index offset (u64), zero padding
+ * data       count × dimensions × 4 (FLOAT32) or 2 (FLOAT16) bytes
+ * index      (count + 1) × u64 offsets of the IDs, relative to the end of the index
+ * ids        UTF-8 IDs, concatenated
+ * </pre>
+ * Instances are immutable once opened and can be shared between threads.
+ */
+public final class EmbeddingFile implements AutoCloseable {
+    static final int MAGIC = 0x424D454F; // "OEMB" read as a little-endian int
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    /**
+     * Rows are mapped in segments, a single mapping being limited to 2 GiB.
+     */
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    private final FileChannel channel;
+    private final Precision precision;
+    private final int dimensions;
+    private final long count;
+    private final int rowSize;
+    private final long rowsPerSegment;
+    private final MappedByteBuffer[] segments;
+    private final MappedByteBuffer index;
+    private final long idsOffset;
+
+    public enum Precision {
+        FLOAT32(4),
+        FLOAT16(2);
+
+        private final int width;
+
+        Precision(int width) {
+            this.width = width;
+        }
+
+        public int width() {
+            return this.width;
+        }
+    }
+
+    private EmbeddingFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.read(header, 0) != HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not an embedding file");
+        }
+        int version = Short.toUnsignedInt(header.getShort(4));
+        if (version != VERSION) {
+            throw new IOException("Unsupported embedding file version " + version);
+        }
+
+        int precisionOrdinal = Short.toUnsignedInt(header.getShort(6));
+        if (precisionOrdinal >= Precision.values().length) {
+            throw new IOException("Unknown embedding precision " + precisionOrdinal);
+        }
+        this.precision = Precision.values()[precisionOrdinal];
+        this.dimensions = header.getInt(8);
+        this.count = header.getLong(16);
+        long dataOffset = header.getLong(24);
+        long indexOffset = header.getLong(32);
+
+        this.rowSize = Math.multiplyExact(this.dimensions, this.precision.width());
+        if (this.dimensions < 0 || (this.dimensions == 0 && this.count > 0) || indexOffset != dataOffset + this.count * this.rowSize || indexOffset > channel.size()) {
+            throw new IOException("Corrupted embedding file header");
+        }
+
+        this.rowsPerSegment = this.rowSize == 0 ? 1 : Math.max(1, MAX_SEGMENT_SIZE / this.rowSize);
+        int segmentCount = (int) ((this.count + this.rowsPerSegment - 1) / this.rowsPerSegment);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long first = i * this.rowsPerSegment;
+            long rows = Math.min(this.rowsPerSegment, this.count - first);
+            this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + first * this.rowSize, rows * this.rowSize);
+            this.segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        long indexSize = (this.count + 1) * Long.BYTES;
+        this.index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, Math.min(indexSize, MAX_SEGMENT_SIZE));
+        this.index.order(ByteOrder.LITTLE_ENDIAN);
+        this.idsOffset = indexOffset + indexSize;
+    }
+
+    public static EmbeddingFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new EmbeddingFile(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether {@code path} starts like an embedding file, to tell it apart from ION or JSONL rows.
+     */
+    public static boolean isEmbeddingFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            return channel.read(magic, 0) == Integer.BYTES && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    public Precision precision() {
+        return this.precision;
+    }
+
+    public int dimensions() {
+        return this.dimensions;
+    }
+
+    public long count() {
+        return this.count;
+    }
+
+    /**
+     * Returns the raw little-endian bytes of a row, a view of the mapping without any copy.
+     */
+    public ByteBuffer row(long row) {
+        this.check(row);
+
+        MappedByteBuffer segment = this.segments[(int) (row / this.rowsPerSegment)];
+        int offset = (int) (row % this.rowsPerSegment) * this.rowSize;
+        return segment.slice(offset, this.rowSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Decodes a row into {@code into}, which must hold {@link #dimensions()} values.
+     */
+    public float[] vector(long row, float[] into) {
+        ByteBuffer bytes = this.row(row);
+
+        if (this.precision == Precision.FLOAT32) {
+            bytes.asFloatBuffer().get(into, 0, this.dimensions);
+        } else {
+            for (int i = 0; i < this.dimensions; i++) {
+                into[i] = Float.float16ToFloat(bytes.getShort(i * 2));
+            }
+        }
+
+        return into;
+    }
+
+    public float[] vector(long row) {
+        return this.vector(row, new float[this.dimensions]);
+    }
+
+    /**
+     * Dot product of a row with {@code query}, computed on the mapping without decoding the row first. Four partial
+     * sums are kept so the additions don't all wait on each other.
+     */
+    public float dot(long row, float[] query) {
+        this.check(row);
+
+        MappedByteBuffer segment = this.segments[(int) (row / this.rowsPerSegment)];
+        int offset = (int) (row % this.rowsPerSegment) * this.rowSize;
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+
+        if (this.precision == Precision.FLOAT32) {
+            for (; i + 3 < this.dimensions; i += 4, offset += 16) {
+                s0 += segment.getFloat(offset) * query[i];
+                s1 += segment.getFloat(offset + 4) * query[i + 1];
+                s2 += segment.getFloat(offset + 8) * query[i + 2];
+                s3 += segment.getFloat(offset + 12) * query[i + 3];
+            }
+            for (; i < this.dimensions; i++, offset += 4) {
+                s0 += segment.getFloat(offset) * query[i];
+            }
+        } else {
+            for (; i + 3 < this.dimensions; i += 4, offset += 8) {
+                s0 += Float.float16ToFloat(segment.getShort(offset)) * query[i];
+                s1 += Float.float16ToFloat(segment.getShort(offset + 2)) * query[i + 1];
+                s2 += Float.float16ToFloat(segment.getShort(offset + 4)) * query[i + 2];
+                s3 += Float.float16ToFloat(segment.getShort(offset + 6)) * query[i + 3];
+            }
+            for (; i < this.dimensions; i++, offset += 2) {
+                s0 += Float.float16ToFloat(segment.getShort(offset)) * query[i];
+            }
+        }
+
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Checksum of the header and of every row, to tell whether an index built for a file still matches another one.
+     * Any changed vector changes it, and computing it is a single sequential pass over the rows, far cheaper than
+     * building the index again.
+     */
+    public long fingerprint() throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        this.channel.read(header, 0);
+        crc.update(header.flip());
+
+        for (MappedByteBuffer segment : this.segments) {
+            // a duplicate leaves the position of the shared mapping alone
+            crc.update(segment.duplicate());
+        }
+
+        return crc.getValue();
+    }
+
+    public String id(long row) throws IOException {
+        this.check(row);
+
+        long start = this.index.getLong((int) (row * Long.BYTES));
+        long end = this.index.getLong((int) ((row + 1) * Long.BYTES));
+        ByteBuffer bytes = ByteBuffer.allocate(Math.toIntExact(end - start));
+        while (bytes.hasRemaining()) {
+            if (this.channel.read(bytes, this.idsOffset + start + bytes.position()) < 0) {
+                throw new IOException("Truncated embedding file");
+            }
+        }
+
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+
+    private void check(long row) {
+        if (row < 0 || row >= this.count) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + this.count);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
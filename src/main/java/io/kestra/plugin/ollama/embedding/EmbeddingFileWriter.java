@@ -0,0 +1,135 @@
+package io.kestra.plugin.ollama.embedding;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams embeddings to a file in the format read by {@link EmbeddingFile}. Vectors are written as they come; only
+ * the offsets of the IDs, 8 bytes per row, are kept in memory until {@link #close()} writes the index and the header.
+ */
+public final class EmbeddingFileWriter implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Path path;
+    private final EmbeddingFile.Precision precision;
+    private final Path idsFile;
+    private final OutputStream data;
+    private final OutputStream ids;
+
+    private ByteBuffer row;
+    private int dimensions = -1;
+    private long count;
+    private long[] idOffsets = new long[1024];
+    private long idsSize;
+    private boolean closed;
+
+    public EmbeddingFileWriter(Path path, EmbeddingFile.Precision precision) throws IOException {
+        this.path = path;
+        this.precision = precision;
+        this.idsFile = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".ids");
+
+        this.data = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+        this.data.write(new byte[EmbeddingFile.HEADER_SIZE]);
+        this.ids = new BufferedOutputStream(Files.newOutputStream(this.idsFile), BUFFER_SIZE);
+    }
+
+    /**
+     * Appends a row. Every vector must have the dimensions of the first one.
+     */
+    public void write(String id, float[] vector) throws IOException {
+        if (this.dimensions < 0) {
+            if (vector.length == 0) {
+                throw new IllegalArgumentException("Embeddings can't be empty");
+            }
+            this.dimensions = vector.length;
+            this.row = ByteBuffer.allocate(vector.length * this.precision.width()).order(ByteOrder.LITTLE_ENDIAN);
+        } else if (vector.length != this.dimensions) {
+            throw new IllegalArgumentException("Embedding of row " + this.count + " has " + vector.length + " dimensions instead of " + this.dimensions);
+        }
+
+        this.row.clear();
+        if (this.precision == EmbeddingFile.Precision.FLOAT32) {
+            this.row.asFloatBuffer().put(vector);
+        } else {
+            for (int i = 0; i < vector.length; i++) {
+                this.row.putShort(i * 2, Float.floatToFloat16(vector[i]));
+            }
+        }
+        this.data.write(this.row.array());
+
+        byte[] idBytes = id == null ? new byte[0] : id.getBytes(StandardCharsets.UTF_8);
+        this.ids.write(idBytes);
+        if (this.count + 1 == this.idOffsets.length) {
+            this.idOffsets = Arrays.copyOf(this.idOffsets, this.idOffsets.length * 2);
+        }
+        this.idsSize += idBytes.length;
+        this.count++;
+        this.idOffsets[(int) this.count] = this.idsSize;
+    }
+
+    public long count() {
+        return this.count;
+    }
+
+    /**
+     * @return the dimensions of the vectors, 0 when nothing was written
+     */
+    public int dimensions() {
+        return Math.max(this.dimensions, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            this.ids.close();
+
+            ByteBuffer index = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (long i = 0; i <= this.count; i++) {
+                if (!index.hasRemaining()) {
+                    this.data.write(index.array(), 0, index.position());
+                    index.clear();
+                }
+                index.putLong(this.idOffsets[(int) i]);
+            }
+            this.data.write(index.array(), 0, index.position());
+            Files.copy(this.idsFile, this.data);
+            this.data.close();
+
+            long dataSize = this.count * (long) this.dimensions() * this.precision.width();
+            ByteBuffer header = ByteBuffer.allocate(EmbeddingFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(EmbeddingFile.MAGIC)
+                .putShort((short) EmbeddingFile.VERSION)
+                .putShort((short) this.precision.ordinal())
+                .putInt(this.dimensions())
+                .putInt(0)
+                .putLong(this.count)
+                .putLong(EmbeddingFile.HEADER_SIZE)
+                .putLong(EmbeddingFile.HEADER_SIZE + dataSize);
+            header.clear();
+
+            try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            }
+        } finally {
+            this.data.close();
+            Files.deleteIfExists(this.idsFile);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package io.kestra.plugin.ollama.embedding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Hierarchical navigable small world graph over the rows of an {@link EmbeddingFile}, answering approximate top-k
+ * queries by visiting a few hundred rows instead of all of them.
+ * <p>
+ * Only the graph and the inverse lengths of the rows are held: vectors are always read from the file the index was
+ * built for, which {@link #fingerprint()} identifies. The graph is built once, single-threaded and with a fixed seed,
+ * so the same file always gives the same index.
+ */
+public final class HnswIndex {
+    private static final int MAGIC = 0x534E484F; // written big-endian by DataOutputStream, so the file starts with the bytes "SNHO" (53 4E 48 4F)
+    private static final int VERSION = 1;
+    private static final long SEED = 42;
+
+    private static final Comparator<Scored> BEST_FIRST = Comparator.<Scored>comparingDouble(Scored::score).reversed();
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score);
+
+    private final Similarity similarity;
+    private final int m;
+    private final long fingerprint;
+    private final float[] scales;
+    /**
+     * Neighbours of each row on each of its levels.
+     */
+    private final int[][][] links;
+    /**
+     * Scores of the neighbours in {@link #links}, only kept while building.
+     */
+    private float[][][] linkScores;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private record Scored(int row, float score) {
+    }
+
+    /**
+     * Rows already scored by the current search, reset in constant time by moving to the next stamp.
+     */
+    private static final class Visited {
+        private final int[] marks;
+        private int stamp;
+
+        Visited(int count) {
+            this.marks = new int[count];
+        }
+
+        void reset() {
+            this.stamp++;
+        }
+
+        boolean add(int row) {
+            if (this.marks[row] == this.stamp) {
+                return false;
+            }
+            this.marks[row] = this.stamp;
+            return true;
+        }
+    }
+
+    private HnswIndex(Similarity similarity, int m, long fingerprint, int count) {
+        this.similarity = similarity;
+        this.m = m;
+        this.fingerprint = fingerprint;
+        this.scales = new float[count];
+        this.links = new int[count][][];
+    }
+
+    /**
+     * @param m the number of neighbours kept per row and level, twice as many on the bottom level
+     * @param efConstruction the number of candidates considered when linking a row, trading build time for recall
+     */
+    public static HnswIndex build(EmbeddingFile file, Similarity similarity, int m, int efConstruction) throws IOException {
+        if (file.count() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Can't index more than " + Integer.MAX_VALUE + " rows");
+        }
+
+        HnswIndex index = new HnswIndex(similarity, m, file.fingerprint(), (int) file.count());
+        index.linkScores = new float[index.links.length][][];
+        float[] vector = new float[file.dimensions()];
+        for (int row = 0; row < index.scales.length; row++) {
+            index.scales[row] = similarity.scale(Similarity.norm(file.vector(row, vector)));
+        }
+
+        Random random = new Random(SEED);
+        double levelFactor = 1 / Math.log(m);
+        Visited visited = new Visited(index.scales.length);
+        for (int row = 0; row < index.scales.length; row++) {
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+            index.insert(file, row, level, efConstruction, visited);
+        }
+        index.linkScores = null;
+
+        return index;
+    }
+
+    public Similarity similarity() {
+        return this.similarity;
+    }
+
+    /**
+     * @see EmbeddingFile#fingerprint()
+     */
+    public long fingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * @param query the raw query vector
+     * @param ef the number of candidates kept while searching, at least {@code k}; higher is slower and more accurate
+     * @return the approximate {@code k} best matches, best first
+     */
+    public List<VectorSearch.Match> search(EmbeddingFile file, float[] query, int k, int ef) {
+        if (this.entryPoint < 0) {
+            return List.of();
+        }
+
+        float[] prepared = this.similarity.prepare(query);
+        Scored entry = this.greedy(file, prepared, this.entryPoint, this.maxLevel, 1);
+        List<Scored> candidates = this.searchLevel(file, prepared, entry, Math.max(ef, k), 0, new Visited(this.scales.length));
+
+        return candidates.stream()
+            .limit(k)
+            .map(scored -> new VectorSearch.Match(scored.row(), scored.score()))
+            .toList();
+    }
+
+    private void insert(EmbeddingFile file, int row, int level, int efConstruction, Visited visited) {
+        this.links[row] = new int[level + 1][];
+        this.linkScores[row] = new float[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            this.links[row][l] = new int[0];
+            this.linkScores[row][l] = new float[0];
+        }
+
+        if (this.entryPoint < 0) {
+            this.entryPoint = row;
+            this.maxLevel = level;
+            return;
+        }
+
+        float[] query = this.query(file, row);
+        Scored entry = this.greedy(file, query, this.entryPoint, this.maxLevel, level + 1);
+        for (int l = Math.min(level, this.maxLevel); l >= 0; l--) {
+            List<Scored> candidates = this.searchLevel(file, query, entry, efConstruction, l, visited);
+            List<Scored> neighbours = this.select(file, candidates, this.m);
+
+            this.setLinks(row, l, neighbours);
+            for (Scored neighbour : neighbours) {
+                this.connect(neighbour.row(), row, neighbour.score(), l);
+            }
+            entry = candidates.get(0);
+        }
+
+        if (level > this.maxLevel) {
+            this.entryPoint = row;
+            this.maxLevel = level;
+        }
+    }
+
+    /**
+     * Adds {@code row} to the neighbours of {@code neighbour}, dropping the farthest ones when the list is full. The
+     * scores kept from the build make this free of any vector read.
+     */
+    private void connect(int neighbour, int row, float score, int level) {
+        int[] current = this.links[neighbour][level];
+        float[] scores = this.linkScores[neighbour][level];
+
+        List<Scored> candidates = new ArrayList<>(current.length + 1);
+        for (int i = 0; i < current.length; i++) {
+            candidates.add(new Scored(current[i], scores[i]));
+        }
+        candidates.add(new Scored(row, score));
+
+        int capacity = level == 0 ? 2 * this.m : this.m;
+        if (candidates.size() > capacity) {
+            candidates.sort(BEST_FIRST);
+            candidates = candidates.subList(0, capacity);
+        }
+        this.setLinks(neighbour, level, candidates);
+    }
+
+    /**
+     * Picks up to {@code max} neighbours among {@code candidates}, sorted best first, skipping those closer to an
+     * already picked neighbour than to the row itself: the links then point in different directions, which keeps
+     * clusters connected to each other.
+     */
+    private List<Scored> select(EmbeddingFile file, List<Scored> candidates, int max) {
+        List<Scored> selected = new ArrayList<>(max);
+        List<float[]> selectedVectors = new ArrayList<>(max);
+
+        for (Scored candidate : candidates) {
+            if (selected.size() == max) {
+                break;
+            }
+
+            boolean diverse = true;
+            for (float[] vector : selectedVectors) {
+                if (this.score(file, vector, candidate.row()) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+                selectedVectors.add(this.query(file, candidate.row()));
+            }
+        }
+
+        return selected;
+    }
+
+    private void setLinks(int row, int level, List<Scored> neighbours) {
+        int[] rows = new int[neighbours.size()];
+        float[] scores = new float[neighbours.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = neighbours.get(i).row();
+            scores[i] = neighbours.get(i).score();
+        }
+        this.links[row][level] = rows;
+        this.linkScores[row][level] = scores;
+    }
+
+    /**
+     * Walks down from {@code fromLevel} to {@code toLevel}, moving to the best neighbour until none is better.
+     */
+    private Scored greedy(EmbeddingFile file, float[] query, int row, int fromLevel, int toLevel) {
+        Scored best = new Scored(row, this.score(file, query, row));
+        for (int level = fromLevel; level >= toLevel; level--) {
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                for (int neighbour : this.links[best.row()][level]) {
+                    float score = this.score(file, query, neighbour);
+                    if (score > best.score()) {
+                        best = new Scored(neighbour, score);
+                        moved = true;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first search of one level from {@code entry}, keeping the {@code ef} best rows seen.
+     *
+     * @return the best rows found, best first
+     */
+    private List<Scored> searchLevel(EmbeddingFile file, float[] query, Scored entry, int ef, int level, Visited visited) {
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Scored> results = new PriorityQueue<>(WORST_FIRST);
+        candidates.add(entry);
+        results.add(entry);
+        visited.reset();
+        visited.add(entry.row());
+
+        while (!candidates.isEmpty()) {
+            Scored current = candidates.poll();
+            if (results.size() >= ef && current.score() < results.peek().score()) {
+                break;
+            }
+
+            int[][] levels = this.links[current.row()];
+            if (level >= levels.length) {
+                continue;
+            }
+            for (int neighbour : levels[level]) {
+                if (!visited.add(neighbour)) {
+                    continue;
+                }
+
+                float score = this.score(file, query, neighbour);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Scored scored = new Scored(neighbour, score);
+                    candidates.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Scored> best = new ArrayList<>(results);
+        best.sort(BEST_FIRST);
+        return best;
+    }
+
+    private float[] query(EmbeddingFile file, int row) {
+        float[] vector = file.vector(row);
+        if (this.similarity == Similarity.COSINE) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= this.scales[row];
+            }
+        }
+        return vector;
+    }
+
+    private float score(EmbeddingFile file, float[] query, int row) {
+        return file.dot(row, query) * this.scales[row];
+    }
+
+    public void write(OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(this.similarity.ordinal());
+        data.writeInt(this.m);
+        data.writeLong(this.fingerprint);
+        data.writeInt(this.scales.length);
+        data.writeInt(this.entryPoint);
+        data.writeInt(this.maxLevel);
+
+        for (float scale : this.scales) {
+            data.writeFloat(scale);
+        }
+        for (int[][] levels : this.links) {
+            data.writeInt(levels.length);
+            for (int[] neighbours : levels) {
+                data.writeInt(neighbours.length);
+                for (int neighbour : neighbours) {
+                    data.writeInt(neighbour);
+                }
+            }
+        }
+        data.flush();
+    }
+
+    public static HnswIndex read(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an HNSW index");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported HNSW index version " + version);
+        }
+
+        int similarityOrdinal = data.readInt();
+        if (similarityOrdinal < 0 || similarityOrdinal >= Similarity.values().length) {
+            throw new IOException("Unknown similarity " + similarityOrdinal);
+        }
+        Similarity similarity = Similarity.values()[similarityOrdinal];
+        int m = data.readInt();
+        long fingerprint = data.readLong();
+        int count = data.readInt();
+
+        HnswIndex index = new HnswIndex(similarity, m, fingerprint, count);
+        index.entryPoint = data.readInt();
+        index.maxLevel = data.readInt();
+
+        for (int row = 0; row < count; row++) {
+            index.scales[row] = data.readFloat();
+        }
+        for (int row = 0; row < count; row++) {
+            int[][] levels = new int[data.readInt()][];
+            for (int level = 0; level < levels.length; level++) {
+                levels[level] = new int[data.readInt()];
+                for (int i = 0; i < levels[level].length; i++) {
+                    levels[level][i] = data.readInt();
+                }
+            }
+            index.links[row] = levels;
+        }
+
+        return index;
+    }
+}
@@ -0,0 +1,64 @@
+package io.kestra.plugin.ollama.embedding;
+
+/**
+ * How a query is compared to the rows of an {@link EmbeddingFile}; a higher score is always closer.
+ */
+public enum Similarity {
+    /**
+     * Cosine of the angle between the vectors, from -1 to 1, whatever their lengths.
+     */
+    COSINE,
+    /**
+     * Raw dot product, equal to the cosine and cheaper for models returning normalized vectors.
+     */
+    DOT;
+
+    /**
+     * Returns the query to pass to {@link EmbeddingFile#dot(long, float[])}: a unit-length copy for {@link #COSINE},
+     * so that only the length of the rows remains to divide by.
+     */
+    public float[] prepare(float[] query) {
+        if (this == DOT) {
+            return query;
+        }
+
+        float norm = norm(query);
+        float[] prepared = new float[query.length];
+        for (int i = 0; i < query.length; i++) {
+            prepared[i] = norm == 0 ? 0 : query[i] / norm;
+        }
+        return prepared;
+    }
+
+    /**
+     * Factor applied to the dot product with a row of length {@code rowNorm}; rows of length 0 score 0.
+     */
+    float scale(float rowNorm) {
+        if (this == DOT) {
+            return 1;
+        }
+        return rowNorm == 0 ? 0 : 1 / rowNorm;
+    }
+
+    static float norm(float[] vector) {
+        return (float) Math.sqrt(dot(vector, vector));
+    }
+
+    /**
+     * Dot product with four partial sums, so the additions don't all wait on each other.
+     */
+    static float dot(float[] a, float[] b) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < a.length; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+}
@@ -0,0 +1,155 @@
+package io.kestra.plugin.ollama.embedding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Exact top-k search over every row of an {@link EmbeddingFile}.
+ * <p>
+ * Rows are split into contiguous ranges scanned in parallel. Each row is copied from the mapping into a buffer of the
+ * scanning thread, a plain memory copy for {@code FLOAT32} rows, and scored against every query from there. Each range
+ * keeps one bounded heap per query, so memory stays at {@code k} matches per query and range whatever the size of the
+ * file. The heaps are merged once every range is done.
+ */
+public final class VectorSearch {
+    private VectorSearch() {
+    }
+
+    public record Match(long row, float score) {
+    }
+
+    /**
+     * @param queries the raw query vectors, with the dimensions of the file
+     * @param partitions the number of row ranges submitted to {@code executor}
+     * @return the {@code k} best matches of each query, best first
+     */
+    public static List<List<Match>> search(EmbeddingFile file, Similarity similarity, float[][] queries, int k, ExecutorService executor, int partitions) throws Exception {
+        float[][] prepared = new float[queries.length][];
+        for (int q = 0; q < queries.length; q++) {
+            if (queries[q].length != file.dimensions()) {
+                throw new IllegalArgumentException("Query " + q + " has " + queries[q].length + " dimensions but the embeddings have " + file.dimensions());
+            }
+            prepared[q] = similarity.prepare(queries[q]);
+        }
+
+        long count = file.count();
+        long rangeSize = Math.max(1, (count + partitions - 1) / partitions);
+        List<Future<TopK[]>> ranges = new ArrayList<>();
+        for (long start = 0; start < count; start += rangeSize) {
+            long first = start;
+            long last = Math.min(count, start + rangeSize);
+            ranges.add(executor.submit(() -> scan(file, similarity, prepared, k, first, last)));
+        }
+
+        TopK[] merged = new TopK[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            merged[q] = new TopK(k);
+        }
+        for (Future<TopK[]> range : ranges) {
+            TopK[] heaps = range.get();
+            for (int q = 0; q < queries.length; q++) {
+                merged[q].addAll(heaps[q]);
+            }
+        }
+
+        List<List<Match>> results = new ArrayList<>(queries.length);
+        for (TopK heap : merged) {
+            results.add(heap.sorted());
+        }
+        return results;
+    }
+
+    private static TopK[] scan(EmbeddingFile file, Similarity similarity, float[][] queries, int k, long first, long last) {
+        TopK[] heaps = new TopK[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            heaps[q] = new TopK(k);
+        }
+
+        float[] row = new float[file.dimensions()];
+        for (long r = first; r < last; r++) {
+            file.vector(r, row);
+            float scale = similarity == Similarity.COSINE ? similarity.scale(Similarity.norm(row)) : 1;
+            for (int q = 0; q < queries.length; q++) {
+                heaps[q].add(r, Similarity.dot(row, queries[q]) * scale);
+            }
+        }
+
+        return heaps;
+    }
+
+    /**
+     * Min-heap of the {@code k} best scores seen so far: a new score only has to beat the root.
+     */
+    static final class TopK {
+        private final long[] rows;
+        private final float[] scores;
+        private int size;
+
+        TopK(int k) {
+            this.rows = new long[k];
+            this.scores = new float[k];
+        }
+
+        void add(long row, float score) {
+            if (this.size < this.rows.length) {
+                int i = this.size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!worse(score, row, this.scores[parent], this.rows[parent])) {
+                        break;
+                    }
+                    this.rows[i] = this.rows[parent];
+                    this.scores[i] = this.scores[parent];
+                    i = parent;
+                }
+                this.rows[i] = row;
+                this.scores[i] = score;
+            } else if (this.size > 0 && worse(this.scores[0], this.rows[0], score, row)) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= this.size) {
+                        break;
+                    }
+                    if (child + 1 < this.size && worse(this.scores[child + 1], this.rows[child + 1], this.scores[child], this.rows[child])) {
+                        child++;
+                    }
+                    if (!worse(this.scores[child], this.rows[child], score, row)) {
+                        break;
+                    }
+                    this.rows[i] = this.rows[child];
+                    this.scores[i] = this.scores[child];
+                    i = child;
+                }
+                this.rows[i] = row;
+                this.scores[i] = score;
+            }
+        }
+
+        void addAll(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                this.add(other.rows[i], other.scores[i]);
+            }
+        }
+
+        List<Match> sorted() {
+            Match[] matches = new Match[this.size];
+            for (int i = 0; i < this.size; i++) {
+                matches[i] = new Match(this.rows[i], this.scores[i]);
+            }
+            Arrays.sort(matches, Comparator.<Match>comparingDouble(Match::score).reversed().thenComparingLong(Match::row));
+            return List.of(matches);
+        }
+
+        /**
+         * Lower scores are worse; on equal scores the later row is, so results don't depend on the partitioning.
+         */
+        private static boolean worse(float score, long row, float otherScore, long otherRow) {
+            return score < otherScore || (score == otherScore && row > otherRow);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package io.kestra.plugin.ollama;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.storages.StorageInterface;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.tenant.TenantService;
+import io.kestra.core.utils.Await;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@KestraTest
+class BatchGenerateTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Inject
+    private StorageInterface storageInterface;
+
+    /**
+     * Answers with the prompt in upper case, after a delay that decreases with the row id so that late rows complete
+     * first.
+     */
+    private static String generateResponse(String body) {
+        try {
+            String prompt = JacksonMapper.toMap(body).get("prompt").toString();
+            Thread.sleep(Math.max(0, 20 - Integer.parseInt(prompt.replaceAll("\\D", ""))));
+            return "{\"model\":\"llama3.2\",\"response\":\"" + prompt.toUpperCase() + "\",\"done\":true,\"prompt_eval_count\":3,\"eval_count\":2}";
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void shouldAnswerEveryRowInInputOrder() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/generate", BatchGenerateTest::generateResponse)) {
+            String rows = IntStream.range(0, 20)
+                .mapToObj(i -> "{\"id\":" + i + ",\"text\":\"row " + i + "\"}")
+                .collect(Collectors.joining("\n"));
+
+            BatchGenerate task = task(server, upload(rows, ".jsonl"), "Summarize: {{ row.text }}").build();
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+            BatchGenerate.Output output = task.run(runContext);
+
+            assertThat(output.getCount(), is(20L));
+            assertThat(output.getFailedCount(), is(0L));
+            assertThat(output.getFailedUri(), nullValue());
+            assertThat(server.requests, hasSize(20));
+
+            List<Object> answered = read(runContext, output.getUri());
+            assertThat(answered, hasSize(20));
+            for (int i = 0; i < 20; i++) {
+                Map<?, ?> row = (Map<?, ?>) answered.get(i);
+                assertThat(row.get("id"), is(i));
+                assertThat(row.get("response"), is("SUMMARIZE: ROW " + i));
+            }
+        }
+    }
+
+    @Test
+    void shouldRetryTransientFailuresAndReportFailedRows() throws Exception {
+        Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/generate", body -> {
+            // the stub server drops the connection when the handler throws
+            if (body.contains("broken") || (body.contains("flaky") && failedOnce.add(body))) {
+                throw new IllegalStateException("unavailable");
+            }
+            return "{\"model\":\"llama3.2\",\"response\":\"ok\",\"done\":true}";
+        })) {
+            BatchGenerate task = task(server, upload("\"fine\"\n\"flaky\"\n\"broken\"\n\"fine again\"\n", ".ion"), "Summarize: {{ row }}")
+                .retryDelay(Property.ofValue(Duration.ofMillis(10)))
+                .build();
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+            BatchGenerate.Output output = task.run(runContext);
+
+            assertThat(output.getCount(), is(3L));
+            assertThat(output.getFailedCount(), is(1L));
+            // 1 request for each fine row, 2 for the flaky one, 1 + maxRetries for the broken one
+            assertThat(server.requests, hasSize(7));
+
+            List<Object> answered = read(runContext, output.getUri());
+            assertThat(answered.stream().map(row -> ((Map<?, ?>) row).get("input")).toList(), is(List.of("fine", "flaky", "fine again")));
+
+            List<Object> failed = read(runContext, output.getFailedUri());
+            assertThat(failed, hasSize(1));
+            assertThat(((Map<?, ?>) failed.get(0)).get("input"), is("broken"));
+            assertThat(((Map<?, ?>) failed.get(0)).get("error"), notNullValue());
+        }
+    }
+
+    @Test
+    void shouldResumeFromTheLastCheckpoint() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/generate", body -> {
+            // hangs on row 6 until the first attempt has been killed
+            if (body.contains("row 6")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return "{\"model\":\"llama3.2\",\"response\":\"ok\",\"done\":true}";
+        })) {
+            String rows = IntStream.range(0, 10)
+                .mapToObj(i -> "{\"id\":" + i + ",\"text\":\"row " + i + "\"}")
+                .collect(Collectors.joining("\n"));
+            URI from = upload(rows, ".jsonl");
+            String checkpointKey = "checkpoint_" + IdUtils.create();
+
+            BatchGenerate firstAttempt = task(server, from, "Summarize: {{ row.text }}")
+                .concurrency(Property.ofValue(1))
+                .checkpointInterval(Property.ofValue(2))
+                .checkpointKey(Property.ofValue(checkpointKey))
+                .build();
+            RunContext firstContext = TestsUtils.mockRunContext(runContextFactory, firstAttempt, Map.of());
+            KVStore kvStore = firstContext.namespaceKv(firstContext.flowInfo().namespace());
+
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread worker = new Thread(() -> {
+                try {
+                    firstAttempt.run(firstContext);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            worker.start();
+
+            Await.until(() -> offset(kvStore, checkpointKey) == 6L, Duration.ofMillis(20), Duration.ofSeconds(10));
+            worker.interrupt();
+            worker.join();
+            release.countDown();
+            assertThat(failure.get(), instanceOf(InterruptedException.class));
+
+            BatchGenerate secondAttempt = task(server, from, "Summarize: {{ row.text }}")
+                .checkpointInterval(Property.ofValue(2))
+                .checkpointKey(Property.ofValue(checkpointKey))
+                .build();
+            RunContext secondContext = TestsUtils.mockRunContext(runContextFactory, secondAttempt, Map.of());
+
+            BatchGenerate.Output output = secondAttempt.run(secondContext);
+
+            assertThat(output.getCount(), is(10L));
+            List<Object> answered = read(secondContext, output.getUri());
+            assertThat(answered.stream().map(row -> ((Map<?, ?>) row).get("id")).toList(), is(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)));
+
+            // rows before the checkpoint were only sent by the first attempt
+            for (int i = 0; i < 6; i++) {
+                String row = "row " + i + "\"";
+                assertThat(server.requests.stream().filter(request -> request.body().contains(row)).count(), is(1L));
+            }
+            assertThat(kvStore.exists(checkpointKey), is(false));
+        }
+    }
+
+    private static long offset(KVStore kvStore, String key) {
+        try {
+            return kvStore.getValue(key)
+                .map(value -> ((Number) ((Map<?, ?>) value.value()).get("offset")).longValue())
+                .orElse(0L);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private BatchGenerate.BatchGenerateBuilder<?, ?> task(OllamaStubServer server, URI from, String prompt) {
+        return BatchGenerate.builder()
+            .id(BatchGenerate.class.getSimpleName() + IdUtils.create())
+            .type(BatchGenerate.class.getName())
+            .host(Property.ofValue(server.host()))
+            .model(Property.ofValue("llama3.2"))
+            .from(Property.ofValue(from.toString()))
+            .prompt(Property.ofExpression(prompt))
+            .concurrency(Property.ofValue(4));
+    }
+
+    private static List<Object> read(RunContext runContext, URI uri) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(uri)))) {
+            return FileSerde.readAll(reader).collectList().block();
+        }
+    }
+
+    private URI upload(String content, String extension) throws Exception {
+        return storageInterface.put(
+            TenantService.MAIN_TENANT,
+            null,
+            URI.create("/" + IdUtils.create() + extension),
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+}
@@ -0,0 +1,154 @@
+package io.kestra.plugin.ollama;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.executions.AbstractMetricEntry;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.ollama.cli.OllamaCLI;
+import io.kestra.plugin.ollama.client.ChatMessage;
+import io.kestra.plugin.ollama.client.OllamaException;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class ChatTest {
+    private static final String CHAT_RESPONSE = """
+        {
+          "model": "llama3.2",
+          "created_at": "2024-07-22T20:33:28.123648Z",
+          "message": {"role": "assistant", "content": "Kestra orchestrates."},
+          "done": true,
+          "done_reason": "stop",
+          "total_duration": 1500000000,
+          "load_duration": 1000000,
+          "prompt_eval_count": 12,
+          "prompt_eval_duration": 200000000,
+          "eval_count": 4,
+          "eval_duration": 1200000000
+        }
+        """;
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldReturnTypedReply() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/chat", CHAT_RESPONSE)) {
+            Chat task = Chat.builder()
+                .id(Chat.class.getSimpleName() + IdUtils.create())
+                .type(Chat.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("llama3.2"))
+                .messages(Property.ofValue(List.of(
+                    ChatMessage.builder().role("user").content("What is Kestra?").build()
+                )))
+                .options(Property.ofValue(Map.of("temperature", 0)))
+                .build();
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            Chat.Output output = task.run(runContext);
+
+            assertThat(output.getMessage().getRole(), is("assistant"));
+            assertThat(output.getMessage().getContent(), is("Kestra orchestrates."));
+            assertThat(output.getDoneReason(), is("stop"));
+            assertThat(output.getPromptEvalCount(), is(12L));
+            assertThat(output.getEvalCount(), is(4L));
+            assertThat(output.getEvalDuration(), is(Duration.ofMillis(1200)));
+
+            String body = server.requests.get(0).body();
+            assertThat(body, containsString("\"model\":\"llama3.2\""));
+            assertThat(body, containsString("\"stream\":false"));
+            assertThat(body, containsString("\"temperature\":0"));
+        }
+    }
+
+    @Test
+    void shouldEmitTokenAndLatencyMetrics() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/chat", CHAT_RESPONSE)) {
+            Chat task = Chat.builder()
+                .id(Chat.class.getSimpleName() + IdUtils.create())
+                .type(Chat.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("llama3.2"))
+                .messages(Property.ofValue(List.of(ChatMessage.builder().role("user").content("What is Kestra?").build())))
+                .build();
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            task.run(runContext);
+
+            AbstractMetricEntry<?> evalTokens = metric(runContext, CompletionMetrics.EVAL_TOKENS);
+            assertThat(evalTokens.getValue(), is(4.0));
+            assertThat(evalTokens.getTags().get("model"), is("llama3.2"));
+            assertThat(evalTokens.getTags().get("host"), is(URI.create(server.host()).getAuthority()));
+
+            assertThat(metric(runContext, CompletionMetrics.PROMPT_TOKENS).getValue(), is(12.0));
+            assertThat(metric(runContext, CompletionMetrics.EVAL_DURATION).getValue(), is(Duration.ofMillis(1200)));
+            assertThat(runContext.metrics().stream().anyMatch(entry -> entry.getName().equals("tokens.per.second")), is(false));
+            assertThat(metric(runContext, CompletionMetrics.TIME_TO_FIRST_TOKEN).getValue(), is(Duration.ofMillis(201)));
+            assertThat(metric(runContext, CompletionMetrics.LOAD_DURATION).getValue(), is(Duration.ofMillis(1)));
+        }
+    }
+
+    @Test
+    void shouldSendApiKeyAsBearerToken() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/chat", CHAT_RESPONSE)) {
+            Chat task = Chat.builder()
+                .id(Chat.class.getSimpleName() + IdUtils.create())
+                .type(Chat.class.getName())
+                .host(Property.ofValue(server.host()))
+                .auth(OllamaCLI.Auth.builder().apiKey(Property.ofValue("api-key")).build())
+                .model(Property.ofValue("llama3.2"))
+                .messages(Property.ofValue(List.of(
+                    ChatMessage.builder().role("user").content("Hello").build()
+                )))
+                .build();
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            task.run(runContext);
+
+            assertThat(server.requests.get(0).authorization(), is("Bearer api-key"));
+        }
+    }
+
+    @Test
+    void shouldFailOnServerError() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer()) {
+            Chat task = Chat.builder()
+                .id(Chat.class.getSimpleName() + IdUtils.create())
+                .type(Chat.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("missing"))
+                .messages(Property.ofValue(List.of(
+                    ChatMessage.builder().role("user").content("Hello").build()
+                )))
+                .build();
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            OllamaException exception = assertThrows(OllamaException.class, () -> task.run(runContext));
+
+            assertThat(exception.getStatusCode(), is(404));
+        }
+    }
+
+    private static AbstractMetricEntry<?> metric(RunContext runContext, String name) {
+        return runContext.metrics().stream()
+            .filter(metric -> metric.getName().equals(name))
+            .findFirst()
+            .orElseThrow();
+    }
+}
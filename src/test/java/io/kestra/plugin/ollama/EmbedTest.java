@@ -0,0 +1,406 @@
+package io.kestra.plugin.ollama;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.storages.StorageInterface;
+import io.kestra.core.tenant.TenantService;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.ollama.cache.EmbeddingCache;
+import io.kestra.plugin.ollama.cache.InternalStore;
+import io.kestra.plugin.ollama.client.EmbedBatching;
+import io.kestra.plugin.ollama.embedding.EmbeddingFile;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class EmbedTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Inject
+    private StorageInterface storageInterface;
+
+    /**
+     * Answers each input with a two-dimensional vector holding the input length and its position in the batch.
+     */
+    static String embedResponse(String body) {
+        try {
+            List<?> inputs = (List<?>) JacksonMapper.toMap(body).get("input");
+            String embeddings = IntStream.range(0, inputs.size())
+                .mapToObj(i -> "[" + inputs.get(i).toString().length() + "," + i + "]")
+                .collect(Collectors.joining(","));
+            return "{\"model\":\"nomic-embed-text\",\"embeddings\":[" + embeddings + "]}";
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void shouldEmbedRowsInOrder() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/embed", EmbedTest::embedResponse)) {
+            String rows = IntStream.range(0, 10)
+                .mapToObj(i -> "{\"id\":" + i + ",\"text\":\"" + "x".repeat(i + 1) + "\"}")
+                .collect(Collectors.joining("\n"));
+
+            Embed task = Embed.builder()
+                .id(Embed.class.getSimpleName() + IdUtils.create())
+                .type(Embed.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("nomic-embed-text"))
+                .from(Property.ofValue(upload(rows, ".jsonl").toString()))
+                .inputField(Property.ofValue("text"))
+                .batchSize(Property.ofValue(3))
+                .concurrency(Property.ofValue(2))
+                .format(Property.ofValue(EmbeddingFormat.JSONL))
+                .build();
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+            Embed.Output output = task.run(runContext);
+
+            assertThat(output.getCount(), is(10L));
+            assertThat(server.requests, hasSize(4));
+
+            List<Object> embedded;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())))) {
+                embedded = FileSerde.readAll(JacksonMapper.ofJson(), reader).collectList().block();
+            }
+
+            assertThat(embedded, hasSize(10));
+            for (int i = 0; i < 10; i++) {
+                Map<?, ?> row = (Map<?, ?>) embedded.get(i);
+                assertThat(row.get("id"), is(i));
+                assertThat(((List<?>) row.get("embedding")).get(0), is((double) (i + 1)));
+            }
+        }
+    }
+
+    @Test
+    void shouldEmbedPlainStrings() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/embed", EmbedTest::embedResponse)) {
+            Embed task = Embed.builder()
+                .id(Embed.class.getSimpleName() + IdUtils.create())
+                .type(Embed.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("nomic-embed-text"))
+                .from(Property.ofValue(upload("\"hello\"\n\"kestra\"\n", ".ion").toString()))
+                .build();
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+            Embed.Output output = task.run(runContext);
+
+            assertThat(output.getCount(), is(2L));
+
+            List<Object> embedded;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())))) {
+                embedded = FileSerde.readAll(reader).collectList().block();
+            }
+
+            assertThat(((Map<?, ?>) embedded.get(1)).get("input"), is("kestra"));
+        }
+    }
+
+    @Test
+    void shouldWriteBinaryVectorsKeyedByIdField() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/embed", EmbedTest::embedResponse)) {
+            String rows = IntStream.range(0, 5)
+                .mapToObj(i -> "{\"id\":\"doc-" + i + "\",\"text\":\"" + "x".repeat(i + 1) + "\"}")
+                .collect(Collectors.joining("\n"));
+
+            Embed task = Embed.builder()
+                .id(Embed.class.getSimpleName() + IdUtils.create())
+                .type(Embed.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("nomic-embed-text"))
+                .from(Property.ofValue(upload(rows, ".jsonl").toString()))
+                .inputField(Property.ofValue("text"))
+                .idField(Property.ofValue("id"))
+                .batchSize(Property.ofValue(2))
+                .format(Property.ofValue(EmbeddingFormat.BINARY))
+                .precision(Property.ofValue(EmbeddingFile.Precision.FLOAT16))
+                .build();
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+            Embed.Output output = task.run(runContext);
+
+            Path file = runContext.workingDir().createTempFile(".emb");
+            try (InputStream input = runContext.storage().getFile(output.getUri())) {
+                Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            try (EmbeddingFile embeddings = EmbeddingFile.open(file)) {
+                assertThat(embeddings.count(), is(5L));
+                assertThat(embeddings.dimensions(), is(2));
+                assertThat(embeddings.precision(), is(EmbeddingFile.Precision.FLOAT16));
+                for (int i = 0; i < 5; i++) {
+                    assertThat(embeddings.id(i), is("doc-" + i));
+                    assertThat(embeddings.vector(i)[0], is((float) (i + 1)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldOnlySendRowsMissingFromTheCache() throws Exception {
+        String tags = "{\"models\":[{\"name\":\"nomic-embed-text:latest\",\"digest\":\"0a109f422b47\"}]}";
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/tags", tags).respond("/api/embed", EmbedTest::embedResponse)) {
+            List<String> texts = IntStream.range(0, 6).mapToObj(i -> "document " + "x".repeat(i)).toList();
+            String cachePath = "embedding-cache-" + IdUtils.create();
+
+            Embed.Output first = this.runCached(server, cachePath, texts, 10L);
+
+            assertThat(first.getCacheHits(), is(0L));
+            assertThat(first.getCacheHitRatio(), is(0.0));
+            assertThat(embedRequests(server), is(List.of(List.of(texts.get(0), texts.get(1)), List.of(texts.get(2), texts.get(3)), List.of(texts.get(4), texts.get(5)))));
+
+            // reformatting doesn't invalidate a vector, editing does
+            server.requests.clear();
+            List<String> edited = List.of(texts.get(0), "  document   x ", texts.get(2), "document changed", texts.get(4), texts.get(5));
+
+            Embed.Output second = this.runCached(server, cachePath, edited, 6L);
+
+            assertThat(second.getCacheHits(), is(5L));
+            assertThat(second.getCacheHitRatio(), is(5 / 6.0));
+            assertThat(embedRequests(server), is(List.of(List.of("document changed"))));
+
+            // the edited document's old vector was the least recently used one, and made room for the new one
+            List<Path> segments = this.cacheSegments(cachePath, "0a109f422b47");
+            assertThat(segments, hasSize(1));
+            try (EmbeddingFile embeddings = EmbeddingFile.open(segments.get(0))) {
+                assertThat(embeddings.count(), is(6L));
+                assertThat(embeddings.vector(5)[0], is((float) "document changed".length()));
+            }
+
+            server.requests.clear();
+            Embed.Output third = this.runCached(server, cachePath, edited, 6L);
+
+            assertThat(third.getCacheHitRatio(), is(1.0));
+            assertThat(embedRequests(server), is(List.of()));
+        }
+    }
+
+    @Test
+    void shouldOnlyKeepTheLatestVectorsWhenARunAddsMoreThanMaxEntries() throws Exception {
+        String tags = "{\"models\":[{\"name\":\"nomic-embed-text:latest\",\"digest\":\"5c2e1f0b9a73\"}]}";
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/tags", tags).respond("/api/embed", EmbedTest::embedResponse)) {
+            List<String> texts = IntStream.range(0, 6).mapToObj(i -> "document " + "x".repeat(i)).toList();
+            String cachePath = "embedding-cache-" + IdUtils.create();
+
+            this.runCached(server, cachePath, texts, 3L);
+
+            List<Path> segments = this.cacheSegments(cachePath, "5c2e1f0b9a73");
+            assertThat(segments, hasSize(1));
+            try (EmbeddingFile embeddings = EmbeddingFile.open(segments.get(0))) {
+                assertThat(embeddings.count(), is(3L));
+                for (int i = 0; i < 3; i++) {
+                    assertThat(embeddings.vector(i)[0], is((float) texts.get(i + 3).length()));
+                }
+            }
+
+            server.requests.clear();
+            Embed.Output second = this.runCached(server, cachePath, texts, 3L);
+
+            assertThat(second.getCacheHits(), is(3L));
+            assertThat(embedRequests(server), is(List.of(List.of(texts.get(0), texts.get(1)), List.of(texts.get(2)))));
+        }
+    }
+
+    @Test
+    void shouldOnlyUploadTheNewVectorsWhenNothingIsEvicted() throws Exception {
+        String tags = "{\"models\":[{\"name\":\"nomic-embed-text:latest\",\"digest\":\"9d3b7c41e2f8\"}]}";
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/tags", tags).respond("/api/embed", EmbedTest::embedResponse)) {
+            List<String> texts = IntStream.range(0, 6).mapToObj(i -> "document " + "x".repeat(i)).toList();
+            String cachePath = "embedding-cache-" + IdUtils.create();
+
+            this.runCached(server, cachePath, texts.subList(0, 4), 10L);
+            this.runCached(server, cachePath, texts, 10L);
+
+            List<Path> segments = this.cacheSegments(cachePath, "9d3b7c41e2f8");
+            assertThat(segments, hasSize(2));
+            try (EmbeddingFile first = EmbeddingFile.open(segments.get(0)); EmbeddingFile second = EmbeddingFile.open(segments.get(1))) {
+                // both runs may have written their segment within the same millisecond, in which case the order is arbitrary
+                EmbeddingFile added = first.count() == 2 ? first : second;
+                assertThat(first.count() + second.count(), is(6L));
+                assertThat(added.count(), is(2L));
+                assertThat(added.vector(0)[0], is((float) texts.get(4).length()));
+                assertThat(added.vector(1)[0], is((float) texts.get(5).length()));
+            }
+
+            // the cache is kept out of the namespace files, which script tasks may download
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, Embed.builder().id("check").type(Embed.class.getName()).build(), Map.of());
+            assertThat(runContext.storage().namespace().exists(Path.of(cachePath)), is(false));
+        }
+    }
+
+    @Test
+    void shouldCoalesceConcurrentRunsIntoOneRequest() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/embed", EmbedTest::embedResponse)) {
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                List<Future<List<Object>>> runs = new ArrayList<>();
+                for (int run = 0; run < 3; run++) {
+                    List<String> texts = List.of("x".repeat(run * 2 + 1), "x".repeat(run * 2 + 2));
+                    runs.add(executor.submit(() -> this.runBatched(server, texts, 3)));
+                }
+
+                for (int run = 0; run < 3; run++) {
+                    List<Object> embedded = runs.get(run).get();
+                    assertThat(embedded, hasSize(2));
+                    for (int i = 0; i < 2; i++) {
+                        assertThat(((List<?>) ((Map<?, ?>) embedded.get(i)).get("embedding")).get(0), is((double) (run * 2 + i + 1)));
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            List<List<?>> requests = embedRequests(server);
+            assertThat(requests, hasSize(1));
+            assertThat(requests.get(0), hasSize(6));
+        }
+    }
+
+    @Test
+    void shouldRetryEachRunAloneWhenTheSharedRequestFails() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/embed", body -> body.contains("invalid") ? "{\"embeddings\":[]}" : embedResponse(body))) {
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Future<List<Object>> valid = executor.submit(() -> this.runBatched(server, List.of("hello", "kestra"), 2));
+                Future<List<Object>> invalid = executor.submit(() -> this.runBatched(server, List.of("invalid", "kestra"), 2));
+
+                assertThat(valid.get(), hasSize(2));
+                ExecutionException e = assertThrows(ExecutionException.class, invalid::get);
+                assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertThat(embedRequests(server), hasSize(3));
+        }
+    }
+
+    /**
+     * Runs an Embed task whose batch waits long enough for the other runs of the test, and is complete once the
+     * {@code runs} runs have all added their texts.
+     */
+    private List<Object> runBatched(OllamaStubServer server, List<String> texts, int runs) throws Exception {
+        String rows = texts.stream().map(text -> "\"" + text + "\"").collect(Collectors.joining("\n"));
+
+        Embed task = Embed.builder()
+            .id(Embed.class.getSimpleName() + IdUtils.create())
+            .type(Embed.class.getName())
+            .host(Property.ofValue(server.host()))
+            .model(Property.ofValue("nomic-embed-text"))
+            .from(Property.ofValue(upload(rows, ".ion").toString()))
+            .format(Property.ofValue(EmbeddingFormat.JSONL))
+            .batching(EmbedBatching.builder()
+                .maxDelay(Property.ofValue(Duration.ofSeconds(5)))
+                .maxInputs(Property.ofValue(texts.size() * runs))
+                .build()
+            )
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+        Embed.Output output = task.run(runContext);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())))) {
+            return FileSerde.readAll(JacksonMapper.ofJson(), reader).collectList().block();
+        }
+    }
+
+    private Embed.Output runCached(OllamaStubServer server, String cachePath, List<String> texts, long maxEntries) throws Exception {
+        String rows = texts.stream().map(text -> "\"" + text + "\"").collect(Collectors.joining("\n"));
+
+        Embed task = Embed.builder()
+            .id(Embed.class.getSimpleName() + IdUtils.create())
+            .type(Embed.class.getName())
+            .host(Property.ofValue(server.host()))
+            .model(Property.ofValue("nomic-embed-text"))
+            .from(Property.ofValue(upload(rows, ".ion").toString()))
+            .batchSize(Property.ofValue(2))
+            .concurrency(Property.ofValue(1))
+            .cache(EmbeddingCache.builder()
+                .path(Property.ofValue(cachePath))
+                .maxEntries(Property.ofValue(maxEntries))
+                .build()
+            )
+            .build();
+
+        Embed.Output output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+        assertThat(output.getCount(), is((long) texts.size()));
+        return output;
+    }
+
+    /**
+     * Downloads the segments of the embedding cache of a model digest, oldest first.
+     */
+    private List<Path> cacheSegments(String cachePath, String digest) throws Exception {
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, Embed.builder().id("check").type(Embed.class.getName()).build(), Map.of());
+        InternalStore store = InternalStore.of(runContext, runContext.flowInfo().namespace());
+        Path directory = Path.of(cachePath, digest);
+
+        List<Path> segments = new ArrayList<>();
+        for (String name : store.list(directory).stream().sorted().toList()) {
+            Path segment = runContext.workingDir().createTempFile(".emb");
+            try (InputStream input = store.get(directory.resolve(name))) {
+                Files.copy(input, segment, StandardCopyOption.REPLACE_EXISTING);
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    private static List<List<?>> embedRequests(OllamaStubServer server) throws Exception {
+        List<List<?>> inputs = new ArrayList<>();
+        for (OllamaStubServer.Request request : server.requests) {
+            if (request.path().equals("/api/embed")) {
+                inputs.add((List<?>) JacksonMapper.toMap(request.body()).get("input"));
+            }
+        }
+        return inputs;
+    }
+
+    private URI upload(String content, String extension) throws Exception {
+        return storageInterface.put(
+            TenantService.MAIN_TENANT,
+            null,
+            URI.create("/" + IdUtils.create() + extension),
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+}
@@ -0,0 +1,167 @@
+package io.kestra.plugin.ollama;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class GenerateTest {
+    private static final String FINAL_CHUNK = """
+        {"model":"llama3.2","response":"","done":true,"done_reason":"stop","context":[1,2,3],"total_duration":900000000,"prompt_eval_count":5,"eval_count":%d,"eval_duration":800000000}
+        """;
+
+    private static final Map<String, Object> TICKET_SCHEMA = Map.of(
+        "type", "object",
+        "properties", Map.of(
+            "customer", Map.of("type", "string"),
+            "urgency", Map.of("type", "string", "enum", List.of("low", "medium", "high"))
+        ),
+        "required", List.of("customer", "urgency")
+    );
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldReturnStreamedResponse() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/generate", stream(3))) {
+            Generate task = task(server, false);
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            Generate.Output output = task.run(runContext);
+
+            assertThat(output.getResponse(), is("token-0 token-1 token-2 "));
+            assertThat(output.getUri(), nullValue());
+            assertThat(output.getDoneReason(), is("stop"));
+            assertThat(output.getEvalCount(), is(3L));
+            assertThat(server.requests.get(0).body(), containsString("\"stream\":true"));
+        }
+    }
+
+    @Test
+    void shouldStoreStreamedResponse() throws Exception {
+        int tokens = 20_000;
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/generate", stream(tokens))) {
+            Generate task = task(server, true);
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            Generate.Output output = task.run(runContext);
+
+            assertThat(output.getResponse(), nullValue());
+            assertThat(output.getUri(), notNullValue());
+            assertThat(output.getEvalCount(), is((long) tokens));
+
+            String expected = IntStream.range(0, tokens).mapToObj(i -> "token-" + i + " ").collect(Collectors.joining());
+            try (InputStream stored = runContext.storage().getFile(output.getUri())) {
+                assertThat(new String(stored.readAllBytes(), StandardCharsets.UTF_8), is(expected));
+            }
+        }
+    }
+
+    @Test
+    void shouldParseStructuredAnswer() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/generate", json("{\"customer\": \"Acme\", \"urgency\": \"high\"}"))) {
+            Generate task = structuredTask(server, Integer.MAX_VALUE);
+
+            Generate.Output output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+            assertThat(output.getResponse(), nullValue());
+            assertThat(output.getUri(), nullValue());
+            @SuppressWarnings("unchecked")
+            Map<String, Object> json = (Map<String, Object>) output.getJson();
+            assertThat(json, hasEntry("customer", "Acme"));
+            assertThat(json, hasEntry("urgency", "high"));
+            assertThat(server.requests.get(0).body(), containsString("\"format\":{"));
+        }
+    }
+
+    @Test
+    void shouldStoreStructuredAnswerLargerThanInlineSize() throws Exception {
+        String answer = "{\"customer\": \"Acme\", \"urgency\": \"low\"}";
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/generate", json(answer))) {
+            Generate task = structuredTask(server, 10);
+
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            Generate.Output output = task.run(runContext);
+
+            assertThat(output.getJson(), nullValue());
+            assertThat(output.getUri(), notNullValue());
+            try (InputStream stored = runContext.storage().getFile(output.getUri())) {
+                assertThat(new String(stored.readAllBytes(), StandardCharsets.UTF_8), is(answer));
+            }
+        }
+    }
+
+    @Test
+    void shouldFailWhenStructuredAnswerDoesNotMatchSchema() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/generate", json("{\"customer\": \"Acme\", \"urgency\": \"urgent\"}"))) {
+            Generate task = structuredTask(server, Integer.MAX_VALUE);
+
+            IllegalStateException exception = assertThrows(IllegalStateException.class, () -> task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of())));
+            assertThat(exception.getMessage(), containsString("$.urgency: must be one of [low, medium, high]"));
+        }
+    }
+
+    private static Generate structuredTask(OllamaStubServer server, int maxInlineSize) {
+        return Generate.builder()
+            .id(Generate.class.getSimpleName() + IdUtils.create())
+            .type(Generate.class.getName())
+            .host(Property.ofValue(server.host()))
+            .model(Property.ofValue("llama3.2"))
+            .prompt(Property.ofValue("Extract the customer and the urgency"))
+            .format(Property.ofValue(TICKET_SCHEMA))
+            .maxInlineSize(Property.ofValue(maxInlineSize))
+            .build();
+    }
+
+    /**
+     * Streams {@code answer} a few characters per chunk, the way a model produces JSON.
+     */
+    private static String json(String answer) {
+        StringBuilder stream = new StringBuilder();
+        for (int i = 0; i < answer.length(); i += 4) {
+            String fragment = answer.substring(i, Math.min(answer.length(), i + 4)).replace("\"", "\\\"");
+            stream.append("{\"model\":\"llama3.2\",\"response\":\"").append(fragment).append("\",\"done\":false}\n");
+        }
+        return stream + FINAL_CHUNK.formatted(answer.length() / 4);
+    }
+
+    private static Generate task(OllamaStubServer server, boolean store) {
+        return Generate.builder()
+            .id(Generate.class.getSimpleName() + IdUtils.create())
+            .type(Generate.class.getName())
+            .host(Property.ofValue(server.host()))
+            .model(Property.ofValue("llama3.2"))
+            .prompt(Property.ofValue("Write something"))
+            .store(Property.ofValue(store))
+            .build();
+    }
+
+    private static String stream(int tokens) {
+        return IntStream.range(0, tokens)
+            .mapToObj(i -> "{\"model\":\"llama3.2\",\"response\":\"token-" + i + " \",\"done\":false}\n")
+            .collect(Collectors.joining()) + FINAL_CHUNK.formatted(tokens);
+    }
+}
@@ -0,0 +1,74 @@
+package io.kestra.plugin.ollama;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.serializers.JacksonMapper;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+
+class JsonSchemaValidatorTest {
+    private static final String SCHEMA = """
+        {
+          "type": "object",
+          "properties": {
+            "name": {"type": "string", "minLength": 1},
+            "age": {"type": "integer", "minimum": 0},
+            "tags": {"type": "array", "items": {"type": "string"}, "maxItems": 2},
+            "address": {
+              "type": "object",
+              "properties": {"zip": {"type": "string", "pattern": "^[0-9]{5}$"}},
+              "additionalProperties": false
+            },
+            "score": {"anyOf": [{"type": "number"}, {"type": "null"}]}
+          },
+          "required": ["name", "age"]
+        }
+        """;
+
+    @Test
+    void shouldAcceptMatchingValue() throws Exception {
+        List<String> errors = validate("""
+            {"name": "Ada", "age": 36.0, "tags": ["math"], "address": {"zip": "75001"}, "score": null}
+            """);
+
+        assertThat(errors, empty());
+    }
+
+    @Test
+    void shouldReportEveryViolationWithItsPath() throws Exception {
+        List<String> errors = validate("""
+            {"name": "", "age": 1.5, "tags": ["a", 2, "c"], "address": {"zip": "750", "city": "Paris"}, "score": "high"}
+            """);
+
+        assertThat(errors, containsInAnyOrder(
+            "$.name: must have at least 1 characters but has 0",
+            "$.age: expected integer but got number",
+            "$.tags: must have at most 2 items but has 3",
+            "$.tags[1]: expected string but got integer",
+            "$.address.zip: must match pattern ^[0-9]{5}$",
+            "$.address.city: property is not allowed",
+            "$.score: does not match any schema of anyOf"
+        ));
+    }
+
+    @Test
+    void shouldReportMissingRequiredProperties() throws Exception {
+        assertThat(validate("{\"tags\": []}"), contains(
+            "$: missing required property 'name'",
+            "$: missing required property 'age'"
+        ));
+        assertThat(validate("[]"), contains("$: expected object but got array"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> validate(String json) throws Exception {
+        Map<String, Object> schema = JacksonMapper.ofJson().readValue(SCHEMA, Map.class);
+        return JsonSchemaValidator.validate(JacksonMapper.ofJson().readValue(json, Object.class), schema);
+    }
+}
@@ -0,0 +1,133 @@
+package io.kestra.plugin.ollama;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.core.runner.Process;
+import io.kestra.plugin.ollama.cli.OllamaCLI;
+import io.kestra.plugin.ollama.client.ChatMessage;
+import io.kestra.plugin.ollama.client.LoadBalancing;
+import io.kestra.plugin.scripts.exec.scripts.models.ScriptOutput;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+@KestraTest
+class LoadBalancingTest {
+    private static final String CHAT_RESPONSE = """
+        {"model":"llama3.2","message":{"role":"assistant","content":"ok"},"done":true,"done_reason":"stop"}
+        """;
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldSpreadRunsWithRoundRobin() throws Exception {
+        try (
+            OllamaStubServer first = new OllamaStubServer().respond("/api/chat", CHAT_RESPONSE);
+            OllamaStubServer second = new OllamaStubServer().respond("/api/chat", CHAT_RESPONSE)
+        ) {
+            Chat task = task(List.of(first.host(), second.host()), LoadBalancing.ROUND_ROBIN);
+
+            for (int i = 0; i < 4; i++) {
+                task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+            }
+
+            assertThat(first.requests, hasSize(2));
+            assertThat(second.requests, hasSize(2));
+        }
+    }
+
+    @Test
+    void shouldPreferHostWithLoadedModel() throws Exception {
+        try (
+            OllamaStubServer cold = new OllamaStubServer()
+                .respond("/api/ps", "{\"models\":[]}")
+                .respond("/api/chat", CHAT_RESPONSE);
+            OllamaStubServer warm = new OllamaStubServer()
+                .respond("/api/ps", "{\"models\":[{\"name\":\"llama3.2:latest\",\"model\":\"llama3.2:latest\",\"size_vram\":2019393189}]}")
+                .respond("/api/chat", CHAT_RESPONSE)
+        ) {
+            Chat task = task(List.of(cold.host(), warm.host()), LoadBalancing.MODEL_AFFINITY);
+
+            for (int i = 0; i < 3; i++) {
+                task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+            }
+
+            assertThat(cold.requests.stream().filter(request -> request.path().equals("/api/chat")).toList(), hasSize(0));
+            assertThat(warm.requests.stream().filter(request -> request.path().equals("/api/chat")).toList(), hasSize(3));
+        }
+    }
+
+    @Test
+    void shouldEjectUnreachableHost() throws Exception {
+        OllamaStubServer stopped = new OllamaStubServer();
+        String unreachable = stopped.host();
+        stopped.close();
+
+        try (OllamaStubServer live = new OllamaStubServer().respond("/api/chat", CHAT_RESPONSE)) {
+            Chat task = task(List.of(unreachable, live.host()), LoadBalancing.ROUND_ROBIN);
+
+            int failures = 0;
+            for (int i = 0; i < 4; i++) {
+                try {
+                    task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+                } catch (IOException e) {
+                    failures++;
+                }
+            }
+
+            assertThat(failures, is(1));
+            assertThat(live.requests, hasSize(3));
+        }
+    }
+
+    @Test
+    void shouldNotStartCliCommandsOnUnreachableHost() throws Exception {
+        OllamaStubServer stopped = new OllamaStubServer();
+        String unreachable = stopped.host();
+        stopped.close();
+
+        try (OllamaStubServer live = new OllamaStubServer().respond("/api/version", "{\"version\":\"0.12.0\"}")) {
+            OllamaCLI task = OllamaCLI.builder()
+                .id(OllamaCLI.class.getSimpleName() + IdUtils.create())
+                .type(OllamaCLI.class.getName())
+                .taskRunner(Process.instance())
+                .hosts(Property.ofValue(List.of(unreachable, live.host())))
+                .loadBalancing(Property.ofValue(LoadBalancing.ROUND_ROBIN))
+                .commands(Property.ofValue(List.of("printf '::{\"outputs\":{\"host\":\"%s\"}}::\\n' \"$OLLAMA_HOST\"")))
+                .build();
+
+            for (int i = 0; i < 4; i++) {
+                ScriptOutput output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+                assertThat(output.getExitCode(), is(0));
+                assertThat(output.getVars().get("host"), is(live.host()));
+            }
+
+            assertThat(live.requests.stream().filter(request -> request.path().equals("/api/version")).toList(), hasSize(4));
+        }
+    }
+
+    private static Chat task(List<String> hosts, LoadBalancing loadBalancing) {
+        return Chat.builder()
+            .id(Chat.class.getSimpleName() + IdUtils.create())
+            .type(Chat.class.getName())
+            .hosts(Property.ofValue(hosts))
+            .loadBalancing(Property.ofValue(loadBalancing))
+            .model(Property.ofValue("llama3.2"))
+            .messages(Property.ofValue(List.of(ChatMessage.builder().role("user").content("ping").build())))
+            .build();
+    }
+}
@@ -0,0 +1,144 @@
+package io.kestra.plugin.ollama;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.ollama.client.ChatMessage;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+@KestraTest
+class LoadModelTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldLoadModelAndReportLoadDuration() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer()
+            .respond("/api/generate", """
+                {"model":"llama3.2","created_at":"2024-07-22T20:33:28.123648Z","response":"","done":true,"done_reason":"load","load_duration":1500000000}
+                """)
+            .respond("/api/ps", """
+                {"models":[{"name":"llama3.2:latest","model":"llama3.2:latest","size":5137025024,"size_vram":5137025024,"expires_at":"2024-06-04T14:38:31.83753-07:00"}]}
+                """)
+        ) {
+            LoadModel task = LoadModel.builder()
+                .id(LoadModel.class.getSimpleName() + IdUtils.create())
+                .type(LoadModel.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("llama3.2"))
+                .keepAlive(Property.ofValue(Duration.ofHours(1)))
+                .build();
+
+            LoadModel.Output output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+            assertThat(output.getLoadDuration(), is(Duration.ofMillis(1500)));
+            assertThat(output.getSizeVram(), is(5137025024L));
+            assertThat(output.getExpiresAt(), is("2024-06-04T14:38:31.83753-07:00"));
+
+            String body = server.requests.get(0).body();
+            assertThat(body, containsString("\"keep_alive\":\"3600s\""));
+            assertThat(body, containsString("\"stream\":false"));
+            assertThat(body, not(containsString("\"prompt\"")));
+        }
+    }
+
+    @Test
+    void shouldUnloadModel() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/generate", """
+            {"model":"llama3.2","created_at":"2024-07-22T20:33:28.123648Z","response":"","done":true,"done_reason":"unload"}
+            """)
+        ) {
+            UnloadModel task = UnloadModel.builder()
+                .id(UnloadModel.class.getSimpleName() + IdUtils.create())
+                .type(UnloadModel.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("llama3.2"))
+                .build();
+
+            UnloadModel.Output output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+            assertThat(output.getDoneReason(), is("unload"));
+            assertThat(server.requests.get(0).body(), containsString("\"keep_alive\":\"0\""));
+        }
+    }
+
+    @Test
+    void shouldLoadAndUnloadModelOnEveryHostOfThePool() throws Exception {
+        try (OllamaStubServer first = new OllamaStubServer();
+             OllamaStubServer second = new OllamaStubServer()
+        ) {
+            first.respond("/api/generate", """
+                {"model":"llama3.2","created_at":"2024-07-22T20:33:28.123648Z","response":"","done":true,"done_reason":"load","load_duration":500000000}
+                """);
+            second.respond("/api/generate", """
+                {"model":"llama3.2","created_at":"2024-07-22T20:33:28.123648Z","response":"","done":true,"done_reason":"load","load_duration":2000000000}
+                """);
+
+            List<String> authorities = List.of(URI.create(first.host()).getAuthority(), URI.create(second.host()).getAuthority());
+
+            LoadModel load = LoadModel.builder()
+                .id(LoadModel.class.getSimpleName() + IdUtils.create())
+                .type(LoadModel.class.getName())
+                .hosts(Property.ofValue(List.of(first.host(), second.host())))
+                .model(Property.ofValue("llama3.2"))
+                .build();
+
+            LoadModel.Output loaded = load.run(TestsUtils.mockRunContext(runContextFactory, load, Map.of()));
+
+            assertThat(loaded.getHosts(), is(authorities));
+            assertThat(loaded.getHost(), is(authorities.get(1)));
+            assertThat(loaded.getLoadDuration(), is(Duration.ofSeconds(2)));
+
+            UnloadModel unload = UnloadModel.builder()
+                .id(UnloadModel.class.getSimpleName() + IdUtils.create())
+                .type(UnloadModel.class.getName())
+                .hosts(Property.ofValue(List.of(first.host(), second.host())))
+                .model(Property.ofValue("llama3.2"))
+                .build();
+
+            UnloadModel.Output unloaded = unload.run(TestsUtils.mockRunContext(runContextFactory, unload, Map.of()));
+
+            assertThat(unloaded.getHosts(), is(authorities));
+            for (OllamaStubServer server : List.of(first, second)) {
+                assertThat(server.requests.size(), is(3));
+                assertThat(server.requests.get(2).body(), containsString("\"keep_alive\":\"0\""));
+            }
+        }
+    }
+
+    @Test
+    void shouldSendKeepAliveWithInferenceRequests() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/chat", """
+            {"model":"llama3.2","message":{"role":"assistant","content":"Hi"},"done":true}
+            """)
+        ) {
+            Chat task = Chat.builder()
+                .id(Chat.class.getSimpleName() + IdUtils.create())
+                .type(Chat.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("llama3.2"))
+                .messages(Property.ofValue(List.of(ChatMessage.builder().role("user").content("Hello").build())))
+                .keepAlive(Property.ofValue(Duration.ofSeconds(-1)))
+                .build();
+
+            task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+            assertThat(server.requests.get(0).body(), containsString("\"keep_alive\":\"-1\""));
+        }
+    }
+}
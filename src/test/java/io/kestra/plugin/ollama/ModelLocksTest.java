@@ -0,0 +1,44 @@
+package io.kestra.plugin.ollama;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ModelLocksTest {
+    @Test
+    void shouldNameTheLockFileAfterTheNormalizedModel() {
+        assertThat(ModelLocks.fileName("llama3"), is("llama3_latest.lock"));
+        assertThat(ModelLocks.fileName("llama3:latest"), is("llama3_latest.lock"));
+        assertThat(ModelLocks.fileName("hf.co/org/model:Q4_K_M"), is("hf.co_org_model_Q4_K_M.lock"));
+    }
+
+    @Test
+    void shouldExcludeTheFlockOfOllamaCLI(@TempDir Path cacheDirectory) throws Exception {
+        Path lockFile = Files.createDirectories(cacheDirectory.resolve(ModelLocks.LOCK_DIRECTORY)).resolve(ModelLocks.fileName("llama3"));
+
+        // the same command OllamaCLI runs in its container around a pull
+        Process cli = new ProcessBuilder("flock", lockFile.toString(), "sh", "-c", "echo locked; exec cat >/dev/null").start();
+        try {
+            assertThat(new String(cli.getInputStream().readNBytes(6)), is("locked"));
+
+            assertThrows(IOException.class, () -> ModelLocks.acquire("shouldExcludeTheFlockOfOllamaCLI", "llama3:latest", cacheDirectory, Duration.ofMillis(500)));
+        } finally {
+            cli.getOutputStream().close();
+            cli.waitFor();
+        }
+
+        try (ModelLocks.Held ignored = ModelLocks.acquire("shouldExcludeTheFlockOfOllamaCLI", "llama3:latest", cacheDirectory, Duration.ofSeconds(5))) {
+            assertThat(new ProcessBuilder("flock", "--nonblock", lockFile.toString(), "true").start().waitFor(), is(1));
+        }
+
+        assertThat(new ProcessBuilder("flock", "--nonblock", lockFile.toString(), "true").start().waitFor(), is(0));
+    }
+}
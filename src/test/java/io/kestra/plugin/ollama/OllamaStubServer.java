@@ -0,0 +1,72 @@
+package io.kestra.plugin.ollama;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal in-process stand-in for an Ollama server, answering canned bodies per API path.
+ */
+class OllamaStubServer implements AutoCloseable {
+    private final HttpServer server;
+    private final Map<String, Function<String, String>> handlers = new ConcurrentHashMap<>();
+    final List<Request> requests = new CopyOnWriteArrayList<>();
+
+    OllamaStubServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    OllamaStubServer respond(String path, String body) {
+        return this.respond(path, request -> body);
+    }
+
+    OllamaStubServer respond(String path, Function<String, String> handler) {
+        this.handlers.put(path, handler);
+        return this;
+    }
+
+    String host() {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream input = exchange.getRequestBody()) {
+            body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        this.requests.add(new Request(path, exchange.getRequestHeaders().getFirst("Authorization"), body));
+
+        Function<String, String> handler = this.handlers.get(path);
+        byte[] response = handler == null
+            ? "{\"error\":\"not found\"}".getBytes(StandardCharsets.UTF_8)
+            : handler.apply(body).getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(handler == null ? 404 : 200, response.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+
+    record Request(String path, String authorization, String body) {
+    }
+}
@@ -0,0 +1,113 @@
+package io.kestra.plugin.ollama;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.ollama.client.ModelManifest;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@KestraTest
+class PruneCacheTest {
+    private static final Instant LONG_AGO = Instant.now().minus(Duration.ofDays(30));
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void shouldEvictLeastRecentlyUsedModelsAndKeepSharedBlobs() throws Exception {
+        Path blobs = Files.createDirectories(this.cacheDirectory.resolve("models").resolve("blobs"));
+        blob(blobs, "base", 100, LONG_AGO);
+        blob(blobs, "a", 10, LONG_AGO.plus(Duration.ofDays(20)));
+        blob(blobs, "b", 20, LONG_AGO.plus(Duration.ofDays(10)));
+        blob(blobs, "c", 30, LONG_AGO);
+        blob(blobs, "orphan", 5, LONG_AGO);
+        blob(blobs, "pulling-partial", 7, Instant.now());
+
+        manifest("a", "base", "a");
+        manifest("b", "base", "b");
+        manifest("c", "c");
+
+        PruneCache task = PruneCache.builder()
+            .id(PruneCache.class.getSimpleName() + IdUtils.create())
+            .type(PruneCache.class.getName())
+            .modelCachePath(Property.ofValue(this.cacheDirectory.toString()))
+            .maxSize(Property.ofValue(147L))
+            .keep(Property.ofValue(List.of("c")))
+            .build();
+
+        PruneCache.Output output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+        // c is kept, b is the least recently used of the others and evicting it is enough
+        assertThat(output.getEvictedModels(), is(List.of("b:latest")));
+        assertThat(output.getSizeBefore(), is(172L));
+        assertThat(output.getSizeAfter(), is(147L));
+        assertThat(output.getFreedBytes(), is(25L));
+        assertThat(output.getDeletedBlobs(), is(2));
+
+        assertThat(Files.exists(blobs.resolve("sha256-base")), is(true));
+        assertThat(Files.exists(blobs.resolve("sha256-b")), is(false));
+        assertThat(Files.exists(blobs.resolve("sha256-orphan")), is(false));
+        assertThat(Files.exists(blobs.resolve("sha256-pulling-partial")), is(true));
+        assertThat(Files.exists(this.cacheDirectory.resolve("models").resolve(ModelManifest.manifestPath("b"))), is(false));
+        assertThat(Files.exists(this.cacheDirectory.resolve("models").resolve(ModelManifest.manifestPath("a"))), is(true));
+    }
+
+    @Test
+    void shouldOnlyReportInDryRun() throws Exception {
+        Path blobs = Files.createDirectories(this.cacheDirectory.resolve("models").resolve("blobs"));
+        blob(blobs, "a", 10, LONG_AGO);
+        manifest("a", "a");
+
+        PruneCache task = PruneCache.builder()
+            .id(PruneCache.class.getSimpleName() + IdUtils.create())
+            .type(PruneCache.class.getName())
+            .modelCachePath(Property.ofValue(this.cacheDirectory.toString()))
+            .maxSize(Property.ofValue(0L))
+            .dryRun(Property.ofValue(true))
+            .build();
+
+        PruneCache.Output output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+        assertThat(output.getEvictedModels(), is(List.of("a:latest")));
+        assertThat(output.getFreedBytes(), is(10L));
+        assertThat(Files.exists(blobs.resolve("sha256-a")), is(true));
+    }
+
+    private static void blob(Path blobs, String name, int size, Instant lastUsed) throws Exception {
+        Path blob = Files.write(blobs.resolve("sha256-" + name), new byte[size]);
+        Files.getFileAttributeView(blob, BasicFileAttributeView.class).setTimes(FileTime.from(lastUsed), FileTime.from(lastUsed), null);
+    }
+
+    private void manifest(String model, String... layers) throws Exception {
+        Path manifest = this.cacheDirectory.resolve("models").resolve(ModelManifest.manifestPath(model));
+        Files.createDirectories(manifest.getParent());
+
+        StringBuilder json = new StringBuilder("{\"schemaVersion\":2,\"layers\":[");
+        for (int i = 0; i < layers.length; i++) {
+            json.append(i > 0 ? "," : "").append("{\"mediaType\":\"application/vnd.ollama.image.model\",\"digest\":\"sha256:").append(layers[i]).append("\"}");
+        }
+        Files.writeString(manifest, json.append("]}").toString());
+        Files.setLastModifiedTime(manifest, FileTime.from(LONG_AGO));
+    }
+}
@@ -0,0 +1,240 @@
+package io.kestra.plugin.ollama;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.ollama.cache.InternalStore;
+import io.kestra.plugin.ollama.cache.ModelMirror;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class PullModelTest {
+    private static final String PULL_PROGRESS = """
+        {"status":"pulling manifest"}
+        {"status":"pulling 6a0746a1ec1a","digest":"sha256:6a0746a1ec1a","total":2019377376,"completed":1009688688}
+        {"status":"pulling 6a0746a1ec1a","digest":"sha256:6a0746a1ec1a","total":2019377376,"completed":2019377376}
+        {"status":"verifying sha256 digest"}
+        {"status":"writing manifest"}
+        {"status":"success"}
+        """;
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void shouldPullOnceWhenTasksRunConcurrently() throws Exception {
+        AtomicBoolean installed = new AtomicBoolean();
+
+        try (OllamaStubServer server = new OllamaStubServer()
+            .respond("/api/tags", body -> installed.get()
+                ? "{\"models\":[{\"name\":\"llama3.2:latest\",\"model\":\"llama3.2:latest\",\"digest\":\"a80c4f17acd5\"}]}"
+                : "{\"models\":[]}")
+            .respond("/api/pull", body -> {
+                sleep(300);
+                installed.set(true);
+                return PULL_PROGRESS;
+            })
+        ) {
+            PullModel task = task(server.host()).build();
+
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            List<Future<PullModel.Output>> outputs = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                outputs.add(executor.submit(() -> task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()))));
+            }
+
+            int pulled = 0;
+            for (Future<PullModel.Output> output : outputs) {
+                assertThat(output.get().getDigest(), is("a80c4f17acd5"));
+                pulled += output.get().getPulled() ? 1 : 0;
+            }
+            executor.shutdown();
+
+            assertThat(pulled, is(1));
+            assertThat(server.requests.stream().filter(request -> request.path().equals("/api/pull")).toList(), hasSize(1));
+        }
+    }
+
+    @Test
+    void shouldSkipPullWhenManifestIsInCache() throws Exception {
+        byte[] manifest = """
+            {"schemaVersion":2,"config":{"digest":"sha256:cfg","size":3},"layers":[{"digest":"sha256:model","size":5}]}
+            """.getBytes(StandardCharsets.UTF_8);
+
+        Path models = cacheDirectory.resolve("models");
+        Files.createDirectories(models.resolve("manifests/registry.ollama.ai/library/gemma3"));
+        Files.write(models.resolve("manifests/registry.ollama.ai/library/gemma3/1b"), manifest);
+        Files.createDirectories(models.resolve("blobs"));
+        Files.writeString(models.resolve("blobs/sha256-cfg"), "cfg");
+        Files.writeString(models.resolve("blobs/sha256-model"), "model");
+
+        try (OllamaStubServer server = new OllamaStubServer()) {
+            PullModel task = task(server.host())
+                .model(Property.ofValue("gemma3:1b"))
+                .modelCachePath(Property.ofValue(cacheDirectory.toString()))
+                .build();
+
+            PullModel.Output output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+            assertThat(output.getPulled(), is(false));
+            assertThat(output.getDigest(), is(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(manifest))));
+            assertThat(server.requests, hasSize(0));
+        }
+    }
+
+    @Test
+    void shouldPullWhenCachedBlobIsIncomplete() throws Exception {
+        Path models = cacheDirectory.resolve("models");
+        Files.createDirectories(models.resolve("manifests/registry.ollama.ai/library/gemma3"));
+        Files.writeString(models.resolve("manifests/registry.ollama.ai/library/gemma3/1b"), """
+            {"schemaVersion":2,"layers":[{"digest":"sha256:model","size":5}]}
+            """);
+        Files.createDirectories(models.resolve("blobs"));
+        Files.writeString(models.resolve("blobs/sha256-model"), "mod");
+
+        try (OllamaStubServer server = new OllamaStubServer()
+            .respond("/api/pull", PULL_PROGRESS)
+            .respond("/api/tags", "{\"models\":[]}")
+        ) {
+            PullModel task = task(server.host())
+                .model(Property.ofValue("gemma3:1b"))
+                .modelCachePath(Property.ofValue(cacheDirectory.toString()))
+                .build();
+
+            PullModel.Output output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+            assertThat(output.getPulled(), is(true));
+            assertThat(Files.exists(cacheDirectory.resolve(ModelLocks.LOCK_DIRECTORY).resolve("gemma3_1b.lock")), is(true));
+        }
+    }
+
+    @Test
+    void shouldRestoreFromTheMirrorWhatAnotherWorkerPulled(@TempDir Path otherCacheDirectory) throws Exception {
+        String mirrorPath = "ollama-mirror-" + IdUtils.create();
+        byte[] weights = new byte[10_000];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (byte) i;
+        }
+        String weightsDigest = "sha256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(weights));
+        String manifest = "{\"schemaVersion\":2,\"layers\":[{\"digest\":\"" + weightsDigest + "\",\"size\":" + weights.length + "}]}";
+
+        try (OllamaStubServer server = new OllamaStubServer()
+            .respond("/api/tags", "{\"models\":[]}")
+            .respond("/api/pull", body -> {
+                // the server writes into the shared directory of the first worker
+                try {
+                    Path models = cacheDirectory.resolve("models");
+                    Files.createDirectories(models.resolve("manifests/registry.ollama.ai/library/tiny"));
+                    Files.writeString(models.resolve("manifests/registry.ollama.ai/library/tiny/latest"), manifest);
+                    Files.createDirectories(models.resolve("blobs"));
+                    Files.write(models.resolve("blobs").resolve(weightsDigest.replace(':', '-')), weights);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                return PULL_PROGRESS;
+            })
+        ) {
+            PullModel first = mirrored(server.host(), cacheDirectory, mirrorPath);
+            PullModel.Output pulled = first.run(TestsUtils.mockRunContext(runContextFactory, first, Map.of()));
+            assertThat(pulled.getPulled(), is(true));
+            assertThat(pulled.getRestored(), is(false));
+
+            PullModel second = mirrored(server.host(), otherCacheDirectory, mirrorPath);
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, second, Map.of());
+            PullModel.Output restored = second.run(runContext);
+
+            assertThat(restored.getPulled(), is(false));
+            assertThat(restored.getRestored(), is(true));
+            assertThat(restored.getDigest(), is(pulled.getDigest()));
+            assertThat(Files.readAllBytes(otherCacheDirectory.resolve("models/blobs").resolve(weightsDigest.replace(':', '-'))), is(weights));
+            assertThat(server.requests.stream().filter(request -> request.path().equals("/api/pull")).toList(), hasSize(1));
+
+            // a corrupted chunk is detected and the model is pulled from the registry again
+            InternalStore mirror = InternalStore.of(runContext, runContext.flowInfo().namespace());
+            mirror.put(Path.of(mirrorPath, "blobs", weightsDigest.replace(':', '-'), "000001"), new ByteArrayInputStream(new byte[4096]));
+            assertThat(runContext.storage().namespace().exists(Path.of(mirrorPath)), is(false));
+            Path thirdCacheDirectory = Files.createDirectories(otherCacheDirectory.resolve("third"));
+
+            PullModel third = mirrored(server.host(), thirdCacheDirectory, mirrorPath);
+            PullModel.Output fallback = third.run(TestsUtils.mockRunContext(runContextFactory, third, Map.of()));
+
+            assertThat(fallback.getRestored(), is(false));
+            assertThat(fallback.getPulled(), is(true));
+            try (Stream<Path> blobs = Files.list(thirdCacheDirectory.resolve("models/blobs"))) {
+                assertThat(blobs.toList(), hasSize(0));
+            }
+        }
+    }
+
+    @Test
+    void shouldFailWhenPullReportsAnError() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer()
+            .respond("/api/tags", "{\"models\":[]}")
+            .respond("/api/pull", "{\"status\":\"pulling manifest\"}\n{\"error\":\"pull model manifest: file does not exist\"}\n")
+        ) {
+            PullModel task = task(server.host()).model(Property.ofValue("does-not-exist")).build();
+
+            IOException exception = assertThrows(IOException.class, () -> task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of())));
+            assertThat(exception.getMessage(), containsString("file does not exist"));
+        }
+    }
+
+    private static PullModel.PullModelBuilder<?, ?> task(String host) {
+        return PullModel.builder()
+            .id(PullModel.class.getSimpleName() + IdUtils.create())
+            .type(PullModel.class.getName())
+            .host(Property.ofValue(host))
+            .model(Property.ofValue("llama3.2"));
+    }
+
+    private static PullModel mirrored(String host, Path cacheDirectory, String mirrorPath) {
+        return task(host)
+            .model(Property.ofValue("tiny"))
+            .modelCachePath(Property.ofValue(cacheDirectory.toString()))
+            .mirror(ModelMirror.builder()
+                .path(Property.ofValue(mirrorPath))
+                .chunkSize(Property.ofValue(4096L))
+                .build())
+            .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package io.kestra.plugin.ollama;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.conditions.ConditionContext;
+import io.kestra.core.models.executions.Execution;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.triggers.Trigger;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
+import io.kestra.core.utils.Await;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+
+import jakarta.inject.Inject;
+import reactor.core.publisher.Flux;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+@KestraTest
+class RealtimeTriggerTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    private static String chatResponse(String body) {
+        if (body.contains("broken")) {
+            // the stub server drops the connection when the handler throws
+            throw new IllegalStateException("unavailable");
+        }
+
+        String answer = body.contains("Hello") ? "Hi!" : "Goodbye!";
+        return "{\"model\":\"llama3.2\",\"message\":{\"role\":\"assistant\",\"content\":\"" + answer + "\"},\"done\":true,\"done_reason\":\"stop\"}";
+    }
+
+    @Test
+    void shouldAnswerPromptsAndStartOneExecutionPerAnswer() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer()
+            .respond("/api/generate", "{\"model\":\"llama3.2\",\"response\":\"\",\"done\":true,\"done_reason\":\"load\"}")
+            .respond("/api/chat", RealtimeTriggerTest::chatResponse)
+        ) {
+            RealtimeTrigger trigger = trigger(server).build();
+            Map.Entry<ConditionContext, Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+            KVStore kvStore = context.getKey().getRunContext().namespaceKv(context.getKey().getFlow().getNamespace());
+
+            put(kvStore, "prompts_1", "Hello");
+            put(kvStore, "prompts_2", Map.of("ticket", "T-2", "prompt", "Bye"));
+            put(kvStore, "unrelated", "Hello");
+
+            List<Execution> executions = Flux.from(trigger.evaluate(context.getKey(), context.getValue()))
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+            trigger.kill();
+
+            assertThat(executions, hasSize(2));
+
+            Map<String, Object> first = executions.get(0).getTrigger().getVariables();
+            assertThat(first.get("key"), is("prompts_1"));
+            assertThat(((Map<?, ?>) first.get("message")).get("content"), is("Hi!"));
+
+            Map<String, Object> second = executions.get(1).getTrigger().getVariables();
+            assertThat(((Map<?, ?>) second.get("input")).get("ticket"), is("T-2"));
+            assertThat(((Map<?, ?>) second.get("message")).get("content"), is("Goodbye!"));
+
+            assertThat(kvStore.exists("prompts_1"), is(false));
+            assertThat(kvStore.exists("prompts_2"), is(false));
+            assertThat(kvStore.exists("unrelated"), is(true));
+
+            // the model is loaded once with the keep alive, which is then sent with every prompt
+            assertThat(server.requests.get(0).path(), is("/api/generate"));
+            assertThat(server.requests.get(1).body(), containsString("\"keep_alive\":\"-1\""));
+            assertThat(server.requests.get(1).body(), containsString("\"role\":\"system\""));
+        }
+    }
+
+    @Test
+    void shouldMoveFailedPromptsAside() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer()
+            .respond("/api/generate", "{\"model\":\"llama3.2\",\"response\":\"\",\"done\":true}")
+            .respond("/api/chat", RealtimeTriggerTest::chatResponse)
+        ) {
+            RealtimeTrigger trigger = trigger(server)
+                .failedKeyPrefix(Property.ofValue("failed_"))
+                .build();
+            Map.Entry<ConditionContext, Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+            KVStore kvStore = context.getKey().getRunContext().namespaceKv(context.getKey().getFlow().getNamespace());
+
+            put(kvStore, "prompts_a", "broken");
+            put(kvStore, "prompts_b", "Hello");
+
+            List<Execution> executions = Flux.from(trigger.evaluate(context.getKey(), context.getValue()))
+                .take(1)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+            Await.until(() -> exists(kvStore, "failed_prompts_a"), Duration.ofMillis(50), Duration.ofSeconds(10));
+            trigger.kill();
+
+            assertThat(executions, hasSize(1));
+            assertThat(executions.get(0).getTrigger().getVariables().get("key"), is("prompts_b"));
+            assertThat(kvStore.getValue("failed_prompts_a").orElseThrow().value(), is("broken"));
+        }
+    }
+
+    private RealtimeTrigger.RealtimeTriggerBuilder<?, ?> trigger(OllamaStubServer server) {
+        return RealtimeTrigger.builder()
+            .id(RealtimeTrigger.class.getSimpleName() + IdUtils.create())
+            .type(RealtimeTrigger.class.getName())
+            .host(Property.ofValue(server.host()))
+            .model(Property.ofValue("llama3.2"))
+            .system(Property.ofValue("You are a polite assistant."))
+            .keyPrefix(Property.ofValue("prompts_"))
+            .keepAlive(Property.ofValue(Duration.ofSeconds(-1)))
+            .interval(Property.ofValue(Duration.ofMillis(50)));
+    }
+
+    private static void put(KVStore kvStore, String key, Object value) throws Exception {
+        kvStore.put(key, new KVValueAndMetadata(new KVMetadata(null, (Duration) null), value));
+    }
+
+    private static boolean exists(KVStore kvStore, String key) {
+        try {
+            return kvStore.exists(key);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
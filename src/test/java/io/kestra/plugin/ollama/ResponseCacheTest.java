@@ -0,0 +1,142 @@
+package io.kestra.plugin.ollama;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.executions.AbstractMetricEntry;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.ollama.cache.ResponseCache;
+import io.kestra.plugin.ollama.client.ChatMessage;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@KestraTest
+class ResponseCacheTest {
+    private static final String TAGS_RESPONSE = """
+        {"models":[{"name":"llama3.2:latest","model":"llama3.2:latest","digest":"a80c4f17acd5","size":2019393189}]}
+        """;
+
+    private static final String CHAT_RESPONSE = """
+        {"model":"llama3.2","message":{"role":"assistant","content":"BUG"},"done":true,"done_reason":"stop","eval_count":1}
+        """;
+
+    private static final String GENERATE_RESPONSE = """
+        {"model":"llama3.2","response":"QUES","done":false}
+        {"model":"llama3.2","response":"TION","done":false}
+        {"model":"llama3.2","response":"","done":true,"done_reason":"stop","eval_count":2}
+        """;
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldAnswerRepeatedChatFromLocalCache() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/tags", TAGS_RESPONSE).respond("/api/chat", CHAT_RESPONSE)) {
+            ResponseCache cache = ResponseCache.builder()
+                .store(Property.ofValue(ResponseCache.Store.LOCAL))
+                .directory(Property.ofValue(Files.createTempDirectory("ollama-cache").toString()))
+                .build();
+
+            Chat task = Chat.builder()
+                .id(Chat.class.getSimpleName() + IdUtils.create())
+                .type(Chat.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("llama3.2"))
+                .options(Property.ofValue(Map.of("seed", 42, "temperature", 0)))
+                .messages(Property.ofValue(List.of(ChatMessage.builder().role("user").content("App crashes on start").build())))
+                .responseCache(cache)
+                .build();
+
+            RunContext first = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            RunContext second = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+            assertThat(task.run(first).getMessage().getContent(), is("BUG"));
+            assertThat(task.run(second).getMessage().getContent(), is("BUG"));
+
+            assertThat(server.requests.stream().filter(request -> request.path().equals("/api/chat")).toList(), hasSize(1));
+            assertThat(counter(first, ResponseCache.MISSES_METRIC), is(1.0));
+            assertThat(counter(second, ResponseCache.HITS_METRIC), is(1.0));
+        }
+    }
+
+    @Test
+    void shouldAnswerRepeatedGenerateFromKvCache() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/tags", TAGS_RESPONSE).respond("/api/generate", GENERATE_RESPONSE)) {
+            Generate task = Generate.builder()
+                .id(Generate.class.getSimpleName() + IdUtils.create())
+                .type(Generate.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("llama3.2"))
+                .prompt(Property.ofValue("Is 'how do I export?' a BUG, FEATURE or QUESTION? " + IdUtils.create()))
+                .responseCache(ResponseCache.builder().ttl(Property.ofValue(Duration.ofMinutes(5))).build())
+                .build();
+
+            RunContext first = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            RunContext second = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+            assertThat(task.run(first).getResponse(), is("QUESTION"));
+            assertThat(task.run(second).getResponse(), is("QUESTION"));
+
+            assertThat(server.requests.stream().filter(request -> request.path().equals("/api/generate")).toList(), hasSize(1));
+            assertThat(counter(second, ResponseCache.HITS_METRIC), is(1.0));
+        }
+    }
+
+    @Test
+    void shouldBypassTheCacheUntilTheModelDigestIsKnown() throws Exception {
+        AtomicReference<String> tags = new AtomicReference<>("{\"models\":[]}");
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/tags", body -> tags.get()).respond("/api/chat", CHAT_RESPONSE)) {
+            Chat task = Chat.builder()
+                .id(Chat.class.getSimpleName() + IdUtils.create())
+                .type(Chat.class.getName())
+                .host(Property.ofValue(server.host()))
+                .model(Property.ofValue("llama3.2"))
+                .messages(Property.ofValue(List.of(ChatMessage.builder().role("user").content("Login fails " + IdUtils.create()).build())))
+                .responseCache(ResponseCache.builder()
+                    .store(Property.ofValue(ResponseCache.Store.LOCAL))
+                    .directory(Property.ofValue(Files.createTempDirectory("ollama-cache").toString()))
+                    .build()
+                )
+                .build();
+
+            RunContext unknown = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            task.run(unknown);
+            task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+            assertThat(server.requests.stream().filter(request -> request.path().equals("/api/chat")).toList(), hasSize(2));
+            assertThat(counter(unknown, ResponseCache.MISSES_METRIC), nullValue());
+
+            // the model shows up as soon as it is pulled, the missing digest isn't memoized
+            tags.set(TAGS_RESPONSE);
+            task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+            RunContext known = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+            task.run(known);
+
+            assertThat(server.requests.stream().filter(request -> request.path().equals("/api/chat")).toList(), hasSize(3));
+            assertThat(counter(known, ResponseCache.HITS_METRIC), is(1.0));
+        }
+    }
+
+    private static Object counter(RunContext runContext, String name) {
+        return runContext.metrics().stream()
+            .filter(metric -> metric.getName().equals(name))
+            .map(AbstractMetricEntry::getValue)
+            .findFirst()
+            .orElse(null);
+    }
+}
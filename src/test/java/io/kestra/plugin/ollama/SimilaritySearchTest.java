@@ -0,0 +1,155 @@
+package io.kestra.plugin.ollama;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.storages.StorageInterface;
+import io.kestra.core.tenant.TenantService;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.ollama.cache.InternalStore;
+import io.kestra.plugin.ollama.embedding.EmbeddingFile;
+import io.kestra.plugin.ollama.embedding.EmbeddingFileWriter;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@KestraTest
+class SimilaritySearchTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Inject
+    private StorageInterface storageInterface;
+
+    /**
+     * Answers each input, a number of degrees, with the unit vector at that angle.
+     */
+    static String angleResponse(String body) {
+        try {
+            List<?> inputs = (List<?>) JacksonMapper.toMap(body).get("input");
+            String embeddings = inputs.stream()
+                .map(input -> angle(Double.parseDouble(input.toString())))
+                .map(vector -> "[" + vector[0] + "," + vector[1] + "]")
+                .collect(Collectors.joining(","));
+            return "{\"model\":\"nomic-embed-text\",\"embeddings\":[" + embeddings + "]}";
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void shouldReturnTheClosestRowsOfAJsonlFile() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/embed", SimilaritySearchTest::angleResponse)) {
+            // vectors of length 2 at every degree, so that only cosine ranks them by angle
+            String rows = IntStream.range(0, 360)
+                .mapToObj(i -> "{\"id\":\"doc-" + i + "\",\"embedding\":[" + 2 * angle(i)[0] + "," + 2 * angle(i)[1] + "]}")
+                .collect(Collectors.joining("\n"));
+
+            SimilaritySearch task = task(server)
+                .from(Property.ofValue(upload(rows.getBytes(StandardCharsets.UTF_8), ".jsonl").toString()))
+                .idField(Property.ofValue("id"))
+                .queries(Property.ofValue(List.of("30.2", "359.9")))
+                .topK(Property.ofValue(3))
+                .concurrency(Property.ofValue(4))
+                .build();
+
+            SimilaritySearch.Output output = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+            assertThat(output.getResults().get(0).getQuery(), is("30.2"));
+            assertThat(ids(output.getResults().get(0)), is(List.of("doc-30", "doc-31", "doc-29")));
+            assertThat((double) output.getResults().get(0).getMatches().get(0).getScore(), closeTo(1, 1e-4));
+            assertThat(ids(output.getResults().get(1)), is(List.of("doc-0", "doc-359", "doc-1")));
+            assertThat(output.getIndexBuilt(), nullValue());
+        }
+    }
+
+    @Test
+    void shouldBuildTheIndexOnceAndReuseIt() throws Exception {
+        try (OllamaStubServer server = new OllamaStubServer().respond("/api/embed", SimilaritySearchTest::angleResponse)) {
+            Path file = Files.createTempFile("angles", ".emb");
+            try (EmbeddingFileWriter writer = new EmbeddingFileWriter(file, EmbeddingFile.Precision.FLOAT32)) {
+                for (int i = 0; i < 3600; i++) {
+                    writer.write("doc-" + i, angle(i / 10.0));
+                }
+            }
+            URI from;
+            try (InputStream input = Files.newInputStream(file)) {
+                from = upload(input.readAllBytes(), ".emb");
+            }
+            Files.delete(file);
+
+            String index = "indexes/" + IdUtils.create() + ".hnsw";
+            SimilaritySearch first = task(server)
+                .from(Property.ofValue(from.toString()))
+                .queries(Property.ofValue(List.of("123.42")))
+                .topK(Property.ofValue(2))
+                .index(Property.ofValue(index))
+                .build();
+            RunContext runContext = TestsUtils.mockRunContext(runContextFactory, first, Map.of());
+
+            SimilaritySearch.Output built = first.run(runContext);
+
+            assertThat(built.getIndexBuilt(), is(true));
+            assertThat(ids(built.getResults().get(0)), is(List.of("doc-1234", "doc-1235")));
+            assertThat(InternalStore.of(runContext, runContext.flowInfo().namespace()).exists(Path.of(index)), is(true));
+            assertThat(runContext.storage().namespace().exists(Path.of(index)), is(false));
+
+            SimilaritySearch second = task(server)
+                .from(Property.ofValue(from.toString()))
+                .queries(Property.ofValue(List.of("123.42")))
+                .topK(Property.ofValue(2))
+                .index(Property.ofValue(index))
+                .build();
+
+            SimilaritySearch.Output reused = second.run(TestsUtils.mockRunContext(runContextFactory, second, Map.of()));
+
+            assertThat(reused.getIndexBuilt(), is(false));
+            assertThat(ids(reused.getResults().get(0)), is(List.of("doc-1234", "doc-1235")));
+        }
+    }
+
+    private static SimilaritySearch.SimilaritySearchBuilder<?, ?> task(OllamaStubServer server) {
+        return SimilaritySearch.builder()
+            .id(SimilaritySearch.class.getSimpleName() + IdUtils.create())
+            .type(SimilaritySearch.class.getName())
+            .host(Property.ofValue(server.host()))
+            .model(Property.ofValue("nomic-embed-text"));
+    }
+
+    private static float[] angle(double degrees) {
+        return new float[] {(float) Math.cos(Math.toRadians(degrees)), (float) Math.sin(Math.toRadians(degrees))};
+    }
+
+    private static List<String> ids(SimilaritySearch.Result result) {
+        return result.getMatches().stream().map(SimilaritySearch.Match::getId).toList();
+    }
+
+    private URI upload(byte[] content, String extension) throws Exception {
+        return storageInterface.put(
+            TenantService.MAIN_TENANT,
+            null,
+            URI.create("/" + IdUtils.create() + extension),
+            new ByteArrayInputStream(content)
+        );
+    }
+}
@@ -0,0 +1,48 @@
+package io.kestra.plugin.ollama.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class DiskLruCacheStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntries() throws Exception {
+        DiskLruCacheStore store = DiskLruCacheStore.of(directory, 10);
+
+        store.put("a", bytes("1234"), Duration.ofHours(1));
+        store.put("b", bytes("1234"), Duration.ofHours(1));
+        assertThat(store.get("a", Duration.ofHours(1)).isPresent(), is(true));
+
+        store.put("c", bytes("1234"), Duration.ofHours(1));
+
+        assertThat(store.get("a", Duration.ofHours(1)).isPresent(), is(true));
+        assertThat(store.get("b", Duration.ofHours(1)).isPresent(), is(false));
+        assertThat(store.get("c", Duration.ofHours(1)).isPresent(), is(true));
+        assertThat(store.size(), is(8L));
+        assertThat(Files.exists(directory.resolve("b.cache")), is(false));
+    }
+
+    @Test
+    void shouldExpireEntriesOlderThanTtl() throws Exception {
+        DiskLruCacheStore store = DiskLruCacheStore.of(directory, 1024);
+
+        store.put("a", bytes("value"), Duration.ofHours(1));
+
+        assertThat(store.get("a", Duration.ZERO.minusSeconds(1)).isPresent(), is(false));
+        assertThat(store.get("a", Duration.ofHours(1)).isPresent(), is(false));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
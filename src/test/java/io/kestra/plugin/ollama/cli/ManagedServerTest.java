@@ -0,0 +1,146 @@
+package io.kestra.plugin.ollama.cli;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.utils.IdUtils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ManagedServerTest {
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    @Test
+    void shouldReuseTheServerOfTheSameKey() throws Exception {
+        FakeEngine engine = new FakeEngine();
+        AtomicInteger opened = new AtomicInteger();
+        ManagedServer.EngineFactory factory = spec -> {
+            opened.incrementAndGet();
+            return engine;
+        };
+        ManagedServer.Spec spec = spec();
+
+        try (
+            ManagedServer.Lease first = ManagedServer.acquire(spec, factory);
+            ManagedServer.Lease second = ManagedServer.acquire(spec, factory)
+        ) {
+            assertThat(second.containerName(), is(first.containerName()));
+            assertThat(opened.get(), is(1));
+            assertThat(engine.started, is(List.of(first.containerName(), first.containerName())));
+        }
+
+        try (ManagedServer.Lease other = ManagedServer.acquire(spec(), factory)) {
+            assertThat(other.containerName(), not(engine.started.get(0)));
+            assertThat(opened.get(), is(2));
+        }
+    }
+
+    @Test
+    void shouldOnlyReapServersIdleForTheirTimeout() throws Exception {
+        FakeEngine engine = new FakeEngine();
+        ManagedServer.Spec spec = spec();
+
+        ManagedServer.Lease lease = ManagedServer.acquire(spec, s -> engine);
+        ManagedServer.reap(Instant.now().plus(IDLE_TIMEOUT).plusSeconds(1));
+        assertThat("a leased server is kept", engine.removed, is(List.of()));
+
+        lease.close();
+        ManagedServer.reap(Instant.now().plus(IDLE_TIMEOUT).minusSeconds(60));
+        assertThat("a server idle for less than its timeout is kept", engine.removed, is(List.of()));
+
+        ManagedServer.reap(Instant.now().plus(IDLE_TIMEOUT).plusSeconds(1));
+        assertThat(engine.removed, is(List.of(lease.containerName())));
+        assertThat(engine.closed, is(true));
+
+        // the next task gets a new server
+        FakeEngine next = new FakeEngine();
+        try (ManagedServer.Lease again = ManagedServer.acquire(spec, s -> next)) {
+            assertThat(next.started, is(List.of(lease.containerName())));
+        }
+    }
+
+    @Test
+    void shouldReleaseTheLeaseWhenTheServerFailsToStart() throws Exception {
+        FakeEngine engine = new FakeEngine();
+        engine.failure = new IllegalStateException("image not found");
+        ManagedServer.Spec spec = spec();
+
+        assertThrows(IllegalStateException.class, () -> ManagedServer.acquire(spec, s -> engine));
+
+        ManagedServer.reap(Instant.now().plus(IDLE_TIMEOUT).plusSeconds(1));
+        assertThat(engine.closed, is(true));
+    }
+
+    @Test
+    void shouldNotBlockOtherServersWhileOneIsStarting() throws Exception {
+        FakeEngine slow = new FakeEngine();
+        slow.startLatch = new CountDownLatch(1);
+
+        CompletableFuture<ManagedServer.Lease> starting = CompletableFuture.supplyAsync(() -> acquire(spec(), slow));
+        try {
+            assertThat(slow.entered.await(10, TimeUnit.SECONDS), is(true));
+
+            // e.g. an image being pulled for one server doesn't hold the tasks of another
+            CompletableFuture.supplyAsync(() -> acquire(spec(), new FakeEngine())).get(10, TimeUnit.SECONDS).close();
+            assertThat(starting.isDone(), is(false));
+        } finally {
+            slow.startLatch.countDown();
+        }
+
+        starting.get(10, TimeUnit.SECONDS).close();
+    }
+
+    private static ManagedServer.Lease acquire(ManagedServer.Spec spec, FakeEngine engine) {
+        try {
+            return ManagedServer.acquire(spec, s -> engine);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ManagedServer.Spec spec() {
+        return new ManagedServer.Spec(IdUtils.create(), null, null, "ollama/ollama", null, IDLE_TIMEOUT);
+    }
+
+    private static class FakeEngine implements ManagedServer.Engine {
+        final List<String> started = new CopyOnWriteArrayList<>();
+        final List<String> removed = new CopyOnWriteArrayList<>();
+        volatile boolean closed;
+        volatile RuntimeException failure;
+        volatile CountDownLatch startLatch;
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        @Override
+        public void ensureRunning(String name, ManagedServer.Spec spec) throws Exception {
+            this.entered.countDown();
+            if (this.startLatch != null) {
+                this.startLatch.await();
+            }
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            this.started.add(name);
+        }
+
+        @Override
+        public void remove(String name) {
+            this.removed.add(name);
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+}
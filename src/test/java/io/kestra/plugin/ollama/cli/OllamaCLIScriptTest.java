@@ -0,0 +1,144 @@
+package io.kestra.plugin.ollama.cli;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Runs the scripts generated by {@link OllamaCLI} with {@code sh} against a fake {@code ollama} command, which logs
+ * its arguments to {@code calls.log}.
+ */
+class OllamaCLIScriptTest {
+    @TempDir
+    Path bin;
+
+    @Test
+    void shouldOnlyPullMissingModels() throws Exception {
+        fakeOllama("""
+            case "$1" in
+              show) [ "$2" = "installed:latest" ] ;;
+              pull) exit 0 ;;
+            esac
+            """);
+
+        Result result = this.run(OllamaCLI.ensureModelsCommand(List.of("installed:latest", "llama3", "it's:7b"), false));
+
+        assertThat(result.exitCode(), is(0));
+        assertThat(result.output(), containsString("Model installed:latest is already installed"));
+        assertThat(this.calls(), is(List.of("show installed:latest", "show llama3", "pull llama3", "show it's:7b", "pull it's:7b")));
+    }
+
+    @Test
+    void shouldStopAtTheFirstFailedPull() throws Exception {
+        fakeOllama("""
+            case "$1" in
+              show) exit 1 ;;
+              pull) [ "$2" != "missing" ] ;;
+            esac
+            """);
+
+        Result result = this.run(OllamaCLI.ensureModelsCommand(List.of("missing", "llama3"), false));
+
+        assertThat(result.exitCode(), is(1));
+        assertThat(this.calls(), is(List.of("show missing", "pull missing")));
+    }
+
+    @Test
+    void shouldLockSharedCachePullsLikePullModel() {
+        String script = OllamaCLI.ensureModelsCommand(List.of("llama3", "gemma3:1b"), true);
+
+        assertThat(script, containsString("__ollama_ensure 'llama3' 'llama3_latest.lock' || exit 1"));
+        assertThat(script, containsString("__ollama_ensure 'gemma3:1b' 'gemma3_1b.lock' || exit 1"));
+        assertThat(script, containsString("flock \"/root/.ollama/.kestra-locks/$2\""));
+        // without flock the pull fails instead of running unlocked
+        assertThat(script, containsString("""
+                echo "flock is required to pull $1 into the shared model cache, add it to the image or disable enableModelCaching" >&2
+                return 1
+            """));
+    }
+
+    @Test
+    void shouldWaitForTheServerWithABackoff() throws Exception {
+        // the server answers on the seventh attempt
+        fakeOllama("""
+            echo -v >> "%s"
+            [ "$(grep -c . "%s")" -ge 7 ] && echo "ollama version is 0.9.0"
+            exit 0
+            """.formatted(this.bin.resolve("attempts.log"), this.bin.resolve("attempts.log")));
+        fakeSleep();
+
+        Result result = this.run(OllamaCLI.serverReadyCommand(Duration.ofSeconds(30), false));
+
+        assertThat(result.exitCode(), is(0));
+        assertThat(this.calls().stream().filter(call -> call.startsWith("sleep")).toList(), is(List.of(
+            "sleep 0.05", "sleep 0.1", "sleep 0.25", "sleep 0.5", "sleep 1", "sleep 1"
+        )));
+        assertThat(result.output(), matchesPattern("(?s).*::\\{\"metrics\":\\[\\{\"name\":\"server.startup.duration\",\"type\":\"timer\",\"value\":\\d+\\.\\d{3}}]}::\n"));
+    }
+
+    @Test
+    void shouldFailWhenTheServerIsNotReadyWithinTheStartupTimeout() throws Exception {
+        fakeOllama("""
+            case "$1" in
+              serve) echo "Error: could not bind 127.0.0.1:11434" ;;
+              -v) echo "could not connect to a running Ollama instance" ;;
+            esac
+            """);
+        fakeSleep();
+
+        long start = System.nanoTime();
+        Result result = this.run(OllamaCLI.serverReadyCommand(Duration.ofMillis(500), true));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(result.exitCode(), is(1));
+        assertThat(result.output(), containsString("Ollama server did not become ready within 500 ms"));
+        // the log of the server started in the background explains why
+        assertThat(result.output(), containsString("Error: could not bind 127.0.0.1:11434"));
+        assertThat(result.output(), not(containsString("server.startup.duration")));
+        assertThat(elapsed.compareTo(Duration.ofMillis(500)) >= 0, is(true));
+        assertThat(elapsed.compareTo(Duration.ofSeconds(10)) < 0, is(true));
+    }
+
+    /**
+     * Replaces {@code sleep} with a command logging its argument, so the backoff doesn't slow the tests down.
+     */
+    void fakeSleep() throws Exception {
+        Path sleep = this.bin.resolve("sleep");
+        Files.writeString(sleep, "#!/bin/sh\necho \"sleep $1\" >> \"" + this.bin.resolve("calls.log") + "\"\n");
+        Files.setPosixFilePermissions(sleep, PosixFilePermissions.fromString("rwxr-xr-x"));
+    }
+
+    void fakeOllama(String body) throws Exception {
+        Path ollama = this.bin.resolve("ollama");
+        Files.writeString(ollama, "#!/bin/sh\necho \"$@\" >> \"" + this.bin.resolve("calls.log") + "\"\n" + body);
+        Files.setPosixFilePermissions(ollama, PosixFilePermissions.fromString("rwxr-xr-x"));
+    }
+
+    List<String> calls() throws Exception {
+        Path log = this.bin.resolve("calls.log");
+        return Files.exists(log) ? Files.readAllLines(log) : List.of();
+    }
+
+    Result run(String script) throws Exception {
+        ProcessBuilder builder = new ProcessBuilder("sh", "-c", script).redirectErrorStream(true);
+        builder.environment().put("PATH", this.bin + ":" + System.getenv("PATH"));
+        Process process = builder.start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        return new Result(process.waitFor(), output);
+    }
+
+    record Result(int exitCode, String output) {
+    }
+}
@@ -0,0 +1,79 @@
+package io.kestra.plugin.ollama.cli;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@KestraTest
+class OllamaLogConsumerTest {
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldCollapseProgressBarsIntoPeriodicSummaries() throws Exception {
+        try (OllamaLogConsumer consumer = consumer()) {
+            List<String> logged = new ArrayList<>();
+            for (int i = 0; i <= 40; i++) {
+                // a frame every 250 ms, 2.5% each
+                int percent = Math.min(100, i * 5 / 2);
+                logged.add(consumer.collapse(
+                    "pulling dde5aa3fc5ff: %3d%% ▕██      ▏ %d MB/2.0 GB   52 MB/s     21s".formatted(percent, percent * 20),
+                    START.plusMillis(i * 250L)
+                ));
+            }
+            // the final screen redraw
+            logged.add(consumer.collapse("pulling dde5aa3fc5ff: 100% ▕████████▏ 2.0 GB", START.plusSeconds(11)));
+
+            assertThat(logged.stream().filter(Objects::nonNull).toList(), is(List.of(
+                "pulling dde5aa3fc5ff: 0% of 2.0 GB (0 MB) at 52 MB/s, 21s left",
+                "pulling dde5aa3fc5ff: 20% of 2.0 GB (400 MB) at 52 MB/s, 21s left",
+                "pulling dde5aa3fc5ff: 40% of 2.0 GB (800 MB) at 52 MB/s, 21s left",
+                "pulling dde5aa3fc5ff: 60% of 2.0 GB (1200 MB) at 52 MB/s, 21s left",
+                "pulling dde5aa3fc5ff: 80% of 2.0 GB (1600 MB) at 52 MB/s, 21s left",
+                "pulling dde5aa3fc5ff: 100% of 2.0 GB (2000 MB)"
+            )));
+        }
+    }
+
+    @Test
+    void shouldLogSpinnerStatusOnceAndKeepOtherLines() throws Exception {
+        try (OllamaLogConsumer consumer = consumer()) {
+            assertThat(consumer.collapse("pulling manifest ⠋", START), is("pulling manifest"));
+            assertThat(consumer.collapse("pulling manifest ⠙", START.plusMillis(100)), nullValue());
+            assertThat(consumer.collapse("verifying sha256 digest", START.plusSeconds(1)), is("verifying sha256 digest"));
+            assertThat(consumer.collapse("Accuracy: 95% of cases", START.plusSeconds(2)), is("Accuracy: 95% of cases"));
+            assertThat(consumer.collapse("Accuracy: 95% of cases", START.plusSeconds(3)), is("Accuracy: 95% of cases"));
+        }
+    }
+
+    private OllamaLogConsumer consumer() {
+        OllamaCLI task = OllamaCLI.builder()
+            .id(OllamaCLI.class.getSimpleName() + IdUtils.create())
+            .type(OllamaCLI.class.getName())
+            .commands(Property.ofValue(List.of("ollama pull llama3.2")))
+            .build();
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, task, Map.of());
+
+        return new OllamaLogConsumer(runContext, null, "127.0.0.1:11434", Duration.ofSeconds(2));
+    }
+}
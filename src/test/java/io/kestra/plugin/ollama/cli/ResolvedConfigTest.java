@@ -0,0 +1,87 @@
+package io.kestra.plugin.ollama.cli;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@KestraTest
+class ResolvedConfigTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldRenderEveryPropertyOnce() throws Exception {
+        OllamaCLI task = constantTask(OllamaCLI.class.getSimpleName() + IdUtils.create());
+
+        ResolvedConfig config = ResolvedConfig.resolve(TestsUtils.mockRunContext(runContextFactory, task, Map.of()), task);
+
+        assertThat(config.commands(), is(List.of("ollama run llama3.2 'Hello'")));
+        assertThat(config.runModel(), is("llama3.2"));
+        assertThat(config.env(), is(Map.of("OLLAMA_HOST", "http://ollama:11434", "OLLAMA_DEBUG", "1")));
+        assertThat(config.containerImage(), is(ResolvedConfig.DEFAULT_IMAGE));
+        assertThat(config.serverStartupTimeout(), is(ResolvedConfig.DEFAULT_SERVER_STARTUP_TIMEOUT));
+    }
+
+    @Test
+    void shouldRenderExpressionsForEachRun() throws Exception {
+        String id = OllamaCLI.class.getSimpleName() + IdUtils.create();
+
+        // properties keep their rendered value, so each run gets its own instance like a task deserialized for an execution
+        OllamaCLI task = expressionTask(id);
+        ResolvedConfig first = ResolvedConfig.resolve(TestsUtils.mockRunContext(runContextFactory, task, Map.of("host", "http://a:11434")), task);
+
+        OllamaCLI sameTask = expressionTask(id);
+        ResolvedConfig second = ResolvedConfig.resolve(TestsUtils.mockRunContext(runContextFactory, sameTask, Map.of("host", "http://b:11434")), sameTask);
+
+        assertThat(first.host(), is("http://a:11434"));
+        assertThat(second.host(), is("http://b:11434"));
+        assertThat(second.env().get("OLLAMA_HOST"), is("http://b:11434"));
+    }
+
+    @Test
+    void shouldOnlyRenderTheEnvironmentForGetEnv() throws Exception {
+        // the commands can't render in this run, which getEnv must not notice
+        OllamaCLI task = OllamaCLI.builder()
+            .id(OllamaCLI.class.getSimpleName() + IdUtils.create())
+            .type(OllamaCLI.class.getName())
+            .commands(Property.ofExpression("{{ inputs.undefined }}"))
+            .host(Property.ofValue("http://ollama:11434"))
+            .env(Property.ofValue(Map.of("OLLAMA_DEBUG", "1")))
+            .build();
+
+        Map<String, String> env = task.getEnv(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+        assertThat(env, is(Map.of("OLLAMA_HOST", "http://ollama:11434", "OLLAMA_DEBUG", "1")));
+    }
+
+    private static OllamaCLI expressionTask(String id) {
+        return OllamaCLI.builder()
+            .id(id)
+            .type(OllamaCLI.class.getName())
+            .commands(Property.ofValue(List.of("ollama list")))
+            .host(Property.ofExpression("{{ inputs.host }}"))
+            .build();
+    }
+
+    private static OllamaCLI constantTask(String id) {
+        return OllamaCLI.builder()
+            .id(id)
+            .type(OllamaCLI.class.getName())
+            .commands(Property.ofValue(List.of("ollama run llama3.2 'Hello'")))
+            .host(Property.ofValue("http://ollama:11434"))
+            .env(Property.ofValue(Map.of("OLLAMA_DEBUG", "1")))
+            .build();
+    }
+}
@@ -0,0 +1,78 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.utils.IdUtils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimiterTest {
+    @Test
+    void shouldTimeOutWhenAllSlotsAreTaken() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.of("http://" + IdUtils.create() + ":11434", 2);
+
+        try (
+            ConcurrencyLimiter.Permit first = limiter.acquire(Duration.ofSeconds(1));
+            ConcurrencyLimiter.Permit second = limiter.acquire(Duration.ofSeconds(1))
+        ) {
+            assertThat(first.waited().compareTo(Duration.ofMillis(500)) < 0, is(true));
+            assertThrows(IOException.class, () -> limiter.acquire(Duration.ofMillis(50)));
+        }
+
+        try (ConcurrencyLimiter.Permit third = limiter.acquire(Duration.ofMillis(50))) {
+            assertThat(third.queueDepth(), is(0));
+        }
+    }
+
+    @Test
+    void shouldReleaseWaitingRequestsWhenSlotFreesUp() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.of("http://" + IdUtils.create() + ":11434", 1);
+
+        ConcurrencyLimiter.Permit holder = limiter.acquire(Duration.ofSeconds(1));
+        CompletableFuture<ConcurrencyLimiter.Permit> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire(Duration.ofSeconds(10));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        Thread.sleep(100);
+        holder.close();
+
+        try (ConcurrencyLimiter.Permit permit = waiting.get(5, TimeUnit.SECONDS)) {
+            assertThat(permit.waited().toMillis(), greaterThan(50L));
+        }
+    }
+
+    @Test
+    void shouldApplyRaisedLimitToWaitingRequests() throws Exception {
+        String host = "http://" + IdUtils.create() + ":11434";
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.of(host, 1);
+
+        try (ConcurrencyLimiter.Permit holder = limiter.acquire(Duration.ofSeconds(1))) {
+            CompletableFuture<ConcurrencyLimiter.Permit> waiting = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return limiter.acquire(Duration.ofSeconds(10));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            Thread.sleep(100);
+            ConcurrencyLimiter.of(host, 2);
+
+            try (ConcurrencyLimiter.Permit permit = waiting.get(5, TimeUnit.SECONDS)) {
+                assertThat(permit.host(), is(host));
+            }
+        }
+    }
+}
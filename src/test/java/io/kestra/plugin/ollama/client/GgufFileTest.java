@@ -0,0 +1,127 @@
+package io.kestra.plugin.ollama.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GgufFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadMetadataAndTensorsWithoutTheData() throws Exception {
+        Path file = this.directory.resolve("model.gguf");
+        Files.write(file, gguf(1024 * 1024));
+
+        GgufFile gguf = GgufFile.read(file);
+
+        assertThat(gguf.version(), is(3));
+        assertThat(gguf.architecture(), is("llama"));
+        assertThat(gguf.architectureValue("context_length"), is(131072L));
+        assertThat(gguf.fileType(), is("Q4_K_M"));
+        assertThat(gguf.metadata().get("general.name"), is("Tiny"));
+        assertThat(gguf.metadata().get("tokenizer.ggml.add_bos_token"), is(true));
+        assertThat(gguf.metadata().get("llama.rope.dimension_sections"), is(List.of(1L, 2L)));
+        assertThat(gguf.metadata().get("tokenizer.ggml.tokens"), is(new GgufFile.SkippedArray("STRING", 100)));
+        assertThat(gguf.metadata().get("general.after_tokens"), is("still read"));
+
+        assertThat(gguf.tensors().size(), is(2));
+        assertThat(gguf.tensors().get(0).shape(), is(List.of(2048L, 128L)));
+        assertThat(gguf.parameterCount(), is(2048L * 128 + 2048));
+        assertThat(gguf.tensorTypes(), is(Map.of("Q4_K", 1L, "F32", 1L)));
+        assertThat(gguf.dataOffset() % 32, is(0L));
+        assertThat(gguf.size(), is(Files.size(file)));
+    }
+
+    @Test
+    void shouldRejectOtherFiles() throws Exception {
+        Path file = this.directory.resolve("not.gguf");
+        Files.writeString(file, "{\"schemaVersion\":2}");
+
+        assertThrows(IOException.class, () -> GgufFile.read(file));
+    }
+
+    @Test
+    void shouldFindTheModelBlobFromTheManifest() throws Exception {
+        Path models = this.directory.resolve("models");
+        Path manifest = models.resolve(ModelManifest.manifestPath("tiny:1b"));
+        Files.createDirectories(manifest.getParent());
+        Files.writeString(manifest, """
+            {"schemaVersion":2,"layers":[
+              {"mediaType":"application/vnd.ollama.image.template","digest":"sha256:aaa","size":10},
+              {"mediaType":"application/vnd.ollama.image.model","digest":"sha256:bbb","size":20}
+            ]}
+            """);
+        Files.createDirectories(models.resolve("blobs"));
+        Files.write(models.resolve("blobs").resolve("sha256-bbb"), gguf(0));
+
+        assertThat(ModelManifest.modelBlob(models, "tiny:1b").orElseThrow(), is(models.resolve("blobs").resolve("sha256-bbb")));
+        assertThat(ModelManifest.modelBlob(models, "other").isPresent(), is(false));
+    }
+
+    /**
+     * Builds a small GGUF v3 file followed by {@code dataSize} bytes of tensor data.
+     */
+    private static byte[] gguf(int dataSize) throws IOException {
+        Writer writer = new Writer();
+        writer.int32(0x46554747).int32(3).int64(2).int64(8);
+
+        writer.string("general.architecture").int32(8).string("llama");
+        writer.string("general.name").int32(8).string("Tiny");
+        writer.string("general.file_type").int32(4).int32(15);
+        writer.string("llama.context_length").int32(4).int32(131072);
+        writer.string("tokenizer.ggml.add_bos_token").int32(7).int8(1);
+        writer.string("llama.rope.dimension_sections").int32(9).int32(4).int64(2).int32(1).int32(2);
+        writer.string("tokenizer.ggml.tokens").int32(9).int32(8).int64(100);
+        for (int i = 0; i < 100; i++) {
+            writer.string("token" + i);
+        }
+        writer.string("general.after_tokens").int32(8).string("still read");
+
+        writer.string("token_embd.weight").int32(2).int64(2048).int64(128).int32(12).int64(0);
+        writer.string("output_norm.weight").int32(1).int64(2048).int32(0).int64(2048 * 128);
+
+        writer.output.write(new byte[32 - writer.output.size() % 32]);
+        writer.output.write(new byte[dataSize]);
+        return writer.output.toByteArray();
+    }
+
+    private static class Writer {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Writer int8(int value) {
+            this.output.write(value);
+            return this;
+        }
+
+        Writer int32(int value) {
+            this.output.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array());
+            return this;
+        }
+
+        Writer int64(long value) {
+            this.output.writeBytes(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array());
+            return this;
+        }
+
+        Writer string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            this.int64(bytes.length);
+            this.output.writeBytes(bytes);
+            return this;
+        }
+    }
+}
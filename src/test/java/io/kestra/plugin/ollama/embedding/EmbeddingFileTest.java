@@ -0,0 +1,93 @@
+package io.kestra.plugin.ollama.embedding;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmbeddingFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackWhatWasWritten() throws Exception {
+        Path file = this.directory.resolve("vectors.emb");
+        try (EmbeddingFileWriter writer = new EmbeddingFileWriter(file, EmbeddingFile.Precision.FLOAT32)) {
+            for (int i = 0; i < 3000; i++) {
+                writer.write("row-" + i + (i % 7 == 0 ? "-é" : ""), new float[] {i, -i, i / 3f});
+            }
+        }
+
+        try (EmbeddingFile embeddings = EmbeddingFile.open(file)) {
+            assertThat(embeddings.count(), is(3000L));
+            assertThat(embeddings.dimensions(), is(3));
+            assertThat(embeddings.id(0), is("row-0-é"));
+            assertThat(embeddings.id(2999), is("row-2999"));
+            assertThat(embeddings.vector(1234), is(new float[] {1234, -1234, 1234 / 3f}));
+            assertThat(embeddings.row(1).getFloat(4), is(-1f));
+            assertThrows(IndexOutOfBoundsException.class, () -> embeddings.vector(3000));
+        }
+    }
+
+    @Test
+    void shouldHalveTheSizeWithFloat16() throws Exception {
+        Path file = this.directory.resolve("vectors.emb");
+        try (EmbeddingFileWriter writer = new EmbeddingFileWriter(file, EmbeddingFile.Precision.FLOAT16)) {
+            writer.write("a", new float[] {0.1f, -0.5f, 1f, 0f});
+            writer.write("b", new float[] {0.25f, 0.333f, -1f, 65504f});
+        }
+
+        // header, 2 rows of 4 halves, 3 offsets, 2 ids
+        assertThat(Files.size(file), is(64L + 16 + 24 + 2));
+
+        try (EmbeddingFile embeddings = EmbeddingFile.open(file)) {
+            float[] vector = embeddings.vector(1);
+            assertThat((double) vector[0], is(0.25));
+            assertThat((double) vector[1], closeTo(0.333, 0.001));
+            assertThat((double) vector[3], is(65504.0));
+            assertThat(embeddings.id(1), is("b"));
+        }
+    }
+
+    @Test
+    void shouldChangeTheFingerprintWhenAnyRowChanges() throws Exception {
+        Path original = this.directory.resolve("original.emb");
+        Path edited = this.directory.resolve("edited.emb");
+        try (
+            EmbeddingFileWriter originalWriter = new EmbeddingFileWriter(original, EmbeddingFile.Precision.FLOAT32);
+            EmbeddingFileWriter editedWriter = new EmbeddingFileWriter(edited, EmbeddingFile.Precision.FLOAT32)
+        ) {
+            for (int i = 0; i < 3000; i++) {
+                originalWriter.write("row-" + i, new float[] {i, -i});
+                // a single re-embedded row, with the same count and shape
+                editedWriter.write("row-" + i, i == 1501 ? new float[] {i, i} : new float[] {i, -i});
+            }
+        }
+
+        try (EmbeddingFile first = EmbeddingFile.open(original); EmbeddingFile second = EmbeddingFile.open(edited)) {
+            assertThat(first.fingerprint(), is(first.fingerprint()));
+            assertThat(first.fingerprint(), is(not(second.fingerprint())));
+        }
+    }
+
+    @Test
+    void shouldOpenEmptyFilesAndRejectOthers() throws Exception {
+        Path empty = this.directory.resolve("empty.emb");
+        new EmbeddingFileWriter(empty, EmbeddingFile.Precision.FLOAT32).close();
+
+        try (EmbeddingFile embeddings = EmbeddingFile.open(empty)) {
+            assertThat(embeddings.count(), is(0L));
+        }
+
+        Path other = Files.writeString(this.directory.resolve("other.jsonl"), "{\"embedding\":[0.1,0.2]}\n".repeat(10));
+        assertThrows(IOException.class, () -> EmbeddingFile.open(other));
+    }
+}
@@ -0,0 +1,124 @@
+package io.kestra.plugin.ollama.embedding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+class VectorSearchTest {
+    private static final int COUNT = 3000;
+    private static final int DIMENSIONS = 24;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReturnTheExactTopKWhateverThePartitioning() throws Exception {
+        float[][] vectors = vectors(new Random(1));
+        float[][] queries = {vectors[17], vectors[2999], randomVector(new Random(2))};
+
+        try (EmbeddingFile file = write(vectors, EmbeddingFile.Precision.FLOAT32)) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<List<VectorSearch.Match>> single = VectorSearch.search(file, Similarity.COSINE, queries, 10, executor, 1);
+                List<List<VectorSearch.Match>> split = VectorSearch.search(file, Similarity.COSINE, queries, 10, executor, 7);
+
+                assertThat(split, is(single));
+                assertThat(single.get(0).get(0).row(), is(17L));
+                assertThat((double) single.get(0).get(0).score(), closeTo(1, 1e-5));
+                assertThat(single.get(1).get(0).row(), is(2999L));
+
+                List<Long> expected = IntStream.range(0, COUNT).boxed()
+                    .sorted(Comparator.comparingDouble(row -> -cosine(queries[2], vectors[row])))
+                    .limit(10)
+                    .map(Integer::longValue)
+                    .toList();
+                assertThat(single.get(2).stream().map(VectorSearch.Match::row).toList(), is(expected));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void shouldFindMostExactMatchesThroughTheIndex() throws Exception {
+        float[][] vectors = vectors(new Random(3));
+
+        try (EmbeddingFile file = write(vectors, EmbeddingFile.Precision.FLOAT16)) {
+            HnswIndex index = HnswIndex.build(file, Similarity.COSINE, 16, 100);
+
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            index.write(serialized);
+            HnswIndex read = HnswIndex.read(new ByteArrayInputStream(serialized.toByteArray()));
+            assertThat(read.fingerprint(), is(file.fingerprint()));
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Random random = new Random(4);
+            int found = 0;
+            try {
+                for (int i = 0; i < 20; i++) {
+                    float[] query = randomVector(random);
+                    List<Long> exact = VectorSearch.search(file, Similarity.COSINE, new float[][] {query}, 10, executor, 1).get(0)
+                        .stream().map(VectorSearch.Match::row).toList();
+                    List<VectorSearch.Match> approximate = read.search(file, query, 10, 100);
+
+                    assertThat(approximate, is(index.search(file, query, 10, 100)));
+                    found += (int) approximate.stream().filter(match -> exact.contains(match.row())).count();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertThat(found, greaterThanOrEqualTo(180));
+        }
+    }
+
+    private EmbeddingFile write(float[][] vectors, EmbeddingFile.Precision precision) throws Exception {
+        Path path = this.directory.resolve("vectors-" + precision + ".emb");
+        try (EmbeddingFileWriter writer = new EmbeddingFileWriter(path, precision)) {
+            for (int i = 0; i < vectors.length; i++) {
+                writer.write("row-" + i, vectors[i]);
+            }
+        }
+        return EmbeddingFile.open(path);
+    }
+
+    private static float[][] vectors(Random random) {
+        float[][] vectors = new float[COUNT][];
+        for (int i = 0; i < COUNT; i++) {
+            vectors[i] = randomVector(random);
+        }
+        return vectors;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+}